@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 Ericsson
+ * Copyright (c) 2016, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -13,10 +13,13 @@ package org.eclipse.tracecompass.analysis.os.linux.core.tests.latency;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.tracecompass.internal.analysis.os.linux.core.latency.SystemCall;
 import org.eclipse.tracecompass.internal.analysis.os.linux.core.latency.SystemCallLatencyAnalysis;
 import org.eclipse.tracecompass.segmentstore.core.ISegment;
+import org.eclipse.tracecompass.segmentstore.core.ISegmentColumnCodec;
 import org.eclipse.tracecompass.segmentstore.core.ISegmentStore;
 import org.eclipse.tracecompass.testtraces.ctf.CtfTestTrace;
 import org.eclipse.tracecompass.tmf.core.analysis.IAnalysisModule;
@@ -77,4 +80,37 @@ public class SyscallAnalysisTest {
         assertNotNull(segmentStore);
         assertEquals(1801, segmentStore.size());
     }
+
+    /**
+     * Test that the system calls are held in columns, and that they are
+     * created back from the columns with the same values
+     */
+    @Test
+    public void testColumnarStore() {
+        final SystemCallLatencyAnalysis syscallModule = fSyscallModule;
+        assertNotNull(syscallModule);
+        ISegmentStore<@NonNull ISegment> segmentStore = syscallModule.getSegmentStore();
+        assertNotNull(segmentStore);
+        ISegmentColumnCodec<ISegment> codec = SystemCall.COLUMN_CODEC;
+        for (ISegment segment : segmentStore) {
+            assertTrue(segment instanceof SystemCall);
+            SystemCall syscall = (SystemCall) segment;
+            assertTrue(segmentStore.contains(syscall));
+
+            long[] longs = new long[codec.getNbLongColumns()];
+            for (int i = 0; i < longs.length; i++) {
+                longs[i] = codec.getLong(syscall, i);
+            }
+            String[] strings = new String[codec.getNbStringColumns()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = codec.getString(syscall, i);
+            }
+            SystemCall copy = (SystemCall) codec.create(syscall.getStart(), syscall.getEnd(), longs, strings);
+            assertEquals(syscall.getStart(), copy.getStart());
+            assertEquals(syscall.getEnd(), copy.getEnd());
+            assertEquals(syscall.getName(), copy.getName());
+            assertEquals(syscall.getTid(), copy.getTid());
+            assertEquals(syscall.getReturnValue(), copy.getReturnValue());
+        }
+    }
 }
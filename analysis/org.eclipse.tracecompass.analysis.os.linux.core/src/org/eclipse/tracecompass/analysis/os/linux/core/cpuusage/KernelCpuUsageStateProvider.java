@@ -17,8 +17,8 @@ package org.eclipse.tracecompass.analysis.os.linux.core.cpuusage;
 
 import static org.eclipse.tracecompass.common.core.NonNullUtils.checkNotNull;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.analysis.os.linux.core.trace.IKernelAnalysisEventLayout;
@@ -43,6 +43,9 @@ import org.eclipse.tracecompass.tmf.core.trace.TmfTraceUtils;
  *
  * It requires only the 'sched_switch' events enabled on the trace.
  *
+ * The events of each CPU only modify the attributes of that CPU, so the events
+ * are partitioned by CPU and handled concurrently.
+ *
  * Attribute tree:
  *
  * <pre>
@@ -57,8 +60,11 @@ public class KernelCpuUsageStateProvider extends AbstractTmfStateProvider {
 
     private static final int VERSION = 2;
 
-    /* For each CPU, maps the last time a thread was scheduled in */
-    private final Map<Integer, Long> fLastStartTimes = new HashMap<>();
+    /*
+     * For each CPU, maps the last time a thread was scheduled in. Each CPU's
+     * entry is only accessed by the thread handling that CPU's partition.
+     */
+    private final Map<Integer, Long> fLastStartTimes = new ConcurrentHashMap<>();
     private final long fTraceStart;
     private final IKernelAnalysisEventLayout fLayout;
 
@@ -90,6 +96,24 @@ public class KernelCpuUsageStateProvider extends AbstractTmfStateProvider {
         return new KernelCpuUsageStateProvider(this.getTrace(), this.fLayout);
     }
 
+    @Override
+    protected boolean isPartitioned() {
+        return true;
+    }
+
+    @Override
+    protected @Nullable Object getPartitionKey(ITmfEvent event) {
+        String eventName = event.getName();
+        if (eventName.equals(fLayout.eventSchedSwitch())) {
+            Integer cpu = TmfTraceUtils.resolveIntEventAspectOfClassForEvent(event.getTrace(), TmfCpuAspect.class, event);
+            if (cpu != null) {
+                return cpu;
+            }
+        }
+        /* The other events are ignored, they can go in any partition */
+        return eventName;
+    }
+
     @Override
     protected void eventHandle(@Nullable ITmfEvent event) {
         if (event == null) {
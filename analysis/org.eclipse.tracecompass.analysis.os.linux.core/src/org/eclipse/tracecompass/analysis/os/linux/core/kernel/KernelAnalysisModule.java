@@ -99,6 +99,15 @@ public class KernelAnalysisModule extends TmfStateSystemAnalysisModule {
         return new KernelStateProvider(trace, layout);
     }
 
+    /**
+     * The kernel state provider keeps all its state in the state system, so
+     * the construction of the history can be resumed.
+     */
+    @Override
+    protected boolean isResumable() {
+        return true;
+    }
+
     @Override
     protected String getFullHelpText() {
         return NonNullUtils.nullToEmptyString(Messages.LttngKernelAnalysisModule_Help);
@@ -18,6 +18,7 @@ import org.eclipse.tracecompass.datastore.core.interval.IHTIntervalReader;
 import org.eclipse.tracecompass.datastore.core.serialization.ISafeByteBufferWriter;
 import org.eclipse.tracecompass.datastore.core.serialization.SafeByteBufferFactory;
 import org.eclipse.tracecompass.segmentstore.core.ISegment;
+import org.eclipse.tracecompass.segmentstore.core.ISegmentColumnCodec;
 import org.eclipse.tracecompass.segmentstore.core.segment.interfaces.INamedSegment;
 import org.eclipse.tracecompass.tmf.core.event.lookup.ITmfCallsite;
 import org.eclipse.tracecompass.tmf.core.event.lookup.ITmfSourceLookup;
@@ -41,6 +42,55 @@ public final class SystemCall implements INamedSegment, ITmfSourceLookup, IEleme
      */
     public static final IHTIntervalReader<ISegment> READER = buffer -> new SystemCall(buffer.getLong(), buffer.getLong(), buffer.getString(), buffer.getInt(), buffer.getInt());
 
+    /**
+     * The codec of the columnar segment stores of this segment class. The name
+     * and the thread ID are dictionary encoded string columns, the return value
+     * is a long column.
+     */
+    public static final ISegmentColumnCodec<ISegment> COLUMN_CODEC = new ISegmentColumnCodec<ISegment>() {
+
+        @Override
+        public Class<SystemCall> getSegmentClass() {
+            return SystemCall.class;
+        }
+
+        @Override
+        public int getNbLongColumns() {
+            return 1;
+        }
+
+        @Override
+        public int getNbStringColumns() {
+            return 2;
+        }
+
+        @Override
+        public long getLong(ISegment segment, int column) {
+            if (column != 0) {
+                throw new IndexOutOfBoundsException("Invalid long column " + column); //$NON-NLS-1$
+            }
+            return ((SystemCall) segment).fRet;
+        }
+
+        @Override
+        public String getString(ISegment segment, int column) {
+            SystemCall syscall = (SystemCall) segment;
+            switch (column) {
+            case 0:
+                return syscall.fName;
+            case 1:
+                return String.valueOf(syscall.fTid);
+            default:
+                throw new IndexOutOfBoundsException("Invalid string column " + column); //$NON-NLS-1$
+            }
+        }
+
+        @Override
+        public ISegment create(long start, long end, long[] longs, String[] strings) {
+            return new SystemCall(start, end, strings[0], Integer.parseInt(strings[1]), (int) longs[0]);
+        }
+    };
+
     /**
      * The subset of information that is available from the syscall entry event.
      */
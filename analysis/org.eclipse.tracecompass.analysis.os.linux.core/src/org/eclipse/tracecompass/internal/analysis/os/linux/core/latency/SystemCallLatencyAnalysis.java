@@ -27,9 +27,9 @@ import org.eclipse.tracecompass.analysis.os.linux.core.trace.IKernelAnalysisEven
 import org.eclipse.tracecompass.analysis.os.linux.core.trace.IKernelTrace;
 import org.eclipse.tracecompass.analysis.timing.core.segmentstore.AbstractSegmentStoreAnalysisEventBasedModule;
 import org.eclipse.tracecompass.analysis.timing.core.segmentstore.IGroupingSegmentAspect;
-import org.eclipse.tracecompass.datastore.core.interval.IHTIntervalReader;
 import org.eclipse.tracecompass.internal.analysis.os.linux.core.SyscallLookup;
 import org.eclipse.tracecompass.segmentstore.core.ISegment;
+import org.eclipse.tracecompass.segmentstore.core.ISegmentColumnCodec;
 import org.eclipse.tracecompass.segmentstore.core.ISegmentStore;
 import org.eclipse.tracecompass.segmentstore.core.SegmentComparators;
 import org.eclipse.tracecompass.segmentstore.core.SegmentStoreFactory.SegmentStoreType;
@@ -94,17 +94,18 @@ public class SystemCallLatencyAnalysis extends AbstractSegmentStoreAnalysisEvent
 
     @Override
     protected @NonNull SegmentStoreType getSegmentStoreType() {
-        return SegmentStoreType.OnDisk;
+        /* Hold the syscalls in primitive columns instead of one object each */
+        return SegmentStoreType.Columnar;
     }
 
     @Override
-    protected AbstractSegmentStoreAnalysisRequest createAnalysisRequest(ISegmentStore<ISegment> syscalls, IProgressMonitor monitor) {
-        return new SyscallLatencyAnalysisRequest(syscalls, monitor);
+    protected @Nullable ISegmentColumnCodec<ISegment> getSegmentColumnCodec() {
+        return SystemCall.COLUMN_CODEC;
     }
 
     @Override
-    protected @NonNull IHTIntervalReader<ISegment> getSegmentReader() {
-        return SystemCall.READER;
+    protected AbstractSegmentStoreAnalysisRequest createAnalysisRequest(ISegmentStore<ISegment> syscalls, IProgressMonitor monitor) {
+        return new SyscallLatencyAnalysisRequest(syscalls, monitor);
     }
 
     private class SyscallLatencyAnalysisRequest extends AbstractSegmentStoreAnalysisRequest {
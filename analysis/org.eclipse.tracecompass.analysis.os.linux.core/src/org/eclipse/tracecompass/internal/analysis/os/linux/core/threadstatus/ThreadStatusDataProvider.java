@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017, 2021 Ericsson
+ * Copyright (c) 2017, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -47,12 +47,15 @@ import org.eclipse.tracecompass.internal.provisional.tmf.core.model.annotations.
 import org.eclipse.tracecompass.internal.tmf.core.analysis.callsite.CallsiteAnalysis;
 import org.eclipse.tracecompass.internal.tmf.core.model.AbstractTmfTraceDataProvider;
 import org.eclipse.tracecompass.internal.tmf.core.model.filters.FetchParametersUtils;
+import org.eclipse.tracecompass.internal.tmf.core.model.timegraph.AbstractTimeGraphDataProvider;
+import org.eclipse.tracecompass.internal.tmf.core.model.timegraph.TimeGraphRowTileCache;
 import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
 import org.eclipse.tracecompass.statesystem.core.StateSystemUtils.QuarkIterator;
 import org.eclipse.tracecompass.statesystem.core.exceptions.AttributeNotFoundException;
 import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
 import org.eclipse.tracecompass.statesystem.core.exceptions.TimeRangeException;
 import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateInterval;
+import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateIntervalCursor;
 import org.eclipse.tracecompass.statesystem.core.interval.TmfStateInterval;
 import org.eclipse.tracecompass.tmf.core.TmfStrings;
 import org.eclipse.tracecompass.tmf.core.analysis.callsite.ITmfCallsiteResolver;
@@ -178,6 +181,9 @@ public class ThreadStatusDataProvider extends AbstractTmfTraceDataProvider imple
     /** Cache for entry metadata */
     private final Map<Long, @NonNull Multimap<@NonNull String, @NonNull Object>> fEntryMetadata = new HashMap<>();
 
+    /** Cache of the states of the rows, by tiles of time */
+    private final TimeGraphRowTileCache fRowModelCache = new TimeGraphRowTileCache();
+
     private IOutputAnnotationProvider fEventAnnotationProvider;
 
     /**
@@ -385,15 +391,22 @@ public class ThreadStatusDataProvider extends AbstractTmfTraceDataProvider imple
             models.add(traceEntry);
             Map<Integer, Integer> rqToPidCache = new HashMap<>();
             try {
-                for (ITmfStateInterval interval : ss.query2D(quarks, Long.max(ss.getStartTime(), start), end)) {
-                    Object o = interval.getValue();
-                    if (o instanceof Number && cpus.contains(((Number) o).longValue())) {
-                        int attribute = interval.getAttribute();
+                /*
+                 * Use a cursor, most of the run queue intervals are not on the
+                 * selected CPUs and don't need to be materialized.
+                 */
+                ITmfStateIntervalCursor cursor = ss.query2DCursor(quarks, Long.max(ss.getStartTime(), start), end);
+                while (cursor.next()) {
+                    /* The run queues are int values, read them without boxing */
+                    if (!cursor.isNullValue() && cpus.contains((long) cursor.getValueInt())) {
+                        int attribute = cursor.getAttribute();
+                        long intervalStart = cursor.getStartTime();
+                        long intervalEnd = cursor.getEndTime();
 
                         try {
                             // Get the name of the thread
                             int nameQuark = ss.getQuarkRelative(ss.getParentAttributeQuark(attribute), Attributes.EXEC_NAME);
-                            Iterable<@NonNull ITmfStateInterval> names2d = ss.query2D(Collections.singleton(nameQuark), interval.getStartTime(), interval.getEndTime());
+                            Iterable<@NonNull ITmfStateInterval> names2d = ss.query2D(Collections.singleton(nameQuark), intervalStart, intervalEnd);
                             Iterable<@NonNull String> names = Iterables.transform(names2d, intervalName -> String.valueOf(intervalName.getValue()));
 
                             int tid = rqToPidCache.computeIfAbsent(attribute, a -> Attributes.parseThreadAttributeName(ss.getAttributeName(ss.getParentAttributeQuark(a))).getFirst());
@@ -402,8 +415,8 @@ public class ThreadStatusDataProvider extends AbstractTmfTraceDataProvider imple
                                 continue;
                             }
                             for (ThreadEntryModel.Builder model : tidToEntry.get(tid)) {
-                                if (interval.getStartTime() <= model.getEndTime() &&
-                                        model.getStartTime() <= interval.getEndTime()) {
+                                if (intervalStart <= model.getEndTime() &&
+                                        model.getStartTime() <= intervalEnd) {
                                     ThreadEntryModel build = build(model);
                                     if (!Iterables.any(names, name -> name.equals(build.getName()))) {
                                         continue;
@@ -454,22 +467,29 @@ public class ThreadStatusDataProvider extends AbstractTmfTraceDataProvider imple
             return new TmfModelResponse<>(null, ITmfResponse.Status.FAILED, CommonStatusMessage.ANALYSIS_INITIALIZATION_FAILED);
         }
 
+        return AbstractTimeGraphDataProvider.getRowModelResponse(ss, fetchParameters, fRowModelCache, parameters -> getRowModel(ss, parameters, monitor));
+    }
+
+    /**
+     * Get the rows of the selected threads, with the states at the requested
+     * times
+     *
+     * @return the row model, null if the query was cancelled
+     */
+    private @Nullable TimeGraphModel getRowModel(ITmfStateSystem ss, @NonNull Map<@NonNull String, @NonNull Object> fetchParameters, @Nullable IProgressMonitor monitor)
+            throws StateSystemDisposedException {
         TreeMultimap<Integer, ITmfStateInterval> intervals = TreeMultimap.create(Comparator.naturalOrder(),
                 Comparator.comparing(ITmfStateInterval::getStartTime));
         SelectionTimeQueryFilter filter = FetchParametersUtils.createSelectionTimeQuery(fetchParameters);
         Map<Long, Integer> selectedIdsToQuarks = getSelectedIdsToQuarks(filter);
         Collection<Integer> stateAndSyscallQuarks = addSyscall(selectedIdsToQuarks.values(), ss);
         Collection<Long> times = getTimes(ss, filter);
-        try {
-            /* Do the actual query */
-            for (ITmfStateInterval interval : ss.query2D(stateAndSyscallQuarks, times)) {
-                if (monitor != null && monitor.isCanceled()) {
-                    return new TmfModelResponse<>(null, ITmfResponse.Status.CANCELLED, CommonStatusMessage.TASK_CANCELLED);
-                }
-                intervals.put(interval.getAttribute(), interval);
+        /* Do the actual query */
+        for (ITmfStateInterval interval : ss.query2D(stateAndSyscallQuarks, times)) {
+            if (monitor != null && monitor.isCanceled()) {
+                return null;
             }
-        } catch (TimeRangeException | StateSystemDisposedException e) {
-            return new TmfModelResponse<>(null, ITmfResponse.Status.FAILED, String.valueOf(e.getMessage()));
+            intervals.put(interval.getAttribute(), interval);
         }
 
         Map<@NonNull Integer, @NonNull Predicate< @NonNull Multimap<@NonNull String, @NonNull Object>>> predicates = new HashMap<>();
@@ -485,7 +505,7 @@ public class ThreadStatusDataProvider extends AbstractTmfTraceDataProvider imple
             NavigableSet<ITmfStateInterval> syscalls = intervals.get(ss.optQuarkRelative(quark, Attributes.SYSTEM_CALL));
 
             if (monitor != null && monitor.isCanceled()) {
-                return new TmfModelResponse<>(null, ITmfResponse.Status.CANCELLED, CommonStatusMessage.TASK_CANCELLED);
+                return null;
             }
             List<ITimeGraphState> eventList = new ArrayList<>();
             states.forEach(i -> {
@@ -495,7 +515,7 @@ public class ThreadStatusDataProvider extends AbstractTmfTraceDataProvider imple
             });
             rows.add(new TimeGraphRowModel(entry.getKey(), eventList));
         }
-        return new TmfModelResponse<>(new TimeGraphModel(rows), ITmfResponse.Status.COMPLETED, CommonStatusMessage.COMPLETED);
+        return new TimeGraphModel(rows);
     }
 
     private Map<Long, Integer> getSelectedIdsToQuarks(SelectionTimeQueryFilter filter) {
@@ -1,5 +1,5 @@
 /**********************************************************************
- * Copyright (c) 2017, 2020 Ericsson
+ * Copyright (c) 2017, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -180,7 +180,8 @@ public class CallStackDataProvider extends AbstractTimeGraphDataProvider<@NonNul
      *            underlying {@link CallStackAnalysis} module
      */
     public CallStackDataProvider(@NonNull ITmfTrace trace, @NonNull CallStackAnalysis module) {
-        super(trace, module);
+        // The rows are cached, they are cleared when the function names are reset
+        super(trace, module, true);
     }
 
     @Override
@@ -376,6 +377,8 @@ public class CallStackDataProvider extends AbstractTimeGraphDataProvider<@NonNul
      */
     public void resetFunctionNames(@Nullable IProgressMonitor monitor) {
         fTimeEventNames.invalidateAll();
+        // the cached states are labeled with the previous names
+        clearRowModelCache();
         synchronized (fProviders) {
             Collection<@NonNull ISymbolProvider> symbolProviders = SymbolProviderManager.getInstance().getSymbolProviders(getTrace());
             SubMonitor sub = SubMonitor.convert(monitor, "CallStackDataProvider#resetFunctionNames", symbolProviders.size()); //$NON-NLS-1$
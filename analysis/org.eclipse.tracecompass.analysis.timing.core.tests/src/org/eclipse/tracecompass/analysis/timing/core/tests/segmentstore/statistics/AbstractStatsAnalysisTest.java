@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 Ericsson
+ * Copyright (c) 2016, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -18,11 +18,14 @@ import static org.junit.Assert.assertTrue;
 
 import java.util.Collections;
 import java.util.Map;
+import java.util.Random;
 
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.tracecompass.analysis.timing.core.segmentstore.statistics.AbstractSegmentStatisticsAnalysis;
 import org.eclipse.tracecompass.analysis.timing.core.statistics.IStatistics;
+import org.eclipse.tracecompass.analysis.timing.core.statistics.Statistics;
+import org.eclipse.tracecompass.segmentstore.core.BasicSegment;
 import org.eclipse.tracecompass.segmentstore.core.ISegment;
 import org.eclipse.tracecompass.tmf.core.exceptions.TmfAnalysisException;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
@@ -150,6 +153,46 @@ public class AbstractStatsAnalysisTest {
         fixture.dispose();
     }
 
+    /**
+     * Test the partial statistics of many ranges, which are computed from the
+     * summary of the statistics and some segments, against the statistics of
+     * the segments of the ranges
+     *
+     * @throws TmfAnalysisException
+     *             should not happen
+     */
+    @Test
+    public void testPartialStatsRanges() throws TmfAnalysisException {
+        TmfXmlTraceStub trace = new TmfXmlTraceStubNs();
+        StubSegmentStatisticsAnalysis fixture = getValidSegmentStats(trace);
+        Random rnd = new Random(1234);
+        for (int i = 0; i < 100; i++) {
+            long start = rnd.nextInt(2 * StubSegmentStatisticsAnalysis.SIZE);
+            long end = start + rnd.nextInt(StubSegmentStatisticsAnalysis.SIZE);
+            IStatistics<@NonNull ISegment> rangeStats = fixture.getStatsForRange(start, end, new NullProgressMonitor());
+            assertNotNull(rangeStats);
+
+            /* The segments of the stub are [i, 2i] */
+            Statistics<@NonNull ISegment> expected = new Statistics<>(ISegment::getLength);
+            for (int j = 0; j < StubSegmentStatisticsAnalysis.SIZE; j++) {
+                if (j <= end && 2 * j >= start) {
+                    expected.update(new BasicSegment(j, 2 * j));
+                }
+            }
+            assertEquals(expected.getNbElements(), rangeStats.getNbElements());
+            assertEquals(expected.getMin(), rangeStats.getMin());
+            assertEquals(expected.getMax(), rangeStats.getMax());
+            assertEquals(expected.getTotal(), rangeStats.getTotal(), 0.001);
+            assertEquals(expected.getMean(), rangeStats.getMean(), 0.000001 * expected.getMean());
+            assertEquals(expected.getStdDev(), rangeStats.getStdDev(), 0.000001 * expected.getStdDev());
+
+            Map<@NonNull String, IStatistics<@NonNull ISegment>> perTypeStats = fixture.getStatsPerTypeForRange(start, end, new NullProgressMonitor());
+            assertEquals(expected.getNbElements(), perTypeStats.values().stream().mapToLong(IStatistics::getNbElements).sum());
+        }
+        trace.dispose();
+        fixture.dispose();
+    }
+
     /**
      * Test the partial per type statistic
      *
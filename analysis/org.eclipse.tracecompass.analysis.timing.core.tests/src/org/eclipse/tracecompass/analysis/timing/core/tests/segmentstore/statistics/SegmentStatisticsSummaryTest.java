@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.analysis.timing.core.tests.segmentstore.statistics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.tracecompass.analysis.timing.core.statistics.IStatistics;
+import org.eclipse.tracecompass.analysis.timing.core.statistics.Statistics;
+import org.eclipse.tracecompass.internal.analysis.timing.core.segmentstore.statistics.SegmentStatisticsSummary;
+import org.eclipse.tracecompass.segmentstore.core.BasicSegment;
+import org.eclipse.tracecompass.segmentstore.core.ISegment;
+import org.eclipse.tracecompass.segmentstore.core.ISegmentStore;
+import org.eclipse.tracecompass.segmentstore.core.SegmentStoreFactory;
+import org.junit.Test;
+
+/**
+ * Test the {@link SegmentStatisticsSummary}, its statistics must be the
+ * statistics of the segments and the memory of its tree must be bounded
+ */
+public class SegmentStatisticsSummaryTest {
+
+    private static final int NB_SEGMENTS = 100000;
+    private static final long MAX_START = 10000000;
+    private static final int MAX_LENGTH = 100000;
+
+    private static ISegmentStore<@NonNull ISegment> createStore(int nbTypes) {
+        ISegmentStore<@NonNull ISegment> store = SegmentStoreFactory.createSegmentStore();
+        Random rnd = new Random(nbTypes);
+        for (int i = 0; i < NB_SEGMENTS; i++) {
+            long start = (long) (rnd.nextDouble() * MAX_START);
+            store.add(new BasicSegment(start, start + rnd.nextInt(MAX_LENGTH)));
+        }
+        return store;
+    }
+
+    private static SegmentStatisticsSummary createSummary(ISegmentStore<@NonNull ISegment> store, int nbTypes) {
+        SegmentStatisticsSummary summary = SegmentStatisticsSummary.compute(store, ISegment::getLength, segment -> getType(segment, nbTypes), new NullProgressMonitor());
+        assertNotNull(summary);
+        return summary;
+    }
+
+    private static String getType(ISegment segment, int nbTypes) {
+        return "type" + (segment.getLength() % nbTypes);
+    }
+
+    private static void assertSameStatistics(String message, IStatistics<@NonNull ISegment> expected, IStatistics<@NonNull ISegment> actual) {
+        assertEquals(message, expected.getNbElements(), actual.getNbElements());
+        assertEquals(message, expected.getMin(), actual.getMin());
+        assertEquals(message, expected.getMax(), actual.getMax());
+        assertEquals(message, expected.getTotal(), actual.getTotal(), 0.001);
+        assertEquals(message, expected.getMean(), actual.getMean(), 0.000001 * expected.getMean());
+        assertEquals(message, expected.getStdDev(), actual.getStdDev(), 0.000001 * expected.getStdDev());
+    }
+
+    private static void testRanges(int nbTypes) {
+        ISegmentStore<@NonNull ISegment> store = createStore(nbTypes);
+        SegmentStatisticsSummary summary = createSummary(store, nbTypes);
+        Random rnd = new Random(1234);
+        for (int i = 0; i < 20; i++) {
+            long start = (long) (rnd.nextDouble() * MAX_START);
+            long end = start + (long) (rnd.nextDouble() * MAX_START / 4);
+            Statistics<@NonNull ISegment> expected = new Statistics<>(ISegment::getLength);
+            Map<String, Statistics<@NonNull ISegment>> expectedPerType = new HashMap<>();
+            for (ISegment segment : store) {
+                if (segment.getStart() <= end && segment.getEnd() >= start) {
+                    expected.update(segment);
+                    expectedPerType.computeIfAbsent(getType(segment, nbTypes), type -> new Statistics<>(ISegment::getLength)).update(segment);
+                }
+            }
+            IStatistics<@NonNull ISegment> total = summary.getTotalForRange(start, end, new NullProgressMonitor());
+            assertNotNull(total);
+            assertSameStatistics("Total", expected, total);
+            assertTrue("No quantiles", Double.isNaN(total.getQuantile(0.5)));
+
+            Map<String, IStatistics<@NonNull ISegment>> perType = summary.getPerTypeForRange(start, end, new NullProgressMonitor());
+            assertNotNull(perType);
+            assertEquals(expectedPerType.keySet(), perType.keySet());
+            for (Map.Entry<String, Statistics<@NonNull ISegment>> entry : expectedPerType.entrySet()) {
+                IStatistics<@NonNull ISegment> actual = perType.get(entry.getKey());
+                assertNotNull(actual);
+                assertSameStatistics(entry.getKey(), entry.getValue(), actual);
+            }
+        }
+    }
+
+    /**
+     * Test that the statistics of all the segments estimate the quantiles
+     */
+    @Test
+    public void testTotal() {
+        int nbTypes = 10;
+        ISegmentStore<@NonNull ISegment> store = createStore(nbTypes);
+        SegmentStatisticsSummary summary = createSummary(store, nbTypes);
+        Statistics<@NonNull ISegment> expected = new Statistics<>(ISegment::getLength, true);
+        store.forEach(expected::update);
+        IStatistics<@NonNull ISegment> total = summary.getTotal();
+        assertSameStatistics("Total", expected, total);
+        assertEquals(expected.getQuantile(0.5), total.getQuantile(0.5), 0.0);
+        assertEquals(expected.getQuantile(0.99), total.getQuantile(0.99), 0.0);
+
+        Map<String, IStatistics<@NonNull ISegment>> perType = summary.getPerType();
+        assertEquals(nbTypes, perType.size());
+        for (IStatistics<@NonNull ISegment> typeStatistics : perType.values()) {
+            assertFalse(Double.isNaN(typeStatistics.getQuantile(0.5)));
+        }
+    }
+
+    /**
+     * Test the statistics of ranges, with a few types of segments
+     */
+    @Test
+    public void testRanges() {
+        testRanges(10);
+    }
+
+    /**
+     * Test the statistics of ranges, with more types of segments than the
+     * nodes of the tree keep
+     */
+    @Test
+    public void testRangesManyTypes() {
+        testRanges(4 * SegmentStatisticsSummary.MAX_TYPES_PER_NODE);
+    }
+
+    /**
+     * Test that the number of statistics of the tree is bounded by the number
+     * of types per node, whatever the number of types
+     */
+    @Test
+    public void testMemory() {
+        for (int nbTypes : new int[] { 1, SegmentStatisticsSummary.MAX_TYPES_PER_NODE, 4 * SegmentStatisticsSummary.MAX_TYPES_PER_NODE, 1000 }) {
+            SegmentStatisticsSummary summary = createSummary(createStore(nbTypes), nbTypes);
+            int nbNodes = 2 * summary.getNbBuckets() - 1;
+            int nbTypesPerNode = Math.min(nbTypes, SegmentStatisticsSummary.MAX_TYPES_PER_NODE);
+            assertTrue(nbTypes + " types", summary.getNbNodeStatistics() <= nbNodes * (1 + nbTypesPerNode));
+        }
+    }
+
+    /**
+     * Test that the number of buckets is bounded, whatever the value of the
+     * property
+     */
+    @Test
+    public void testMaxBuckets() {
+        System.setProperty(SegmentStatisticsSummary.BUCKETS_PROPERTY, String.valueOf(Integer.MAX_VALUE));
+        try {
+            SegmentStatisticsSummary summary = createSummary(createStore(1), 1);
+            assertEquals(SegmentStatisticsSummary.MAX_BUCKETS, summary.getNbBuckets());
+        } finally {
+            System.clearProperty(SegmentStatisticsSummary.BUCKETS_PROPERTY);
+        }
+    }
+}
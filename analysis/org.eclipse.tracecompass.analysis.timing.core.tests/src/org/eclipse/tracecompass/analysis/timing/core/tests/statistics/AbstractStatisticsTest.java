@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 École Polytechnique de Montréal
+ * Copyright (c) 2017, 2026 École Polytechnique de Montréal
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -60,6 +60,9 @@ public abstract class AbstractStatisticsTest<@NonNull E> {
 
     private static final double ERROR = 0.000001;
     private static final double APPROX_ERROR = 0.0001;
+    /** The quantiles are estimated from buckets of a histogram */
+    private static final double QUANTILE_ERROR = 0.01;
+    private static final double[] QUANTILES = { 0.0, 0.5, 0.9, 0.99, 0.999, 1.0 };
 
     private final @Nullable Function<@NonNull E, @NonNull Long> fMapper;
 
@@ -111,12 +114,29 @@ public abstract class AbstractStatisticsTest<@NonNull E> {
         assertEquals("Min Element", expected.getMinObject(), toBeTested.getMinObject());
         assertEquals("Max Element", expected.getMaxObject(), toBeTested.getMaxObject());
         assertEquals("Standard Deviation", expected.getStdDev(), toBeTested.getStdDev(), APPROX_ERROR * expected.getStdDev());
+        for (double quantile : QUANTILES) {
+            double expectedQuantile = expected.getQuantile(quantile);
+            assertEquals("Quantile " + quantile, expectedQuantile, toBeTested.getQuantile(quantile), QUANTILE_ERROR * Math.abs(expectedQuantile));
+        }
     }
 
     /**
-     * Create a statistics object by calling the appropriate constructor whether the mapper function is null or not
+     * Create a statistics object that estimates the quantiles, with the mapper
+     * function if there is one
      */
     private @NonNull Statistics<E> createStatistics() {
+        Function<@NonNull E, Long> mapper = fMapper;
+        if (mapper == null) {
+            return new Statistics<>(e -> (Number) e, true);
+        }
+        return new Statistics<>(mapper, true);
+    }
+
+    /**
+     * Create a statistics object by calling the appropriate constructor whether
+     * the mapper function is null or not, it does not estimate the quantiles
+     */
+    private @NonNull Statistics<E> createStatisticsNoQuantiles() {
         Function<@NonNull E, Long> mapper = fMapper;
         if (mapper == null) {
             return new Statistics<>();
@@ -203,6 +223,55 @@ public abstract class AbstractStatisticsTest<@NonNull E> {
 
     }
 
+    /**
+     * Test the quantiles of small values, which are exact
+     */
+    @Test
+    public void testQuantiles() {
+        assertEquals("Empty median", Double.NaN, createStatistics().getQuantile(0.5), ERROR);
+
+        List<@NonNull Long> longFixture = new ArrayList<>(MEDIUM_AMOUNT_OF_SEGMENTS);
+        for (long i = MEDIUM_AMOUNT_OF_SEGMENTS; i >= 0; i--) {
+            longFixture.add(i);
+        }
+        Collection<@NonNull E> fixture = createElementsWithValues(longFixture);
+        Statistics<E> sss = buildStats(fixture);
+        assertEquals("Minimum", 0, sss.getQuantile(0), ERROR);
+        assertEquals("Median", 50, sss.getQuantile(0.5), ERROR);
+        assertEquals("90th percentile", 90, sss.getQuantile(0.9), ERROR);
+        assertEquals("99th percentile", 99, sss.getQuantile(0.99), ERROR);
+        assertEquals("Maximum", MEDIUM_AMOUNT_OF_SEGMENTS, sss.getQuantile(1), ERROR);
+    }
+
+    /**
+     * Test that the quantiles are not estimated by default, nor after merging
+     * statistics that do not estimate them
+     */
+    @Test
+    public void testNoQuantiles() {
+        List<@NonNull Long> longFixture = new ArrayList<>(MEDIUM_AMOUNT_OF_SEGMENTS);
+        for (long i = 0; i <= MEDIUM_AMOUNT_OF_SEGMENTS; i++) {
+            longFixture.add(i);
+        }
+        Collection<@NonNull E> fixture = createElementsWithValues(longFixture);
+        Statistics<E> noQuantiles = createStatisticsNoQuantiles();
+        Statistics<E> quantiles = createStatistics();
+        for (E element : fixture) {
+            noQuantiles.update(element);
+            quantiles.update(element);
+        }
+        assertEquals("Median", Double.NaN, noQuantiles.getQuantile(0.5), ERROR);
+        assertEquals("Median", 50, quantiles.getQuantile(0.5), ERROR);
+
+        quantiles.merge(noQuantiles);
+        assertEquals("Merged count", 2 * (MEDIUM_AMOUNT_OF_SEGMENTS + 1), quantiles.getNbElements());
+        assertEquals("Merged median", Double.NaN, quantiles.getQuantile(0.5), ERROR);
+
+        Statistics<E> empty = createStatistics();
+        empty.merge(noQuantiles);
+        assertEquals("Copied median", Double.NaN, empty.getQuantile(0.5), ERROR);
+    }
+
     /**
      * Test a data set with a small number of objects
      */
@@ -486,6 +555,36 @@ public abstract class AbstractStatisticsTest<@NonNull E> {
         validate(offline, statsA);
     }
 
+    /**
+     * Test many statistics nodes with different means being merged, like the
+     * nodes of a tree of statistics. The variance should not drift with the
+     * number of merges.
+     */
+    @Test
+    public void testMergeManyStatisticsNodes() {
+        Random rnd = new Random();
+        rnd.setSeed(4321);
+        IStatistics<@NonNull E> merged = createStatistics();
+        Collection<@NonNull E> allElements = new ArrayList<>();
+        for (int node = 0; node < 500; node++) {
+            int size = 2 + rnd.nextInt(20);
+            long base = rnd.nextInt(100000);
+            List<@NonNull Long> longFixture = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                longFixture.add(base + rnd.nextInt(1000));
+            }
+            Collection<@NonNull E> fixture = createElementsWithValues(longFixture);
+            IStatistics<@NonNull E> stats = createStatistics();
+            fixture.forEach(stats::update);
+            allElements.addAll(fixture);
+            merged.merge(stats);
+        }
+
+        IStatistics<@NonNull E> offline = new OfflineStatisticsCalculator<>(allElements, getMapper());
+        validate(offline, merged);
+        assertEquals("Standard Deviation", offline.getStdDev(), merged.getStdDev(), ERROR * offline.getStdDev());
+    }
+
     /**
      * Test corner cases when merging statistics nodes
      */
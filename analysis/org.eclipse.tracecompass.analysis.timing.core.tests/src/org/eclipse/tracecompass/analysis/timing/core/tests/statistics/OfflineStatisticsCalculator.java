@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 Ericsson
+ * Copyright (c) 2016, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -161,6 +161,22 @@ public class OfflineStatisticsCalculator<@NonNull E> implements IStatistics<E> {
         return total;
     }
 
+    /**
+     * Get the quantile, the value at the rank of the quantile in the sorted
+     * values
+     *
+     * @return the quantile
+     */
+    @Override
+    public double getQuantile(double quantile) {
+        if (fElements.isEmpty()) {
+            return Double.NaN;
+        }
+        long[] values = fElements.stream().mapToLong(fMapper::apply).sorted().toArray();
+        int rank = (int) Math.max(1, Math.ceil(quantile * values.length));
+        return values[Math.min(rank, values.length) - 1];
+    }
+
     @Override
     public long getNbElements() {
         return fElements.size();
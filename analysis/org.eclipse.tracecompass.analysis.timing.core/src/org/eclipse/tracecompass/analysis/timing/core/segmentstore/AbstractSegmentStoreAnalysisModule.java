@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015, 2019 Ericsson
+ * Copyright (c) 2015, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -31,6 +31,7 @@ import org.eclipse.tracecompass.datastore.core.interval.IHTIntervalReader;
 import org.eclipse.tracecompass.internal.analysis.timing.core.Activator;
 import org.eclipse.tracecompass.internal.analysis.timing.core.segmentstore.Messages;
 import org.eclipse.tracecompass.segmentstore.core.ISegment;
+import org.eclipse.tracecompass.segmentstore.core.ISegmentColumnCodec;
 import org.eclipse.tracecompass.segmentstore.core.ISegmentStore;
 import org.eclipse.tracecompass.segmentstore.core.SegmentStoreFactory;
 import org.eclipse.tracecompass.segmentstore.core.SegmentStoreFactory.SegmentStoreType;
@@ -151,6 +152,18 @@ public abstract class AbstractSegmentStoreAnalysisModule extends TmfAbstractAnal
         return SegmentStoreType.Fast;
     }
 
+    /**
+     * Get the codec splitting the segments in columns, for the segment stores
+     * of type {@link SegmentStoreType#Columnar}. If it is null, a
+     * {@link SegmentStoreType#Fast} segment store is built instead.
+     *
+     * @return The segment column codec, or null
+     * @since 5.3
+     */
+    protected @Nullable ISegmentColumnCodec<ISegment> getSegmentColumnCodec() {
+        return null;
+    }
+
     @Override
     public @Nullable ISegmentStore<ISegment> getSegmentStore() {
         return fSegmentStore;
@@ -175,7 +188,11 @@ public abstract class AbstractSegmentStoreAnalysisModule extends TmfAbstractAnal
         case Fast:
             // Fall-through
         case Stable:
-            store = buildInMemorySegmentStore(type, monitor);
+            store = buildInMemorySegmentStore(SegmentStoreFactory.createSegmentStore(type), monitor);
+            break;
+        case Columnar:
+            ISegmentColumnCodec<ISegment> codec = getSegmentColumnCodec();
+            store = buildInMemorySegmentStore((codec != null) ? SegmentStoreFactory.createColumnarSegmentStore(codec) : SegmentStoreFactory.createSegmentStore(SegmentStoreType.Fast), monitor);
             break;
         case OnDisk:
             final @Nullable String dataFileName = getDataFileName();
@@ -236,8 +253,7 @@ public abstract class AbstractSegmentStoreAnalysisModule extends TmfAbstractAnal
         return segmentStore;
     }
 
-    private @Nullable ISegmentStore<@NonNull ISegment> buildInMemorySegmentStore(SegmentStoreType type, IProgressMonitor monitor) throws TmfAnalysisException {
-        ISegmentStore<ISegment> segmentStore = SegmentStoreFactory.createSegmentStore(type);
+    private @Nullable ISegmentStore<@NonNull ISegment> buildInMemorySegmentStore(ISegmentStore<ISegment> segmentStore, IProgressMonitor monitor) throws TmfAnalysisException {
         boolean completed = buildAnalysisSegments(segmentStore, monitor);
         if (!completed) {
             return null;
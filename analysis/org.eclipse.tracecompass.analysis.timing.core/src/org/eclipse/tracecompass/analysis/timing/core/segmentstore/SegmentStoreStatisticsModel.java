@@ -1,5 +1,5 @@
 /**********************************************************************
- * Copyright (c) 2018 Ericsson
+ * Copyright (c) 2018, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -32,6 +32,9 @@ public class SegmentStoreStatisticsModel extends TmfTreeDataModel {
     private final double fMean;
     private final double fStdDev;
     private final double fTotal;
+    private final double fMedian;
+    private final double fPercentile99;
+    private final double fPercentile999;
     private final long fMinStart;
     private final long fMinEnd;
     private final long fMaxStart;
@@ -76,6 +79,9 @@ public class SegmentStoreStatisticsModel extends TmfTreeDataModel {
         fMean = statistics.getMean();
         fStdDev = statistics.getStdDev();
         fTotal = statistics.getTotal();
+        fMedian = statistics.getQuantile(0.5);
+        fPercentile99 = statistics.getQuantile(0.99);
+        fPercentile999 = statistics.getQuantile(0.999);
 
         ISegment max = statistics.getMaxObject();
         if (max != null) {
@@ -150,6 +156,39 @@ public class SegmentStoreStatisticsModel extends TmfTreeDataModel {
         return fTotal;
     }
 
+    /**
+     * Get the estimated median from the statistics, or {@link Double#NaN} if
+     * the statistics do not estimate quantiles
+     *
+     * @return median value.
+     * @since 5.3
+     */
+    public double getMedian() {
+        return fMedian;
+    }
+
+    /**
+     * Get the estimated 99th percentile from the statistics, or
+     * {@link Double#NaN} if the statistics do not estimate quantiles
+     *
+     * @return 99th percentile value.
+     * @since 5.3
+     */
+    public double getPercentile99() {
+        return fPercentile99;
+    }
+
+    /**
+     * Get the estimated 99.9th percentile from the statistics, or
+     * {@link Double#NaN} if the statistics do not estimate quantiles
+     *
+     * @return 99.9th percentile value.
+     * @since 5.3
+     */
+    public double getPercentile999() {
+        return fPercentile999;
+    }
+
     /**
      * Get the minimum's start time from the statistics, if there was one, else
      * {@code 0}
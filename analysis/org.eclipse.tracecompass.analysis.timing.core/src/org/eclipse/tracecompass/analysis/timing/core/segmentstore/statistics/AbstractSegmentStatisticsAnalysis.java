@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 Ericsson
+ * Copyright (c) 2016, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are made
  * available under the terms of the Eclipse Public License 2.0 which
@@ -22,6 +22,7 @@ import org.eclipse.tracecompass.analysis.timing.core.segmentstore.ISegmentStoreP
 import org.eclipse.tracecompass.analysis.timing.core.statistics.IStatistics;
 import org.eclipse.tracecompass.analysis.timing.core.statistics.IStatisticsAnalysis;
 import org.eclipse.tracecompass.analysis.timing.core.statistics.Statistics;
+import org.eclipse.tracecompass.internal.analysis.timing.core.segmentstore.statistics.SegmentStatisticsSummary;
 import org.eclipse.tracecompass.segmentstore.core.ISegment;
 import org.eclipse.tracecompass.segmentstore.core.ISegmentStore;
 import org.eclipse.tracecompass.tmf.core.analysis.IAnalysisModule;
@@ -35,6 +36,10 @@ import com.google.common.collect.ImmutableList;
 /**
  * Abstract analysis to build statistics data for a segment store
  *
+ * The statistics of the whole segment store are computed in parallel, along
+ * with a summary of the statistics by time buckets that is used to answer the
+ * statistics of a range without reading all the segments of the range.
+ *
  * @author Jean-Christian Kouame
  * @since 3.0
  */
@@ -46,6 +51,8 @@ public abstract class AbstractSegmentStatisticsAnalysis extends TmfAbstractAnaly
 
     private Map<String, IStatistics<ISegment>> fPerSegmentTypeStats = new HashMap<>();
 
+    private @Nullable SegmentStatisticsSummary fSummary;
+
     /**
      * Gets the segment mapper. This allows values to be resolved
      *
@@ -77,19 +84,31 @@ public abstract class AbstractSegmentStatisticsAnalysis extends TmfAbstractAnaly
             return false;
         }
 
-        IStatistics<ISegment> totalStats = getTotalStats(TmfTimeRange.ETERNITY.getStartTime().toNanos(), TmfTimeRange.ETERNITY.getEndTime().toNanos(), monitor);
-        if (totalStats == null) {
+        if (fSegmentStoreProvider == null) {
             return false;
         }
-
-        Map<String, IStatistics<ISegment>> perTypeStats = getPerTypeStats(TmfTimeRange.ETERNITY.getStartTime().toNanos(), TmfTimeRange.ETERNITY.getEndTime().toNanos(), monitor);
-        fTotalStats = totalStats;
-        fPerSegmentTypeStats = perTypeStats;
+        ISegmentStore<@NonNull ISegment> store = getSegmentStore();
+        if (store == null) {
+            fTotalStats = new Statistics<>(getMapper(), true);
+            fPerSegmentTypeStats = new HashMap<>();
+            return true;
+        }
+        SegmentStatisticsSummary summary = SegmentStatisticsSummary.compute(store, getMapper(), this::getSegmentType, monitor);
+        if (summary == null) {
+            return false;
+        }
+        fTotalStats = summary.getTotal();
+        fPerSegmentTypeStats = summary.getPerType();
+        fSummary = summary;
 
         return true;
     }
 
     private @Nullable IStatistics<ISegment> getTotalStats(long start, long end, IProgressMonitor monitor) {
+        SegmentStatisticsSummary summary = fSummary;
+        if (summary != null) {
+            return summary.getTotalForRange(start, end, monitor);
+        }
         Iterable<@NonNull ISegment> store = getSegmentStore(start, end);
         if (store == null) {
             return null;
@@ -127,6 +146,11 @@ public abstract class AbstractSegmentStatisticsAnalysis extends TmfAbstractAnaly
     }
 
     private Map<@NonNull String, IStatistics<@NonNull ISegment>> getPerTypeStats(long start, long end, IProgressMonitor monitor) {
+        SegmentStatisticsSummary summary = fSummary;
+        if (summary != null) {
+            Map<@NonNull String, IStatistics<@NonNull ISegment>> perTypeStats = summary.getPerTypeForRange(start, end, monitor);
+            return (perTypeStats != null) ? perTypeStats : Collections.emptyMap();
+        }
         Iterable<@NonNull ISegment> store = getSegmentStore(start, end);
         if (monitor.isCanceled() || store == null) {
             return Collections.emptyMap();
@@ -174,12 +198,9 @@ public abstract class AbstractSegmentStatisticsAnalysis extends TmfAbstractAnaly
         if (segmentStoreProvider == null) {
             return null;
         }
-        if (segmentStoreProvider instanceof IAnalysisModule) {
-            ((IAnalysisModule) segmentStoreProvider).waitForCompletion();
-        }
         long t0 = Long.min(start, end);
         long t1 = Long.max(start, end);
-        ISegmentStore<@NonNull ISegment> segmentStore = segmentStoreProvider.getSegmentStore();
+        ISegmentStore<@NonNull ISegment> segmentStore = getSegmentStore();
         return segmentStore != null ?
                 isEternity(t0, t1) ?
                         segmentStore :
@@ -187,8 +208,25 @@ public abstract class AbstractSegmentStatisticsAnalysis extends TmfAbstractAnaly
                 Collections.emptyList();
     }
 
+    /**
+     * Get the complete segment store from which we want the statistics
+     *
+     * @return The segment store, or null if there is no segment store provider
+     *         or if it has no segment store
+     */
+    private @Nullable ISegmentStore<@NonNull ISegment> getSegmentStore() {
+        ISegmentStoreProvider segmentStoreProvider = fSegmentStoreProvider;
+        if (segmentStoreProvider == null) {
+            return null;
+        }
+        if (segmentStoreProvider instanceof IAnalysisModule) {
+            ((IAnalysisModule) segmentStoreProvider).waitForCompletion();
+        }
+        return segmentStoreProvider.getSegmentStore();
+    }
+
     private @Nullable IStatistics<ISegment> calculateTotalManual(Iterable<@NonNull ISegment> segments, IProgressMonitor monitor) {
-        IStatistics<ISegment> total = new Statistics<>(getMapper());
+        IStatistics<ISegment> total = new Statistics<>(getMapper(), true);
         for (ISegment segment : segments) {
             if (monitor.isCanceled()) {
                 return null;
@@ -207,7 +245,7 @@ public abstract class AbstractSegmentStatisticsAnalysis extends TmfAbstractAnaly
             }
             String segmentType = getSegmentType(segment);
             if (segmentType != null) {
-                IStatistics<ISegment> values = perSegmentTypeStats.getOrDefault(segmentType, new Statistics<>(getMapper()));
+                IStatistics<ISegment> values = perSegmentTypeStats.getOrDefault(segmentType, new Statistics<>(getMapper(), true));
                 values.update(segment);
                 perSegmentTypeStats.put(segmentType, values);
             }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 École Polytechnique de Montréal
+ * Copyright (c) 2017, 2026 École Polytechnique de Montréal
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -107,6 +107,21 @@ public interface IStatistics<@NonNull E> {
      */
     double getTotal();
 
+    /**
+     * Get an estimate of a quantile of the values, for instance 0.5 for the
+     * median or 0.99 for the 99th percentile. Implementations should keep the
+     * estimate mergeable and updatable in O(1), the values are not kept.
+     *
+     * @param quantile
+     *            the quantile, between 0 and 1
+     * @return the estimated value of the quantile, or {@link Double#NaN} if
+     *         there are no elements or the quantiles are not estimated
+     * @since 5.3
+     */
+    default double getQuantile(double quantile) {
+        return Double.NaN;
+    }
+
     /**
      * Update the statistics based on a given object
      * <p>
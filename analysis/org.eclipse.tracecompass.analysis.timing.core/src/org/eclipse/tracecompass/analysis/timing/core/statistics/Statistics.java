@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 École Polytechnique de Montréal
+ * Copyright (c) 2017, 2026 École Polytechnique de Montréal
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -17,11 +17,15 @@ import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.common.core.NonNullUtils;
 import org.eclipse.tracecompass.internal.analysis.timing.core.segmentstore.statistics.NumberComparator;
+import org.eclipse.tracecompass.internal.analysis.timing.core.segmentstore.statistics.QuantileSketch;
 
 /**
  * Class that calculates statistics on a certain type of object. If the object
  * is not a {@link Number}, a mapper function should be passed in the constructor
  * to retrieve the numerical value to make statistics on from an object.
+ * <p>
+ * If requested in the constructor, the quantiles are estimated from a
+ * log-linear histogram of the values, with a relative error below 1%.
  *
  * @author Bernd Hufmann
  * @author Geneviève Bastien
@@ -48,6 +52,8 @@ public class Statistics<@NonNull E> implements IStatistics<E> {
      */
     private double fVariance;
     private double fTotal;
+    private boolean fEstimateQuantiles;
+    private @Nullable QuantileSketch fSketch = null;
 
     /**
      * Constructor
@@ -69,11 +75,29 @@ public class Statistics<@NonNull E> implements IStatistics<E> {
      *            for and returns the value to use for the statistics
      */
     public Statistics(Function<E, @Nullable ? extends @Nullable Number> mapper) {
+        this(mapper, false);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param mapper
+     *            A mapper function that takes an object to computes statistics
+     *            for and returns the value to use for the statistics
+     * @param estimateQuantiles
+     *            Whether to estimate the quantiles of the values, see
+     *            {@link #getQuantile(double)}. It takes a few kilobytes per
+     *            statistics object, so it should only be enabled for the
+     *            statistics whose quantiles are used.
+     * @since 5.3
+     */
+    public Statistics(Function<E, @Nullable ? extends @Nullable Number> mapper, boolean estimateQuantiles) {
         fNbElements = 0;
         fMean = 0.0;
         fVariance = 0.0;
         fTotal = 0.0;
         fMapper = mapper;
+        fEstimateQuantiles = estimateQuantiles;
     }
 
     @Override
@@ -135,6 +159,28 @@ public class Statistics<@NonNull E> implements IStatistics<E> {
         return fTotal;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The quantiles are only estimated if requested in the constructor, and if
+     * all the merged statistics estimate them as well.
+     *
+     * @since 5.3
+     */
+    @Override
+    public double getQuantile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("The quantile should be between 0 and 1: " + quantile); //$NON-NLS-1$
+        }
+        QuantileSketch sketch = fSketch;
+        if (fNbElements == 0 || sketch == null) {
+            return Double.NaN;
+        }
+        /* The estimate is in the bucket of a value, keep it between the extremes */
+        double estimate = sketch.getQuantile(quantile);
+        return Math.max(fMinNum.doubleValue(), Math.min(fMaxNum.doubleValue(), estimate));
+    }
+
     @Override
     public void update(E object) {
         Number number = fMapper.apply(object);
@@ -155,6 +201,14 @@ public class Statistics<@NonNull E> implements IStatistics<E> {
         fMean += delta / fNbElements;
         fVariance += delta * (doubleValue - fMean);
         fTotal += doubleValue;
+        if (fEstimateQuantiles) {
+            QuantileSketch sketch = fSketch;
+            if (sketch == null) {
+                sketch = new QuantileSketch();
+                fSketch = sketch;
+            }
+            sketch.add(number);
+        }
     }
 
     private void updateMax(@Nullable E object, Number number) {
@@ -192,7 +246,7 @@ public class Statistics<@NonNull E> implements IStatistics<E> {
         } else if (other.fNbElements == 1) {
             update(NonNullUtils.checkNotNull(other.getMaxObject()));
         } else if (fNbElements == 1) {
-            Statistics<E> copyOther = new Statistics<>(fMapper);
+            Statistics<E> copyOther = new Statistics<>(fMapper, fEstimateQuantiles);
             copyOther.copy(other);
             copyOther.update(NonNullUtils.checkNotNull(getMaxObject()));
             copy(copyOther);
@@ -223,25 +277,23 @@ public class Statistics<@NonNull E> implements IStatistics<E> {
         fMean = ((oldNbSeg * oldAverage) + (otherAverage * otherSegments)) / fNbElements;
 
         /*
-         * This one is a bit tricky.
-         *
-         * The variance is the sum of the deltas from a mean squared.
-         *
-         * So if we add the old mean squared back to to variance and remove the
-         * new mean, the standard deviation can be easily calculated.
-         */
-        double avg1Sq = oldAverage * oldAverage;
-        double avg2sq = otherAverage * otherAverage;
-        double avgtSq = fMean * fMean;
-        /*
-         * This is a tricky part, bear in mind that the set is not continuous
-         * but discrete, Therefore, we have for n elements, n-1 intervals
-         * between them. Ergo, n-1 intervals are used for divisions and
-         * multiplications.
+         * The variance is the sum of the squared deltas from the mean, it is
+         * the sum of the variances of both sets, plus the squared delta
+         * between their means weighted by their sizes (Chan et al. parallel
+         * algorithm). Unlike adding and removing the squared means, this is
+         * exact however many times the statistics are merged.
          */
-        double variance1 = fVariance / (oldNbSeg - 1);
-        double variance2 = other.fVariance / (otherSegments - 1);
-        fVariance = ((variance1 + avg1Sq - avgtSq) * (oldNbSeg - 1) + (variance2 + avg2sq - avgtSq) * (otherSegments - 1));
+        double delta = otherAverage - oldAverage;
+        fVariance += other.fVariance + delta * delta * ((double) oldNbSeg * otherSegments / fNbElements);
+        QuantileSketch sketch = fSketch;
+        QuantileSketch otherSketch = other.fSketch;
+        if (sketch != null && otherSketch != null) {
+            sketch.merge(otherSketch);
+        } else {
+            /* The quantiles of the other values are unknown */
+            fEstimateQuantiles = false;
+            fSketch = null;
+        }
     }
 
     private void copy(Statistics<E> copyOther) {
@@ -253,6 +305,9 @@ public class Statistics<@NonNull E> implements IStatistics<E> {
         fNbElements = copyOther.fNbElements;
         fTotal = copyOther.fTotal;
         fVariance = copyOther.fVariance;
+        QuantileSketch otherSketch = copyOther.fSketch;
+        fEstimateQuantiles &= (otherSketch != null);
+        fSketch = (fEstimateQuantiles && otherSketch != null) ? otherSketch.copy() : null;
     }
 
     @Override
@@ -1,5 +1,5 @@
 /**********************************************************************
- * Copyright (c) 2020 Ericsson
+ * Copyright (c) 2020, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -167,11 +167,28 @@ public final class SegmentStoreStatisticsAspects {
             }
         });
 
+        aspectsBuilder.add(createQuantileAspect(Objects.requireNonNull(Messages.SegmentStoreStatistics_Percentile50Label), 0.5));
+        aspectsBuilder.add(createQuantileAspect(Objects.requireNonNull(Messages.SegmentStoreStatistics_Percentile99Label), 0.99));
+        aspectsBuilder.add(createQuantileAspect(Objects.requireNonNull(Messages.SegmentStoreStatistics_Percentile999Label), 0.999));
+
         aspectsBuilder.addAll(userDefinedAspects);
 
         return aspectsBuilder.build();
     }
 
+    private IDataAspect<NamedStatistics> createQuantileAspect(String name, double quantile) {
+        return new IDataAspect<NamedStatistics>() {
+            @Override
+            public String getName() {
+                return name;
+            }
+            @Override
+            public @Nullable Object apply(NamedStatistics input) {
+                return fMapper.apply(input.getStatistics().getQuantile(quantile));
+            }
+        };
+    }
+
    /**
     * Wrapper of statistics name and actual statistics implementation
     */
@@ -0,0 +1,205 @@
+/**********************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ **********************************************************************/
+
+package org.eclipse.tracecompass.internal.analysis.timing.core.segmentstore.statistics;
+
+import java.math.BigDecimal;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Mergeable sketch of the distribution of values, to estimate their quantiles.
+ * The values are counted in a log-linear histogram: the values below 128 have
+ * their own bucket and each power of 2 above is split in 64 buckets, so a
+ * value is estimated with a relative error below 1%. Like the HDR histograms,
+ * adding a value is a constant time operation and two sketches are merged by
+ * adding their buckets, so the merged sketch is the same as if all the values
+ * were added to a single sketch.
+ *
+ * The values are rounded to long and negative values are supported. The
+ * buckets of a power of 2 are only allocated when a value is added to it.
+ *
+ * This class is not thread safe.
+ */
+@NonNullByDefault
+public final class QuantileSketch {
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /** Group 0 has the exact values, each other group is a power of 2 */
+    private static final int NB_GROUPS = Long.SIZE - 1 - SUB_BUCKET_BITS;
+
+    private final long[] @Nullable [] fPositive = new long[NB_GROUPS][];
+    private long @Nullable [] @Nullable [] fNegative = null;
+    private long fCount = 0;
+
+    /**
+     * Add a value to the sketch
+     *
+     * @param value
+     *            the value
+     */
+    public void add(Number value) {
+        long longValue = (value instanceof Double || value instanceof Float || value instanceof BigDecimal) ? Math.round(value.doubleValue()) : value.longValue();
+        if (longValue >= 0) {
+            add(fPositive, longValue);
+        } else {
+            long @Nullable [] @Nullable [] negative = fNegative;
+            if (negative == null) {
+                negative = new long[NB_GROUPS][];
+                fNegative = negative;
+            }
+            /* Long.MIN_VALUE is counted with Long.MAX_VALUE */
+            add(negative, longValue == Long.MIN_VALUE ? Long.MAX_VALUE : -longValue);
+        }
+        fCount++;
+    }
+
+    private static void add(long[] @Nullable [] groups, long magnitude) {
+        int group = getGroup(magnitude);
+        long[] buckets = groups[group];
+        if (buckets == null) {
+            buckets = new long[group == 0 ? 2 * SUB_BUCKETS : SUB_BUCKETS];
+            groups[group] = buckets;
+        }
+        buckets[getBucket(magnitude, group)]++;
+    }
+
+    /**
+     * Merge another sketch in this one
+     *
+     * @param other
+     *            the other sketch, which is not modified
+     */
+    public void merge(QuantileSketch other) {
+        if (other.fCount == 0) {
+            return;
+        }
+        merge(fPositive, other.fPositive);
+        long @Nullable [] @Nullable [] otherNegative = other.fNegative;
+        if (otherNegative != null) {
+            long @Nullable [] @Nullable [] negative = fNegative;
+            if (negative == null) {
+                negative = new long[NB_GROUPS][];
+                fNegative = negative;
+            }
+            merge(negative, otherNegative);
+        }
+        fCount += other.fCount;
+    }
+
+    private static void merge(long[] @Nullable [] groups, long[] @Nullable [] others) {
+        for (int group = 0; group < NB_GROUPS; group++) {
+            long[] otherBuckets = others[group];
+            if (otherBuckets == null) {
+                continue;
+            }
+            long[] buckets = groups[group];
+            if (buckets == null) {
+                groups[group] = otherBuckets.clone();
+                continue;
+            }
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] += otherBuckets[i];
+            }
+        }
+    }
+
+    /**
+     * Get a copy of this sketch
+     *
+     * @return the copy
+     */
+    public QuantileSketch copy() {
+        QuantileSketch copy = new QuantileSketch();
+        copy.merge(this);
+        return copy;
+    }
+
+    /**
+     * Get the number of values in the sketch
+     *
+     * @return the number of values
+     */
+    public long getCount() {
+        return fCount;
+    }
+
+    /**
+     * Estimate a quantile of the values. The estimate is the middle of the
+     * bucket of the value at the rank of the quantile.
+     *
+     * @param quantile
+     *            the quantile, between 0 and 1
+     * @return the estimated value, or {@link Double#NaN} if the sketch is
+     *         empty
+     */
+    public double getQuantile(double quantile) {
+        if (fCount == 0) {
+            return Double.NaN;
+        }
+        long rank = Math.max(1, Math.min(fCount, (long) Math.ceil(quantile * fCount)));
+        long seen = 0;
+        /* The negative values come first, the largest magnitudes first */
+        long @Nullable [] @Nullable [] negative = fNegative;
+        if (negative != null) {
+            for (int group = NB_GROUPS - 1; group >= 0; group--) {
+                long[] buckets = negative[group];
+                if (buckets == null) {
+                    continue;
+                }
+                for (int bucket = buckets.length - 1; bucket >= 0; bucket--) {
+                    seen += buckets[bucket];
+                    if (seen >= rank) {
+                        return -getValue(group, bucket);
+                    }
+                }
+            }
+        }
+        for (int group = 0; group < NB_GROUPS; group++) {
+            long[] buckets = fPositive[group];
+            if (buckets == null) {
+                continue;
+            }
+            for (int bucket = 0; bucket < buckets.length; bucket++) {
+                seen += buckets[bucket];
+                if (seen >= rank) {
+                    return getValue(group, bucket);
+                }
+            }
+        }
+        /* Should not happen, the counts add up to fCount */
+        return Double.NaN;
+    }
+
+    private static int getGroup(long magnitude) {
+        if (magnitude < 2 * SUB_BUCKETS) {
+            return 0;
+        }
+        return Long.SIZE - 1 - Long.numberOfLeadingZeros(magnitude) - SUB_BUCKET_BITS;
+    }
+
+    private static int getBucket(long magnitude, int group) {
+        if (group == 0) {
+            return (int) magnitude;
+        }
+        return (int) (magnitude >>> group) - SUB_BUCKETS;
+    }
+
+    private static double getValue(int group, int bucket) {
+        if (group == 0) {
+            return bucket;
+        }
+        double lower = (double) ((long) (bucket + SUB_BUCKETS) << group);
+        return lower + ((1L << group) - 1) / 2.0;
+    }
+}
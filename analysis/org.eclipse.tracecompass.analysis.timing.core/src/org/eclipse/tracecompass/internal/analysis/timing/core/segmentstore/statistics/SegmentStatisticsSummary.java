@@ -0,0 +1,518 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.internal.analysis.timing.core.segmentstore.statistics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.stream.StreamSupport;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.analysis.timing.core.statistics.IStatistics;
+import org.eclipse.tracecompass.analysis.timing.core.statistics.Statistics;
+import org.eclipse.tracecompass.segmentstore.core.ISegment;
+import org.eclipse.tracecompass.segmentstore.core.ISegmentStore;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Summary of the statistics of a segment store, by buckets of segment start
+ * times. The buckets are the leaves of a binary tree whose nodes hold the
+ * merged statistics of their children, so the statistics of the segments
+ * intersecting a range are obtained by merging the nodes covering the range,
+ * plus the segments of the two buckets at the edges of the range and the
+ * segments starting before the range. Only those segments are read from the
+ * segment store, with at most two queries.
+ *
+ * The summary is computed with a fork/join split of the segments, each task
+ * computing the statistics of its segments by bucket, then the buckets of the
+ * tasks are merged with {@link IStatistics#merge(IStatistics)}.
+ *
+ * To bound the memory, the nodes of the tree do not estimate the quantiles,
+ * only the statistics of all the segments do, and a node keeps the statistics
+ * per type of at most {@link #MAX_TYPES_PER_NODE} types. The per type queries
+ * go through the children of the nodes with more types, or read the segments
+ * of such buckets from the segment store.
+ *
+ * The segment store must not change once the summary is computed.
+ */
+@NonNullByDefault
+public final class SegmentStatisticsSummary {
+
+    /** System property to set the number of buckets, rounded to a power of two */
+    public static final String BUCKETS_PROPERTY = "org.eclipse.tracecompass.analysis.timing.core.statistics.buckets"; //$NON-NLS-1$
+
+    private static final int DEFAULT_BUCKETS = 1024;
+
+    /** Maximum number of buckets, whatever the value of the property */
+    public static final int MAX_BUCKETS = 1 << 16;
+
+    /** Maximum number of types whose statistics are kept by a node */
+    public static final int MAX_TYPES_PER_NODE = 128;
+
+    /** Number of segments under which a task does not split its segments */
+    private static final int LEAF_SIZE = 8192;
+
+    /** Number of segments between checks of the progress monitor */
+    private static final int CANCEL_CHECK_INTERVAL = 1024;
+
+    private final ISegmentStore<ISegment> fStore;
+    private final Function<ISegment, @Nullable Number> fMapper;
+    private final Function<ISegment, @Nullable String> fTypeResolver;
+    private final int fNbBuckets;
+    private final long fStart;
+    private final long fBucketWidth;
+
+    /* The statistics of all the segments, with the quantiles */
+    private Statistics<ISegment> fTotal;
+    private Map<String, IStatistics<ISegment>> fTotalPerType;
+
+    /*
+     * Nodes of the tree, node 1 is the root, the children of node i are 2i
+     * and 2i+1 and the buckets are the nodes fNbBuckets to 2 * fNbBuckets - 1.
+     * The per type statistics of a non empty node are null if it has more
+     * than MAX_TYPES_PER_NODE types.
+     */
+    private final @Nullable Statistics<ISegment>[] fTotals;
+    private final @Nullable Map<String, IStatistics<ISegment>>[] fPerType;
+    private final long[] fMinStarts;
+    private final long[] fMaxStarts;
+
+    /**
+     * Compute the summary of a segment store
+     *
+     * @param store
+     *            The segment store
+     * @param mapper
+     *            The mapper of the segments to the values of the statistics
+     * @param typeResolver
+     *            The function giving the type of a segment, for the per type
+     *            statistics
+     * @param monitor
+     *            The progress monitor
+     * @return The summary, or null if the monitor was cancelled
+     */
+    public static @Nullable SegmentStatisticsSummary compute(ISegmentStore<ISegment> store, Function<ISegment, @Nullable Number> mapper,
+            Function<ISegment, @Nullable String> typeResolver, IProgressMonitor monitor) {
+        /* First get the bounds of the start times, to size the buckets */
+        LongSummaryStatistics starts = StreamSupport.stream(store.spliterator(), true).mapToLong(ISegment::getStart).summaryStatistics();
+        if (monitor.isCanceled()) {
+            return null;
+        }
+        int nbBuckets = Integer.highestOneBit(Math.min(MAX_BUCKETS, Math.max(1, Integer.getInteger(BUCKETS_PROPERTY, DEFAULT_BUCKETS))));
+        long start = (starts.getCount() == 0) ? 0 : starts.getMin();
+        long range = (starts.getCount() == 0) ? 0 : starts.getMax() - start;
+        long bucketWidth = Long.divideUnsigned(range, nbBuckets) + 1;
+        SegmentStatisticsSummary summary = new SegmentStatisticsSummary(store, mapper, typeResolver, nbBuckets, start, bucketWidth);
+
+        BucketTask task = new BucketTask(summary, store.spliterator(), monitor);
+        Buckets buckets = ForkJoinPool.commonPool().invoke(task);
+        if (monitor.isCanceled()) {
+            return null;
+        }
+        summary.build(buckets);
+        return summary;
+    }
+
+    @SuppressWarnings("unchecked")
+    private SegmentStatisticsSummary(ISegmentStore<ISegment> store, Function<ISegment, @Nullable Number> mapper,
+            Function<ISegment, @Nullable String> typeResolver, int nbBuckets, long start, long bucketWidth) {
+        fStore = store;
+        fMapper = mapper;
+        fTypeResolver = typeResolver;
+        fNbBuckets = nbBuckets;
+        fStart = start;
+        fBucketWidth = bucketWidth;
+        fTotal = newQuantileStatistics();
+        fTotalPerType = new HashMap<>();
+        fTotals = new Statistics[2 * nbBuckets];
+        fPerType = new Map[2 * nbBuckets];
+        fMinStarts = new long[2 * nbBuckets];
+        fMaxStarts = new long[2 * nbBuckets];
+    }
+
+    private int getBucket(long start) {
+        return (int) Math.min(fNbBuckets - 1, Long.divideUnsigned(start - fStart, fBucketWidth));
+    }
+
+    private Statistics<ISegment> newStatistics() {
+        return new Statistics<>(fMapper);
+    }
+
+    private Statistics<ISegment> newQuantileStatistics() {
+        return new Statistics<>(fMapper, true);
+    }
+
+    private void build(Buckets buckets) {
+        fTotal = buckets.fTotal;
+        fTotalPerType = buckets.fTotalPerType;
+        for (int i = 0; i < fNbBuckets; i++) {
+            fTotals[fNbBuckets + i] = buckets.fTotals[i];
+            fPerType[fNbBuckets + i] = buckets.fPerType[i];
+            fMinStarts[fNbBuckets + i] = buckets.fMinStarts[i];
+            fMaxStarts[fNbBuckets + i] = buckets.fMaxStarts[i];
+        }
+        for (int node = fNbBuckets - 1; node > 0; node--) {
+            Statistics<ISegment> total = newStatistics();
+            @Nullable Map<String, IStatistics<ISegment>> perType = new HashMap<>();
+            long minStart = Long.MAX_VALUE;
+            long maxStart = Long.MIN_VALUE;
+            boolean empty = true;
+            for (int child = 2 * node; child <= 2 * node + 1; child++) {
+                Statistics<ISegment> childTotal = fTotals[child];
+                if (childTotal == null) {
+                    continue;
+                }
+                empty = false;
+                total.merge(childTotal);
+                perType = mergeNodePerType(perType, fPerType[child]);
+                minStart = Math.min(minStart, fMinStarts[child]);
+                maxStart = Math.max(maxStart, fMaxStarts[child]);
+            }
+            if (!empty) {
+                fTotals[node] = total;
+                fPerType[node] = perType;
+                fMinStarts[node] = minStart;
+                fMaxStarts[node] = maxStart;
+            }
+        }
+    }
+
+    private void add(Buckets buckets, ISegment segment) {
+        long start = segment.getStart();
+        int bucket = getBucket(start);
+        Statistics<ISegment> total = buckets.fTotals[bucket];
+        if (total == null) {
+            total = newStatistics();
+            buckets.fTotals[bucket] = total;
+            buckets.fPerType[bucket] = new HashMap<>();
+            buckets.fMinStarts[bucket] = start;
+            buckets.fMaxStarts[bucket] = start;
+        }
+        total.update(segment);
+        buckets.fTotal.update(segment);
+        String type = fTypeResolver.apply(segment);
+        if (type != null) {
+            buckets.fTotalPerType.computeIfAbsent(type, t -> newQuantileStatistics()).update(segment);
+            Map<String, IStatistics<ISegment>> perType = buckets.fPerType[bucket];
+            if (perType != null) {
+                perType.computeIfAbsent(type, t -> newStatistics()).update(segment);
+                if (perType.size() > MAX_TYPES_PER_NODE) {
+                    buckets.fPerType[bucket] = null;
+                }
+            }
+        }
+        buckets.fMinStarts[bucket] = Math.min(buckets.fMinStarts[bucket], start);
+        buckets.fMaxStarts[bucket] = Math.max(buckets.fMaxStarts[bucket], start);
+    }
+
+    private void mergePerType(Map<String, IStatistics<ISegment>> target, Map<String, IStatistics<ISegment>> source) {
+        for (Entry<String, IStatistics<ISegment>> entry : source.entrySet()) {
+            target.computeIfAbsent(entry.getKey(), type -> newStatistics()).merge(entry.getValue());
+        }
+    }
+
+    /**
+     * Merge the per type statistics of a node in the statistics of another
+     * node, with the types limit of the nodes
+     *
+     * @return The merged statistics, or null if either node has too many types
+     */
+    private @Nullable Map<String, IStatistics<ISegment>> mergeNodePerType(@Nullable Map<String, IStatistics<ISegment>> target, @Nullable Map<String, IStatistics<ISegment>> source) {
+        if (target == null || source == null) {
+            return null;
+        }
+        mergePerType(target, source);
+        return (target.size() > MAX_TYPES_PER_NODE) ? null : target;
+    }
+
+    /**
+     * Get the statistics of all the segments
+     *
+     * @return The statistics
+     */
+    public IStatistics<ISegment> getTotal() {
+        Statistics<ISegment> total = newQuantileStatistics();
+        total.merge(fTotal);
+        return total;
+    }
+
+    /**
+     * Get the statistics of all the segments, per type of segment
+     *
+     * @return The statistics per type
+     */
+    public Map<String, IStatistics<ISegment>> getPerType() {
+        Map<String, IStatistics<ISegment>> perType = new HashMap<>();
+        for (Entry<String, IStatistics<ISegment>> entry : fTotalPerType.entrySet()) {
+            perType.computeIfAbsent(entry.getKey(), type -> newQuantileStatistics()).merge(entry.getValue());
+        }
+        return perType;
+    }
+
+    /**
+     * Get the number of buckets of the summary
+     *
+     * @return The number of buckets
+     */
+    @VisibleForTesting
+    public int getNbBuckets() {
+        return fNbBuckets;
+    }
+
+    /**
+     * Get the number of statistics kept by the nodes of the tree, which bounds
+     * the memory used by the summary
+     *
+     * @return The number of statistics of the nodes
+     */
+    @VisibleForTesting
+    public int getNbNodeStatistics() {
+        int count = 0;
+        for (int node = 1; node < 2 * fNbBuckets; node++) {
+            if (fTotals[node] != null) {
+                count++;
+            }
+            Map<String, IStatistics<ISegment>> perType = fPerType[node];
+            if (perType != null) {
+                count += perType.size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get the statistics of the segments intersecting a range. The quantiles
+     * are not estimated.
+     *
+     * @param start
+     *            The start time of the range
+     * @param end
+     *            The end time of the range
+     * @param monitor
+     *            The progress monitor
+     * @return The statistics, or null if the monitor was cancelled
+     */
+    public @Nullable IStatistics<ISegment> getTotalForRange(long start, long end, IProgressMonitor monitor) {
+        Statistics<ISegment> total = newStatistics();
+        boolean completed = query(start, end, node -> true, node -> {
+            Statistics<ISegment> nodeTotal = fTotals[node];
+            if (nodeTotal != null) {
+                total.merge(nodeTotal);
+            }
+        }, total::update, monitor);
+        return completed ? total : null;
+    }
+
+    /**
+     * Get the statistics of the segments intersecting a range, per type of
+     * segment. The quantiles are not estimated.
+     *
+     * @param start
+     *            The start time of the range
+     * @param end
+     *            The end time of the range
+     * @param monitor
+     *            The progress monitor
+     * @return The statistics per type, or null if the monitor was cancelled
+     */
+    public @Nullable Map<String, IStatistics<ISegment>> getPerTypeForRange(long start, long end, IProgressMonitor monitor) {
+        Map<String, IStatistics<ISegment>> perType = new HashMap<>();
+        boolean completed = query(start, end, node -> fPerType[node] != null, node -> {
+            Map<String, IStatistics<ISegment>> nodePerType = fPerType[node];
+            if (nodePerType != null) {
+                mergePerType(perType, nodePerType);
+            }
+        }, segment -> {
+            String type = fTypeResolver.apply(segment);
+            if (type != null) {
+                perType.computeIfAbsent(type, t -> newStatistics()).update(segment);
+            }
+        }, monitor);
+        return completed ? perType : null;
+    }
+
+    /**
+     * Visit the nodes and the segments making up the segments intersecting a
+     * range. The nodes that do not have the statistics to visit are replaced
+     * by their children, or by their segments for the buckets.
+     *
+     * @return false if the monitor was cancelled
+     */
+    private boolean query(long start, long end, IntPredicate hasStatistics, IntConsumer nodeConsumer, Consumer<ISegment> segmentConsumer, IProgressMonitor monitor) {
+        if (monitor.isCanceled()) {
+            return false;
+        }
+        long t0 = Math.min(start, end);
+        long t1 = Math.max(start, end);
+        /* The nodes starting in the range, and the buckets partially in it */
+        List<long[]> partialRanges = new ArrayList<>();
+        visit(1, t0, t1, hasStatistics, nodeConsumer, partialRanges);
+
+        /*
+         * Read the segments of the buckets partially in the range from the
+         * store. The segments starting in the time range of such a bucket are
+         * all in this bucket. The segments starting before the range and
+         * ending in it are read along with the first bucket if it contains the
+         * start of the range.
+         */
+        boolean startRead = false;
+        for (long[] partialRange : partialRanges) {
+            long first = partialRange[0];
+            long last = partialRange[1];
+            boolean withStart = (first == t0);
+            startRead |= withStart;
+            if (!readSegments(first, last, segment -> (withStart || segment.getStart() >= first) && segment.getStart() <= last, segmentConsumer, monitor)) {
+                return false;
+            }
+        }
+        if (!startRead) {
+            return readSegments(t0, t0, segment -> segment.getStart() < t0, segmentConsumer, monitor);
+        }
+        return !monitor.isCanceled();
+    }
+
+    private void visit(int node, long t0, long t1, IntPredicate hasStatistics, IntConsumer nodeConsumer, List<long[]> partialRanges) {
+        if (fTotals[node] == null || fMaxStarts[node] < t0 || fMinStarts[node] > t1) {
+            return;
+        }
+        if (t0 <= fMinStarts[node] && fMaxStarts[node] <= t1 && hasStatistics.test(node)) {
+            nodeConsumer.accept(node);
+        } else if (node < fNbBuckets) {
+            visit(2 * node, t0, t1, hasStatistics, nodeConsumer, partialRanges);
+            visit(2 * node + 1, t0, t1, hasStatistics, nodeConsumer, partialRanges);
+        } else {
+            partialRanges.add(new long[] { Math.max(t0, fMinStarts[node]), Math.min(t1, fMaxStarts[node]) });
+        }
+    }
+
+    private boolean readSegments(long start, long end, Predicate<ISegment> filter, Consumer<ISegment> segmentConsumer, IProgressMonitor monitor) {
+        int count = 0;
+        for (ISegment segment : fStore.getIntersectingElements(start, end)) {
+            if (++count % CANCEL_CHECK_INTERVAL == 0 && monitor.isCanceled()) {
+                return false;
+            }
+            if (filter.test(segment)) {
+                segmentConsumer.accept(segment);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The statistics of some segments, by bucket
+     */
+    private static final class Buckets {
+        private final Statistics<ISegment> fTotal;
+        private final Map<String, IStatistics<ISegment>> fTotalPerType = new HashMap<>();
+        private final @Nullable Statistics<ISegment>[] fTotals;
+        private final @Nullable Map<String, IStatistics<ISegment>>[] fPerType;
+        private final long[] fMinStarts;
+        private final long[] fMaxStarts;
+
+        @SuppressWarnings("unchecked")
+        public Buckets(SegmentStatisticsSummary summary) {
+            int nbBuckets = summary.fNbBuckets;
+            fTotal = summary.newQuantileStatistics();
+            fTotals = new Statistics[nbBuckets];
+            fPerType = new Map[nbBuckets];
+            fMinStarts = new long[nbBuckets];
+            fMaxStarts = new long[nbBuckets];
+        }
+
+        /**
+         * Merge the buckets of segments following the segments of these
+         * buckets
+         */
+        public void merge(SegmentStatisticsSummary summary, Buckets other) {
+            fTotal.merge(other.fTotal);
+            for (Entry<String, IStatistics<ISegment>> entry : other.fTotalPerType.entrySet()) {
+                fTotalPerType.computeIfAbsent(entry.getKey(), type -> summary.newQuantileStatistics()).merge(entry.getValue());
+            }
+            for (int i = 0; i < fTotals.length; i++) {
+                Statistics<ISegment> otherTotal = other.fTotals[i];
+                if (otherTotal == null) {
+                    continue;
+                }
+                Statistics<ISegment> total = fTotals[i];
+                if (total == null) {
+                    fTotals[i] = otherTotal;
+                    fPerType[i] = other.fPerType[i];
+                    fMinStarts[i] = other.fMinStarts[i];
+                    fMaxStarts[i] = other.fMaxStarts[i];
+                    continue;
+                }
+                total.merge(otherTotal);
+                fPerType[i] = summary.mergeNodePerType(fPerType[i], other.fPerType[i]);
+                fMinStarts[i] = Math.min(fMinStarts[i], other.fMinStarts[i]);
+                fMaxStarts[i] = Math.max(fMaxStarts[i], other.fMaxStarts[i]);
+            }
+        }
+    }
+
+    /**
+     * Task computing the statistics by bucket of the segments of a
+     * spliterator, splitting it in sub-tasks when it is big enough
+     */
+    private static final class BucketTask extends RecursiveTask<Buckets> {
+
+        private static final long serialVersionUID = -3476584218264035172L;
+
+        private final transient SegmentStatisticsSummary fSummary;
+        private final transient Spliterator<ISegment> fSegments;
+        private final transient IProgressMonitor fMonitor;
+
+        public BucketTask(SegmentStatisticsSummary summary, Spliterator<ISegment> segments, IProgressMonitor monitor) {
+            fSummary = summary;
+            fSegments = segments;
+            fMonitor = monitor;
+        }
+
+        @Override
+        protected Buckets compute() {
+            Spliterator<ISegment> segments = fSegments;
+            Spliterator<ISegment> prefix;
+            if (segments.estimateSize() > LEAF_SIZE && !fMonitor.isCanceled() && (prefix = segments.trySplit()) != null) {
+                BucketTask first = new BucketTask(fSummary, prefix, fMonitor);
+                first.fork();
+                Buckets rest = new BucketTask(fSummary, segments, fMonitor).compute();
+                /* Merge in the order of the segments */
+                Buckets buckets = first.join();
+                buckets.merge(fSummary, rest);
+                return buckets;
+            }
+
+            Buckets buckets = new Buckets(fSummary);
+            Consumer<ISegment> action = segment -> fSummary.add(buckets, segment);
+            int count = 0;
+            while (segments.tryAdvance(action)) {
+                if (++count % CANCEL_CHECK_INTERVAL == 0 && fMonitor.isCanceled()) {
+                    break;
+                }
+            }
+            return buckets;
+        }
+    }
+}
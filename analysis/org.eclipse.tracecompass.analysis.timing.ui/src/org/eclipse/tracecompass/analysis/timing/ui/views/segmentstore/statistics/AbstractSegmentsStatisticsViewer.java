@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015, 2020 Ericsson, École Polytechnique de Montréal
+ * Copyright (c) 2015, 2026 Ericsson, École Polytechnique de Montréal
  *
  * All rights reserved. This program and the accompanying materials are made
  * available under the terms of the Eclipse Public License 2.0 which
@@ -70,7 +70,7 @@ public abstract class AbstractSegmentsStatisticsViewer extends AbstractTmfTreeVi
 
     private static final int COL_LABEL = 0;
     private static final int COL_COUNT = 5;
-    private static final int COL_TOTAL = 6;
+    private static final int COL_PERCENTILE_999 = 9;
 
     private static final String BLANK = "---"; //$NON-NLS-1$
 
@@ -124,7 +124,7 @@ public abstract class AbstractSegmentsStatisticsViewer extends AbstractTmfTreeVi
                 SegmentStoreStatisticsModel model = ((TmfGenericTreeEntry<@NonNull SegmentStoreStatisticsModel>) element).getModel();
                 // Avoid displaying statistics for trace level entries.
                 List<String> labels = model.getLabels();
-                if ((columnIndex < labels.size()) && (columnIndex <= COL_TOTAL) && (columnIndex == COL_LABEL || (model.getParentId() != -1))) {
+                if ((columnIndex < labels.size()) && (columnIndex <= COL_PERCENTILE_999) && (columnIndex == COL_LABEL || (model.getParentId() != -1))) {
                     if (model.getNbElements() != 0 || columnIndex == COL_LABEL || columnIndex == COL_COUNT) {
                         label = labels.get(columnIndex);
                     } else {
@@ -146,7 +146,10 @@ public abstract class AbstractSegmentsStatisticsViewer extends AbstractTmfTreeVi
                 createTmfTreeColumnData(Messages.SegmentStoreStatisticsViewer_StandardDeviation, Comparator.comparing(keyExtractor(SegmentStoreStatisticsModel::getStdDev))),
                 createTmfTreeColumnData(Messages.SegmentStoreStatisticsViewer_Count, Comparator.comparing(keyExtractor(SegmentStoreStatisticsModel::getNbElements))),
                 createTmfTreeColumnData(Messages.SegmentStoreStatisticsViewer_Total, Comparator.comparing(keyExtractor(SegmentStoreStatisticsModel::getTotal))),
-                // A dummy column is added to prevent the Total column from
+                createTmfTreeColumnData(Messages.SegmentStoreStatisticsViewer_Median, Comparator.comparing(keyExtractor(SegmentStoreStatisticsModel::getMedian))),
+                createTmfTreeColumnData(Messages.SegmentStoreStatisticsViewer_Percentile99, Comparator.comparing(keyExtractor(SegmentStoreStatisticsModel::getPercentile99))),
+                createTmfTreeColumnData(Messages.SegmentStoreStatisticsViewer_Percentile999, Comparator.comparing(keyExtractor(SegmentStoreStatisticsModel::getPercentile999))),
+                // A dummy column is added to prevent the last column from
                 // taking all the remaining space
                 new TmfTreeColumnData("")); //$NON-NLS-1$
     }
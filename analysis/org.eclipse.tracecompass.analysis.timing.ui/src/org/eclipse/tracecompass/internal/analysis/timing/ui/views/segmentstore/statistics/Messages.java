@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015, 2018 Ericsson
+ * Copyright (c) 2015, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -45,6 +45,12 @@ public class Messages extends NLS {
     public static String SegmentStoreStatisticsViewer_Total;
     /** Name of average column */
     public static String SegmentStoreStatisticsViewer_StandardDeviation;
+    /** Name of median column */
+    public static String SegmentStoreStatisticsViewer_Median;
+    /** Name of 99th percentile column */
+    public static String SegmentStoreStatisticsViewer_Percentile99;
+    /** Name of 99.9th percentile column */
+    public static String SegmentStoreStatisticsViewer_Percentile999;
     /** Menu item for go to minimum duration */
     public static String SegmentStoreStatisticsViewer_GotoMinAction;
     /** Menu item for go to maximum duration */
@@ -0,0 +1,229 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.common.core.tests.perf.collect;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Supplier;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.test.performance.Dimension;
+import org.eclipse.test.performance.Performance;
+import org.eclipse.test.performance.PerformanceMeter;
+import org.eclipse.tracecompass.common.core.collect.BufferedBlockingQueue;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Benchmark the transfer of elements from a producer thread to a consumer
+ * thread through a {@link BufferedBlockingQueue}, with the queue sizes used by
+ * the state providers and the threaded history tree backend. The blocking
+ * queues of the JDK, with the same capacity, are measured for reference.
+ *
+ * @category benchmark
+ */
+@RunWith(Parameterized.class)
+public class BufferedBlockingQueueBenchmark {
+
+    private static final @NonNull String TEST_PREFIX = "org.eclipse.tracecompass#Buffered Blocking Queue#";
+    private static final @NonNull String TEST_TRANSFER_ID = "Transfer: ";
+    private static final @NonNull String TEST_OBSERVED_TRANSFER_ID = "Transfer with iterations: ";
+    private static final int NB_ELEMENTS = 5000000;
+    private static final int NB_ITERATIONS = 100;
+    private static final int LOOP_COUNT = 10;
+    private static final Integer END = -1;
+
+    /* The queue sizes of the state providers */
+    private static final int QUEUE_SIZE = 127;
+    private static final int CHUNK_SIZE = 127;
+
+    private static final Integer[] ELEMENTS = new Integer[NB_ELEMENTS];
+
+    static {
+        for (int i = 0; i < NB_ELEMENTS; i++) {
+            ELEMENTS[i] = i;
+        }
+    }
+
+    /**
+     * The operations of a queue used by this benchmark
+     */
+    private interface IQueue extends Iterable<Integer> {
+        void put(Integer element) throws InterruptedException;
+
+        void flush();
+
+        Integer take() throws InterruptedException;
+    }
+
+    private static IQueue wrap(BufferedBlockingQueue<Integer> queue) {
+        return new IQueue() {
+            @Override
+            public void put(Integer element) {
+                queue.put(element);
+            }
+
+            @Override
+            public void flush() {
+                queue.flushInputBuffer();
+            }
+
+            @Override
+            public Integer take() {
+                return queue.take();
+            }
+
+            @Override
+            public Iterator<Integer> iterator() {
+                return queue.iterator();
+            }
+        };
+    }
+
+    private static IQueue wrap(BlockingQueue<Integer> queue) {
+        return new IQueue() {
+            @Override
+            public void put(Integer element) throws InterruptedException {
+                queue.put(element);
+            }
+
+            @Override
+            public void flush() {
+                // Nothing to flush
+            }
+
+            @Override
+            public Integer take() throws InterruptedException {
+                return queue.take();
+            }
+
+            @Override
+            public Iterator<Integer> iterator() {
+                return queue.iterator();
+            }
+        };
+    }
+
+    private final String fName;
+    private final Supplier<IQueue> fQueueSupplier;
+
+    /**
+     * @return The arrays of parameters
+     */
+    @Parameters(name = "{index}: {0}")
+    public static Iterable<Object[]> getParameters() {
+        Supplier<IQueue> stateProvider = () -> wrap(new BufferedBlockingQueue<>(QUEUE_SIZE, CHUNK_SIZE));
+        Supplier<IQueue> smallChunks = () -> wrap(new BufferedBlockingQueue<>(QUEUE_SIZE * CHUNK_SIZE / 8, 8));
+        Supplier<IQueue> arrayQueue = () -> wrap(new ArrayBlockingQueue<>(QUEUE_SIZE * CHUNK_SIZE));
+        Supplier<IQueue> linkedQueue = () -> wrap(new LinkedBlockingQueue<>(QUEUE_SIZE * CHUNK_SIZE));
+        return Arrays.asList(new Object[][] {
+                { "Buffered queue", stateProvider },
+                { "Buffered queue, small chunks", smallChunks },
+                { "Array blocking queue", arrayQueue },
+                { "Linked blocking queue", linkedQueue },
+        });
+    }
+
+    /**
+     * Constructor
+     *
+     * @param name
+     *            The name of the queue
+     * @param queueSupplier
+     *            Supplier of new queues to benchmark
+     */
+    public BufferedBlockingQueueBenchmark(String name, Supplier<IQueue> queueSupplier) {
+        fName = name;
+        fQueueSupplier = queueSupplier;
+    }
+
+    /**
+     * Benchmark the transfer of the elements to a consumer thread
+     *
+     * @throws InterruptedException
+     *             If a thread is interrupted
+     */
+    @Test
+    public void testTransfer() throws InterruptedException {
+        runTransfer(TEST_TRANSFER_ID, false);
+    }
+
+    /**
+     * Benchmark the transfer of the elements to a consumer thread while
+     * another thread iterates on the queue, like the queries on a history
+     * tree that is being built
+     *
+     * @throws InterruptedException
+     *             If a thread is interrupted
+     */
+    @Test
+    public void testObservedTransfer() throws InterruptedException {
+        runTransfer(TEST_OBSERVED_TRANSFER_ID, true);
+    }
+
+    private void runTransfer(String testId, boolean observed) throws InterruptedException {
+        Performance perf = Performance.getDefault();
+        PerformanceMeter pm = perf.createPerformanceMeter(TEST_PREFIX + testId + fName);
+        perf.tagAsSummary(pm, testId + fName, Dimension.CPU_TIME);
+
+        for (int i = 0; i < LOOP_COUNT; i++) {
+            IQueue queue = fQueueSupplier.get();
+            Thread producer = new Thread(() -> {
+                try {
+                    for (Integer element : ELEMENTS) {
+                        queue.put(element);
+                    }
+                    queue.put(END);
+                    queue.flush();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            Thread observer = new Thread(() -> {
+                for (int j = 0; j < NB_ITERATIONS; j++) {
+                    for (Integer element : queue) {
+                        if (element.equals(END)) {
+                            return;
+                        }
+                    }
+                }
+            });
+
+            pm.start();
+            producer.start();
+            if (observed) {
+                observer.start();
+            }
+            long sum = 0;
+            Integer element = queue.take();
+            while (!element.equals(END)) {
+                sum += element;
+                element = queue.take();
+            }
+            producer.join();
+            pm.stop();
+            if (observed) {
+                observer.join();
+            }
+
+            assertEquals((long) NB_ELEMENTS * (NB_ELEMENTS - 1) / 2, sum);
+        }
+        pm.commit();
+    }
+}
@@ -17,25 +17,24 @@ package org.eclipse.tracecompass.common.core.collect;
 
 import static org.eclipse.tracecompass.common.core.NonNullUtils.checkNotNull;
 
-import java.util.Deque;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
-import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ConcurrentLinkedDeque;
-import java.util.concurrent.LinkedBlockingDeque;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.Condition;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
 
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.internal.common.core.Activator;
 
 /**
- * A BufferedBlockingQueue is a wrapper around a {@link BlockingQueue}, which
- * provides input and output "buffers", so that chunks of elements are inserted
- * into the output buffer, rather than individual elements.
+ * A BufferedBlockingQueue is a blocking queue, like a {@link BlockingQueue},
+ * which provides input and output "buffers", so that chunks of elements are
+ * inserted into the output buffer, rather than individual elements.
  * <p>
  * The API provides usual put() and take() methods which work on single
  * elements. This class abstracts the concept of chunking, as well as the
@@ -44,6 +43,12 @@ import org.eclipse.tracecompass.internal.common.core.Activator;
  * The main use case is for when different threads are doing insertion and
  * removal operations. The added buffering reduces the contention between those
  * two threads.
+ * <p>
+ * The chunks are kept in a ring and reused once they have been emptied, so no
+ * allocation is done once the ring is filled. The chunks are handed from the
+ * producer to the consumer without locking: each side only writes its own end
+ * of the ring. A side that has to wait for the other spins a little before
+ * parking, since the wait is usually short when both threads are busy.
  *
  * @param <T>
  *            The data type of the elements contained by the queue
@@ -52,24 +57,67 @@ import org.eclipse.tracecompass.internal.common.core.Activator;
 public class BufferedBlockingQueue<T> implements Iterable<T> {
 
     private static final String BUFFERED_QUEUE_INTERRUPTED = "Buffered queue interrupted"; //$NON-NLS-1$
-    private final BlockingDeque<Deque<T>> fInnerQueue;
+
+    /*
+     * Number of checks of a waiting thread before it parks. Spinning is
+     * useless if the other side cannot run at the same time.
+     */
+    private static final int SPIN_TRIES = Runtime.getRuntime().availableProcessors() > 1 ? 1000 : 0;
+
+    /*
+     * The locks only serialize the threads on the same side of the queue,
+     * there is usually a single producer and a single consumer, so they are
+     * not contended.
+     */
     private final Lock fInputLock = new ReentrantLock();
     private final Lock fOutputLock = new ReentrantLock();
     private final int fChunkSize;
 
-    private Deque<T> fInputBuffer;
-    private Deque<T> fOutputBuffer;
+    /*
+     * Ring of chunks, indexed by their sequence number. The chunk at fTail is
+     * the input buffer and the chunks from fHead to fTail - 1 are published to
+     * the consumer, the chunk at fHead being the output buffer. The chunks are
+     * created when their slot is first used.
+     */
+    private final @Nullable Chunk[] fChunks;
+    /* Maximum number of published chunks, including the output buffer */
+    private final int fMaxPublished;
+    private volatile long fHead = 0;
+    private volatile long fTail = 0;
+    /* Position of the next element in the output buffer */
+    private int fOutputIndex = 0;
 
     /*
-     * ConcurrentLinkedDeque's size() method does not run in constant time.
-     * Since we know we will only increment it, keep track of the number of
-     * insertions ourselves. It does not matter if the actual size is not exact.
+     * Each counter is only written by one side of the queue, the size is
+     * their difference.
+     */
+    private final AtomicLong fNbPut = new AtomicLong();
+    private final AtomicLong fNbTaken = new AtomicLong();
+
+    private final AtomicReference<@Nullable Thread> fWaitingProducer = new AtomicReference<>();
+    private final AtomicReference<@Nullable Thread> fWaitingConsumer = new AtomicReference<>();
+    private final BooleanSupplier fHasRoom;
+    private final BooleanSupplier fHasOutput = () -> fHead != fTail;
+
+    /**
+     * A chunk of elements, the elements after the count are null
      */
-    private int fInputBufferSize;
+    private static final class Chunk {
+        private @Nullable Object[] fElements;
+        private int fCount = 0;
 
-    private final AtomicInteger fSize = new AtomicInteger(0);
+        public Chunk(int size) {
+            fElements = new Object[size];
+        }
 
-    private final Condition fInnerQueueNotEmpty = checkNotNull(fOutputLock.newCondition());
+        public void add(Object element) {
+            if (fCount == fElements.length) {
+                /* Only if the chunk could not be flushed */
+                fElements = Arrays.copyOf(fElements, fCount * 2);
+            }
+            fElements[fCount++] = element;
+        }
+    }
 
     /**
      * Constructor
@@ -89,17 +137,25 @@ public class BufferedBlockingQueue<T> implements Iterable<T> {
         if (chunkSize <= 0) {
             throw new IllegalArgumentException("chunkSize must be > 0"); //$NON-NLS-1$
         }
-        /* Add one to the queue size for the output buffer */
-        fInnerQueue = new LinkedBlockingDeque<>(queueSize + 1);
         fChunkSize = chunkSize;
+        /* Add one chunk for the output buffer, and one for the input buffer */
+        fMaxPublished = queueSize + 1;
+        fChunks = new @Nullable Chunk[queueSize + 2];
+        fHasRoom = () -> fTail - fHead < fMaxPublished;
+    }
 
-        fInputBuffer = new ConcurrentLinkedDeque<>();
-        /*
-         * Create an empty output buffer to avoid a null reference, and add it
-         * to the queue. The output buffer is always the head of the queue.
-         */
-        fOutputBuffer = new ConcurrentLinkedDeque<>();
-        fInnerQueue.add(fOutputBuffer);
+    private int slot(long sequenceNumber) {
+        return (int) (sequenceNumber % fChunks.length);
+    }
+
+    private Chunk getInputBuffer() {
+        int slot = slot(fTail);
+        Chunk input = fChunks[slot];
+        if (input == null) {
+            input = new Chunk(fChunkSize);
+            fChunks[slot] = input;
+        }
+        return input;
     }
 
     /**
@@ -114,10 +170,10 @@ public class BufferedBlockingQueue<T> implements Iterable<T> {
     public void put(T element) {
         fInputLock.lock();
         try {
-            fInputBuffer.add(element);
-            fSize.incrementAndGet();
-            fInputBufferSize++;
-            if (fInputBufferSize >= fChunkSize) {
+            Chunk input = getInputBuffer();
+            input.add(checkNotNull(element));
+            fNbPut.lazySet(fNbPut.get() + 1);
+            if (input.fCount >= fChunkSize) {
                 this.flushInputBuffer();
             }
         } finally {
@@ -136,34 +192,27 @@ public class BufferedBlockingQueue<T> implements Iterable<T> {
      * for space to become available.
      */
     public void flushInputBuffer() {
-        boolean signal = false;
         fInputLock.lock();
         try {
+            Chunk input = fChunks[slot(fTail)];
+            if (input == null || input.fCount == 0) {
+                return;
+            }
             /*
-             * This call blocks if the inner queue is full, effectively blocking
-             * the caller until elements are removed via the take() method.
+             * This call blocks if all the chunks are published, effectively
+             * blocking the caller until elements are removed via the take()
+             * method.
              */
-            if (!fInputBuffer.isEmpty()) {
-                fInnerQueue.put(fInputBuffer);
-                fInputBuffer = new ConcurrentLinkedDeque<>();
-                fInputBufferSize = 0;
-                signal = true;
+            if (!await(fHasRoom, fWaitingProducer)) {
+                Activator.instance().logError(BUFFERED_QUEUE_INTERRUPTED);
+                return;
             }
-
-        } catch (InterruptedException e) {
-            Activator.instance().logError(BUFFERED_QUEUE_INTERRUPTED, e);
-            Thread.currentThread().interrupt();
+            /* Publish the input buffer, its slot belongs to the consumer now */
+            fTail = fTail + 1;
+            signal(fWaitingConsumer);
         } finally {
             fInputLock.unlock();
         }
-        if (signal) {
-            fOutputLock.lock();
-            try {
-                fInnerQueueNotEmpty.signalAll();
-            } finally {
-                fOutputLock.unlock();
-            }
-        }
     }
 
     /**
@@ -178,30 +227,14 @@ public class BufferedBlockingQueue<T> implements Iterable<T> {
     public T take() {
         fOutputLock.lock();
         try {
-            if (fOutputBuffer.isEmpty()) {
-                /*
-                 * Our read buffer is empty, remove it from the queue and peek
-                 * the next buffer in the queue. The loop will block if the
-                 * inner queue is empty, releasing the lock while it waits.
-                 */
-                Deque<T> value = fInnerQueue.remove();
-                if (!value.isEmpty()) {
-                    Activator.instance().logError("Queue chunk not empty " + value); //$NON-NLS-1$
-                }
-                while (fInnerQueue.isEmpty()) {
-                    fInnerQueueNotEmpty.await();
-                }
-                fOutputBuffer = checkNotNull(fInnerQueue.peek());
-            }
-            /* Our implementation guarantees this output buffer is not empty. */
-            T element = checkNotNull(fOutputBuffer.remove());
-            fSize.decrementAndGet();
+            @Nullable Object[] elements = getOutputBuffer().fElements;
+            @SuppressWarnings("unchecked")
+            T element = (T) checkNotNull(elements[fOutputIndex]);
+            /* Do not keep a reference to the element in the chunk */
+            elements[fOutputIndex] = null;
+            fOutputIndex++;
+            fNbTaken.lazySet(fNbTaken.get() + 1);
             return element;
-        } catch (InterruptedException e) {
-            Activator.instance().logError(BUFFERED_QUEUE_INTERRUPTED, e);
-            Thread.currentThread().interrupt();
-            // won't happen
-            throw new IllegalStateException(e);
         } finally {
             fOutputLock.unlock();
         }
@@ -220,30 +253,72 @@ public class BufferedBlockingQueue<T> implements Iterable<T> {
     public T blockingPeek() {
         fOutputLock.lock();
         try {
-            if (fOutputBuffer.isEmpty()) {
-                /*
-                 * Our read buffer is empty, remove it from the queue and peek
-                 * the next buffer in the queue. The loop will block if the
-                 * inner queue is empty, releasing the lock while it waits.
-                 */
-                Deque<T> value = fInnerQueue.remove();
-                if (!value.isEmpty()) {
-                    Activator.instance().logError("Queue chunk not empty " + value); //$NON-NLS-1$
-                }
-                while (fInnerQueue.isEmpty()) {
-                    fInnerQueueNotEmpty.await();
+            @SuppressWarnings("unchecked")
+            T element = (T) checkNotNull(getOutputBuffer().fElements[fOutputIndex]);
+            return element;
+        } finally {
+            fOutputLock.unlock();
+        }
+    }
+
+    /*
+     * Get the output buffer, with at least one element left to take. The
+     * output buffer is released to the producer once it is empty, and the
+     * next published chunk becomes the output buffer. This call blocks if no
+     * chunk is published.
+     */
+    private Chunk getOutputBuffer() {
+        while (true) {
+            if (!await(fHasOutput, fWaitingConsumer)) {
+                Activator.instance().logError(BUFFERED_QUEUE_INTERRUPTED);
+                throw new IllegalStateException(BUFFERED_QUEUE_INTERRUPTED);
+            }
+            long head = fHead;
+            /* Our implementation guarantees published chunks are not empty. */
+            Chunk output = checkNotNull(fChunks[slot(head)]);
+            if (fOutputIndex < output.fCount) {
+                return output;
+            }
+            output.fCount = 0;
+            fOutputIndex = 0;
+            fHead = head + 1;
+            signal(fWaitingProducer);
+        }
+    }
+
+    /**
+     * Wait until the condition is true, spinning, then parking the thread. The thread is registered as waiter before the condition is
+     * checked for the last time before parking, so that it cannot miss the
+     * signal of the other side of the queue.
+     *
+     * @return True if the condition is true, false if the thread was
+     *         interrupted
+     */
+    private static boolean await(BooleanSupplier condition, AtomicReference<@Nullable Thread> waiter) {
+        for (int i = 0; i < SPIN_TRIES; i++) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+        }
+        Thread current = Thread.currentThread();
+        waiter.set(current);
+        try {
+            while (!condition.getAsBoolean()) {
+                if (current.isInterrupted()) {
+                    return false;
                 }
-                fOutputBuffer = checkNotNull(fInnerQueue.peek());
+                LockSupport.park(waiter);
             }
-            /* Our implementation guarantees this output buffer is not empty. */
-            return checkNotNull(fOutputBuffer.peek());
-        } catch (InterruptedException e) {
-            Activator.instance().logError(BUFFERED_QUEUE_INTERRUPTED, e);
-            Thread.currentThread().interrupt();
-            // won't happen
-            throw new IllegalStateException(e);
+            return true;
         } finally {
-            fOutputLock.unlock();
+            waiter.set(null);
+        }
+    }
+
+    private static void signal(AtomicReference<@Nullable Thread> waiter) {
+        Thread thread = waiter.get();
+        if (thread != null) {
+            LockSupport.unpark(thread);
         }
     }
 
@@ -253,7 +328,7 @@ public class BufferedBlockingQueue<T> implements Iterable<T> {
      * @return true if the queue is empty
      */
     public boolean isEmpty() {
-        return (fSize.get() == 0);
+        return (size() == 0);
     }
 
     /**
@@ -263,7 +338,9 @@ public class BufferedBlockingQueue<T> implements Iterable<T> {
      * @since 1.1
      */
     public int size() {
-        return fSize.get();
+        /* Read the taken elements first, so the size is never negative */
+        long nbTaken = fNbTaken.get();
+        return (int) (fNbPut.get() - nbTaken);
     }
 
     /**
@@ -292,42 +369,51 @@ public class BufferedBlockingQueue<T> implements Iterable<T> {
 
     private class Itr implements Iterator<T> {
         /*
-         * Note that the iterators of LinkedBlockingDeque and
-         * ConcurrentLinkedDeque are thread-safe, which allows iterating on them
-         * while they are being modified without having to lock the accesses.
+         * The iterator does not lock the queue, it goes through the chunks from
+         * the input buffer to the output buffer, and stops when it reaches a
+         * chunk that was released by the consumer.
          *
-         * To make sure we do not "miss" any elements, we need to look through
-         * the input buffer first, then the inner queue buffers in descending
-         * order, ending with the output buffer.
+         * A chunk may be emptied and reused while it is being read, in which
+         * case its elements were removed by take() and the iterator may return
+         * newer elements instead, or skip the removed ones. It never misses an
+         * element that is still in the queue.
          */
         private @Nullable T fNext = null;
-        private Iterator<T> fBufferIterator;
-        private final Iterator<Deque<T>> fQueueIterator;
+        private long fChunk;
+        private @Nullable Object[] fElements;
+        private int fPosition;
 
         Itr() {
             fInputLock.lock();
             try {
-                fBufferIterator = checkNotNull(fInputBuffer.descendingIterator());
-                fQueueIterator = checkNotNull(fInnerQueue.descendingIterator());
+                fChunk = fTail;
+                Chunk input = fChunks[slot(fChunk)];
+                fElements = (input == null ? new Object[0] : input.fElements);
+                fPosition = (input == null ? 0 : input.fCount) - 1;
             } finally {
                 fInputLock.unlock();
             }
         }
 
+        @SuppressWarnings("unchecked")
         @Override
         public boolean hasNext() {
-            if (fNext != null) {
-                return true;
-            }
-            if (fBufferIterator.hasNext()) {
-                fNext = fBufferIterator.next();
-                return true;
-            }
-            if (fQueueIterator.hasNext()) {
-                fBufferIterator = checkNotNull(fQueueIterator.next().descendingIterator());
-                return hasNext();
+            while (fNext == null) {
+                if (fPosition >= 0) {
+                    fNext = (T) fElements[fPosition--];
+                    continue;
+                }
+                /* Move on to the previous chunk, if it is still published */
+                fChunk--;
+                if (fChunk < fHead) {
+                    return false;
+                }
+                Chunk chunk = checkNotNull(fChunks[slot(fChunk)]);
+                fElements = chunk.fElements;
+                /* The count may be updated concurrently */
+                fPosition = Math.min(chunk.fCount, fElements.length) - 1;
             }
-            return false;
+            return true;
         }
 
         @Override
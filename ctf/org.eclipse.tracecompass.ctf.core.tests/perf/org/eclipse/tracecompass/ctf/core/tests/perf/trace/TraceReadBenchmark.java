@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2014 Ericsson
+ * Copyright (c) 2012, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -39,13 +39,14 @@ public class TraceReadBenchmark {
     private static final String TEST_SUITE_NAME = "CTF Read Benchmark";
     private static final String TEST_ID = "org.eclipse.linuxtools#" + TEST_SUITE_NAME;
     private static final int LOOP_COUNT = 100;
+    private static final int PREFETCH_DEPTH = 2;
 
     /**
      * Benchmark reading the trace "kernel"
      */
     @Test
     public void testKernelTrace() {
-        readTrace(CtfTestTrace.KERNEL, "trace-kernel", true);
+        readTrace(CtfTestTrace.KERNEL, "trace-kernel", true, 0);
     }
 
     /**
@@ -53,10 +54,28 @@ public class TraceReadBenchmark {
      */
     @Test
     public void testKernelVmTrace() {
-        readTrace(CtfTestTrace.KERNEL_VM, "trace-kernel-vm", false);
+        readTrace(CtfTestTrace.KERNEL_VM, "trace-kernel-vm", false, 0);
     }
 
-    private static void readTrace(CtfTestTrace testTrace, String testName, boolean inGlobalSummary) {
+    /**
+     * Benchmark reading the trace "kernel", with the packets of each stream
+     * decoded in advance
+     */
+    @Test
+    public void testKernelTracePrefetch() {
+        readTrace(CtfTestTrace.KERNEL, "trace-kernel-prefetch", false, PREFETCH_DEPTH);
+    }
+
+    /**
+     * Benchmark reading the bigger trace "kernel_vm", with the packets of each
+     * stream decoded in advance
+     */
+    @Test
+    public void testKernelVmTracePrefetch() {
+        readTrace(CtfTestTrace.KERNEL_VM, "trace-kernel-vm-prefetch", false, PREFETCH_DEPTH);
+    }
+
+    private static void readTrace(CtfTestTrace testTrace, String testName, boolean inGlobalSummary, int prefetchDepth) {
         Performance perf = Performance.getDefault();
         PerformanceMeter pm = perf.createPerformanceMeter(TEST_ID + '#' + testName);
         perf.tagAsSummary(pm, TEST_SUITE_NAME + ':' + testName, Dimension.CPU_TIME);
@@ -70,6 +89,7 @@ public class TraceReadBenchmark {
             try {
                 CTFTrace trace = CtfTestTraceUtils.getTrace(testTrace);
                 try (CTFTraceReader traceReader = new CTFTraceReader(trace);) {
+                    traceReader.setPrefetchDepth(prefetchDepth);
 
                     while (traceReader.hasMoreEvents()) {
                         IEventDefinition ed = traceReader.getCurrentEventDef();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2014 Ericsson
+ * Copyright (c) 2013, 2026 Ericsson
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
  * which accompanies this distribution, and is available at
@@ -18,11 +18,19 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
 import org.eclipse.tracecompass.ctf.core.CTFException;
 import org.eclipse.tracecompass.ctf.core.event.IEventDefinition;
 import org.eclipse.tracecompass.ctf.core.tests.shared.CtfTestTraceUtils;
 import org.eclipse.tracecompass.ctf.core.trace.CTFTrace;
 import org.eclipse.tracecompass.ctf.core.trace.CTFTraceReader;
+import org.eclipse.tracecompass.internal.ctf.core.trace.CTFPacketReader;
 import org.eclipse.tracecompass.testtraces.ctf.CtfTestTrace;
 import org.junit.Before;
 import org.junit.Test;
@@ -300,6 +308,111 @@ public class CTFTraceReaderTest {
         assertTrue(result);
     }
 
+    /**
+     * Test that reading the trace with packets decoded in advance gives the
+     * same events, also after a seek.
+     *
+     * @throws CTFException
+     *             error
+     */
+    @Test
+    public void testPrefetch() throws CTFException {
+        CTFTrace trace = CtfTestTraceUtils.getTrace(testTrace);
+        try (CTFTraceReader reader = new CTFTraceReader(trace);
+                CTFTraceReader prefetchReader = new CTFTraceReader(trace);) {
+            prefetchReader.setPrefetchDepth(2);
+            assertEquals(2, prefetchReader.getPrefetchDepth());
+            assertSameEvents(reader, prefetchReader);
+
+            long timestamp = trace.timestampNanoToCycles(fixture.getStartTime()) + 1000000L;
+            reader.seek(timestamp);
+            prefetchReader.seek(timestamp);
+            assertSameEvents(reader, prefetchReader);
+        }
+    }
+
+    /**
+     * Test that the packet indexes are saved when the trace is read, and that
+     * a trace using the saved indexes reads the same events
+     *
+     * @throws CTFException
+     * @throws IOException
+     */
+    @Test
+    public void testPacketIndexDirectory() throws CTFException, IOException {
+        File directory = Files.createTempDirectory("ctf-packet-index").toFile();
+        try {
+            CTFTrace trace = CtfTestTraceUtils.getTrace(testTrace);
+            trace.setPacketIndexDirectory(directory);
+            assertEquals(directory, trace.getPacketIndexDirectory());
+            try (CTFTraceReader reader = new CTFTraceReader(trace);) {
+                while (reader.hasMoreEvents()) {
+                    reader.advance();
+                }
+            }
+            File[] indexFiles = directory.listFiles((dir, name) -> name.endsWith(".idx"));
+            assertNotNull(indexFiles);
+            assertTrue(indexFiles.length > 0);
+
+            CTFTrace cachedTrace = CtfTestTraceUtils.getTrace(testTrace);
+            cachedTrace.setPacketIndexDirectory(directory);
+            try (CTFTraceReader reader = new CTFTraceReader(CtfTestTraceUtils.getTrace(testTrace));
+                    CTFTraceReader cachedReader = new CTFTraceReader(cachedTrace);) {
+                assertEquals(reader.getEndTime(), cachedReader.getEndTime());
+                assertSameEvents(reader, cachedReader);
+            }
+        } finally {
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * Test that the compiled decoders read the same events as the declarations
+     *
+     * @throws CTFException
+     */
+    @Test
+    public void testCompiledDecoders() throws CTFException {
+        List<String> expected = readEvents(CtfTestTraceUtils.getTrace(testTrace));
+        System.setProperty(CTFPacketReader.COMPILED_DECODERS_PROPERTY, Boolean.TRUE.toString());
+        try {
+            List<String> actual = readEvents(CtfTestTraceUtils.getTrace(testTrace));
+            assertEquals(expected, actual);
+        } finally {
+            System.clearProperty(CTFPacketReader.COMPILED_DECODERS_PROPERTY);
+        }
+    }
+
+    private static List<String> readEvents(CTFTrace trace) throws CTFException {
+        List<String> events = new ArrayList<>();
+        try (CTFTraceReader reader = new CTFTraceReader(trace);) {
+            while (reader.hasMoreEvents()) {
+                IEventDefinition event = reader.getCurrentEventDef();
+                events.add(event.getTimestamp() + " " + event.getDeclaration().getName() + " " + event.getCPU()
+                        + " " + event.getEventContext() + " " + event.getFields());
+                reader.advance();
+            }
+        }
+        return events;
+    }
+
+    private static void assertSameEvents(CTFTraceReader expected, CTFTraceReader actual) throws CTFException {
+        long count = 0;
+        while (expected.hasMoreEvents()) {
+            assertTrue(actual.hasMoreEvents());
+            IEventDefinition expectedEvent = expected.getCurrentEventDef();
+            IEventDefinition actualEvent = actual.getCurrentEventDef();
+            assertEquals("Event " + count, expectedEvent.getTimestamp(), actualEvent.getTimestamp());
+            assertEquals("Event " + count, expectedEvent.getDeclaration().getName(), actualEvent.getDeclaration().getName());
+            assertEquals("Event " + count, expectedEvent.getCPU(), actualEvent.getCPU());
+            assertEquals("Event " + count, String.valueOf(expectedEvent.getFields()), String.valueOf(actualEvent.getFields()));
+            expected.advance();
+            actual.advance();
+            count++;
+        }
+        assertFalse(actual.hasMoreEvents());
+    }
+
     /**
      * @return
      */
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.ctf.core.tests.types;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import org.eclipse.tracecompass.ctf.core.CTFException;
+import org.eclipse.tracecompass.ctf.core.event.io.BitBuffer;
+import org.eclipse.tracecompass.ctf.core.event.scope.ILexicalScope;
+import org.eclipse.tracecompass.ctf.core.event.types.Encoding;
+import org.eclipse.tracecompass.ctf.core.event.types.EnumDeclaration;
+import org.eclipse.tracecompass.ctf.core.event.types.IntegerDeclaration;
+import org.eclipse.tracecompass.ctf.core.event.types.IntegerDefinition;
+import org.eclipse.tracecompass.ctf.core.event.types.StringDeclaration;
+import org.eclipse.tracecompass.ctf.core.event.types.StructDeclaration;
+import org.eclipse.tracecompass.ctf.core.event.types.StructDefinition;
+import org.eclipse.tracecompass.internal.ctf.core.event.types.CompiledStructDecoder;
+import org.eclipse.tracecompass.internal.ctf.core.event.types.CompiledStructDefinition;
+import org.junit.Test;
+
+/**
+ * The class <code>CompiledStructDecoderTest</code> contains tests for the
+ * class <code>{@link CompiledStructDecoder}</code>.
+ */
+public class CompiledStructDecoderTest {
+
+    private static StructDeclaration createFixedStruct() {
+        StructDeclaration struct = new StructDeclaration(8);
+        EnumDeclaration enumDecl = new EnumDeclaration(IntegerDeclaration.UINT_8_DECL);
+        enumDecl.add(0, 127, "low");
+        enumDecl.add(128, 255, "high");
+        struct.addField("_flag", IntegerDeclaration.createDeclaration(3, false, 10, ByteOrder.BIG_ENDIAN, Encoding.NONE, "", 1));
+        struct.addField("_id", IntegerDeclaration.INT_32B_DECL);
+        struct.addField("_bits", IntegerDeclaration.createDeclaration(5, true, 16, ByteOrder.LITTLE_ENDIAN, Encoding.NONE, "", 1));
+        struct.addField("_state", enumDecl);
+        struct.addField("timestamp", IntegerDeclaration.UINT_64L_DECL);
+        struct.addField("_len", IntegerDeclaration.UINT_32L_DECL);
+        return struct;
+    }
+
+    /**
+     * Test that a compiled decoder reads the same values and leaves the input
+     * at the same position as the declaration, for any start position
+     *
+     * @throws CTFException
+     *             won't happen
+     */
+    @Test
+    public void testSameAsDeclaration() throws CTFException {
+        StructDeclaration struct = createFixedStruct();
+        CompiledStructDecoder decoder = CompiledStructDecoder.compile(struct);
+        assertNotNull(decoder);
+
+        byte[] bytes = new byte[64];
+        new Random(42).nextBytes(bytes);
+        for (int start = 0; start < 70; start++) {
+            BitBuffer expectedInput = new BitBuffer(ByteBuffer.wrap(bytes));
+            BitBuffer actualInput = new BitBuffer(ByteBuffer.wrap(bytes));
+            expectedInput.position(start);
+            actualInput.position(start);
+            StructDefinition expected = struct.createDefinition(null, ILexicalScope.FIELDS, expectedInput);
+            CompiledStructDefinition actual = decoder.decode(null, ILexicalScope.FIELDS, actualInput);
+
+            assertEquals(expectedInput.position(), actualInput.position());
+            assertEquals(ByteOrder.BIG_ENDIAN, actualInput.getByteOrder());
+            assertEquals(expected.getFieldNames(), actual.getFieldNames());
+            assertEquals(((IntegerDefinition) expected.getDefinition("_id")).getValue(), actual.getValue(1));
+
+            IntegerDefinition timestamp = actual.lookupIntegerDefinition("timestamp");
+            assertNotNull(timestamp);
+            assertEquals(((IntegerDefinition) expected.getDefinition("timestamp")).getValue(), timestamp.getValue());
+            assertNotNull(actual.lookupIntegerDefinition("id"));
+            assertNull(actual.lookupIntegerDefinition("state"));
+
+            assertEquals(expected.toString(), actual.toString());
+            assertEquals(expected.getDefinition("_state").toString(), actual.getDefinition("_state").toString());
+        }
+    }
+
+    /**
+     * Test that structures that do not have a fixed layout are not compiled
+     */
+    @Test
+    public void testNotFixed() {
+        StructDeclaration struct = createFixedStruct();
+        struct.addField("_name", StringDeclaration.getStringDeclaration(Encoding.UTF8));
+        assertNull(CompiledStructDecoder.compile(struct));
+
+        StructDeclaration nested = new StructDeclaration(8);
+        nested.addField("_inner", createFixedStruct());
+        assertNull(CompiledStructDecoder.compile(nested));
+    }
+
+    /**
+     * Test the empty structure
+     *
+     * @throws CTFException
+     *             won't happen
+     */
+    @Test
+    public void testEmpty() throws CTFException {
+        CompiledStructDecoder decoder = CompiledStructDecoder.compile(new StructDeclaration(8));
+        assertNotNull(decoder);
+        BitBuffer input = new BitBuffer(ByteBuffer.allocate(8));
+        input.position(3);
+        CompiledStructDefinition definition = decoder.decode(null, ILexicalScope.FIELDS, input);
+        assertEquals(8, input.position());
+        assertEquals(0, definition.getFieldNames().size());
+    }
+}
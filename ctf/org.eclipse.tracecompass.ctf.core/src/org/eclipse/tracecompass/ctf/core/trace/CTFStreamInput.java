@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2014 Ericsson, Ecole Polytechnique de Montreal and others
+ * Copyright (c) 2011, 2026 Ericsson, Ecole Polytechnique de Montreal and others
  *
  * All rights reserved. This program and the accompanying materials are made
  * available under the terms of the Eclipse Public License 2.0 which
@@ -20,6 +20,8 @@ import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileChannel.MapMode;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 import org.eclipse.core.runtime.IStatus;
@@ -38,6 +40,7 @@ import org.eclipse.tracecompass.ctf.core.event.types.StructDefinition;
 import org.eclipse.tracecompass.internal.ctf.core.Activator;
 import org.eclipse.tracecompass.internal.ctf.core.SafeMappedByteBuffer;
 import org.eclipse.tracecompass.internal.ctf.core.trace.StreamInputPacketIndex;
+import org.eclipse.tracecompass.internal.ctf.core.trace.StreamInputPacketIndexCache;
 import org.eclipse.tracecompass.internal.ctf.core.trace.StreamInputPacketIndexEntry;
 import org.eclipse.tracecompass.internal.ctf.core.utils.Utils;
 
@@ -94,6 +97,16 @@ public class CTFStreamInput implements IDefinitionScope {
 
     private boolean fUUIDMismatchWarning = false;
 
+    /**
+     * Whether the saved packet index was read, if there is one
+     */
+    private volatile boolean fIndexCacheLoaded = false;
+
+    /**
+     * Number of entries of the index when it was last read or saved
+     */
+    private int fSavedIndexSize = 0;
+
     // ------------------------------------------------------------------------
     // Constructors
     // ------------------------------------------------------------------------
@@ -150,9 +163,31 @@ public class CTFStreamInput implements IDefinitionScope {
      * @return the stream input Index
      */
     StreamInputPacketIndex getIndex() {
+        if (!fIndexCacheLoaded) {
+            loadIndexCache();
+        }
         return fIndex;
     }
 
+    /**
+     * Gets the descriptors of the packets of this stream input that are
+     * already indexed. The whole file is indexed once a reader went to its
+     * last event.
+     *
+     * @return a copy of the packet descriptors, in file order
+     * @since 4.1
+     */
+    public List<ICTFPacketDescriptor> getPacketDescriptors() {
+        StreamInputPacketIndex index = getIndex();
+        synchronized (index) {
+            List<ICTFPacketDescriptor> descriptors = new ArrayList<>(index.size());
+            for (int i = 0; i < index.size(); i++) {
+                descriptors.add(index.getElement(i));
+            }
+            return descriptors;
+        }
+    }
+
     /**
      * Gets the filename of the streamInput file.
      *
@@ -225,6 +260,9 @@ public class CTFStreamInput implements IDefinitionScope {
      *             If there was a problem reading the packed header
      */
     public boolean addPacketHeaderIndex() throws CTFException {
+        if (!fIndexCacheLoaded) {
+            loadIndexCache();
+        }
         long currentPosBits = 0L;
         if (!fIndex.isEmpty()) {
             ICTFPacketDescriptor pos = fIndex.lastElement();
@@ -236,9 +274,101 @@ public class CTFStreamInput implements IDefinitionScope {
         if (currentPosBits < getStreamSizeBits()) {
             return fIndex.append(createPacketIndexEntry(currentPosBits));
         }
+        /* The whole file is indexed */
+        saveIndexCache();
         return false;
     }
 
+    // ------------------------------------------------------------------------
+    // Saved packet index
+    // ------------------------------------------------------------------------
+
+    private @Nullable File getIndexCacheFile() {
+        File directory = fStream.getTrace().getPacketIndexDirectory();
+        if (directory == null) {
+            return null;
+        }
+        return StreamInputPacketIndexCache.getCacheFile(directory, fFile);
+    }
+
+    /**
+     * Fill the index with the saved packet index, if the stream file did not
+     * change since it was saved. If packets were appended to the file, the
+     * saved packets are used and only the new ones will be read.
+     */
+    private synchronized void loadIndexCache() {
+        if (fIndexCacheLoaded) {
+            return;
+        }
+        fIndexCacheLoaded = true;
+        File cacheFile = getIndexCacheFile();
+        if (cacheFile == null || !fIndex.isEmpty()) {
+            return;
+        }
+        StreamInputPacketIndexCache cache = StreamInputPacketIndexCache.read(cacheFile, this::parsePacketContext);
+        if (cache == null || cache.getEntries().isEmpty()) {
+            return;
+        }
+        List<ICTFPacketDescriptor> entries = cache.getEntries();
+        long fileSize = fFile.length();
+        boolean unchanged = (cache.getFileSize() == fileSize) && (cache.getLastModified() == fFile.lastModified());
+        if (!unchanged && (fileSize < cache.getFileSize() || !isSamePacket(entries.get(entries.size() - 1)))) {
+            /* The file was rewritten, index it again */
+            return;
+        }
+        fIndex.appendAll(entries);
+        for (ICTFPacketDescriptor entry : entries) {
+            fLostSoFar += entry.getLostEvents();
+        }
+        setTimestampEnd(fIndex.lastElement().getTimestampEnd());
+        fSavedIndexSize = fIndex.size();
+    }
+
+    /**
+     * Save the index, if it has new entries since it was read or saved
+     */
+    private synchronized void saveIndexCache() {
+        File cacheFile = getIndexCacheFile();
+        if (cacheFile == null || fIndex.size() == fSavedIndexSize) {
+            return;
+        }
+        try {
+            StreamInputPacketIndexCache.write(cacheFile, fFile.length(), fFile.lastModified(), fIndex);
+            fSavedIndexSize = fIndex.size();
+        } catch (IOException e) {
+            Activator.log(IStatus.WARNING, "Cannot save the packet index of " + fFileName + ": " + e.getMessage()); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+
+    /**
+     * Check that a saved packet is still the same in the stream file
+     */
+    private boolean isSamePacket(ICTFPacketDescriptor entry) {
+        try {
+            StructDefinition context = parsePacketContext(entry.getOffsetBits());
+            ICTFPacketDescriptor packet = new StreamInputPacketIndexEntry(entry.getOffsetBits(), context, fFile.length(), 0);
+            return packet.getPacketSizeBits() == entry.getPacketSizeBits()
+                    && packet.getContentSizeBits() == entry.getContentSizeBits()
+                    && packet.getTimestampBegin() == entry.getTimestampBegin();
+        } catch (CTFException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Read the packet context of a packet, without changing the state of this
+     * stream input
+     */
+    private StructDefinition parsePacketContext(long dataOffsetBits) throws CTFException {
+        try (FileChannel fc = FileChannel.open(fFile.toPath(), StandardOpenOption.READ)) {
+            BitBuffer bitBuffer = createBitBufferForPacketHeader(fc, dataOffsetBits);
+            fTracePacketHeaderDecl.createDefinition(fStream.getTrace(), ILexicalScope.TRACE_PACKET_HEADER, bitBuffer);
+            return fStreamPacketContextDecl.createDefinition(this, ILexicalScope.STREAM_PACKET_CONTEXT, bitBuffer);
+        } catch (IOException e) {
+            throw new CTFException("Failed to read packet context", e); //$NON-NLS-1$
+        }
+    }
+
     private long getStreamSizeBits() {
         return fFile.length() * Byte.SIZE;
     }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2015 Ericsson, Ecole Polytechnique de Montreal and others
+ * Copyright (c) 2011, 2026 Ericsson, Ecole Polytechnique de Montreal and others
  *
  * All rights reserved. This program and the accompanying materials are made
  * available under the terms of the Eclipse Public License 2.0 which
@@ -20,6 +20,8 @@ import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileChannel.MapMode;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -35,6 +37,7 @@ import org.eclipse.tracecompass.internal.ctf.core.Activator;
 import org.eclipse.tracecompass.internal.ctf.core.SafeMappedByteBuffer;
 import org.eclipse.tracecompass.internal.ctf.core.trace.CTFPacketReader;
 import org.eclipse.tracecompass.internal.ctf.core.trace.NullPacketReader;
+import org.eclipse.tracecompass.internal.ctf.core.trace.PrefetchedPacketReader;
 
 /**
  * A CTF trace event reader. Reads the events of a trace file.
@@ -84,6 +87,19 @@ public class CTFStreamInputReader implements AutoCloseable {
      */
     private boolean fLive = false;
 
+    /**
+     * Number of packets to decode in advance, after the current one
+     */
+    private int fPrefetchDepth = 0;
+
+    /**
+     * The packets being decoded in advance, in order, starting at index
+     * fPrefetchedIndex
+     */
+    private final Deque<PrefetchedPacketReader> fPrefetched = new ArrayDeque<>();
+
+    private int fPrefetchedIndex = 0;
+
     // ------------------------------------------------------------------------
     // Constructors
     // ------------------------------------------------------------------------
@@ -134,19 +150,78 @@ public class CTFStreamInputReader implements AutoCloseable {
     private IPacketReader getCurrentPacketReader(@Nullable ICTFPacketDescriptor packet) throws CTFException {
         IPacketReader ctfPacketReader = NullPacketReader.INSTANCE;
         if (packet != null) {
-            long size = packet.getContentSizeBits();
-            if (size < 0) {
-                throw new CTFIOException("Cannot have negative sized buffers."); //$NON-NLS-1$
-            }
-            BitBuffer bitBuffer = new BitBuffer(getByteBufferAt(packet.getOffsetBits(), size));
-            bitBuffer.position(packet.getPayloadStartBits());
-            IDeclaration eventHeaderDeclaration = getStreamInput().getStream().getEventHeaderDeclaration();
-            CTFTrace trace = getStreamInput().getStream().getTrace();
-            ctfPacketReader = new CTFPacketReader(bitBuffer, packet, getEventDeclarations(), eventHeaderDeclaration, getStreamEventContextDecl(), trace.getPacketHeaderDef(), trace);
+            ctfPacketReader = createPacketReader(packet);
         }
         return ctfPacketReader;
     }
 
+    private CTFPacketReader createPacketReader(ICTFPacketDescriptor packet) throws CTFException {
+        long size = packet.getContentSizeBits();
+        if (size < 0) {
+            throw new CTFIOException("Cannot have negative sized buffers."); //$NON-NLS-1$
+        }
+        BitBuffer bitBuffer = new BitBuffer(getByteBufferAt(packet.getOffsetBits(), size));
+        bitBuffer.position(packet.getPayloadStartBits());
+        IDeclaration eventHeaderDeclaration = getStreamInput().getStream().getEventHeaderDeclaration();
+        CTFTrace trace = getStreamInput().getStream().getTrace();
+        return new CTFPacketReader(bitBuffer, packet, getEventDeclarations(), eventHeaderDeclaration, getStreamEventContextDecl(), trace.getPacketHeaderDef(), trace);
+    }
+
+    /**
+     * Get the reader of a packet, taking it from the prefetched packets if it
+     * was decoded in advance, then start decoding the next packets.
+     */
+    private IPacketReader getPacketReader(int packetIndex, @Nullable ICTFPacketDescriptor packet) throws CTFException {
+        if (fPrefetchDepth <= 0 || fLive || packet == null) {
+            clearPrefetched();
+            return getCurrentPacketReader(packet);
+        }
+        /* Skip the packets that were prefetched but will not be read */
+        while (!fPrefetched.isEmpty() && fPrefetchedIndex < packetIndex) {
+            fPrefetched.removeFirst().cancel();
+            fPrefetchedIndex++;
+        }
+        IPacketReader packetReader;
+        if (!fPrefetched.isEmpty() && fPrefetchedIndex == packetIndex) {
+            packetReader = fPrefetched.removeFirst();
+        } else {
+            clearPrefetched();
+            packetReader = createPacketReader(packet);
+        }
+        fPrefetchedIndex = packetIndex + 1;
+        fillPrefetched();
+        return packetReader;
+    }
+
+    /**
+     * Start decoding the packets following the prefetched ones, up to the
+     * prefetch depth. The packets are indexed here, only the decoding of
+     * their events is done in the background.
+     */
+    private void fillPrefetched() throws CTFException {
+        int nextIndex = fPrefetchedIndex + fPrefetched.size();
+        while (fPrefetched.size() < fPrefetchDepth && indexPacket(nextIndex)) {
+            fPrefetched.addLast(new PrefetchedPacketReader(createPacketReader(fStreamInput.getIndex().getElement(nextIndex))));
+            nextIndex++;
+        }
+    }
+
+    private boolean indexPacket(int packetIndex) throws CTFException {
+        while (getPacketSize() <= packetIndex) {
+            if (!fStreamInput.addPacketHeaderIndex()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void clearPrefetched() {
+        for (PrefetchedPacketReader packetReader : fPrefetched) {
+            packetReader.cancel();
+        }
+        fPrefetched.clear();
+    }
+
     /**
      * Get a bytebuffer map of the file
      *
@@ -177,6 +252,7 @@ public class CTFStreamInputReader implements AutoCloseable {
      */
     @Override
     public void close() throws IOException {
+        clearPrefetched();
         if (fFileChannel != null) {
             fFileChannel.close();
         }
@@ -272,6 +348,40 @@ public class CTFStreamInputReader implements AutoCloseable {
         return fLive;
     }
 
+    /**
+     * Set the number of packets to decode in advance in background threads,
+     * while the events of the current packet are read. Prefetching is disabled
+     * when the trace is read live.
+     *
+     * @param depth
+     *            the number of packets to decode in advance, 0 to decode the
+     *            packets when they are read
+     * @throws CTFException
+     *             if the next packets cannot be indexed
+     * @since 4.1
+     */
+    public void setPrefetchDepth(int depth) throws CTFException {
+        fPrefetchDepth = Math.max(0, depth);
+        if (fPrefetchDepth == 0 || fLive) {
+            clearPrefetched();
+        } else if (fPacketReader.getCurrentPacket() != null && fPrefetched.isEmpty()) {
+            /* Start with the packets after the current one */
+            fPrefetchedIndex = fPacketIndex + 1;
+            fillPrefetched();
+        }
+    }
+
+    /**
+     * Get the number of packets decoded in advance
+     *
+     * @return the number of packets to decode in advance, 0 if prefetching is
+     *         disabled
+     * @since 4.1
+     */
+    public int getPrefetchDepth() {
+        return fPrefetchDepth;
+    }
+
     /**
      * Get the event context of the stream
      *
@@ -342,7 +452,7 @@ public class CTFStreamInputReader implements AutoCloseable {
 
         }
         ICTFPacketDescriptor packet = getPacket();
-        fPacketReader = getCurrentPacketReader(packet);
+        fPacketReader = getPacketReader(fPacketIndex, packet);
     }
 
     /**
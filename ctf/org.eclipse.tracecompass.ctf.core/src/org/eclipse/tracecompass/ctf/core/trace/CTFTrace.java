@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2018 Ericsson, Ecole Polytechnique de Montreal and others
+ * Copyright (c) 2011, 2026 Ericsson, Ecole Polytechnique de Montreal and others
  *
  * All rights reserved. This program and the accompanying materials are made
  * available under the terms of the Eclipse Public License 2.0 which
@@ -150,6 +150,11 @@ public class CTFTrace implements IDefinitionScope {
 
     private boolean fUUIDMismatchWarning = false;
 
+    /**
+     * Directory where the packet indexes of the streams are saved, if any
+     */
+    private @Nullable File fPacketIndexDirectory = null;
+
     // ------------------------------------------------------------------------
     // Constructors
     // ------------------------------------------------------------------------
@@ -417,6 +422,33 @@ public class CTFTrace implements IDefinitionScope {
         return fPath;
     }
 
+    /**
+     * Set the directory where the packet index of each stream file is saved
+     * once the file is indexed, and read back when the trace is opened again.
+     * The saved indexes are only used if the size and modification time of
+     * the stream files did not change, or if packets were only appended. It
+     * must be set before the streams are read.
+     *
+     * @param directory
+     *            the directory of the saved packet indexes, or null to index
+     *            the stream files every time
+     * @since 4.1
+     */
+    public void setPacketIndexDirectory(@Nullable File directory) {
+        fPacketIndexDirectory = directory;
+    }
+
+    /**
+     * Get the directory where the packet indexes of the streams are saved
+     *
+     * @return the directory of the saved packet indexes, or null if they are
+     *         not saved
+     * @since 4.1
+     */
+    public @Nullable File getPacketIndexDirectory() {
+        return fPacketIndexDirectory;
+    }
+
     /**
      * Get all the streams as an iterable.
      *
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2014 Ericsson, Ecole Polytechnique de Montreal and others
+ * Copyright (c) 2011, 2026 Ericsson, Ecole Polytechnique de Montreal and others
  *
  * All rights reserved. This program and the accompanying materials are made
  * available under the terms of the Eclipse Public License 2.0 which
@@ -45,6 +45,15 @@ public class CTFTraceReader implements AutoCloseable {
 
     private static final int MIN_PRIO_SIZE = 16;
 
+    /**
+     * System property to set the default number of packets that each stream
+     * decodes in advance, see {@link #setPrefetchDepth(int)}. Prefetching is
+     * disabled by default.
+     *
+     * @since 4.1
+     */
+    public static final String PREFETCH_DEPTH_PROPERTY = "org.eclipse.tracecompass.ctf.core.prefetchDepth"; //$NON-NLS-1$
+
     // ------------------------------------------------------------------------
     // Attributes
     // ------------------------------------------------------------------------
@@ -84,6 +93,11 @@ public class CTFTraceReader implements AutoCloseable {
      */
     private boolean fClosed = false;
 
+    /**
+     * Number of packets decoded in advance by each stream input reader
+     */
+    private int fPrefetchDepth = Integer.getInteger(PREFETCH_DEPTH_PROPERTY, 0);
+
     // ------------------------------------------------------------------------
     // Constructors
     // ------------------------------------------------------------------------
@@ -132,6 +146,7 @@ public class CTFTraceReader implements AutoCloseable {
         CTFTraceReader newReader = null;
 
         newReader = new CTFTraceReader(fTrace);
+        newReader.setPrefetchDepth(fPrefetchDepth);
         newReader.fStartTime = fStartTime;
         newReader.fEndTime = fEndTime;
         return newReader;
@@ -216,7 +231,9 @@ public class CTFTraceReader implements AutoCloseable {
                 /*
                  * Create a reader and add it to the group.
                  */
-                fStreamInputReaders.add(new CTFStreamInputReader(checkNotNull(streamInput)));
+                CTFStreamInputReader streamInputReader = new CTFStreamInputReader(checkNotNull(streamInput));
+                streamInputReader.setPrefetchDepth(fPrefetchDepth);
+                fStreamInputReaders.add(streamInputReader);
             }
         }
 
@@ -254,6 +271,7 @@ public class CTFTraceReader implements AutoCloseable {
                 try (CTFStreamInputReader streamInputReader = new CTFStreamInputReader(checkNotNull(streamInput))) {
                     if (!fStreamInputReaders.contains(streamInputReader)) {
                         CTFStreamInputReader streamInputReaderToAdd = new CTFStreamInputReader(checkNotNull(streamInput));
+                        streamInputReaderToAdd.setPrefetchDepth(fPrefetchDepth);
                         streamInputReaderToAdd.readNextEvent();
                         fStreamInputReaders.add(streamInputReaderToAdd);
                         readers.add(streamInputReaderToAdd);
@@ -542,6 +560,39 @@ public class CTFTraceReader implements AutoCloseable {
         }
     }
 
+    /**
+     * Set the number of packets that each stream decodes in advance, in
+     * background threads. The events are still merged in order by the thread
+     * reading the trace, but the decoding of the packets of all the streams is
+     * spread on the available processors.
+     *
+     * @param depth
+     *            the number of packets decoded in advance by each stream, 0 to
+     *            decode the packets when they are read
+     * @throws CTFException
+     *             if the next packets of a stream cannot be indexed
+     * @since 4.1
+     */
+    public void setPrefetchDepth(int depth) throws CTFException {
+        fPrefetchDepth = depth;
+        synchronized (fStreamInputReaders) {
+            for (CTFStreamInputReader reader : fStreamInputReaders) {
+                reader.setPrefetchDepth(depth);
+            }
+        }
+    }
+
+    /**
+     * Get the number of packets that each stream decodes in advance
+     *
+     * @return the number of packets decoded in advance, 0 if prefetching is
+     *         disabled
+     * @since 4.1
+     */
+    public int getPrefetchDepth() {
+        return fPrefetchDepth;
+    }
+
     /**
      * Get if the trace is to read live or not
      *
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2014 Ericsson, Ecole Polytechnique de Montreal and others
+ * Copyright (c) 2011, 2026 Ericsson, Ecole Polytechnique de Montreal and others
  *
  * All rights reserved. This program and the accompanying materials are made
  * available under the terms of the Eclipse Public License 2.0 which
@@ -31,8 +31,8 @@ import org.eclipse.tracecompass.ctf.core.event.CTFCallsite;
 import org.eclipse.tracecompass.ctf.core.event.IEventDeclaration;
 import org.eclipse.tracecompass.ctf.core.event.io.BitBuffer;
 import org.eclipse.tracecompass.ctf.core.event.scope.ILexicalScope;
-import org.eclipse.tracecompass.ctf.core.event.types.Definition;
 import org.eclipse.tracecompass.ctf.core.event.types.ICompositeDefinition;
+import org.eclipse.tracecompass.ctf.core.event.types.IDefinition;
 import org.eclipse.tracecompass.ctf.core.event.types.IntegerDefinition;
 import org.eclipse.tracecompass.ctf.core.event.types.StructDeclaration;
 import org.eclipse.tracecompass.ctf.core.event.types.StructDefinition;
@@ -40,6 +40,8 @@ import org.eclipse.tracecompass.ctf.core.trace.CTFIOException;
 import org.eclipse.tracecompass.ctf.core.trace.CTFStreamInputReader;
 import org.eclipse.tracecompass.ctf.core.trace.CTFTrace;
 import org.eclipse.tracecompass.ctf.core.trace.ICTFPacketDescriptor;
+import org.eclipse.tracecompass.internal.ctf.core.event.types.CompiledStructDecoder;
+import org.eclipse.tracecompass.internal.ctf.core.event.types.CompiledStructDefinition;
 import org.eclipse.tracecompass.internal.ctf.core.event.types.composite.EventHeaderDefinition;
 import org.eclipse.tracecompass.internal.ctf.core.trace.CTFStream;
 
@@ -89,6 +91,14 @@ public class EventDeclaration implements IEventDeclaration {
 
     private int fId = (int) UNSET_EVENT_ID;
 
+    /**
+     * Compiled decoders of the context and fields, null if they do not have a
+     * fixed layout
+     */
+    private volatile @Nullable CompiledStructDecoder fCompiledContext = null;
+    private volatile @Nullable CompiledStructDecoder fCompiledFields = null;
+    private volatile boolean fDecodersCompiled = false;
+
     // ------------------------------------------------------------------------
     // Constructors
     // ------------------------------------------------------------------------
@@ -123,11 +133,57 @@ public class EventDeclaration implements IEventDeclaration {
      */
     public EventDefinition createDefinition(StructDeclaration streamEventContextDecl, ICTFPacketDescriptor packetDescriptor, ICompositeDefinition packetContext, ICompositeDefinition eventHeaderDef, @NonNull BitBuffer input, long prevTimestamp)
             throws CTFException {
+        return createDefinition(streamEventContextDecl, packetDescriptor, packetContext, eventHeaderDef, input, prevTimestamp, false);
+    }
+
+    /**
+     * Creates an instance of EventDefinition corresponding to this declaration,
+     * optionally using compiled decoders for the event context and fields.
+     * With compiled decoders, the context and fields that only contain
+     * integers and enumerations are read in a flat array and their definitions
+     * are only created when requested.
+     *
+     * @param streamEventContextDecl
+     *            event context
+     * @param packetDescriptor
+     *            current packet
+     * @param packetContext
+     *            packet context
+     * @param eventHeaderDef
+     *            The event header definition
+     * @param input
+     *            the bitbuffer input source
+     * @param prevTimestamp
+     *            The timestamp when the event was taken
+     * @param compiled
+     *            true to use the compiled decoders when possible
+     * @return A new EventDefinition.
+     * @throws CTFException
+     *             As a bitbuffer is used to read, it could have wrapped
+     *             IOExceptions.
+     */
+    public EventDefinition createDefinition(StructDeclaration streamEventContextDecl, ICTFPacketDescriptor packetDescriptor, ICompositeDefinition packetContext, ICompositeDefinition eventHeaderDef, @NonNull BitBuffer input, long prevTimestamp,
+            boolean compiled) throws CTFException {
         final CTFStream stream = fStream;
         final CTFTrace trace = stream == null ? null : stream.getTrace();
+        if (compiled && !fDecodersCompiled) {
+            compileDecoders();
+        }
+        CompiledStructDecoder compiledContext = compiled ? fCompiledContext : null;
+        CompiledStructDecoder compiledFields = compiled ? fCompiledFields : null;
         StructDefinition streamEventContext = streamEventContextDecl != null ? streamEventContextDecl.createDefinition(trace, ILexicalScope.STREAM_EVENT_CONTEXT, input) : null;
-        StructDefinition eventContext = fContext != null ? fContext.createFieldDefinition(eventHeaderDef, trace, ILexicalScope.CONTEXT, input) : null;
-        StructDefinition eventPayload = fFields != null ? fFields.createFieldDefinition(eventHeaderDef, trace, ILexicalScope.FIELDS, input) : null;
+        ICompositeDefinition eventContext;
+        if (compiledContext != null) {
+            eventContext = compiledContext.decode(trace, ILexicalScope.CONTEXT, input);
+        } else {
+            eventContext = fContext != null ? fContext.createFieldDefinition(eventHeaderDef, trace, ILexicalScope.CONTEXT, input) : null;
+        }
+        ICompositeDefinition eventPayload;
+        if (compiledFields != null) {
+            eventPayload = compiledFields.decode(trace, ILexicalScope.FIELDS, input);
+        } else {
+            eventPayload = fFields != null ? fFields.createFieldDefinition(eventHeaderDef, trace, ILexicalScope.FIELDS, input) : null;
+        }
         long timestamp = calculateTimestamp(eventHeaderDef, prevTimestamp, eventPayload, eventContext);
 
         int cpu = (int) packetDescriptor.getTargetId();
@@ -143,9 +199,20 @@ public class EventDeclaration implements IEventDeclaration {
                 packetDescriptor);
     }
 
-    private static long calculateTimestamp(@Nullable ICompositeDefinition eventHeaderDef, long prevTimestamp, StructDefinition eventPayload, StructDefinition eventContext) throws CTFIOException {
+    private synchronized void compileDecoders() {
+        if (fDecodersCompiled) {
+            return;
+        }
+        StructDeclaration context = fContext;
+        StructDeclaration fields = fFields;
+        fCompiledContext = context != null ? CompiledStructDecoder.compile(context) : null;
+        fCompiledFields = fields != null ? CompiledStructDecoder.compile(fields) : null;
+        fDecodersCompiled = true;
+    }
+
+    private static long calculateTimestamp(@Nullable ICompositeDefinition eventHeaderDef, long prevTimestamp, ICompositeDefinition eventPayload, ICompositeDefinition eventContext) throws CTFIOException {
         long timestamp = 0;
-        Definition def = null;
+        IDefinition def = null;
         if (eventHeaderDef instanceof EventHeaderDefinition) {
             EventHeaderDefinition eventHeaderDefinition = (EventHeaderDefinition) eventHeaderDef;
             timestamp = calculateTimestamp(eventHeaderDefinition.getTimestamp(), eventHeaderDefinition.getTimestampLength(), prevTimestamp);
@@ -157,10 +224,10 @@ public class EventDeclaration implements IEventDeclaration {
             throw new CTFIOException("Event header def is not a Struct or an Event Header"); //$NON-NLS-1$
         }
         if (def == null && eventPayload != null) {
-            def = eventPayload.lookupDefinition(CTFStrings.TIMESTAMP);
+            def = lookupTimestamp(eventPayload);
         }
         if (def == null && eventContext != null) {
-            def = eventContext.lookupDefinition(CTFStrings.TIMESTAMP);
+            def = lookupTimestamp(eventContext);
         }
         if (def instanceof IntegerDefinition) {
             IntegerDefinition timestampDef = (IntegerDefinition) def;
@@ -169,6 +236,16 @@ public class EventDeclaration implements IEventDeclaration {
         return timestamp;
     }
 
+    private static @Nullable IDefinition lookupTimestamp(ICompositeDefinition definition) {
+        if (definition instanceof CompiledStructDefinition) {
+            /* Do not create the whole structure for the timestamp */
+            return ((CompiledStructDefinition) definition).lookupIntegerDefinition(CTFStrings.TIMESTAMP);
+        } else if (definition instanceof StructDefinition) {
+            return ((StructDefinition) definition).lookupDefinition(CTFStrings.TIMESTAMP);
+        }
+        return null;
+    }
+
     @Override
     public EventDefinition createDefinition(CTFStreamInputReader streamInputReader, @NonNull BitBuffer input, long timestamp) throws CTFException {
         StructDeclaration streamEventContextDecl = streamInputReader.getStreamEventContextDecl();
@@ -221,6 +298,7 @@ public class EventDeclaration implements IEventDeclaration {
      */
     public void setContext(StructDeclaration context) {
         fContext = context;
+        fDecodersCompiled = false;
     }
 
     /**
@@ -231,6 +309,7 @@ public class EventDeclaration implements IEventDeclaration {
      */
     public void setFields(StructDeclaration fields) {
         fFields = fields;
+        fDecodersCompiled = false;
     }
 
     @Override
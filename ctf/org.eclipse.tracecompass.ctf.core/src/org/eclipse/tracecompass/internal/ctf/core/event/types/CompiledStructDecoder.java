@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.internal.ctf.core.event.types;
+
+import java.nio.ByteOrder;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.ctf.core.CTFException;
+import org.eclipse.tracecompass.ctf.core.event.io.BitBuffer;
+import org.eclipse.tracecompass.ctf.core.event.scope.IDefinitionScope;
+import org.eclipse.tracecompass.ctf.core.event.scope.ILexicalScope;
+import org.eclipse.tracecompass.ctf.core.event.types.Definition;
+import org.eclipse.tracecompass.ctf.core.event.types.EnumDeclaration;
+import org.eclipse.tracecompass.ctf.core.event.types.EnumDefinition;
+import org.eclipse.tracecompass.ctf.core.event.types.IDeclaration;
+import org.eclipse.tracecompass.ctf.core.event.types.IntegerDeclaration;
+import org.eclipse.tracecompass.ctf.core.event.types.IntegerDefinition;
+import org.eclipse.tracecompass.ctf.core.event.types.StructDeclaration;
+import org.eclipse.tracecompass.ctf.core.event.types.StructDefinition;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Decoder of a fixed layout {@link StructDeclaration}, a structure containing
+ * only integers and enumerations. The offset of each field from the start of
+ * the structure is computed once from the declaration, so decoding a structure
+ * only reads the integers in a flat array, without creating any definition.
+ *
+ * The {@link StructDefinition} is created from the values when a field is
+ * requested, see {@link CompiledStructDefinition}.
+ *
+ * The offsets are constant because the start of a structure is aligned on the
+ * largest alignment of its fields, which is a multiple of the alignment of
+ * every field.
+ */
+@NonNullByDefault
+public final class CompiledStructDecoder {
+
+    private static final int SIZE_64 = 64;
+
+    private final StructDeclaration fDeclaration;
+    private final List<String> fFieldNames;
+    private final IDeclaration[] fFields;
+    private final IntegerDeclaration[] fIntegers;
+    private final long[] fOffsets;
+    private final int[] fLengths;
+    private final boolean[] fSigned;
+    private final ByteOrder[] fByteOrders;
+    private final long fAlignMask;
+    private final long fSize;
+
+    private CompiledStructDecoder(StructDeclaration declaration, List<String> fieldNames, IDeclaration[] fields, IntegerDeclaration[] integers) {
+        fDeclaration = declaration;
+        fFieldNames = fieldNames;
+        fFields = fields;
+        fIntegers = integers;
+        fOffsets = new long[integers.length];
+        fLengths = new int[integers.length];
+        fSigned = new boolean[integers.length];
+        fByteOrders = new ByteOrder[integers.length];
+        fAlignMask = declaration.getAlignment() - 1;
+        long offset = 0;
+        for (int i = 0; i < integers.length; i++) {
+            long mask = fields[i].getAlignment() - 1;
+            offset = (offset + mask) & ~mask;
+            fOffsets[i] = offset;
+            fLengths[i] = integers[i].getLength();
+            fSigned[i] = integers[i].isSigned();
+            fByteOrders[i] = integers[i].getByteOrder();
+            offset += fLengths[i];
+        }
+        fSize = offset;
+    }
+
+    /**
+     * Compile a decoder for a structure declaration
+     *
+     * @param declaration
+     *            the structure declaration
+     * @return the decoder, or null if the structure does not have a fixed
+     *         layout
+     */
+    public static @Nullable CompiledStructDecoder compile(StructDeclaration declaration) {
+        List<String> fieldNames = ImmutableList.copyOf(declaration.getFieldsList());
+        IDeclaration[] fields = new IDeclaration[fieldNames.size()];
+        IntegerDeclaration[] integers = new IntegerDeclaration[fieldNames.size()];
+        for (int i = 0; i < fields.length; i++) {
+            IDeclaration field = declaration.getField(fieldNames.get(i));
+            IntegerDeclaration integer = null;
+            if (field instanceof IntegerDeclaration) {
+                integer = (IntegerDeclaration) field;
+            } else if (field instanceof EnumDeclaration) {
+                integer = ((EnumDeclaration) field).getContainerType();
+            }
+            if (field == null || integer == null || integer.getLength() > SIZE_64
+                    || Long.bitCount(field.getAlignment()) != 1 || field.getAlignment() > declaration.getAlignment()) {
+                return null;
+            }
+            fields[i] = field;
+            integers[i] = integer;
+        }
+        return new CompiledStructDecoder(declaration, fieldNames, fields, integers);
+    }
+
+    /**
+     * Decode a structure
+     *
+     * @param definitionScope
+     *            the scope of the structure definition, when it is created
+     * @param scope
+     *            the lexical scope of the structure
+     * @param input
+     *            the input, positioned before the structure
+     * @return the decoded structure
+     * @throws CTFException
+     *             if the structure cannot be read
+     */
+    public CompiledStructDefinition decode(@Nullable IDefinitionScope definitionScope, ILexicalScope scope, BitBuffer input) throws CTFException {
+        long start = (input.position() + fAlignMask) & ~fAlignMask;
+        long[] values = new long[fOffsets.length];
+        ByteOrder previousByteOrder = input.getByteOrder();
+        ByteOrder byteOrder = previousByteOrder;
+        try {
+            for (int i = 0; i < values.length; i++) {
+                if (fByteOrders[i] != byteOrder) {
+                    byteOrder = fByteOrders[i];
+                    input.setByteOrder(byteOrder);
+                }
+                input.position(start + fOffsets[i]);
+                values[i] = input.get(fLengths[i], fSigned[i]);
+            }
+        } finally {
+            if (byteOrder != previousByteOrder) {
+                input.setByteOrder(previousByteOrder);
+            }
+        }
+        input.position(start + fSize);
+        return new CompiledStructDefinition(this, definitionScope, scope, values);
+    }
+
+    /**
+     * Get the declaration of the decoded structures
+     *
+     * @return the structure declaration
+     */
+    public StructDeclaration getDeclaration() {
+        return fDeclaration;
+    }
+
+    /**
+     * Get the names of the fields, in the order of the values
+     *
+     * @return the field names
+     */
+    public List<String> getFieldNames() {
+        return fFieldNames;
+    }
+
+    /**
+     * Get the integer declaration of a field, the container type for
+     * enumerations
+     *
+     * @param index
+     *            the index of the field
+     * @return the integer declaration
+     */
+    public IntegerDeclaration getIntegerDeclaration(int index) {
+        return fIntegers[index];
+    }
+
+    /**
+     * Check if a field is an integer, and not an enumeration
+     *
+     * @param index
+     *            the index of the field
+     * @return true if the field is an integer
+     */
+    public boolean isInteger(int index) {
+        return fFields[index] == fIntegers[index];
+    }
+
+    /**
+     * Create the definition of a structure from its values
+     *
+     * @param definitionScope
+     *            the scope of the structure definition
+     * @param scope
+     *            the lexical scope of the structure
+     * @param values
+     *            the values of the fields
+     * @return the structure definition
+     */
+    StructDefinition createDefinition(@Nullable IDefinitionScope definitionScope, ILexicalScope scope, long[] values) {
+        Definition[] definitions = new Definition[values.length];
+        StructDefinition structDefinition = new StructDefinition(fDeclaration, definitionScope, scope, scope.getName(), fFieldNames, definitions);
+        for (int i = 0; i < values.length; i++) {
+            String fieldName = fFieldNames.get(i);
+            IntegerDefinition integer = new IntegerDefinition(fIntegers[i], structDefinition, fieldName, values[i]);
+            if (isInteger(i)) {
+                definitions[i] = integer;
+            } else {
+                definitions[i] = new EnumDefinition((EnumDeclaration) fFields[i], structDefinition, fieldName, integer);
+            }
+        }
+        return structDefinition;
+    }
+}
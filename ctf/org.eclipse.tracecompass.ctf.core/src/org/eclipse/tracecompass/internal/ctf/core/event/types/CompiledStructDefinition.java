@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.internal.ctf.core.event.types;
+
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.ctf.core.event.scope.IDefinitionScope;
+import org.eclipse.tracecompass.ctf.core.event.scope.ILexicalScope;
+import org.eclipse.tracecompass.ctf.core.event.types.Definition;
+import org.eclipse.tracecompass.ctf.core.event.types.ICompositeDefinition;
+import org.eclipse.tracecompass.ctf.core.event.types.IntegerDefinition;
+import org.eclipse.tracecompass.ctf.core.event.types.StructDeclaration;
+import org.eclipse.tracecompass.ctf.core.event.types.StructDefinition;
+
+/**
+ * Structure decoded by a {@link CompiledStructDecoder}. The values of the
+ * fields are kept in an array, and the {@link StructDefinition} is only
+ * created when a field definition is requested.
+ */
+@NonNullByDefault
+public final class CompiledStructDefinition implements ICompositeDefinition {
+
+    private final CompiledStructDecoder fDecoder;
+    private final @Nullable IDefinitionScope fDefinitionScope;
+    private final ILexicalScope fScope;
+    private final long[] fValues;
+    private volatile @Nullable StructDefinition fDefinition = null;
+
+    CompiledStructDefinition(CompiledStructDecoder decoder, @Nullable IDefinitionScope definitionScope, ILexicalScope scope, long[] values) {
+        fDecoder = decoder;
+        fDefinitionScope = definitionScope;
+        fScope = scope;
+        fValues = values;
+    }
+
+    /**
+     * Get the structure definition, creating it if needed
+     *
+     * @return the structure definition
+     */
+    public StructDefinition getStructDefinition() {
+        StructDefinition definition = fDefinition;
+        if (definition == null) {
+            /* Creating it twice is harmless, the definitions are equal */
+            definition = fDecoder.createDefinition(fDefinitionScope, fScope, fValues);
+            fDefinition = definition;
+        }
+        return definition;
+    }
+
+    /**
+     * Get the value of a field without creating its definition
+     *
+     * @param index
+     *            the index of the field, in the order of the declaration
+     * @return the integer value of the field
+     */
+    public long getValue(int index) {
+        return fValues[index];
+    }
+
+    /**
+     * Get the definition of an integer field, without creating the whole
+     * structure. Like {@link StructDefinition#lookupDefinition(String)}, the
+     * field name may be prefixed with an underscore.
+     *
+     * @param fieldName
+     *            the name of the field
+     * @return the integer definition, or null if there is no such integer
+     *         field
+     */
+    public @Nullable IntegerDefinition lookupIntegerDefinition(String fieldName) {
+        List<String> fieldNames = fDecoder.getFieldNames();
+        int index = fieldNames.indexOf(fieldName);
+        if (index < 0) {
+            index = fieldNames.indexOf('_' + fieldName);
+        }
+        if (index < 0 || !fDecoder.isInteger(index)) {
+            return null;
+        }
+        StructDefinition definition = fDefinition;
+        if (definition != null) {
+            return (IntegerDefinition) definition.getDefinition(fieldNames.get(index));
+        }
+        return new IntegerDefinition(fDecoder.getIntegerDeclaration(index), null, fieldNames.get(index), fValues[index]);
+    }
+
+    @Override
+    public @Nullable Definition getDefinition(@Nullable String fieldName) {
+        return getStructDefinition().getDefinition(fieldName);
+    }
+
+    @Override
+    public List<String> getFieldNames() {
+        return fDecoder.getFieldNames();
+    }
+
+    @Override
+    public ILexicalScope getScopePath() {
+        return fScope;
+    }
+
+    @Override
+    public StructDeclaration getDeclaration() {
+        return fDecoder.getDeclaration();
+    }
+
+    @Override
+    public String toString() {
+        return getStructDefinition().toString();
+    }
+}
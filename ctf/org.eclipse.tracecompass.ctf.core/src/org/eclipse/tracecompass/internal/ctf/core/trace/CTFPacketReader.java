@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015 Ericsson
+ * Copyright (c) 2015, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are made
  * available under the terms of the Eclipse Public License 2.0 which
@@ -49,6 +49,13 @@ import org.eclipse.tracecompass.internal.ctf.core.event.types.composite.EventHea
 @NonNullByDefault
 public final class CTFPacketReader implements IPacketReader, IDefinitionScope {
 
+    /**
+     * System property to decode the event contexts and fields with compiled
+     * decoders when they have a fixed layout. Their definitions are then only
+     * created when they are requested.
+     */
+    public static final String COMPILED_DECODERS_PROPERTY = "org.eclipse.tracecompass.ctf.core.compiledDecoders"; //$NON-NLS-1$
+
     private static final IDefinitionScope EVENT_HEADER_SCOPE = new IDefinitionScope() {
 
         @Override
@@ -79,6 +86,8 @@ public final class CTFPacketReader implements IPacketReader, IDefinitionScope {
 
     private long fPosition;
 
+    private final boolean fCompiledDecoders;
+
     /**
      * Constructor
      *
@@ -111,6 +120,7 @@ public final class CTFPacketReader implements IPacketReader, IDefinitionScope {
         fStreamEventHeaderDecl = eventHeaderDeclaration;
         fStreamContext = streamContext;
         fTracePacketHeader = packetHeader;
+        fCompiledDecoders = Boolean.getBoolean(COMPILED_DECODERS_PROPERTY);
     }
 
     @Override
@@ -189,7 +199,7 @@ public final class CTFPacketReader implements IPacketReader, IDefinitionScope {
             throw new CTFIOException("Invalid event id : " + eventID); //$NON-NLS-1$
         }
         EventDeclaration declaration = (EventDeclaration) eventDeclaration;
-        EventDefinition eventDef = declaration.createDefinition(fStreamContext, fPacketContext, fTracePacketHeader, fEventHeader, fInput, fLastTimestamp);
+        EventDefinition eventDef = declaration.createDefinition(fStreamContext, fPacketContext, fTracePacketHeader, fEventHeader, fInput, fLastTimestamp, fCompiledDecoders);
         fLastTimestamp = eventDef.getTimestamp();
         /*
          * Set the event timestamp using the timestamp calculated by updateTimestamp.
@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.internal.ctf.core.trace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.ctf.core.CTFException;
+import org.eclipse.tracecompass.ctf.core.event.types.ICompositeDefinition;
+import org.eclipse.tracecompass.ctf.core.trace.CTFIOException;
+import org.eclipse.tracecompass.ctf.core.trace.ICTFPacketDescriptor;
+import org.eclipse.tracecompass.ctf.core.trace.IPacketReader;
+import org.eclipse.tracecompass.internal.ctf.core.event.EventDefinition;
+
+/**
+ * Packet reader whose events are decoded in advance by a background thread.
+ * The whole packet is decoded by a {@link CTFPacketReader} as soon as the
+ * reader is created, then the events are returned in order, waiting for the
+ * decoding to finish if needed.
+ *
+ * If the decoding fails, the events decoded before the error are returned,
+ * then the error is thrown by {@link #readNextEvent()}, like the
+ * {@link CTFPacketReader} would do.
+ */
+@NonNullByDefault
+public final class PrefetchedPacketReader implements IPacketReader {
+
+    private static final ExecutorService EXECUTOR;
+
+    static {
+        AtomicInteger threadCount = new AtomicInteger();
+        EXECUTOR = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "CTF Packet Prefetcher " + threadCount.incrementAndGet()); //$NON-NLS-1$
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * The decoded content of a packet
+     */
+    private static final class DecodedPacket {
+        private final List<EventDefinition> fEvents = new ArrayList<>();
+        private final List<@Nullable ICompositeDefinition> fEventHeaders = new ArrayList<>();
+        private @Nullable CTFException fError = null;
+    }
+
+    private final ICTFPacketDescriptor fPacket;
+    private final int fCpu;
+    private final CompletableFuture<DecodedPacket> fDecodedPacket;
+    private @Nullable DecodedPacket fDecoded = null;
+    private int fPosition = 0;
+    private @Nullable ICompositeDefinition fEventHeader = null;
+
+    /**
+     * Constructor, starts decoding the packet in the background
+     *
+     * @param packetReader
+     *            The packet reader to decode. It must not be used by the
+     *            caller afterwards.
+     */
+    public PrefetchedPacketReader(CTFPacketReader packetReader) {
+        fPacket = packetReader.getCurrentPacket();
+        fCpu = packetReader.getCPU();
+        fDecodedPacket = CompletableFuture.supplyAsync(() -> decode(packetReader), EXECUTOR);
+    }
+
+    private static DecodedPacket decode(CTFPacketReader packetReader) {
+        DecodedPacket decoded = new DecodedPacket();
+        try {
+            while (packetReader.hasMoreEvents()) {
+                decoded.fEvents.add(packetReader.readNextEvent());
+                decoded.fEventHeaders.add(packetReader.getCurrentPacketEventHeader());
+            }
+        } catch (CTFException e) {
+            decoded.fError = e;
+        }
+        return decoded;
+    }
+
+    private DecodedPacket getDecoded() {
+        DecodedPacket decoded = fDecoded;
+        if (decoded == null) {
+            try {
+                decoded = fDecodedPacket.join();
+            } catch (CompletionException e) {
+                /* Unexpected errors are thrown as if decoded in this thread */
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw e;
+            }
+            fDecoded = decoded;
+        }
+        return decoded;
+    }
+
+    /**
+     * Stop decoding the packet, if the decoding did not start yet
+     */
+    public void cancel() {
+        fDecodedPacket.cancel(false);
+    }
+
+    @Override
+    public int getCPU() {
+        return fCpu;
+    }
+
+    @Override
+    public boolean hasMoreEvents() {
+        DecodedPacket decoded = getDecoded();
+        return fPosition < decoded.fEvents.size() || decoded.fError != null;
+    }
+
+    @Override
+    public EventDefinition readNextEvent() throws CTFException {
+        DecodedPacket decoded = getDecoded();
+        if (fPosition < decoded.fEvents.size()) {
+            fEventHeader = decoded.fEventHeaders.get(fPosition);
+            return decoded.fEvents.get(fPosition++);
+        }
+        CTFException error = decoded.fError;
+        if (error != null) {
+            /* Only report the error once, the packet ends there */
+            decoded.fError = null;
+            throw error;
+        }
+        throw new CTFIOException("No more events in packet"); //$NON-NLS-1$
+    }
+
+    @Override
+    public ICTFPacketDescriptor getCurrentPacket() {
+        return fPacket;
+    }
+
+    @Override
+    public @Nullable ICompositeDefinition getCurrentPacketEventHeader() {
+        return fEventHeader;
+    }
+}
@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.internal.ctf.core.trace;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.ctf.core.trace.ICTFPacketDescriptor;
+import org.eclipse.tracecompass.internal.ctf.core.trace.StreamInputPacketIndexEntry.IPacketContextParser;
+
+/**
+ * Saved packet index of a stream file, so that the packet headers do not need
+ * to be read again when a trace is re-opened.
+ *
+ * The file contains a header with the size and modification time of the
+ * stream file when it was indexed, followed by the entries:
+ *
+ * <pre>
+ * int magic, int version, long file size, long last modified, int count
+ * count * [long offset, long packet size, long content size (bits),
+ *          long timestamp begin, long timestamp end, long lost events,
+ *          long target id, long payload start (bits), boolean has target,
+ *          [UTF target]]
+ * </pre>
+ *
+ * The packet contexts are not saved, they are read again from the stream file
+ * when an event needs them.
+ */
+@NonNullByDefault
+public final class StreamInputPacketIndexCache {
+
+    private static final int MAGIC = 0x43544649; /* "CTFI" */
+    private static final int VERSION = 1;
+    private static final String EXTENSION = ".idx"; //$NON-NLS-1$
+
+    private final long fFileSize;
+    private final long fLastModified;
+    private final List<ICTFPacketDescriptor> fEntries;
+
+    private StreamInputPacketIndexCache(long fileSize, long lastModified, List<ICTFPacketDescriptor> entries) {
+        fFileSize = fileSize;
+        fLastModified = lastModified;
+        fEntries = entries;
+    }
+
+    /**
+     * Get the file of the saved index of a stream file
+     *
+     * @param directory
+     *            the directory of the saved indexes of the trace
+     * @param streamFile
+     *            the stream file
+     * @return the saved index file
+     */
+    public static File getCacheFile(File directory, File streamFile) {
+        return new File(directory, streamFile.getName() + EXTENSION);
+    }
+
+    /**
+     * Get the size of the stream file when it was indexed
+     *
+     * @return the size of the stream file, in bytes
+     */
+    public long getFileSize() {
+        return fFileSize;
+    }
+
+    /**
+     * Get the modification time of the stream file when it was indexed
+     *
+     * @return the modification time of the stream file
+     */
+    public long getLastModified() {
+        return fLastModified;
+    }
+
+    /**
+     * Get the saved entries, in the order of the index
+     *
+     * @return the entries
+     */
+    public List<ICTFPacketDescriptor> getEntries() {
+        return fEntries;
+    }
+
+    /**
+     * Read a saved index
+     *
+     * @param cacheFile
+     *            the saved index file
+     * @param contextParser
+     *            the parser of the packet contexts of the entries
+     * @return the saved index, or null if the file does not exist or is not a
+     *         valid index
+     */
+    public static @Nullable StreamInputPacketIndexCache read(File cacheFile, IPacketContextParser contextParser) {
+        if (!cacheFile.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile.toPath())))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            long fileSize = in.readLong();
+            long lastModified = in.readLong();
+            int count = in.readInt();
+            if (count < 0) {
+                return null;
+            }
+            List<ICTFPacketDescriptor> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long offsetBits = in.readLong();
+                long packetSizeBits = in.readLong();
+                long contentSizeBits = in.readLong();
+                long timestampBegin = in.readLong();
+                long timestampEnd = in.readLong();
+                long lostEvents = in.readLong();
+                long targetId = in.readLong();
+                long payloadStartBits = in.readLong();
+                String target = in.readBoolean() ? in.readUTF() : null;
+                entries.add(new StreamInputPacketIndexEntry(offsetBits, packetSizeBits, contentSizeBits, timestampBegin, timestampEnd,
+                        lostEvents, target, targetId, payloadStartBits, contextParser));
+            }
+            return new StreamInputPacketIndexCache(fileSize, lastModified, Collections.unmodifiableList(entries));
+        } catch (IOException e) {
+            /* Truncated or unreadable, the stream will be indexed again */
+            return null;
+        }
+    }
+
+    /**
+     * Save an index. The index is written to a temporary file that then
+     * replaces the saved index, so that a partially written index is never
+     * read.
+     *
+     * @param cacheFile
+     *            the saved index file
+     * @param fileSize
+     *            the size of the stream file that was indexed
+     * @param lastModified
+     *            the modification time of the stream file that was indexed
+     * @param index
+     *            the index to save
+     * @throws IOException
+     *             if the index cannot be written
+     */
+    public static void write(File cacheFile, long fileSize, long lastModified, StreamInputPacketIndex index) throws IOException {
+        File directory = cacheFile.getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create directory " + directory); //$NON-NLS-1$
+        }
+        File tempFile = new File(cacheFile.getPath() + ".tmp"); //$NON-NLS-1$
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile.toPath())))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(fileSize);
+            out.writeLong(lastModified);
+            int count = index.size();
+            out.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                ICTFPacketDescriptor entry = index.getElement(i);
+                out.writeLong(entry.getOffsetBits());
+                out.writeLong(entry.getPacketSizeBits());
+                out.writeLong(entry.getContentSizeBits());
+                out.writeLong(entry.getTimestampBegin());
+                out.writeLong(entry.getTimestampEnd());
+                out.writeLong(entry.getLostEvents());
+                out.writeLong(entry.getTargetId());
+                out.writeLong(entry.getPayloadStartBits());
+                String target = entry.getTarget();
+                out.writeBoolean(target != null);
+                if (target != null) {
+                    out.writeUTF(target);
+                }
+            }
+        }
+        Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2015 Ericsson, Ecole Polytechnique de Montreal and others
+ * Copyright (c) 2011, 2026 Ericsson, Ecole Polytechnique de Montreal and others
  *
  * All rights reserved. This program and the accompanying materials are made
  * available under the terms of the Eclipse Public License 2.0 which
@@ -20,8 +20,11 @@ import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.common.core.NonNullUtils;
+import org.eclipse.tracecompass.ctf.core.CTFException;
 import org.eclipse.tracecompass.ctf.core.CTFStrings;
 import org.eclipse.tracecompass.ctf.core.event.types.EnumDefinition;
 import org.eclipse.tracecompass.ctf.core.event.types.FloatDefinition;
@@ -32,6 +35,7 @@ import org.eclipse.tracecompass.ctf.core.event.types.StringDefinition;
 import org.eclipse.tracecompass.ctf.core.event.types.StructDefinition;
 import org.eclipse.tracecompass.ctf.core.trace.ICTFPacketDescriptor;
 import org.eclipse.tracecompass.ctf.core.trace.IPacketReader;
+import org.eclipse.tracecompass.internal.ctf.core.Activator;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMap.Builder;
@@ -45,6 +49,24 @@ public class StreamInputPacketIndexEntry implements ICTFPacketDescriptor {
 
     private static final Pattern NUMBER_PATTERN = Pattern.compile("\\D*(\\d+)"); //$NON-NLS-1$
 
+    /**
+     * Parser of the packet context of an entry that was not created from its
+     * packet context, used to read it when it is needed.
+     */
+    @FunctionalInterface
+    public interface IPacketContextParser {
+        /**
+         * Parse the packet context of a packet
+         *
+         * @param offsetBits
+         *            the offset of the packet in the file, in bits
+         * @return the packet context definition
+         * @throws CTFException
+         *             if the packet context cannot be read
+         */
+        StructDefinition parse(long offsetBits) throws CTFException;
+    }
+
     // ------------------------------------------------------------------------
     // Attributes
     // ------------------------------------------------------------------------
@@ -91,13 +113,20 @@ public class StreamInputPacketIndexEntry implements ICTFPacketDescriptor {
     private final long fTargetID;
 
     /**
-     * Attributes of this index entry
+     * Attributes of this index entry, null until the packet context is parsed
+     * for entries with a context parser
      */
-    private final @NonNull Map<String, Object> fAttributes;
+    private @Nullable Map<String, Object> fAttributes;
 
     private final long fEndPacketHeaderBits;
 
-    private final StructDefinition fStreamPacketContextDef;
+    private StructDefinition fStreamPacketContextDef;
+
+    /**
+     * Parser of the packet context, if it was not available when this entry
+     * was created. It is reset once the context is parsed.
+     */
+    private volatile @Nullable IPacketContextParser fContextParser = null;
 
     // ------------------------------------------------------------------------
     // Constructors
@@ -183,6 +212,49 @@ public class StreamInputPacketIndexEntry implements ICTFPacketDescriptor {
         fLostEvents = computeLostEvents(lostSoFar);
     }
 
+    /**
+     * Constructor for an entry whose values were read from a saved index. The
+     * packet context and the attributes are parsed from the packet the first
+     * time they are needed.
+     *
+     * @param offsetBits
+     *            offset of the packet in the file, in bits
+     * @param packetSizeBits
+     *            size of the packet, in bits
+     * @param contentSizeBits
+     *            size of the content of the packet, in bits
+     * @param timestampBegin
+     *            begin timestamp of the packet
+     * @param timestampEnd
+     *            end timestamp of the packet
+     * @param lostEvents
+     *            number of events lost in the packet
+     * @param target
+     *            the target of the packet
+     * @param targetId
+     *            the target id of the packet
+     * @param endPacketHeaderBits
+     *            end of packet headers
+     * @param contextParser
+     *            the parser of the packet context
+     */
+    public StreamInputPacketIndexEntry(long offsetBits, long packetSizeBits, long contentSizeBits, long timestampBegin, long timestampEnd,
+            long lostEvents, String target, long targetId, long endPacketHeaderBits, IPacketContextParser contextParser) {
+        fOffsetBits = offsetBits;
+        fOffsetBytes = bitsToBytes(offsetBits);
+        fPacketSizeBits = packetSizeBits;
+        fContentSizeBits = contentSizeBits;
+        fTimestampBegin = timestampBegin;
+        fTimestampEnd = timestampEnd;
+        fLostEvents = lostEvents;
+        fTarget = target;
+        fTargetID = targetId;
+        fEndPacketHeaderBits = endPacketHeaderBits;
+        fAttributes = null;
+        fStreamPacketContextDef = null;
+        fContextParser = contextParser;
+    }
+
     /**
      * Copy constructor that updates the timestamp end
      *
@@ -235,11 +307,11 @@ public class StreamInputPacketIndexEntry implements ICTFPacketDescriptor {
     }
 
     private Long getPacketSize() {
-        return (Long) fAttributes.get(CTFStrings.PACKET_SIZE);
+        return (Long) getAttributes().get(CTFStrings.PACKET_SIZE);
     }
 
     private long computeContentSize(long fileSizeBytes) {
-        Long contentSize = (Long) fAttributes.get(CTFStrings.CONTENT_SIZE);
+        Long contentSize = (Long) getAttributes().get(CTFStrings.CONTENT_SIZE);
         /* Read the content size in bits */
         if (contentSize != null) {
             return contentSize.longValue();
@@ -265,7 +337,7 @@ public class StreamInputPacketIndexEntry implements ICTFPacketDescriptor {
     }
 
     private long computeTsBegin() {
-        Long tsBegin = (Long) fAttributes.get(CTFStrings.TIMESTAMP_BEGIN);
+        Long tsBegin = (Long) getAttributes().get(CTFStrings.TIMESTAMP_BEGIN);
         /* Read the begin timestamp */
         if (tsBegin != null) {
             return tsBegin.longValue();
@@ -274,7 +346,7 @@ public class StreamInputPacketIndexEntry implements ICTFPacketDescriptor {
     }
 
     private long computeTsEnd() {
-        Long tsEnd = (Long) fAttributes.get(CTFStrings.TIMESTAMP_END);
+        Long tsEnd = (Long) getAttributes().get(CTFStrings.TIMESTAMP_END);
         /* Read the end timestamp */
         if (tsEnd != null) {
             // check if tsEnd == unsigned long max value
@@ -287,7 +359,7 @@ public class StreamInputPacketIndexEntry implements ICTFPacketDescriptor {
     }
 
     private long computeLostEvents(long lostSoFar) {
-        Long lostEvents = (Long) fAttributes.get(CTFStrings.EVENTS_DISCARDED);
+        Long lostEvents = (Long) getAttributes().get(CTFStrings.EVENTS_DISCARDED);
         if (lostEvents != null) {
             return lostEvents - lostSoFar;
         }
@@ -314,7 +386,7 @@ public class StreamInputPacketIndexEntry implements ICTFPacketDescriptor {
 
     private Target lookupTarget(StructDefinition streamPacketContextDef) {
         Target ret = new Target(null, IPacketReader.UNKNOWN_CPU);
-        boolean hasDevice = fAttributes.containsKey(CTFStrings.DEVICE);
+        boolean hasDevice = getAttributes().containsKey(CTFStrings.DEVICE);
         if (hasDevice) {
             IDefinition def = streamPacketContextDef.lookupDefinition(CTFStrings.DEVICE);
             if (def instanceof SimpleDatatypeDefinition) {
@@ -330,7 +402,7 @@ public class StreamInputPacketIndexEntry implements ICTFPacketDescriptor {
                 }
             }
         } else {
-            Long cpuId = (Long) fAttributes.get(CTFStrings.CPU_ID);
+            Long cpuId = (Long) getAttributes().get(CTFStrings.CPU_ID);
             if (cpuId != null) {
                 ret = new Target("CPU" + cpuId.toString(), cpuId); //$NON-NLS-1$
             }
@@ -390,7 +462,32 @@ public class StreamInputPacketIndexEntry implements ICTFPacketDescriptor {
 
     @Override
     public Map<String, Object> getAttributes() {
-        return fAttributes;
+        if (fContextParser != null) {
+            parseContext();
+        }
+        Map<String, Object> attributes = fAttributes;
+        return (attributes == null) ? Collections.emptyMap() : attributes;
+    }
+
+    /**
+     * Parse the packet context with the context parser, if it was not parsed
+     * yet. The entries are shared by the readers of the trace, the parser is
+     * reset last so that the other threads see the parsed values.
+     */
+    private synchronized void parseContext() {
+        IPacketContextParser contextParser = fContextParser;
+        if (contextParser == null) {
+            return;
+        }
+        try {
+            StructDefinition streamPacketContextDef = contextParser.parse(fOffsetBits);
+            fStreamPacketContextDef = streamPacketContextDef;
+            fAttributes = computeAttributeMap(streamPacketContextDef);
+        } catch (CTFException e) {
+            Activator.log(IStatus.WARNING, "Cannot read the packet context at offset " + fOffsetBytes + ": " + e.getMessage()); //$NON-NLS-1$ //$NON-NLS-2$
+            fAttributes = Collections.emptyMap();
+        }
+        fContextParser = null;
     }
 
     @Override
@@ -420,6 +517,9 @@ public class StreamInputPacketIndexEntry implements ICTFPacketDescriptor {
      */
     @Override
     public StructDefinition getStreamPacketContextDef() {
+        if (fContextParser != null) {
+            parseContext();
+        }
         return fStreamPacketContextDef;
     }
 }
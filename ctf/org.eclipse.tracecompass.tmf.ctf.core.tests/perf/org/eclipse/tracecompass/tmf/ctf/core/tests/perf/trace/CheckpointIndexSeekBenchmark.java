@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.tmf.ctf.core.tests.perf.trace;
+
+import static org.junit.Assert.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.test.performance.Dimension;
+import org.eclipse.test.performance.Performance;
+import org.eclipse.test.performance.PerformanceMeter;
+import org.eclipse.tracecompass.testtraces.ctf.CtfTestTrace;
+import org.eclipse.tracecompass.tmf.core.exceptions.TmfTraceException;
+import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimestamp;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
+import org.eclipse.tracecompass.tmf.core.trace.TmfTraceManager;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.TmfBTreeTraceIndex;
+import org.eclipse.tracecompass.tmf.ctf.core.event.CtfTmfEvent;
+import org.eclipse.tracecompass.tmf.ctf.core.tests.shared.CtfTmfTestTraceUtils;
+import org.eclipse.tracecompass.tmf.ctf.core.trace.CtfTmfTrace;
+import org.junit.Test;
+
+/**
+ * Benchmark of the latency of seeking a CTF trace through its persistent
+ * checkpoint index, with the BTree reading its nodes from the file and with the
+ * BTree reading its nodes from memory-mapped regions of the file. The index is
+ * built once, then each loop opens the trace again, which restores the index
+ * from its file, and seeks random (seeded) timestamps and ranks, reading one
+ * event at each position.
+ */
+public class CheckpointIndexSeekBenchmark {
+
+    private static final int LOOP_COUNT = 25;
+    private static final int NB_SEEKS = 500;
+    private static final String TEST_SUITE_NAME = "CTF Checkpoint Index Seek Benchmark (" + NB_SEEKS + " seeks)";
+    private static final String TEST_ID = "org.eclipse.linuxtools#" + TEST_SUITE_NAME;
+
+    /**
+     * Run the benchmark scenario for the trace "kernel" with the default index
+     *
+     * @throws TmfTraceException
+     *             Should not happen
+     */
+    @Test
+    public void testKernelTrace() throws TmfTraceException {
+        seekTrace(CtfTestTrace.KERNEL, "trace-kernel", false);
+    }
+
+    /**
+     * Run the benchmark scenario for the trace "kernel" with the mapped index
+     *
+     * @throws TmfTraceException
+     *             Should not happen
+     */
+    @Test
+    public void testKernelTraceMapped() throws TmfTraceException {
+        seekTrace(CtfTestTrace.KERNEL, "trace-kernel-mapped", true);
+    }
+
+    private static void seekTrace(CtfTestTrace testTrace, String testName, boolean mapped) throws TmfTraceException {
+        Performance perf = Performance.getDefault();
+        PerformanceMeter pm = perf.createPerformanceMeter(TEST_ID + '#' + testName);
+        perf.tagAsSummary(pm, TEST_SUITE_NAME + ':' + testName, Dimension.CPU_TIME);
+
+        String path = CtfTmfTestTraceUtils.getTrace(testTrace).getPath();
+        assertNotNull(path);
+
+        /* Build the index, which is saved in the supplementary files */
+        CtfTmfTrace trace = openTrace(path, mapped);
+        TmfTraceManager.deleteSupplementaryFiles(trace);
+        trace.dispose();
+        trace = openTrace(path, mapped);
+        trace.indexTrace(true);
+        final long startTime = trace.getStartTime().toNanos();
+        final long range = trace.getEndTime().toNanos() - startTime;
+        final long nbEvents = trace.getNbEvents();
+        trace.dispose();
+
+        Random rnd = new Random(1000);
+        for (int loop = 0; loop < LOOP_COUNT; loop++) {
+            /* Generate the timestamps and ranks we will seek to */
+            List<Long> seekTimestamps = new ArrayList<>();
+            List<Long> seekRanks = new ArrayList<>();
+            for (int i = 0; i < NB_SEEKS; i++) {
+                seekTimestamps.add(startTime + Math.floorMod(rnd.nextLong(), range));
+                seekRanks.add(Math.floorMod(rnd.nextLong(), nbEvents));
+            }
+
+            trace = openTrace(path, mapped);
+            trace.indexTrace(true);
+
+            /* Benchmark seeking to the generated timestamps and ranks */
+            pm.start();
+            for (int i = 0; i < NB_SEEKS; i++) {
+                ITmfContext context = trace.seekEvent(TmfTimestamp.fromNanos(seekTimestamps.get(i)));
+                trace.getNext(context);
+                context.dispose();
+                context = trace.seekEvent(seekRanks.get(i));
+                trace.getNext(context);
+                context.dispose();
+            }
+            pm.stop();
+
+            trace.dispose();
+        }
+        pm.commit();
+
+        trace = openTrace(path, mapped);
+        TmfTraceManager.deleteSupplementaryFiles(trace);
+        trace.dispose();
+    }
+
+    private static CtfTmfTrace openTrace(String path, boolean mapped) throws TmfTraceException {
+        CtfTmfTrace trace = new CtfTmfTrace();
+        if (mapped) {
+            System.setProperty(TmfBTreeTraceIndex.MAPPED_INDEX_PROPERTY, Boolean.TRUE.toString());
+        }
+        try {
+            /* The index is created when the trace is initialized */
+            trace.initTrace(null, path, CtfTmfEvent.class);
+        } finally {
+            System.clearProperty(TmfBTreeTraceIndex.MAPPED_INDEX_PROPERTY);
+        }
+        return trace;
+    }
+}
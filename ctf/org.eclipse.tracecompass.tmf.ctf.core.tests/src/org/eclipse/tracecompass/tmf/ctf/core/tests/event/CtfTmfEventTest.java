@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2015 Ericsson
+ * Copyright (c) 2012, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -17,9 +17,13 @@
 package org.eclipse.tracecompass.tmf.ctf.core.tests.event;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Set;
 
@@ -28,6 +32,8 @@ import org.eclipse.tracecompass.internal.tmf.ctf.core.trace.iterator.CtfIterator
 import org.eclipse.tracecompass.testtraces.ctf.CtfTestTrace;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEventField;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEventType;
+import org.eclipse.tracecompass.tmf.core.event.TmfEventField;
+import org.eclipse.tracecompass.tmf.core.exceptions.TmfTraceException;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
 import org.eclipse.tracecompass.tmf.ctf.core.event.CtfTmfEvent;
 import org.eclipse.tracecompass.tmf.ctf.core.event.CtfTmfEventFactory;
@@ -208,6 +214,57 @@ public class CtfTmfEventTest {
         assertEquals("ret=4132, context.cpu_id=1", s);
     }
 
+    /**
+     * Test that the lazy content of the events has the same fields as the
+     * content created from all the fields
+     *
+     * @throws TmfTraceException
+     *             should not happen
+     */
+    @Test
+    public void testLazyContent() throws TmfTraceException {
+        CtfTmfTrace trace = CtfTmfTestTraceUtils.getTrace(testTrace);
+        assertFalse(trace.isLazyEventContent());
+        CtfTmfTrace lazyTrace;
+        System.setProperty(CtfTmfTrace.LAZY_EVENT_CONTENT_PROPERTY, Boolean.TRUE.toString());
+        try {
+            lazyTrace = new CtfTmfTrace();
+        } finally {
+            System.clearProperty(CtfTmfTrace.LAZY_EVENT_CONTENT_PROPERTY);
+        }
+        assertTrue(lazyTrace.isLazyEventContent());
+        lazyTrace.initTrace(null, trace.getPath(), CtfTmfEvent.class);
+        try (CtfIterator it = (CtfIterator) trace.createIterator();
+                CtfIterator lazyIt = (CtfIterator) lazyTrace.createIterator();
+                CtfIterator otherLazyIt = (CtfIterator) lazyTrace.createIterator();) {
+            for (int i = 0; i < 1000 && it.advance(); i++) {
+                assertTrue(lazyIt.advance());
+                assertTrue(otherLazyIt.advance());
+                ITmfEventField expected = it.getCurrentEvent().getContent();
+                ITmfEventField lazy = lazyIt.getCurrentEvent().getContent();
+                ITmfEventField otherLazy = otherLazyIt.getCurrentEvent().getContent();
+                assertEquals(new ArrayList<>(expected.getFieldNames()), new ArrayList<>(lazy.getFieldNames()));
+                for (String name : expected.getFieldNames()) {
+                    assertEquals(expected.getField(name), lazy.getField(name));
+                }
+                assertNull(lazy.getField("no such field"));
+                assertEquals(expected.toString(), lazy.toString());
+                /* Fields of different classes are never equal */
+                assertNotEquals(lazy, expected);
+                assertNotEquals(expected, lazy);
+                assertEquals(lazy, otherLazy);
+                assertEquals(otherLazy, lazy);
+                assertEquals(lazy.hashCode(), otherLazy.hashCode());
+                ITmfEventField materialized = new TmfEventField(ITmfEventField.ROOT_FIELD_ID, null,
+                        lazy.getFields().toArray(new ITmfEventField[0]));
+                assertEquals(expected, materialized);
+                assertEquals(materialized, expected);
+            }
+        } finally {
+            lazyTrace.dispose();
+        }
+    }
+
     /**
      * Test the {@link CtfTmfEventFactory#getNullEvent} method, and the
      * nullEvent's values.
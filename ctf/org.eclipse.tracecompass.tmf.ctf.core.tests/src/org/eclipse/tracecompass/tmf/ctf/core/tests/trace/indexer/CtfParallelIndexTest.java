@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.tmf.ctf.core.tests.trace.indexer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.tracecompass.testtraces.ctf.CtfTestTrace;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
+import org.eclipse.tracecompass.tmf.core.exceptions.TmfTraceException;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.ITmfTraceIndexer;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.checkpoint.ITmfCheckpoint;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.checkpoint.TmfCheckpointIndexer;
+import org.eclipse.tracecompass.tmf.core.trace.location.ITmfLocation;
+import org.eclipse.tracecompass.tmf.ctf.core.event.CtfTmfEvent;
+import org.eclipse.tracecompass.tmf.ctf.core.tests.shared.CtfTmfTestTraceUtils;
+import org.eclipse.tracecompass.tmf.ctf.core.trace.CtfTmfTrace;
+import org.junit.Test;
+
+/**
+ * Test suite for computing the checkpoints of a CTF trace in parallel.
+ */
+public class CtfParallelIndexTest {
+
+    private static final @NonNull CtfTestTrace TEST_TRACE = CtfTestTrace.KERNEL;
+    private static final int INTERVAL = 1000;
+
+    private static CtfTmfTrace createParallelTrace(CtfTmfTrace trace) throws TmfTraceException {
+        CtfTmfTrace parallelTrace;
+        System.setProperty(CtfTmfTrace.PARALLEL_INDEXING_PROPERTY, Boolean.TRUE.toString());
+        try {
+            parallelTrace = new CtfTmfTrace() {
+                @Override
+                protected ITmfTraceIndexer createIndexer(int interval) {
+                    /* An index in memory, which is always built from scratch */
+                    return new TmfCheckpointIndexer(this, interval);
+                }
+            };
+        } finally {
+            System.clearProperty(CtfTmfTrace.PARALLEL_INDEXING_PROPERTY);
+        }
+        parallelTrace.initTrace(null, trace.getPath(), CtfTmfEvent.class);
+        return parallelTrace;
+    }
+
+    /**
+     * Test that the checkpoints are the ones taken when reading the trace from
+     * its start
+     *
+     * @throws TmfTraceException
+     *             should not happen
+     */
+    @Test
+    public void testComputeCheckpoints() throws TmfTraceException {
+        CtfTmfTrace trace = CtfTmfTestTraceUtils.getTrace(TEST_TRACE);
+        assertNull(trace.computeCheckpoints(INTERVAL, new NullProgressMonitor()));
+        CtfTmfTrace parallelTrace = createParallelTrace(trace);
+        try {
+            List<ITmfCheckpoint> checkpoints = parallelTrace.computeCheckpoints(INTERVAL, new NullProgressMonitor());
+            assertNotNull(checkpoints);
+
+            ITmfContext context = trace.seekEvent(0);
+            long rank = 0;
+            ITmfLocation location = context.getLocation();
+            ITmfEvent event = trace.getNext(context);
+            while (event != null) {
+                if (rank % INTERVAL == 0) {
+                    ITmfCheckpoint checkpoint = checkpoints.get((int) (rank / INTERVAL));
+                    assertEquals("rank " + rank, rank / INTERVAL, checkpoint.getCheckpointRank());
+                    assertEquals("rank " + rank, event.getTimestamp(), checkpoint.getTimestamp());
+                    assertEquals("rank " + rank, location, checkpoint.getLocation());
+                }
+                rank++;
+                location = context.getLocation();
+                event = trace.getNext(context);
+            }
+            context.dispose();
+
+            assertEquals(TEST_TRACE.getNbEvents(), rank);
+            assertEquals((rank + INTERVAL - 1) / INTERVAL, checkpoints.size());
+            assertEquals(rank, parallelTrace.getNbEvents());
+            assertEquals(trace.getStartTime(), parallelTrace.getStartTime());
+            assertEquals(trace.getEndTime(), parallelTrace.getEndTime());
+        } finally {
+            parallelTrace.dispose();
+        }
+    }
+
+    /**
+     * Test seeking events by rank in a trace indexed in parallel
+     *
+     * @throws TmfTraceException
+     *             should not happen
+     */
+    @Test
+    public void testIndexTrace() throws TmfTraceException {
+        CtfTmfTrace trace = CtfTmfTestTraceUtils.getTrace(TEST_TRACE);
+        CtfTmfTrace parallelTrace = createParallelTrace(trace);
+        try {
+            parallelTrace.indexTrace(true);
+            assertEquals(TEST_TRACE.getNbEvents(), parallelTrace.getNbEvents());
+
+            int step = TEST_TRACE.getNbEvents() / 97;
+            for (long rank = 0; rank < TEST_TRACE.getNbEvents(); rank += step) {
+                ITmfContext expectedContext = trace.seekEvent(rank);
+                ITmfContext actualContext = parallelTrace.seekEvent(rank);
+                assertEquals(rank, actualContext.getRank());
+                ITmfEvent expected = trace.getNext(expectedContext);
+                ITmfEvent actual = parallelTrace.getNext(actualContext);
+                assertNotNull(actual);
+                assertEquals("rank " + rank, expected.getTimestamp(), actual.getTimestamp());
+                assertEquals("rank " + rank, expected.getName(), actual.getName());
+                expectedContext.dispose();
+                actualContext.dispose();
+            }
+        } finally {
+            parallelTrace.dispose();
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2015 Ericsson
+ * Copyright (c) 2011, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are made
  * available under the terms of the Eclipse Public License 2.0 which
@@ -95,6 +95,9 @@ public class CtfTmfEvent extends TmfEvent
     private final @Nullable ICTFStream fStream;
     private final Map<String, Object> fPacketAttributes;
 
+    /** Whether the fields of the content are only created when requested */
+    private final boolean fLazyContent;
+
     // ------------------------------------------------------------------------
     // Constructors
     // ------------------------------------------------------------------------
@@ -150,6 +153,7 @@ public class CtfTmfEvent extends TmfEvent
         fChannel = channel;
         fStream = fEvent.getDeclaration().getStream();
         fPacketAttributes = eventDefinition.getPacketAttributes();
+        fLazyContent = trace.isLazyEventContent();
     }
 
     /**
@@ -176,6 +180,7 @@ public class CtfTmfEvent extends TmfEvent
         fChannel = ""; //$NON-NLS-1$
         fStream = null;
         fPacketAttributes = Collections.emptyMap();
+        fLazyContent = false;
     }
 
     /**
@@ -194,6 +199,7 @@ public class CtfTmfEvent extends TmfEvent
         fChannel = ""; //$NON-NLS-1$
         fStream = null;
         fPacketAttributes = Collections.emptyMap();
+        fLazyContent = false;
     }
 
     // ------------------------------------------------------------------------
@@ -282,8 +288,12 @@ public class CtfTmfEvent extends TmfEvent
     public synchronized ITmfEventField getContent() {
         ITmfEventField content = fContent;
         if (content == null) {
-            content = new TmfEventField(
-                    ITmfEventField.ROOT_FIELD_ID, null, parseFields(fEvent));
+            if (fLazyContent) {
+                content = new CtfTmfLazyEventField(fEvent);
+            } else {
+                content = new TmfEventField(
+                        ITmfEventField.ROOT_FIELD_ID, null, parseFields(fEvent));
+            }
             fContent = content;
         }
         return content;
@@ -293,7 +303,7 @@ public class CtfTmfEvent extends TmfEvent
      * Extract the field information from the structDefinition haze-inducing
      * mess, and put them into something ITmfEventField can cope with.
      */
-    private static CtfTmfEventField[] parseFields(IEventDefinition eventDef) {
+    static CtfTmfEventField[] parseFields(IEventDefinition eventDef) {
         List<CtfTmfEventField> fields = new ArrayList<>();
 
         ICompositeDefinition structFields = eventDef.getFields();
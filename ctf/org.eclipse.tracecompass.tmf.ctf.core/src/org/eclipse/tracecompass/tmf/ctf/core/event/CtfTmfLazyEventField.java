@@ -0,0 +1,217 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.tmf.ctf.core.event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.ctf.core.event.IEventDefinition;
+import org.eclipse.tracecompass.ctf.core.event.types.ICompositeDefinition;
+import org.eclipse.tracecompass.ctf.core.event.types.IDeclaration;
+import org.eclipse.tracecompass.ctf.core.event.types.IDefinition;
+import org.eclipse.tracecompass.ctf.core.event.types.IntegerDeclaration;
+import org.eclipse.tracecompass.internal.ctf.core.event.types.CompiledStructDefinition;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEventField;
+import org.eclipse.tracecompass.tmf.core.event.TmfEventField;
+import org.eclipse.tracecompass.tmf.ctf.core.CtfConstants;
+
+/**
+ * Root field of the content of a {@link CtfTmfEvent} whose sub-fields are only
+ * created when they are requested by name. The whole content is only created
+ * when all the sub-fields are requested, or to compare it with another lazy
+ * field. Like for {@link TmfEventField}, a lazy field is never equal to a field
+ * of another class, even with the same content.
+ *
+ * When the event fields were decoded by a compiled decoder, the integer fields
+ * are read from the decoded values, without creating the definitions of the
+ * other fields.
+ */
+@NonNullByDefault
+final class CtfTmfLazyEventField implements ITmfEventField {
+
+    private final IEventDefinition fEvent;
+    private final Map<String, ITmfEventField> fParsedFields = new HashMap<>();
+    private @Nullable ICompositeDefinition fContext = null;
+    private @Nullable List<String> fFieldNames = null;
+    private @Nullable TmfEventField fContent = null;
+
+    /**
+     * Constructor
+     *
+     * @param event
+     *            the definition of the event
+     */
+    public CtfTmfLazyEventField(IEventDefinition event) {
+        fEvent = event;
+    }
+
+    /**
+     * Get the whole content, creating it if needed
+     */
+    private synchronized TmfEventField getContent() {
+        TmfEventField content = fContent;
+        if (content == null) {
+            content = new TmfEventField(ITmfEventField.ROOT_FIELD_ID, null, CtfTmfEvent.parseFields(fEvent));
+            fContent = content;
+            /* The parsed fields are not needed anymore */
+            fParsedFields.clear();
+        }
+        return content;
+    }
+
+    private @Nullable ICompositeDefinition getContext() {
+        ICompositeDefinition context = fContext;
+        if (context == null) {
+            context = fEvent.getContext();
+            fContext = context;
+        }
+        return context;
+    }
+
+    private synchronized @Nullable ITmfEventField findField(String name) {
+        TmfEventField content = fContent;
+        if (content != null) {
+            return content.getField(name);
+        }
+        ITmfEventField field = fParsedFields.get(name);
+        if (field == null) {
+            field = parseField(name);
+            if (field != null) {
+                fParsedFields.put(name, field);
+            }
+        }
+        return field;
+    }
+
+    private @Nullable ITmfEventField parseField(String name) {
+        ICompositeDefinition fields = fEvent.getFields();
+        if (fields != null && fields.getFieldNames().contains(name)) {
+            if (fields instanceof CompiledStructDefinition) {
+                CompiledStructDefinition compiled = (CompiledStructDefinition) fields;
+                IDeclaration declaration = compiled.getDeclaration().getField(name);
+                if (declaration instanceof IntegerDeclaration) {
+                    /* Read the decoded value, the definition is not needed */
+                    IntegerDeclaration integer = (IntegerDeclaration) declaration;
+                    long value = compiled.getValue(compiled.getFieldNames().indexOf(name));
+                    return new CTFIntegerField(name, value, integer.getBase(), integer.isSigned());
+                }
+            }
+            return CtfTmfEventField.parseField(fields.getDefinition(name), name);
+        }
+        if (name.startsWith(CtfConstants.CONTEXT_FIELD_PREFIX)) {
+            ICompositeDefinition context = getContext();
+            String contextName = name.substring(CtfConstants.CONTEXT_FIELD_PREFIX.length());
+            if (context != null && context.getFieldNames().contains(contextName)) {
+                IDefinition definition = context.getDefinition(contextName);
+                return CtfTmfEventField.parseField(definition, name);
+            }
+        }
+        return null;
+    }
+
+    // ------------------------------------------------------------------------
+    // ITmfEventField
+    // ------------------------------------------------------------------------
+
+    @Override
+    public String getName() {
+        return ITmfEventField.ROOT_FIELD_ID;
+    }
+
+    @Override
+    public @Nullable Object getValue() {
+        return null;
+    }
+
+    @Override
+    public String getFormattedValue() {
+        return getContent().getFormattedValue();
+    }
+
+    @Override
+    public synchronized Collection<String> getFieldNames() {
+        TmfEventField content = fContent;
+        if (content != null) {
+            return content.getFieldNames();
+        }
+        List<String> fieldNames = fFieldNames;
+        if (fieldNames == null) {
+            fieldNames = new ArrayList<>();
+            ICompositeDefinition fields = fEvent.getFields();
+            if (fields != null) {
+                fieldNames.addAll(fields.getFieldNames());
+            }
+            ICompositeDefinition context = getContext();
+            if (context != null) {
+                for (String contextName : context.getFieldNames()) {
+                    fieldNames.add(CtfConstants.CONTEXT_FIELD_PREFIX + contextName);
+                }
+            }
+            fieldNames = Collections.unmodifiableList(fieldNames);
+            fFieldNames = fieldNames;
+        }
+        return fieldNames;
+    }
+
+    @Override
+    public Collection<? extends ITmfEventField> getFields() {
+        return getContent().getFields();
+    }
+
+    @Override
+    public @Nullable ITmfEventField getField(String... path) {
+        if (path.length == 0) {
+            return this;
+        }
+        ITmfEventField field = findField(path[0]);
+        if (field == null || path.length == 1) {
+            return field;
+        }
+        return field.getField(Arrays.copyOfRange(path, 1, path.length));
+    }
+
+    // ------------------------------------------------------------------------
+    // Object
+    // ------------------------------------------------------------------------
+
+    @Override
+    public int hashCode() {
+        return getContent().hashCode();
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        /*
+         * Like TmfEventField, only consider equal the fields of the same
+         * class, so that the comparison stays symmetric.
+         */
+        if (!(obj instanceof CtfTmfLazyEventField)) {
+            return false;
+        }
+        return getContent().equals(((CtfTmfLazyEventField) obj).getContent());
+    }
+
+    @Override
+    public String toString() {
+        return getContent().toString();
+    }
+}
@@ -0,0 +1,435 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.tmf.ctf.core.trace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.ctf.core.CTFException;
+import org.eclipse.tracecompass.ctf.core.CTFStrings;
+import org.eclipse.tracecompass.ctf.core.event.IEventDefinition;
+import org.eclipse.tracecompass.ctf.core.trace.CTFStreamInput;
+import org.eclipse.tracecompass.ctf.core.trace.CTFStreamInputReader;
+import org.eclipse.tracecompass.ctf.core.trace.CTFTrace;
+import org.eclipse.tracecompass.ctf.core.trace.CTFTraceReader;
+import org.eclipse.tracecompass.ctf.core.trace.ICTFPacketDescriptor;
+import org.eclipse.tracecompass.ctf.core.trace.ICTFStream;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
+import org.eclipse.tracecompass.tmf.core.event.ITmfLostEvent;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.checkpoint.ITmfCheckpoint;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.checkpoint.TmfCheckpoint;
+import org.eclipse.tracecompass.tmf.ctf.core.context.CtfLocation;
+import org.eclipse.tracecompass.tmf.ctf.core.context.CtfLocationInfo;
+
+/**
+ * Computes the checkpoints of the index of a CTF trace by reading parts of the
+ * trace concurrently.
+ *
+ * The packet index does not know how many events a packet contains, so the
+ * trace is split in time segments at packet boundaries and each segment is
+ * read by its own trace reader. While counting its events, a segment keeps the
+ * position of every few events. Once the rank of the first event of each
+ * segment is known, the checkpoints are found by reading from the closest
+ * kept position, again one segment per thread.
+ *
+ * The locations of the checkpoints are the ones a {@link CtfLocation} has
+ * when reading the trace from its start: the timestamp of the event, and the
+ * number of events before it with the same timestamp.
+ */
+@NonNullByDefault
+final class CtfCheckpointBuilder {
+
+    /** Number of segments per thread, to balance the segments' sizes */
+    private static final int SEGMENTS_PER_THREAD = 4;
+
+    /** Number of kept positions between two checkpoints */
+    private static final int POSITIONS_PER_INTERVAL = 16;
+
+    /** Number of events read between two checks of the progress monitor */
+    private static final int CANCEL_CHECK_INTERVAL = 1024;
+
+    private final CtfTmfTrace fTmfTrace;
+    private final CTFTrace fTrace;
+    private final int fInterval;
+    private final int fStep;
+
+    private long fNbEvents = 0;
+    private long fStartTime = Long.MAX_VALUE;
+    private long fEndTime = Long.MIN_VALUE;
+
+    /**
+     * Constructor
+     *
+     * @param tmfTrace
+     *            the trace whose checkpoints are computed
+     * @param trace
+     *            the CTF trace of this trace
+     * @param interval
+     *            the number of events between two checkpoints
+     */
+    public CtfCheckpointBuilder(CtfTmfTrace tmfTrace, CTFTrace trace, int interval) {
+        fTmfTrace = tmfTrace;
+        fTrace = trace;
+        fInterval = interval;
+        fStep = Math.max(1, interval / POSITIONS_PER_INTERVAL);
+    }
+
+    /**
+     * Get the number of events of the trace, once the checkpoints are
+     * computed
+     *
+     * @return the number of events
+     */
+    public long getNbEvents() {
+        return fNbEvents;
+    }
+
+    /**
+     * Get the timestamp of the first event, once the checkpoints are computed
+     *
+     * @return the start time, in nanoseconds
+     */
+    public long getStartTime() {
+        return fStartTime;
+    }
+
+    /**
+     * Get the end time of the last event, once the checkpoints are computed
+     *
+     * @return the end time, in nanoseconds
+     */
+    public long getEndTime() {
+        return fEndTime;
+    }
+
+    /**
+     * Compute the checkpoints
+     *
+     * @param monitor
+     *            the progress monitor
+     * @return the checkpoints in rank order, or null if the computation was
+     *         cancelled
+     * @throws CTFException
+     *             if the trace cannot be read
+     */
+    public @Nullable List<ITmfCheckpoint> build(IProgressMonitor monitor) throws CTFException {
+        int nbThreads = Runtime.getRuntime().availableProcessors();
+        long[] bounds = computeSegmentBounds(nbThreads * SEGMENTS_PER_THREAD);
+        if (bounds.length == 0) {
+            return new ArrayList<>();
+        }
+        Segment[] segments = new Segment[bounds.length];
+        for (int i = 0; i < bounds.length; i++) {
+            segments[i] = new Segment(bounds[i], (i + 1 < bounds.length) ? bounds[i + 1] : Long.MAX_VALUE);
+        }
+        SubMonitor subMonitor = SubMonitor.convert(monitor, 2 * segments.length);
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(nbThreads, segments.length), runnable -> {
+            Thread thread = new Thread(runnable, fTmfTrace.getName() + " Indexer " + threadCount.incrementAndGet()); //$NON-NLS-1$
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Callable<@Nullable Void>> scans = new ArrayList<>();
+            for (Segment segment : segments) {
+                scans.add(() -> {
+                    segment.scan(monitor);
+                    return null;
+                });
+            }
+            runAll(executor, scans, subMonitor);
+
+            List<Segment> nonEmpty = linkSegments(segments);
+            List<ITmfCheckpoint> checkpoints = new ArrayList<>();
+            List<Callable<List<ITmfCheckpoint>>> searches = new ArrayList<>();
+            for (Segment segment : nonEmpty) {
+                searches.add(() -> segment.findCheckpoints(monitor));
+            }
+            for (List<ITmfCheckpoint> segmentCheckpoints : runAll(executor, searches, subMonitor)) {
+                checkpoints.addAll(segmentCheckpoints);
+            }
+            return checkpoints;
+        } catch (OperationCanceledException e) {
+            return null;
+        } finally {
+            executor.shutdownNow();
+            subMonitor.done();
+        }
+    }
+
+    /**
+     * Run tasks concurrently and wait for their results
+     */
+    private static <T> List<T> runAll(ExecutorService executor, List<Callable<T>> tasks, SubMonitor subMonitor) throws CTFException {
+        List<Future<T>> futures = new ArrayList<>();
+        for (Callable<T> task : tasks) {
+            futures.add(executor.submit(task));
+        }
+        List<T> results = new ArrayList<>();
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+                subMonitor.worked(1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OperationCanceledException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CTFException) {
+                throw (CTFException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+        return results;
+    }
+
+    /**
+     * Split the trace in segments with about the same number of packets
+     *
+     * @param nbSegments
+     *            the maximum number of segments
+     * @return the start of each segment, in cycles, or an empty array if the
+     *         trace is empty
+     */
+    private long[] computeSegmentBounds(int nbSegments) throws CTFException {
+        long start;
+        long end;
+        try (CTFTraceReader reader = new CTFTraceReader(fTrace)) {
+            IEventDefinition first = reader.getCurrentEventDef();
+            if (first == null) {
+                return new long[0];
+            }
+            start = first.getTimestamp();
+            /* This also indexes all the packets */
+            reader.goToLastEvent();
+            IEventDefinition last = reader.getCurrentEventDef();
+            end = (last != null) ? last.getTimestamp() : start;
+        }
+        List<Long> packetStarts = new ArrayList<>();
+        for (ICTFStream stream : fTrace.getStreams()) {
+            for (CTFStreamInput streamInput : stream.getStreamInputs()) {
+                for (ICTFPacketDescriptor packet : streamInput.getPacketDescriptors()) {
+                    long packetStart = packet.getTimestampBegin();
+                    if (packetStart > start && packetStart <= end) {
+                        packetStarts.add(packetStart);
+                    }
+                }
+            }
+        }
+        packetStarts.sort(null);
+        long[] bounds = new long[nbSegments];
+        int nbBounds = 0;
+        bounds[nbBounds++] = start;
+        for (int i = 1; i < nbSegments && !packetStarts.isEmpty(); i++) {
+            long bound = packetStarts.get((int) ((long) i * packetStarts.size() / nbSegments));
+            if (bound > bounds[nbBounds - 1]) {
+                bounds[nbBounds++] = bound;
+            }
+        }
+        return Arrays.copyOf(bounds, nbBounds);
+    }
+
+    /**
+     * Compute the rank of the first event of each segment, and how many events
+     * before each segment have the same timestamp as its first event. Also
+     * updates the number of events and the time range of the trace.
+     *
+     * @return the segments that are not empty, in order
+     */
+    private List<Segment> linkSegments(Segment[] segments) {
+        List<Segment> nonEmpty = new ArrayList<>();
+        long rank = 0;
+        Segment previous = null;
+        for (Segment segment : segments) {
+            if (segment.fCount == 0) {
+                continue;
+            }
+            segment.fBaseRank = rank;
+            rank += segment.fCount;
+            if (previous != null && previous.fLastNanos == segment.fFirstNanos) {
+                segment.fCarry = previous.fTrailingRun + ((previous.fLeadingRun == previous.fCount) ? previous.fCarry : 0);
+            }
+            fStartTime = Math.min(fStartTime, segment.fFirstNanos);
+            fEndTime = Math.max(fEndTime, segment.fEndNanos);
+            nonEmpty.add(segment);
+            previous = segment;
+        }
+        fNbEvents = rank;
+        return nonEmpty;
+    }
+
+    /**
+     * Position of an event kept while scanning a segment
+     */
+    private static final class Position {
+        /** Timestamp of the event, in cycles */
+        private final long fCycles;
+        /** Number of events before it in the segment with the same cycles */
+        private final int fCyclesIndex;
+        /** Number of events before it in the segment with the same nanos */
+        private final long fNanosIndex;
+
+        private Position(long cycles, int cyclesIndex, long nanosIndex) {
+            fCycles = cycles;
+            fCyclesIndex = cyclesIndex;
+            fNanosIndex = nanosIndex;
+        }
+    }
+
+    /**
+     * Events of the trace with a timestamp in cycles in [start, end)
+     */
+    private final class Segment {
+        private final long fStart;
+        private final long fEnd;
+        private final List<Position> fPositions = new ArrayList<>();
+
+        private long fCount = 0;
+        private long fFirstNanos = 0;
+        private long fLastNanos = 0;
+        private long fEndNanos = Long.MIN_VALUE;
+        /** Number of events at the start with the timestamp of the first */
+        private long fLeadingRun = 0;
+        /** Number of events at the end with the timestamp of the last */
+        private long fTrailingRun = 0;
+
+        /* Set once all the segments are scanned */
+        private long fBaseRank = 0;
+        private long fCarry = 0;
+
+        private Segment(long start, long end) {
+            fStart = start;
+            fEnd = end;
+        }
+
+        /**
+         * Read the events of the segment, counting them and keeping the
+         * position of every few events
+         */
+        private void scan(IProgressMonitor monitor) throws CTFException {
+            try (CTFTraceReader reader = new CTFTraceReader(fTrace)) {
+                reader.seek(fStart);
+                long previousCycles = Long.MIN_VALUE;
+                int cyclesIndex = 0;
+                long nanosIndex = 0;
+                IEventDefinition event = reader.getCurrentEventDef();
+                while (event != null && event.getTimestamp() < fEnd) {
+                    long cycles = event.getTimestamp();
+                    long nanos = fTrace.timestampCyclesToNanos(cycles);
+                    cyclesIndex = (cycles == previousCycles) ? cyclesIndex + 1 : 0;
+                    nanosIndex = (fCount > 0 && nanos == fLastNanos) ? nanosIndex + 1 : 0;
+                    if (fCount % fStep == 0) {
+                        fPositions.add(new Position(cycles, cyclesIndex, nanosIndex));
+                    }
+                    if (fCount == 0) {
+                        fFirstNanos = nanos;
+                    }
+                    if (nanosIndex == fCount) {
+                        fLeadingRun = fCount + 1;
+                    }
+                    fEndNanos = Math.max(fEndNanos, getEndNanos(reader, event, nanos));
+                    fLastNanos = nanos;
+                    previousCycles = cycles;
+                    fCount++;
+                    if (fCount % CANCEL_CHECK_INTERVAL == 0 && monitor.isCanceled()) {
+                        throw new OperationCanceledException();
+                    }
+                    reader.advance();
+                    event = reader.getCurrentEventDef();
+                }
+                fTrailingRun = nanosIndex + 1;
+            }
+        }
+
+        /**
+         * Get the end time of an event, which is after its timestamp for lost
+         * events
+         */
+        private long getEndNanos(CTFTraceReader reader, IEventDefinition event, long nanos) {
+            if (!CTFStrings.LOST_EVENT_NAME.equals(event.getDeclaration().getName())) {
+                return nanos;
+            }
+            CTFStreamInputReader stream = reader.getTopStream();
+            ITmfEvent tmfEvent = fTmfTrace.getEventFactory().createEvent(fTmfTrace, event, (stream != null) ? stream.getFilename() : null);
+            if (tmfEvent instanceof ITmfLostEvent) {
+                return Math.max(nanos, ((ITmfLostEvent) tmfEvent).getTimeRange().getEndTime().toNanos());
+            }
+            return nanos;
+        }
+
+        /**
+         * Find the checkpoints whose rank is in this segment
+         */
+        private List<ITmfCheckpoint> findCheckpoints(IProgressMonitor monitor) throws CTFException {
+            List<ITmfCheckpoint> checkpoints = new ArrayList<>();
+            long first = (fBaseRank + fInterval - 1) / fInterval;
+            long last = (fBaseRank + fCount - 1) / fInterval;
+            if (first > last) {
+                return checkpoints;
+            }
+            try (CTFTraceReader reader = new CTFTraceReader(fTrace)) {
+                for (long checkpointRank = first; checkpointRank <= last; checkpointRank++) {
+                    if (monitor.isCanceled()) {
+                        throw new OperationCanceledException();
+                    }
+                    long localRank = checkpointRank * fInterval - fBaseRank;
+                    int positionIndex = (int) (localRank / fStep);
+                    Position position = fPositions.get(positionIndex);
+                    long positionRank = (long) positionIndex * fStep;
+
+                    /* Go to the kept position */
+                    reader.seek(position.fCycles);
+                    for (int i = 0; i < position.fCyclesIndex; i++) {
+                        reader.advance();
+                    }
+                    long nanosIndex = position.fNanosIndex + ((positionRank < fLeadingRun) ? fCarry : 0);
+                    IEventDefinition event = reader.getCurrentEventDef();
+                    if (event == null) {
+                        throw new CTFException("Missing event at rank " + (fBaseRank + positionRank)); //$NON-NLS-1$
+                    }
+                    long nanos = fTrace.timestampCyclesToNanos(event.getTimestamp());
+
+                    /* Read up to the checkpoint */
+                    for (long rank = positionRank; rank < localRank; rank++) {
+                        reader.advance();
+                        event = reader.getCurrentEventDef();
+                        if (event == null) {
+                            throw new CTFException("Missing event at rank " + (fBaseRank + rank + 1)); //$NON-NLS-1$
+                        }
+                        long eventNanos = fTrace.timestampCyclesToNanos(event.getTimestamp());
+                        nanosIndex = (eventNanos == nanos) ? nanosIndex + 1 : 0;
+                        nanos = eventNanos;
+                    }
+                    CtfLocation location = new CtfLocation(new CtfLocationInfo(nanos, nanosIndex));
+                    checkpoints.add(new TmfCheckpoint(fTmfTrace.createTimestamp(nanos), location, checkpointRank));
+                }
+            }
+            return checkpoints;
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2017 Ericsson, École Polytechnique de Montréal
+ * Copyright (c) 2012, 2026 Ericsson, École Polytechnique de Montréal
  *
  * All rights reserved. This program and the accompanying materials are made
  * available under the terms of the Eclipse Public License 2.0 which
@@ -18,6 +18,7 @@ package org.eclipse.tracecompass.tmf.ctf.core.trace;
 
 import static org.eclipse.tracecompass.common.core.NonNullUtils.checkNotNull;
 
+import java.io.File;
 import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.nio.file.Path;
@@ -73,7 +74,9 @@ import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTraceKnownSize;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTraceWithPreDefinedEvents;
 import org.eclipse.tracecompass.tmf.core.trace.TmfTrace;
+import org.eclipse.tracecompass.tmf.core.trace.TmfTraceManager;
 import org.eclipse.tracecompass.tmf.core.trace.TraceValidationStatus;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.ITmfParallelIndexable;
 import org.eclipse.tracecompass.tmf.core.trace.indexer.ITmfPersistentlyIndexable;
 import org.eclipse.tracecompass.tmf.core.trace.indexer.ITmfTraceIndexer;
 import org.eclipse.tracecompass.tmf.core.trace.indexer.TmfBTreeTraceIndexer;
@@ -102,7 +105,7 @@ import com.google.common.collect.ImmutableSet;
  * @author Matthew khouzam
  */
 public class CtfTmfTrace extends TmfTrace
-        implements ITmfPropertiesProvider, ITmfPersistentlyIndexable,
+        implements ITmfPropertiesProvider, ITmfPersistentlyIndexable, ITmfParallelIndexable,
         ITmfTraceWithPreDefinedEvents, ITmfTraceKnownSize, ICyclesConverter, ITmfTrimmableTrace {
 
     // -------------------------------------------
@@ -141,6 +144,26 @@ public class CtfTmfTrace extends TmfTrace
      * The Ctf clock unique identifier field
      */
     private static final String CLOCK_HOST_PROPERTY = "uuid"; //$NON-NLS-1$
+
+    private static final String PACKET_INDEX_DIRECTORY = "packet-index"; //$NON-NLS-1$
+
+    /**
+     * System property to only create the fields of the event content when they
+     * are requested by name, see {@link #isLazyEventContent()}.
+     *
+     * @since 4.4
+     */
+    public static final String LAZY_EVENT_CONTENT_PROPERTY = "org.eclipse.tracecompass.tmf.ctf.core.lazyEventContent"; //$NON-NLS-1$
+
+    /**
+     * System property to compute the checkpoints of the index by reading parts
+     * of the trace concurrently, see
+     * {@link #computeCheckpoints(int, IProgressMonitor)}.
+     *
+     * @since 4.4
+     */
+    public static final String PARALLEL_INDEXING_PROPERTY = "org.eclipse.tracecompass.tmf.ctf.core.parallelIndexing"; //$NON-NLS-1$
+
     private static final int CONFIDENCE = 10;
     private static final int MIN_CONFIDENCE = 1;
 
@@ -169,6 +192,10 @@ public class CtfTmfTrace extends TmfTrace
 
     private final @NonNull CtfTmfEventFactory fEventFactory;
 
+    private final boolean fLazyEventContent = Boolean.getBoolean(LAZY_EVENT_CONTENT_PROPERTY);
+
+    private final boolean fParallelIndexing = Boolean.getBoolean(PARALLEL_INDEXING_PROPERTY);
+
     /** Reference to the CTF Trace */
     private CTFTrace fTrace;
 
@@ -225,6 +252,8 @@ public class CtfTmfTrace extends TmfTrace
 
         try {
             this.fTrace = new CTFTrace(path);
+            /* Keep the packet indexes so the trace opens faster next time */
+            fTrace.setPacketIndexDirectory(new File(TmfTraceManager.getSupplementaryFileDir(this), PACKET_INDEX_DIRECTORY));
             CtfTmfContext ctx;
             /* Set the start and (current) end times for this trace */
             ctx = (CtfTmfContext) seekEvent(0L);
@@ -684,6 +713,19 @@ public class CtfTmfTrace extends TmfTrace
     // CtfIterator factory methods
     // -------------------------------------------
 
+    /**
+     * Get whether the content of the events of this trace is lazy. The fields
+     * of a lazy content are only created when they are requested by name,
+     * which avoids parsing all the fields of the events when an analysis only
+     * reads a few of them.
+     *
+     * @return true if the event content is lazy
+     * @since 4.4
+     */
+    public boolean isLazyEventContent() {
+        return fLazyEventContent;
+    }
+
     /**
      * Get the event factory for this trace to generate new events for it.
      *
@@ -783,6 +825,33 @@ public class CtfTmfTrace extends TmfTrace
         return new TmfBTreeTraceIndexer(this, interval);
     }
 
+    /**
+     * Compute the checkpoints by reading parts of the trace concurrently, if
+     * the {@link #PARALLEL_INDEXING_PROPERTY} system property is set. Live
+     * traces are always indexed by reading their events.
+     *
+     * @since 4.4
+     */
+    @Override
+    public @Nullable List<ITmfCheckpoint> computeCheckpoints(int interval, IProgressMonitor monitor) {
+        CTFTrace trace = fTrace;
+        if (!fParallelIndexing || trace == null || !isComplete()) {
+            return null;
+        }
+        try {
+            CtfCheckpointBuilder builder = new CtfCheckpointBuilder(this, trace, interval);
+            List<ITmfCheckpoint> checkpoints = builder.build(monitor);
+            if (checkpoints != null && builder.getNbEvents() > 0) {
+                setNbEvents(builder.getNbEvents());
+                setTimeRange(new TmfTimeRange(createTimestamp(builder.getStartTime()), createTimestamp(builder.getEndTime())));
+            }
+            return checkpoints;
+        } catch (CTFException e) {
+            Activator.getDefault().logError(e.getMessage(), e);
+            return null;
+        }
+    }
+
     @Override
     public ITmfLocation restoreLocation(ByteBuffer bufferIn) {
         return new CtfLocation(bufferIn);
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.jsontrace.core.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.tracecompass.internal.jsontrace.core.job.SortKey;
+import org.junit.Test;
+
+/**
+ * Test the {@link SortKey} of the sorting job, the keys should be in the same
+ * order as the timestamps
+ */
+public class SortKeyTest {
+
+    private static final String TS_KEY = "\"ts\":";
+
+    private static SortKey key(String timestamp, long offset) {
+        return SortKey.create(TS_KEY, "{\"name\":\"a\", \"ts\":" + timestamp + ", \"pid\":1}", offset);
+    }
+
+    /**
+     * Test that the keys are ordered like the decimal values of the
+     * timestamps
+     */
+    @Test
+    public void testOrder() {
+        String[] timestamps = { "-1e3", "-12.75", "-12.5", "-12", "-0.000001", "0", "0.5", "\"1.25\"", "1.3",
+                "1.300000000000000001", "2", "2e1", "123456789.123456789", "1700000000123456", "12345678901234567890" };
+        List<SortKey> keys = new ArrayList<>();
+        for (int i = 0; i < timestamps.length; i++) {
+            /* The offsets are in the reverse order of the timestamps */
+            keys.add(key(timestamps[i], timestamps.length - i));
+        }
+        for (int i = 0; i < timestamps.length; i++) {
+            for (int j = 0; j < timestamps.length; j++) {
+                BigDecimal value1 = new BigDecimal(timestamps[i].replace("\"", ""));
+                BigDecimal value2 = new BigDecimal(timestamps[j].replace("\"", ""));
+                int expected = Integer.signum(value1.compareTo(value2));
+                assertEquals(timestamps[i] + " " + timestamps[j], expected,
+                        Integer.signum(SortKey.COMPARATOR.compare(keys.get(i), keys.get(j))));
+            }
+        }
+    }
+
+    /**
+     * Test that the events with the same timestamp are sorted by position
+     */
+    @Test
+    public void testStable() {
+        assertTrue(SortKey.COMPARATOR.compare(key("10", 5), key("10.0", 6)) < 0);
+        assertTrue(SortKey.COMPARATOR.compare(key("10", 7), key("\"10\"", 6)) > 0);
+    }
+
+    /**
+     * Test the events without a valid timestamp, they are sorted at -1
+     */
+    @Test
+    public void testInvalid() {
+        SortKey minusOne = key("-1", 0);
+        assertEquals(0, SortKey.COMPARATOR.compare(minusOne, SortKey.create(TS_KEY, "{\"name\":\"a\"}", 0)));
+        assertEquals(0, SortKey.COMPARATOR.compare(minusOne, key("\"abc\"", 0)));
+        assertEquals(0, SortKey.COMPARATOR.compare(minusOne, key("\"\"", 0)));
+        assertTrue(SortKey.COMPARATOR.compare(minusOne, key("-0.5", 0)) < 0);
+    }
+
+    /**
+     * Test writing a key and reading it back
+     *
+     * @throws IOException
+     *             should not happen
+     */
+    @Test
+    public void testReadWrite() throws IOException {
+        String event = "{\"ts\":-42.125}";
+        SortKey key = SortKey.create(TS_KEY, event, 1234567890123L);
+        assertEquals(1234567890123L, key.getOffset());
+        assertEquals(event.length(), key.getLength());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            key.write(output);
+        }
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            SortKey read = SortKey.read(input);
+            assertEquals(0, SortKey.COMPARATOR.compare(key, read));
+            assertEquals(key.getLength(), read.getLength());
+            assertEquals(key.toString(), read.toString());
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.internal.jsontrace.core.job;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Comparator;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Sort key of an event of a JSON trace: the timestamp of the event and the
+ * position of the event in the trace file. The timestamp is a fixed-point
+ * number, with a long integral part and a fraction with 18 decimals, so it is
+ * compared without {@link BigDecimal}. The events with the same timestamp are
+ * sorted by position, so the sort is stable.
+ */
+@NonNullByDefault
+public final class SortKey {
+
+    /** Order of the keys: timestamp, then position */
+    public static final Comparator<SortKey> COMPARATOR = Comparator
+            .comparingLong((SortKey key) -> key.fIntegral)
+            .thenComparingLong(key -> key.fFraction)
+            .thenComparingLong(key -> key.fOffset);
+
+    private static final int FRACTION_DIGITS = 18;
+    private static final long FRACTION_SCALE = 1000000000000000000L;
+    private static final int MAX_INTEGRAL_DIGITS = 18;
+    private static final long[] POWERS_OF_TEN = new long[FRACTION_DIGITS + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i <= FRACTION_DIGITS; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final long fIntegral;
+    private final long fFraction;
+    private final long fOffset;
+    private final int fLength;
+
+    private SortKey(long integral, long fraction, long offset, int length) {
+        fIntegral = integral;
+        fFraction = fraction;
+        fOffset = offset;
+        fLength = length;
+    }
+
+    /**
+     * Create the sort key of an event. An event without a timestamp, or whose
+     * timestamp is not a number, has the timestamp -1.
+     *
+     * @param tsKey
+     *            The timestamp key, with the quotes and the colon
+     * @param event
+     *            The event string, one character per byte of the file
+     * @param offset
+     *            The position of the event in the file
+     * @return The sort key
+     */
+    public static SortKey create(String tsKey, String event, long offset) {
+        int indexOf = event.indexOf(tsKey);
+        if (indexOf < 0) {
+            return new SortKey(-1, 0, offset, event.length());
+        }
+        int index = indexOf + tsKey.length();
+        int end = event.indexOf(',', index);
+        if (end == -1) {
+            end = event.indexOf('}', index);
+        }
+        if (end == -1) {
+            end = event.length();
+        }
+        String number = event.substring(index, end).trim().replace("\"", ""); //$NON-NLS-1$ //$NON-NLS-2$
+        SortKey key = parseFixedPoint(number, offset, event.length());
+        return key != null ? key : parseBigDecimal(number, offset, event.length());
+    }
+
+    /**
+     * Parse a plain decimal number, like 123, -4.5 or "6.789"
+     *
+     * @return The key, or null if the number is not a plain decimal number
+     *         that fits in the fixed point representation
+     */
+    private static @Nullable SortKey parseFixedPoint(String number, long offset, int length) {
+        int i = 0;
+        int n = number.length();
+        boolean negative = false;
+        if (i < n && (number.charAt(i) == '-' || number.charAt(i) == '+')) {
+            negative = number.charAt(i) == '-';
+            i++;
+        }
+        long integral = 0;
+        int integralDigits = 0;
+        while (i < n && isDigit(number.charAt(i))) {
+            if (++integralDigits > MAX_INTEGRAL_DIGITS) {
+                return null;
+            }
+            integral = integral * 10 + (number.charAt(i) - '0');
+            i++;
+        }
+        long fraction = 0;
+        int fractionDigits = 0;
+        if (i < n && number.charAt(i) == '.') {
+            i++;
+            while (i < n && isDigit(number.charAt(i))) {
+                /* The digits beyond the precision are truncated */
+                if (fractionDigits < FRACTION_DIGITS) {
+                    fraction = fraction * 10 + (number.charAt(i) - '0');
+                    fractionDigits++;
+                }
+                i++;
+            }
+        }
+        if (i != n || integralDigits + fractionDigits == 0) {
+            return null;
+        }
+        fraction *= POWERS_OF_TEN[FRACTION_DIGITS - fractionDigits];
+        if (negative) {
+            /* The fraction is always positive, -4.5 is -5 + 0.5 */
+            integral = -integral;
+            if (fraction > 0) {
+                integral--;
+                fraction = FRACTION_SCALE - fraction;
+            }
+        }
+        return new SortKey(integral, fraction, offset, length);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Parse any number, like 1e6, that is not a plain decimal number. The
+     * numbers too big for the fixed point representation are clamped.
+     */
+    private static SortKey parseBigDecimal(String number, long offset, int length) {
+        if (number.isEmpty()) {
+            return new SortKey(-1, 0, offset, length);
+        }
+        BigDecimal value;
+        try {
+            value = new BigDecimal(number);
+        } catch (NumberFormatException e) {
+            // Cannot be parsed as a number, set to -1
+            return new SortKey(-1, 0, offset, length);
+        }
+        BigDecimal floor = value.setScale(0, RoundingMode.FLOOR);
+        if (floor.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) >= 0) {
+            return new SortKey(Long.MAX_VALUE, 0, offset, length);
+        }
+        if (floor.compareTo(BigDecimal.valueOf(Long.MIN_VALUE)) <= 0) {
+            return new SortKey(Long.MIN_VALUE, 0, offset, length);
+        }
+        long fraction = value.subtract(floor).movePointRight(FRACTION_DIGITS).longValue();
+        return new SortKey(floor.longValueExact(), fraction, offset, length);
+    }
+
+    /**
+     * Get the position of the event in the file
+     *
+     * @return The offset of the first byte of the event
+     */
+    public long getOffset() {
+        return fOffset;
+    }
+
+    /**
+     * Get the size of the event in the file
+     *
+     * @return The number of bytes of the event
+     */
+    public int getLength() {
+        return fLength;
+    }
+
+    /**
+     * Write this key
+     *
+     * @param output
+     *            The output
+     * @throws IOException
+     *             If the key cannot be written
+     */
+    public void write(DataOutput output) throws IOException {
+        output.writeLong(fIntegral);
+        output.writeLong(fFraction);
+        output.writeLong(fOffset);
+        output.writeInt(fLength);
+    }
+
+    /**
+     * Read a key written with {@link #write(DataOutput)}
+     *
+     * @param input
+     *            The input
+     * @return The key
+     * @throws IOException
+     *             If the key cannot be read
+     */
+    public static SortKey read(DataInput input) throws IOException {
+        long integral = input.readLong();
+        long fraction = input.readLong();
+        long offset = input.readLong();
+        int length = input.readInt();
+        return new SortKey(integral, fraction, offset, length);
+    }
+
+    @Override
+    public String toString() {
+        return fIntegral + "+" + fFraction + "e-18@" + fOffset; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+}
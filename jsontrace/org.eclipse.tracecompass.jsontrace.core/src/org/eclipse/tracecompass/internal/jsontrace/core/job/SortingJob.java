@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018, 2020 Ericsson
+ * Copyright (c) 2018, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are made
  * available under the terms of the Eclipse Public License 2.0 which
@@ -11,17 +11,32 @@
 
 package org.eclipse.tracecompass.internal.jsontrace.core.job;
 
+import static org.eclipse.tracecompass.common.core.NonNullUtils.checkNotNull;
+
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.math.BigDecimal;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.List;
 import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -37,13 +52,16 @@ import org.eclipse.tracecompass.common.core.log.TraceCompassLogUtils;
 import org.eclipse.tracecompass.internal.jsontrace.core.Activator;
 import org.eclipse.tracecompass.internal.jsontrace.core.Messages;
 import org.eclipse.tracecompass.internal.provisional.jsontrace.core.trace.JsonTrace;
+import org.eclipse.tracecompass.internal.provisional.jsontrace.core.trace.JsonTrace.IReaderWrapper;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
 import org.eclipse.tracecompass.tmf.core.trace.TmfTraceManager;
 
 /**
- * On-disk sorting job. It splits a trace into tracelets. Each tracelet is
- * sorted in ram and written to disk, then the tracelets are merged into a big
- * trace.
+ * On-disk sorting job. It splits a trace into chunks of events. Each chunk is
+ * sorted in ram by a pool of workers and its sort keys, the timestamps and
+ * positions of its events, are written to disk. Then the chunks are merged
+ * into a big trace, by copying the events from the original trace in the order
+ * of the keys.
  *
  * @author Matthew Khouzam
  */
@@ -54,48 +72,146 @@ public abstract class SortingJob extends Job {
     private static final int CHARS_PER_LINE_ESTIMATE = 50;
     private static final @NonNull Logger LOGGER = TraceCompassLog.getLogger(SortingJob.class);
     private static final int CHUNK_SIZE = 65535;
+    /**
+     * Maximum number of chunks being sorted at the same time, their events are
+     * in memory
+     */
+    private static final int MAX_PENDING_CHUNKS = 4;
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * Memory shared by the buffers of all the chunks during the merge, each
+     * chunk has a key buffer and a read window
+     */
+    private static final int MERGE_BUFFERS_BUDGET = 1 << 24;
+    private static final int MIN_MERGE_BUFFER_SIZE = 1 << 12;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
 
-    private static final Comparator<PartiallyParsedEvent> EVENT_COMPARATOR = Comparator
-            .comparing(PartiallyParsedEvent::getTs);
-
-    private static final class PartiallyParsedEvent {
-        private static final @NonNull BigDecimal MINUS_ONE = BigDecimal.valueOf(-1);
-
-        private final BigDecimal fTs;
-        private String fLine;
-        private final int fPos;
-
-        public PartiallyParsedEvent(String key, String string, int i) {
-            fLine = string;
-            int indexOf = string.indexOf(key);
-            fPos = i;
-            if (indexOf < 0) {
-                fTs = MINUS_ONE;
-            } else {
-                int index = indexOf + key.length();
-                int end = string.indexOf(',', index);
-                if (end == -1) {
-                    end = string.indexOf('}', index);
-                }
-                BigDecimal ts;
-                String number = string.substring(index, end).trim().replace("\"", "");
-                if (!number.isEmpty()) {
-                    try {
-                        // This may be a bit slow, it can be optimized if need be.
-                        ts = new BigDecimal(number);
-                    } catch (NumberFormatException e) {
-                        // Cannot be parsed as a number, set to -1
-                        ts = MINUS_ONE;
-                    }
-                } else {
-                    ts = MINUS_ONE;
+    /**
+     * Reader of the trace file that keeps the position of the last byte read
+     */
+    private static final class PositionReader implements IReaderWrapper {
+        private final InputStream fInput;
+        private final byte[] fBuffer = new byte[BUFFER_SIZE];
+        private int fBufferPos = 0;
+        private int fBufferEnd = 0;
+        private long fPosition = 0;
+
+        public PositionReader(InputStream input) {
+            fInput = input;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (fBufferPos == fBufferEnd) {
+                int read = fInput.read(fBuffer);
+                if (read <= 0) {
+                    return -1;
                 }
-                fTs = ts;
+                fBufferPos = 0;
+                fBufferEnd = read;
+            }
+            fPosition++;
+            return fBuffer[fBufferPos++] & 0xff;
+        }
+
+        public long getPosition() {
+            return fPosition;
+        }
+    }
+
+    /**
+     * Reader of the sorted keys of a chunk, for the merge
+     */
+    private static final class ChunkReader implements AutoCloseable {
+        private final DataInputStream fInput;
+        private int fRemaining;
+        private final EventCopier fCopier;
+        private @Nullable SortKey fKey;
+
+        public ChunkReader(File file, FileChannel source, int bufferSize) throws IOException {
+            fCopier = new EventCopier(source, bufferSize);
+            fInput = new DataInputStream(new BufferedInputStream(new FileInputStream(file), bufferSize));
+            fRemaining = fInput.readInt();
+            next();
+        }
+
+        public @Nullable SortKey getKey() {
+            return fKey;
+        }
+
+        public EventCopier getCopier() {
+            return fCopier;
+        }
+
+        public void next() throws IOException {
+            if (fRemaining == 0) {
+                fKey = null;
+                return;
             }
+            fKey = SortKey.read(fInput);
+            fRemaining--;
         }
 
-        public BigDecimal getTs() {
-            return fTs;
+        @Override
+        public void close() throws IOException {
+            fInput.close();
+        }
+    }
+
+    /**
+     * Reader of the events of a chunk in the original trace. The events of a
+     * trace are mostly sorted, so the events of a chunk are read through a
+     * window that moves forward in the chunk. The events far from the window
+     * are read one by one.
+     */
+    private static final class EventCopier {
+        private final FileChannel fChannel;
+        private final ByteBuffer fWindow;
+        private long fWindowStart = 0;
+
+        public EventCopier(FileChannel channel, int windowSize) {
+            fChannel = channel;
+            fWindow = ByteBuffer.allocate(windowSize);
+            fWindow.limit(0);
+        }
+
+        public void copy(SortKey key, OutputStream output) throws IOException {
+            long offset = key.getOffset();
+            int length = key.getLength();
+            long windowEnd = fWindowStart + fWindow.limit();
+            if (offset >= fWindowStart && offset + length <= windowEnd) {
+                output.write(fWindow.array(), (int) (offset - fWindowStart), length);
+                return;
+            }
+            int windowSize = fWindow.capacity();
+            if (length > windowSize || offset < fWindowStart || offset > windowEnd + windowSize) {
+                ByteBuffer buffer = ByteBuffer.allocate(length);
+                readFully(buffer, offset);
+                output.write(buffer.array(), 0, length);
+                return;
+            }
+            fWindow.clear();
+            fWindowStart = offset;
+            long position = offset;
+            while (fWindow.hasRemaining() && fChannel.read(fWindow, position) >= 0) {
+                position = offset + fWindow.position();
+            }
+            fWindow.flip();
+            if (fWindow.limit() < length) {
+                throw new IOException("Unexpected end of file at " + offset); //$NON-NLS-1$
+            }
+            output.write(fWindow.array(), 0, length);
+        }
+
+        private void readFully(ByteBuffer buffer, long offset) throws IOException {
+            long position = offset;
+            while (buffer.hasRemaining()) {
+                int read = fChannel.read(buffer, position);
+                if (read < 0) {
+                    throw new IOException("Unexpected end of file at " + position); //$NON-NLS-1$
+                }
+                position += read;
+            }
         }
     }
 
@@ -146,136 +262,102 @@ public abstract class SortingJob extends Job {
         subMonitor.subTask(Messages.SortingJob_splitting);
         File tempDir = new File(dir + ".tmp"); //$NON-NLS-1$
         tempDir.mkdirs();
-        List<File> tracelings = new ArrayList<>();
-        try (BufferedInputStream parser = new BufferedInputStream(new FileInputStream(fPath))) {
-            int data = 0;
-            for (int nbBracket = 0; nbBracket < fBracketsToSkip; nbBracket++) {
-                data = parser.read();
-                while (data != '[') {
-                    data = parser.read();
-                    if (data == -1) {
-                        return new Status(IStatus.ERROR, Activator.PLUGIN_ID,
-                                "Missing symbol \'[\' or \']\' in " + fPath); //$NON-NLS-1$
+        List<File> chunkFiles = new ArrayList<>();
+        int nbWorkers = Math.max(1, Math.min(MAX_PENDING_CHUNKS, Runtime.getRuntime().availableProcessors() - 1));
+        ExecutorService workers = Executors.newFixedThreadPool(nbWorkers);
+        try {
+            long nbEvents;
+            long metadataPosition;
+            try (InputStream input = new FileInputStream(fPath)) {
+                PositionReader reader = new PositionReader(input);
+                for (int nbBracket = 0; nbBracket < fBracketsToSkip; nbBracket++) {
+                    int data = reader.read();
+                    while (data != OPEN_BRACKET) {
+                        data = reader.read();
+                        if (data == -1) {
+                            return new Status(IStatus.ERROR, Activator.PLUGIN_ID,
+                                    "Missing symbol \'[\' or \']\' in " + fPath); //$NON-NLS-1$
+                        }
                     }
                 }
-            }
-            List<PartiallyParsedEvent> events = new ArrayList<>(CHUNK_SIZE);
-            String eventString = JsonTrace.readNextEventString(parser::read);
-            if (eventString == null) {
-                return new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Empty event in " + fPath); //$NON-NLS-1$
-            }
-            PartiallyParsedEvent line = new PartiallyParsedEvent(fTsKey, eventString, 0);
-            line.fLine = data + '"' + line.fLine;
-            int cnt = 0;
-            int filen = 0;
-            while (eventString != null) {
-                while (cnt < CHUNK_SIZE) {
-                    events.add(line);
-                    subMonitor.worked(1);
-                    if (subMonitor.isCanceled()) {
-                        return Status.CANCEL_STATUS;
-                    }
-                    eventString = JsonTrace.readNextEventString(parser::read);
-                    if (eventString == null) {
-                        break;
-                    }
-                    line = new PartiallyParsedEvent(fTsKey, eventString, 0);
-                    cnt++;
-                }
-                events.sort(EVENT_COMPARATOR);
-                cnt = 0;
-                File traceling = new File(tempDir + File.separator + "test" + filen + ".json"); //$NON-NLS-1$ //$NON-NLS-2$
-                tracelings.add(traceling);
-                boolean success = traceling.createNewFile();
-                if (!success) {
-                    return new Status(IStatus.ERROR, Activator.PLUGIN_ID,
-                            "Could not create partial file " + traceling.getAbsolutePath()); //$NON-NLS-1$
+                String eventString = JsonTrace.readNextEventString(reader);
+                if (eventString == null) {
+                    return new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Empty event in " + fPath); //$NON-NLS-1$
                 }
-                try (PrintWriter fs = new PrintWriter(traceling)) {
-                    fs.println(OPEN_BRACKET);
-                    for (PartiallyParsedEvent sortedEvent : events) {
-                        fs.println(sortedEvent.fLine + ',');
+                /* Sort the chunks in the background while reading the next ones */
+                Semaphore pendingChunks = new Semaphore(MAX_PENDING_CHUNKS);
+                List<Future<?>> sortedChunks = new ArrayList<>();
+                nbEvents = 0;
+                while (eventString != null) {
+                    String[] events = new String[CHUNK_SIZE];
+                    long[] offsets = new long[CHUNK_SIZE];
+                    int count = 0;
+                    while (eventString != null && count < CHUNK_SIZE) {
+                        events[count] = eventString;
+                        /* The event string has one character per byte */
+                        offsets[count] = reader.getPosition() - eventString.length();
+                        count++;
+                        subMonitor.worked(1);
+                        if (subMonitor.isCanceled()) {
+                            return Status.CANCEL_STATUS;
+                        }
+                        eventString = JsonTrace.readNextEventString(reader);
                     }
-                    fs.println(CLOSE_BRACKET);
-                }
-                events.clear();
-                filen++;
-                subMonitor.worked(1);
-                if (subMonitor.isCanceled()) {
-                    return Status.CANCEL_STATUS;
+                    nbEvents += count;
+                    File chunkFile = new File(tempDir + File.separator + "chunk" + chunkFiles.size() + ".keys"); //$NON-NLS-1$ //$NON-NLS-2$
+                    chunkFiles.add(chunkFile);
+                    pendingChunks.acquire();
+                    int nbChunkEvents = count;
+                    sortedChunks.add(workers.submit(() -> {
+                        try {
+                            sortChunk(events, offsets, nbChunkEvents, chunkFile);
+                        } finally {
+                            pendingChunks.release();
+                        }
+                        return null;
+                    }));
                 }
-
-            }
-            subMonitor.subTask(Messages.SortingJob_merging);
-            PriorityQueue<PartiallyParsedEvent> evs = new PriorityQueue<>(EVENT_COMPARATOR);
-            List<BufferedInputStream> parsers = new ArrayList<>();
-            int i = 0;
-            for (File traceling : tracelings) {
-
-                /*
-                 * This resource is added to a priority queue and then removed at the very end.
-                 */
-                BufferedInputStream createParser = new BufferedInputStream(new FileInputStream(traceling));
-                while (data != '[') {
-                    data = createParser.read();
-                    if (data == -1) {
-                        break;
+                for (Future<?> sortedChunk : sortedChunks) {
+                    sortedChunk.get();
+                    subMonitor.worked(1);
+                    if (subMonitor.isCanceled()) {
+                        return Status.CANCEL_STATUS;
                     }
                 }
-                eventString = JsonTrace.readNextEventString(createParser::read);
-                PartiallyParsedEvent parse = new PartiallyParsedEvent(fTsKey, eventString, i);
-                evs.add(parse);
-                i++;
-                parsers.add(createParser);
-                subMonitor.worked(1);
-                if (subMonitor.isCanceled()) {
-                    break;
-                }
-            }
-            if (subMonitor.isCanceled()) {
-                return Status.CANCEL_STATUS;
+                metadataPosition = reader.getPosition();
             }
 
-            processMetadata(trace, dir, parser);
+            try (FileInputStream metadataInput = new FileInputStream(fPath)) {
+                metadataInput.getChannel().position(metadataPosition);
+                processMetadata(trace, dir, new BufferedInputStream(metadataInput));
+            }
 
+            subMonitor.subTask(Messages.SortingJob_merging);
             File file = new File(dir + File.separator + new File(trace.getPath()).getName());
             boolean success = file.createNewFile();
             if (!success) {
                 return new Status(IStatus.ERROR, Activator.PLUGIN_ID,
                         "Could not create file " + file.getAbsolutePath()); //$NON-NLS-1$
             }
-            try (PrintWriter tempWriter = new PrintWriter(file)) {
-                tempWriter.println('[');
-                while (!evs.isEmpty()) {
-                    PartiallyParsedEvent sortedEvent = evs.poll();
-                    if (sortedEvent == null) {
-                        break;
-                    }
-                    PartiallyParsedEvent parse = readNextEvent(parsers.get(sortedEvent.fPos), fTsKey, sortedEvent.fPos);
-                    if (parse != null) {
-                        tempWriter.println(sortedEvent.fLine.trim() + ',');
-                        evs.add(parse);
-                    } else {
-                        tempWriter.println(sortedEvent.fLine.trim() + (evs.isEmpty() ? "" : ',')); //$NON-NLS-1$
-                    }
-                    subMonitor.worked(1);
-                    if (subMonitor.isCanceled()) {
-                        return Status.CANCEL_STATUS;
-                    }
-                }
-                tempWriter.println(']');
-            }
-            for (BufferedInputStream tmpParser : parsers) {
-                tmpParser.close();
+            if (!merge(chunkFiles, nbEvents, file, subMonitor)) {
+                return Status.CANCEL_STATUS;
             }
         } catch (IOException e) {
-            TraceCompassLogUtils.traceInstant(LOGGER, Level.WARNING, "IOException in sorting job", "trace", fPath, //$NON-NLS-1$ //$NON-NLS-2$
-                    "exception", e); //$NON-NLS-1$
-            return new Status(IStatus.WARNING, Activator.PLUGIN_ID, "IOException in sorting job for " + fPath, e); //$NON-NLS-1$
+            return ioError(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                return ioError((IOException) cause);
+            }
+            return new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Error in sorting job for " + fPath, cause); //$NON-NLS-1$
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Status.CANCEL_STATUS;
         } finally {
+            workers.shutdownNow();
             try {
-                for (File tl : tracelings) {
-                    Files.delete(tl.toPath());
+                for (File chunkFile : chunkFiles) {
+                    Files.deleteIfExists(chunkFile.toPath());
                 }
                 Files.delete(tempDir.toPath());
             } catch (IOException e) {
@@ -288,6 +370,95 @@ public abstract class SortingJob extends Job {
 
     }
 
+    private IStatus ioError(IOException e) {
+        TraceCompassLogUtils.traceInstant(LOGGER, Level.WARNING, "IOException in sorting job", "trace", fPath, //$NON-NLS-1$ //$NON-NLS-2$
+                "exception", e); //$NON-NLS-1$
+        return new Status(IStatus.WARNING, Activator.PLUGIN_ID, "IOException in sorting job for " + fPath, e); //$NON-NLS-1$
+    }
+
+    /**
+     * Sort the events of a chunk and write their keys to a file
+     */
+    private void sortChunk(String[] events, long[] offsets, int count, File chunkFile) throws IOException {
+        SortKey[] keys = new SortKey[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = SortKey.create(fTsKey, events[i], offsets[i]);
+            /* Release the event, only its key is needed now */
+            events[i] = null;
+        }
+        Arrays.sort(keys, SortKey.COMPARATOR);
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(chunkFile), BUFFER_SIZE))) {
+            output.writeInt(count);
+            for (SortKey key : keys) {
+                key.write(output);
+            }
+        }
+    }
+
+    /**
+     * Merge the sorted chunks, copying the events from the original trace to
+     * the sorted trace
+     *
+     * @return false if the job was cancelled
+     */
+    private boolean merge(List<File> chunkFiles, long nbEvents, File file, IProgressMonitor subMonitor) throws IOException {
+        List<ChunkReader> chunks = new ArrayList<>();
+        int bufferSize = getMergeBufferSize(chunkFiles.size());
+        try (FileChannel source = FileChannel.open(new File(fPath).toPath(), StandardOpenOption.READ);
+                OutputStream output = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE)) {
+            PriorityQueue<ChunkReader> queue = new PriorityQueue<>(Math.max(1, chunkFiles.size()),
+                    (chunk1, chunk2) -> SortKey.COMPARATOR.compare(checkNotNull(chunk1.getKey()), checkNotNull(chunk2.getKey())));
+            for (File chunkFile : chunkFiles) {
+                ChunkReader chunk = new ChunkReader(chunkFile, source, bufferSize);
+                chunks.add(chunk);
+                if (chunk.getKey() != null) {
+                    queue.add(chunk);
+                }
+            }
+            output.write(OPEN_BRACKET);
+            output.write(LINE_SEPARATOR);
+            long written = 0;
+            while (!queue.isEmpty()) {
+                ChunkReader chunk = queue.poll();
+                SortKey key = chunk.getKey();
+                if (key == null) {
+                    continue;
+                }
+                chunk.getCopier().copy(key, output);
+                written++;
+                if (written < nbEvents) {
+                    output.write(',');
+                }
+                output.write(LINE_SEPARATOR);
+                chunk.next();
+                if (chunk.getKey() != null) {
+                    queue.add(chunk);
+                }
+                subMonitor.worked(1);
+                if (subMonitor.isCanceled()) {
+                    return false;
+                }
+            }
+            output.write(CLOSE_BRACKET);
+            output.write(LINE_SEPARATOR);
+        } finally {
+            for (ChunkReader chunk : chunks) {
+                chunk.close();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the size of the key buffer and of the read window of each chunk
+     * during the merge. The buffers shrink as the number of chunks grows, so
+     * that the merge of a big trace fits in a bounded amount of memory.
+     */
+    private static int getMergeBufferSize(int nbChunks) {
+        int bufferSize = MERGE_BUFFERS_BUDGET / Math.max(1, 2 * nbChunks);
+        return Math.max(MIN_MERGE_BUFFER_SIZE, Math.min(BUFFER_SIZE, bufferSize));
+    }
+
     /**
      * Process whatever metadata that can be found after the event list in the
      * trace file file
@@ -317,11 +488,4 @@ public abstract class SortingJob extends Job {
      *             Exceptions thrown by reading file
      */
     protected abstract void processMetadata(ITmfTrace trace, String dir) throws IOException;
-
-    private static @Nullable PartiallyParsedEvent readNextEvent(BufferedInputStream parser, String key, int i)
-            throws IOException {
-        String event = JsonTrace.readNextEventString(parser::read);
-        return event == null ? null : new PartiallyParsedEvent(key, event, i);
-
-    }
-}
\ No newline at end of file
+}
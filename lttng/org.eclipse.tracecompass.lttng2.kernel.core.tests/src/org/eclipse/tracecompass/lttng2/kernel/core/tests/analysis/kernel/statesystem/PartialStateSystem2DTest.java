@@ -450,6 +450,46 @@ public class PartialStateSystem2DTest {
         testContinuous(iterable, quarks, START_TIME, end, 11);
     }
 
+    /**
+     * Test the 2D queries on a partial history that is re-opened, with the
+     * checkpoints saved by the first analysis
+     *
+     * @throws StateSystemDisposedException
+     *             If the query is sent after the state system has been disposed
+     * @throws TimeRangeException
+     *             If the smallest time is before the state system start time.
+     * @throws IndexOutOfBoundsException
+     *             If the smallest attribute is <0 or if the largest is >= to
+     *             the number of attributes.
+     */
+    @Test
+    public void testReopened2DQuery() throws IndexOutOfBoundsException, TimeRangeException, StateSystemDisposedException {
+        fModule.dispose();
+        fModule = new TestLttngKernelAnalysisModule(TEST_FILE_NAME);
+        try {
+            assertTrue(fModule.setTrace(fTrace));
+        } catch (TmfAnalysisException e) {
+            fail();
+        }
+        fModule.schedule();
+        assertTrue(fModule.waitForCompletion());
+
+        ITmfStateSystemBuilder ss = (ITmfStateSystemBuilder) fModule.getStateSystem();
+        assertNotNull(ss);
+        long end = ss.getCurrentEndTime();
+        List<Integer> quarks = new ArrayList<>();
+        for (int i = 0; i < ss.getNbAttributes(); i++) {
+            quarks.add(i);
+        }
+        Iterable<ITmfStateInterval> iterable = ss.query2D(quarks, START_TIME, end);
+        testContinuous(iterable, quarks, START_TIME, end, 61);
+
+        /* The discrete query returns the intervals intersecting the times */
+        Collection<Long> times = StateSystemUtils.getTimes(START_TIME, end, 10L);
+        int expected = Iterables.size(Iterables.filter(iterable, interval -> times.stream().anyMatch(interval::intersects)));
+        testDiscrete(ss.query2D(quarks, times), quarks, times, expected);
+    }
+
     @NonNullByDefault
     private static class TestLttngKernelAnalysisModule extends KernelAnalysisModule {
         private final String htFileName;
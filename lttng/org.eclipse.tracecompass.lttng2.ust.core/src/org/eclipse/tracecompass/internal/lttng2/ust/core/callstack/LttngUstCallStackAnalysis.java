@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2016 Ericsson
+ * Copyright (c) 2014, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -60,6 +60,15 @@ public class LttngUstCallStackAnalysis extends CallStackAnalysis {
         return new LttngUstCallStackProvider(checkNotNull(getTrace()));
     }
 
+    /**
+     * The call stacks are kept in the state system, so the construction of the
+     * history can be resumed.
+     */
+    @Override
+    protected boolean isResumable() {
+        return true;
+    }
+
     @Override
     public @NonNull Iterable<@NonNull TmfAbstractAnalysisRequirement> getAnalysisRequirements() {
 
@@ -22,6 +22,8 @@ import org.junit.runners.Suite;
  */
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
+    org.eclipse.tracecompass.common.core.tests.perf.collect.BufferedBlockingQueueBenchmark.class,
+
     org.eclipse.tracecompass.ctf.core.tests.perf.trace.TraceReadBenchmark.class,
     org.eclipse.tracecompass.ctf.core.tests.perf.trace.TraceSeekBenchmark.class,
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 Ericsson
+ * Copyright (c) 2016, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -28,9 +28,11 @@ import org.eclipse.test.performance.PerformanceMeter;
 import org.eclipse.tracecompass.common.core.NonNullUtils;
 import org.eclipse.tracecompass.internal.segmentstore.core.arraylist.ArrayListStore;
 import org.eclipse.tracecompass.internal.segmentstore.core.arraylist.LazyArrayListStore;
+import org.eclipse.tracecompass.internal.segmentstore.core.columnar.ColumnarSegmentStore;
 import org.eclipse.tracecompass.internal.segmentstore.core.treemap.TreeMapStore;
 import org.eclipse.tracecompass.segmentstore.core.BasicSegment;
 import org.eclipse.tracecompass.segmentstore.core.ISegment;
+import org.eclipse.tracecompass.segmentstore.core.ISegmentColumnCodec;
 import org.eclipse.tracecompass.segmentstore.core.ISegmentStore;
 import org.eclipse.tracecompass.segmentstore.core.SegmentComparators;
 import org.eclipse.tracecompass.segmentstore.core.tests.historytree.HistoryTreeSegmentStoreStub;
@@ -60,6 +62,42 @@ public class SegmentStoreBenchmark {
     private static final int DEFAULT_SAMPLE = 1000;
     private static final int DEFAULT_LOOP_COUNT = 10;
 
+    /**
+     * Codec of the basic segments, which only have start and end times, for
+     * the columnar segment store
+     */
+    protected static final ISegmentColumnCodec<BasicSegment> BASIC_SEGMENT_CODEC = new ISegmentColumnCodec<BasicSegment>() {
+        @Override
+        public Class<BasicSegment> getSegmentClass() {
+            return BasicSegment.class;
+        }
+
+        @Override
+        public int getNbLongColumns() {
+            return 0;
+        }
+
+        @Override
+        public int getNbStringColumns() {
+            return 0;
+        }
+
+        @Override
+        public long getLong(BasicSegment segment, int column) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        @Override
+        public String getString(BasicSegment segment, int column) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        @Override
+        public BasicSegment create(long start, long end, long[] longs, String[] strings) {
+            return new BasicSegment(start, end);
+        }
+    };
+
     private final ISegmentStore<@NonNull BasicSegment> fSegStore;
     private final String fName;
     private final Performance fPerf;
@@ -75,6 +113,7 @@ public class SegmentStoreBenchmark {
                 { "Array list store", new ArrayListStore<>() },
                 { "Lazy array list store", new LazyArrayListStore<>() },
                 { "Treemap store", new TreeMapStore<>() },
+                { "Columnar store", new ColumnarSegmentStore<>(BASIC_SEGMENT_CODEC) },
                 { "HT store", new HistoryTreeSegmentStoreStub<>(NonNullUtils.checkNotNull(Files.createTempFile("tmpSegStore", null)), 0, BasicSegment.BASIC_SEGMENT_READ_FACTORY) },
         });
     }
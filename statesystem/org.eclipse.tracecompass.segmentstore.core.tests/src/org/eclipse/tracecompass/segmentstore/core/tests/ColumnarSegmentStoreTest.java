@@ -0,0 +1,253 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.segmentstore.core.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.internal.segmentstore.core.columnar.ColumnarSegmentStore;
+import org.eclipse.tracecompass.segmentstore.core.ISegment;
+import org.eclipse.tracecompass.segmentstore.core.ISegmentColumnCodec;
+import org.eclipse.tracecompass.segmentstore.core.ISegmentStore;
+import org.eclipse.tracecompass.segmentstore.core.SegmentComparators;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+/**
+ * Unit tests for intersecting elements in a ColumnarSegmentStore
+ */
+public class ColumnarSegmentStoreTest extends AbstractTestSegmentStore {
+
+    /**
+     * Codec of the test segments, with the payload in a string column
+     */
+    private static final ISegmentColumnCodec<@NonNull TestSegment> CODEC = new ISegmentColumnCodec<@NonNull TestSegment>() {
+        @Override
+        public Class<TestSegment> getSegmentClass() {
+            return TestSegment.class;
+        }
+
+        @Override
+        public int getNbLongColumns() {
+            return 0;
+        }
+
+        @Override
+        public int getNbStringColumns() {
+            return 1;
+        }
+
+        @Override
+        public long getLong(@NonNull TestSegment segment, int column) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        @Override
+        public @NonNull String getString(@NonNull TestSegment segment, int column) {
+            return segment.getPayload();
+        }
+
+        @Override
+        public @NonNull TestSegment create(long start, long end, long @NonNull [] longs, @NonNull String @NonNull [] strings) {
+            return new TestSegment(start, end, strings[0]);
+        }
+    };
+
+    @Override
+    protected ISegmentStore<@NonNull TestSegment> getSegmentStore() {
+        return new ColumnarSegmentStore<>(CODEC);
+    }
+
+    @Override
+    protected ISegmentStore<@NonNull TestSegment> getSegmentStore(@NonNull TestSegment @NonNull [] data) {
+        ISegmentStore<@NonNull TestSegment> store = new ColumnarSegmentStore<>(CODEC);
+        store.addAll(Arrays.asList(data));
+        return store;
+    }
+
+    /**
+     * Overrides the assert equals to compare 2 segments. The columnar segments
+     * are created back from the columns, they are not the original segments.
+     *
+     * @param expected
+     *            The expected segment
+     * @param actual
+     *            The actual segment
+     */
+    @Override
+    protected void assertSegmentsEqual(@Nullable ISegment expected, @Nullable ISegment actual) {
+        assertNotNull(expected);
+        assertNotNull(actual);
+        assertEquals(expected.getStart(), actual.getStart());
+        assertEquals(expected.getEnd(), actual.getEnd());
+        assertEquals(((TestSegment) expected).getPayload(), ((TestSegment) actual).getPayload());
+    }
+
+    private void assertSegmentsEqual(List<@NonNull TestSegment> expected, Iterator<@NonNull TestSegment> actual) {
+        List<@NonNull TestSegment> actualList = Lists.newArrayList(actual);
+        assertEquals(expected.size(), actualList.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSegmentsEqual(expected.get(i), actualList.get(i));
+        }
+    }
+
+    /**
+     * Test iterating over a store being built. The segments are compared by
+     * value since they are not the original segments.
+     */
+    @Override
+    @Test
+    public void testIterator() {
+        TestSegment segment26 = SEGMENTS.get(0);
+        TestSegment segment48 = SEGMENTS.get(2);
+        TestSegment segment68 = SEGMENTS.get(3);
+        ISegmentStore<@NonNull TestSegment> store = getSegmentStore();
+
+        store.add(segment26);
+        assertSegmentsEqual(ImmutableList.of(segment26), store.iterator());
+
+        store.add(segment48);
+        assertSegmentsEqual(ImmutableList.of(segment26, segment48), store.iterator());
+
+        Iterator<@NonNull TestSegment> iter = store.iterator();
+        store.add(segment68);
+        Iterator<@NonNull TestSegment> iter2 = store.iterator();
+        assertSegmentsEqual(ImmutableList.of(segment26, segment48), iter);
+        assertSegmentsEqual(ImmutableList.of(segment26, segment48, segment68), iter2);
+    }
+
+    /**
+     * Test the toArray() method, the segments are compared by value since
+     * they are not the original segments
+     */
+    @Override
+    @Test
+    public void testToObjectArray() {
+        Object[] array = fSegmentStore.toArray();
+        assertEquals(SEGMENTS.size(), array.length);
+        for (int i = 0; i < array.length; i++) {
+            assertSegmentsEqual(SEGMENTS.get(i), (ISegment) array[i]);
+        }
+    }
+
+    /**
+     * Test the toArray(T[]) method, the segments are compared by value since
+     * they are not the original segments
+     */
+    @Override
+    @Test
+    public void testToSpecificArray() {
+        ISegment[] array = fSegmentStore.toArray(new ISegment[0]);
+        assertEquals(SEGMENTS.size(), array.length);
+        for (int i = 0; i < array.length; i++) {
+            assertSegmentsEqual(SEGMENTS.get(i), array[i]);
+        }
+    }
+
+    /**
+     * Test the toArray(T[]) method with a subtype of ISegment, the segments
+     * are compared by value since they are not the original segments
+     */
+    @Override
+    @Test
+    public void testToSpecifyArraySubtype() {
+        ISegmentStore<@NonNull TestSegment> store = getSegmentStore();
+        TestSegment otherSegment = new TestSegment(2, 6, "test");
+        store.add(otherSegment);
+        TestSegment[] array = store.toArray(new TestSegment[0]);
+        assertEquals(1, array.length);
+        assertSegmentsEqual(otherSegment, array[0]);
+        store.dispose();
+    }
+
+    /**
+     * Test that segments with the same times are returned in insertion order
+     */
+    @Test
+    public void testSameTimesOrder() {
+        ISegmentStore<@NonNull TestSegment> store = getSegmentStore();
+        List<@NonNull TestSegment> expected = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            expected.add(new TestSegment(10, 20, "payload" + i));
+        }
+        store.add(new TestSegment(30, 40, "last"));
+        store.addAll(expected);
+        store.add(new TestSegment(0, 5, "first"));
+
+        expected.add(0, new TestSegment(0, 5, "first"));
+        expected.add(new TestSegment(30, 40, "last"));
+        assertSegmentsEqual(expected, store.iterator());
+        store.dispose();
+    }
+
+    /**
+     * Test the intersecting elements of a store bigger than a block of the
+     * interval index against the segments filtered one by one, with segments
+     * added in order and out of order
+     */
+    @Test
+    public void testIntersectingElementsIndex() {
+        Random random = new Random(42);
+        ISegmentStore<@NonNull TestSegment> store = getSegmentStore();
+        List<@NonNull TestSegment> segments = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            long start = i * 10L;
+            /* Mostly short segments, with a few very long ones */
+            long length = (i % 500 == 0) ? 20000 : random.nextInt(50);
+            TestSegment segment = new TestSegment(start, start + length, "payload" + (i % 7));
+            segments.add(segment);
+            store.add(segment);
+        }
+        checkIntersectingElements(store, segments, random);
+
+        /* Shuffle the segments, the store is sorted again */
+        for (int i = 0; i < 500; i++) {
+            long start = random.nextInt(50000);
+            TestSegment segment = new TestSegment(start, start + random.nextInt(100), "other");
+            segments.add(segment);
+            store.add(segment);
+        }
+        checkIntersectingElements(store, segments, random);
+        store.dispose();
+    }
+
+    private static void checkIntersectingElements(ISegmentStore<@NonNull TestSegment> store, List<@NonNull TestSegment> segments, Random random) {
+        assertEquals(segments.size(), store.size());
+        for (int i = 0; i < 200; i++) {
+            long start = random.nextInt(52000);
+            long end = start + random.nextInt(1000);
+            long expected = segments.stream().filter(s -> s.getStart() <= end && s.getEnd() >= start).count();
+            long count = 0;
+            ISegment previous = null;
+            for (TestSegment segment : store.getIntersectingElements(start, end)) {
+                assertTrue(segment.getStart() <= end && segment.getEnd() >= start);
+                if (previous != null) {
+                    assertTrue(SegmentComparators.INTERVAL_START_COMPARATOR.compare(previous, segment) <= 0);
+                }
+                previous = segment;
+                count++;
+            }
+            assertEquals(expected, count);
+        }
+    }
+}
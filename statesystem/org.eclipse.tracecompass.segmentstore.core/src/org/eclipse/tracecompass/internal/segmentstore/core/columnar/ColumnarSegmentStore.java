@@ -0,0 +1,718 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.internal.segmentstore.core.columnar;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.segmentstore.core.ISegment;
+import org.eclipse.tracecompass.segmentstore.core.ISegmentColumnCodec;
+import org.eclipse.tracecompass.segmentstore.core.ISegmentStore;
+
+/**
+ * Implementation of an {@link ISegmentStore} holding the segments in columns
+ * of primitive arrays instead of one object per segment. The start and end
+ * times and the long columns of the {@link ISegmentColumnCodec} are held in
+ * <code>long</code> arrays, the string columns are dictionary encoded in
+ * <code>int</code> arrays. The segments are created back by the codec only
+ * when the store is iterated, so the iterated segments are equal to, but not
+ * the same objects as, the segments that were added.
+ *
+ * The ColumnarSegmentStore is {@link Iterable}, and its iteration order will be
+ * by ascending order of start times, then of end times. Segments with identical
+ * start and end times are in insertion order. Like the
+ * {@link org.eclipse.tracecompass.internal.segmentstore.core.arraylist.LazyArrayListStore},
+ * the columns are sorted in a lazy way: if segments are inserted out of order,
+ * the next read sorts them.
+ *
+ * The intersecting elements are found with an index of the maximum end time of
+ * the blocks of consecutive rows, so blocks that end before the queried range
+ * are skipped.
+ *
+ * Removal operations are not supported.
+ *
+ * @param <E>
+ *            The type of segment held in this store
+ */
+public class ColumnarSegmentStore<@NonNull E extends ISegment> implements ISegmentStore<E> {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Number of rows covered by a node of the first level of the index, and
+     * number of nodes covered by a node of the next levels
+     */
+    private static final int FAN_OUT = 64;
+
+    /** Size under which the rows are sorted by insertion */
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private final ISegmentColumnCodec<E> fCodec;
+    private final int fNbLongs;
+    private final int fNbStrings;
+    private final Dictionary[] fDictionaries;
+
+    private final ReentrantLock fLock = new ReentrantLock(false);
+
+    private Columns fColumns;
+    private int fSize = 0;
+
+    /**
+     * Levels of the index, each node holds the maximum end time of the rows it
+     * covers. The last level has a single node.
+     */
+    private long[][] fIndex = new long[0][];
+    private boolean fIndexValid = false;
+
+    private volatile boolean fDirty = false;
+    private volatile long fStart = Long.MAX_VALUE;
+    private volatile long fEnd = Long.MIN_VALUE;
+
+    /**
+     * Constructor
+     *
+     * @param codec
+     *            The codec splitting the segments in columns
+     */
+    public ColumnarSegmentStore(ISegmentColumnCodec<E> codec) {
+        fCodec = codec;
+        fNbLongs = codec.getNbLongColumns();
+        fNbStrings = codec.getNbStringColumns();
+        fDictionaries = new Dictionary[fNbStrings];
+        for (int i = 0; i < fNbStrings; i++) {
+            fDictionaries[i] = new Dictionary();
+        }
+        fColumns = new Columns(INITIAL_CAPACITY, fNbLongs, fNbStrings);
+    }
+
+    // ------------------------------------------------------------------------
+    // Methods from Collection
+    // ------------------------------------------------------------------------
+
+    @Override
+    public Iterator<E> iterator() {
+        fLock.lock();
+        try {
+            if (fDirty) {
+                sortStore();
+            }
+            return new Segments(null, fSize).iterator();
+        } finally {
+            fLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean add(@Nullable E val) {
+        if (val == null) {
+            throw new IllegalArgumentException("Cannot add null value"); //$NON-NLS-1$
+        }
+
+        fLock.lock();
+        try {
+            int row = fSize;
+            Columns columns = fColumns;
+            if (row == columns.capacity()) {
+                /*
+                 * Copy the columns instead of growing them in place, the
+                 * segments being iterated are read from the previous ones
+                 */
+                columns = columns.copyOf(Math.max(row + (row >> 1), row + 1));
+                fColumns = columns;
+                fIndexValid = false;
+            }
+            long start = val.getStart();
+            long end = val.getEnd();
+            if (row > 0 && !fDirty && compare(columns.fStarts[row - 1], columns.fEnds[row - 1], start, end) > 0) {
+                fDirty = true;
+            }
+            columns.fStarts[row] = start;
+            columns.fEnds[row] = end;
+            for (int i = 0; i < fNbLongs; i++) {
+                columns.fLongs[i][row] = fCodec.getLong(val, i);
+            }
+            for (int i = 0; i < fNbStrings; i++) {
+                columns.fStrings[i][row] = fDictionaries[i].encode(fCodec.getString(val, i));
+            }
+            fSize = row + 1;
+            if (fDirty) {
+                fIndexValid = false;
+            } else if (fIndexValid) {
+                updateIndex(row, end);
+            }
+            fStart = Math.min(fStart, start);
+            fEnd = Math.max(fEnd, end);
+            return true;
+        } finally {
+            fLock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        fLock.lock();
+        try {
+            return fSize;
+        } finally {
+            fLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean contains(@Nullable Object o) {
+        if (!fCodec.getSegmentClass().isInstance(o)) {
+            return false;
+        }
+        /* Safe, the class of the segments of the codec is a subtype of E */
+        @SuppressWarnings("unchecked")
+        E segment = (E) o;
+        fLock.lock();
+        try {
+            if (fDirty) {
+                sortStore();
+            }
+            /* Encode the segment, it is not in the store if a string is unknown */
+            long[] longs = new long[fNbLongs];
+            for (int i = 0; i < fNbLongs; i++) {
+                longs[i] = fCodec.getLong(segment, i);
+            }
+            int[] ids = new int[fNbStrings];
+            for (int i = 0; i < fNbStrings; i++) {
+                ids[i] = fDictionaries[i].lookup(fCodec.getString(segment, i));
+                if (ids[i] < 0) {
+                    return false;
+                }
+            }
+
+            Columns columns = fColumns;
+            long start = segment.getStart();
+            long end = segment.getEnd();
+            for (int row = lowerBound(columns.fStarts, fSize, start); row < fSize && columns.fStarts[row] == start; row++) {
+                if (columns.fEnds[row] == end && columns.matches(row, longs, ids)) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            fLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean containsAll(@Nullable Collection<?> c) {
+        if (c == null) {
+            return false;
+        }
+        fLock.lock();
+        try {
+            for (Object o : c) {
+                if (!contains(o)) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            fLock.unlock();
+        }
+    }
+
+    @Override
+    public Object[] toArray() {
+        return toList().toArray();
+    }
+
+    @Override
+    public <T> T[] toArray(T[] a) {
+        return toList().toArray(a);
+    }
+
+    private ArrayList<E> toList() {
+        fLock.lock();
+        try {
+            if (fDirty) {
+                sortStore();
+            }
+            return new ArrayList<>(new Segments(null, fSize));
+        } finally {
+            fLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean addAll(@Nullable Collection<? extends E> c) {
+        if (c == null) {
+            throw new IllegalArgumentException();
+        }
+
+        fLock.lock();
+        try {
+            c.forEach(this::add);
+            return true;
+        } finally {
+            fLock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        fLock.lock();
+        try {
+            fColumns = new Columns(INITIAL_CAPACITY, fNbLongs, fNbStrings);
+            for (int i = 0; i < fNbStrings; i++) {
+                fDictionaries[i] = new Dictionary();
+            }
+            fSize = 0;
+            fIndex = new long[0][];
+            fIndexValid = false;
+            fDirty = false;
+            fStart = Long.MAX_VALUE;
+            fEnd = Long.MIN_VALUE;
+        } finally {
+            fLock.unlock();
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Methods added by ISegmentStore
+    // ------------------------------------------------------------------------
+
+    @Override
+    public Iterable<E> getIntersectingElements(long start, long end) {
+        fLock.lock();
+        try {
+            if (fDirty) {
+                sortStore();
+            }
+            if (fSize == 0) {
+                return Collections.emptyList();
+            }
+            if (start <= fStart && end >= fEnd) {
+                return new Segments(null, fSize);
+            }
+            if (!fIndexValid) {
+                buildIndex();
+            }
+            /* The segments starting after the range are not intersecting */
+            int limit = upperBound(fColumns.fStarts, fSize, end);
+            if (limit == 0) {
+                return Collections.emptyList();
+            }
+            RowList rows = new RowList();
+            int top = fIndex.length - 1;
+            collect(top, 0, pow(FAN_OUT, top + 1), start, limit, rows);
+            if (rows.fCount == 0) {
+                return Collections.emptyList();
+            }
+            return new Segments(rows.fRows, rows.fCount);
+        } finally {
+            fLock.unlock();
+        }
+    }
+
+    @Override
+    public void dispose() {
+        clear();
+    }
+
+    // ------------------------------------------------------------------------
+    // Sort and index, DO NOT CALL FROM OUTSIDE OF A LOCK!
+    // ------------------------------------------------------------------------
+
+    /**
+     * Sort the rows by start time, then end time. The sorted columns are new
+     * arrays, so the segments being iterated are not affected.
+     */
+    private void sortStore() {
+        Columns columns = fColumns;
+        int size = fSize;
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        mergeSort(order, new int[size], 0, size, columns.fStarts, columns.fEnds);
+        fColumns = columns.permute(order);
+        fIndexValid = false;
+        fDirty = false;
+    }
+
+    /**
+     * Stable merge sort of row numbers, so rows with the same times stay in
+     * insertion order
+     */
+    private static void mergeSort(int[] rows, int[] tmp, int from, int to, long[] starts, long[] ends) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            for (int i = from + 1; i < to; i++) {
+                int row = rows[i];
+                int j = i - 1;
+                while (j >= from && compare(starts[rows[j]], ends[rows[j]], starts[row], ends[row]) > 0) {
+                    rows[j + 1] = rows[j];
+                    j--;
+                }
+                rows[j + 1] = row;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(rows, tmp, from, mid, starts, ends);
+        mergeSort(rows, tmp, mid, to, starts, ends);
+        if (compare(starts[rows[mid - 1]], ends[rows[mid - 1]], starts[rows[mid]], ends[rows[mid]]) <= 0) {
+            /* Already in order */
+            return;
+        }
+        System.arraycopy(rows, from, tmp, from, to - from);
+        int i = from;
+        int j = mid;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < mid && compare(starts[tmp[i]], ends[tmp[i]], starts[tmp[j]], ends[tmp[j]]) <= 0)) {
+                rows[k] = tmp[i++];
+            } else {
+                rows[k] = tmp[j++];
+            }
+        }
+    }
+
+    private static int compare(long start1, long end1, long start2, long end2) {
+        int cmp = Long.compare(start1, start2);
+        return (cmp != 0) ? cmp : Long.compare(end1, end2);
+    }
+
+    /**
+     * Build the index for the capacity of the columns, so the rows appended in
+     * order until the columns grow can update it
+     */
+    private void buildIndex() {
+        int nbLevels = 0;
+        long length = fColumns.capacity();
+        do {
+            length = (length + FAN_OUT - 1) / FAN_OUT;
+            nbLevels++;
+        } while (length > 1);
+
+        long[][] index = new long[nbLevels][];
+        length = fColumns.capacity();
+        for (int level = 0; level < nbLevels; level++) {
+            length = (length + FAN_OUT - 1) / FAN_OUT;
+            index[level] = new long[(int) length];
+            Arrays.fill(index[level], Long.MIN_VALUE);
+        }
+        fIndex = index;
+
+        long[] ends = fColumns.fEnds;
+        long[] firstLevel = index[0];
+        for (int row = 0; row < fSize; row++) {
+            int node = row / FAN_OUT;
+            firstLevel[node] = Math.max(firstLevel[node], ends[row]);
+        }
+        for (int level = 1; level < nbLevels; level++) {
+            long[] children = index[level - 1];
+            long[] nodes = index[level];
+            for (int child = 0; child < children.length; child++) {
+                int node = child / FAN_OUT;
+                nodes[node] = Math.max(nodes[node], children[child]);
+            }
+        }
+        fIndexValid = true;
+    }
+
+    private void updateIndex(int row, long end) {
+        int node = row;
+        for (long[] level : fIndex) {
+            node /= FAN_OUT;
+            if (level[node] >= end) {
+                /* The nodes above already cover this end time */
+                return;
+            }
+            level[node] = end;
+        }
+    }
+
+    /**
+     * Collect the rows before the limit that end at or after the start time,
+     * under a node of the index
+     *
+     * @param level
+     *            The level of the node
+     * @param node
+     *            The node
+     * @param span
+     *            The number of rows covered by a node of this level
+     * @param start
+     *            The start of the range
+     * @param limit
+     *            The first row starting after the range
+     * @param rows
+     *            The rows collected
+     */
+    private void collect(int level, int node, long span, long start, int limit, RowList rows) {
+        if (fIndex[level][node] < start || (long) node * span >= limit) {
+            return;
+        }
+        if (level == 0) {
+            long[] ends = fColumns.fEnds;
+            int last = (int) Math.min((long) (node + 1) * FAN_OUT, limit);
+            for (int row = node * FAN_OUT; row < last; row++) {
+                if (ends[row] >= start) {
+                    rows.add(row);
+                }
+            }
+            return;
+        }
+        int nbChildren = fIndex[level - 1].length;
+        int last = (int) Math.min((long) (node + 1) * FAN_OUT, nbChildren);
+        for (int child = node * FAN_OUT; child < last; child++) {
+            collect(level - 1, child, span / FAN_OUT, start, limit, rows);
+        }
+    }
+
+    private static long pow(int base, int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= base;
+        }
+        return result;
+    }
+
+    /**
+     * Get the first row starting at or after a time
+     */
+    private static int lowerBound(long[] starts, int size, long time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Get the first row starting after a time
+     */
+    private static int upperBound(long[] starts, int size, long time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // ------------------------------------------------------------------------
+    // Helper classes
+    // ------------------------------------------------------------------------
+
+    /**
+     * The columns of the rows, with room for more rows
+     */
+    private static final class Columns {
+        private final long[] fStarts;
+        private final long[] fEnds;
+        private final long[][] fLongs;
+        private final int[][] fStrings;
+
+        public Columns(int capacity, int nbLongs, int nbStrings) {
+            this(new long[capacity], new long[capacity], new long[nbLongs][capacity], new int[nbStrings][capacity]);
+        }
+
+        private Columns(long[] starts, long[] ends, long[][] longs, int[][] strings) {
+            fStarts = starts;
+            fEnds = ends;
+            fLongs = longs;
+            fStrings = strings;
+        }
+
+        public int capacity() {
+            return fStarts.length;
+        }
+
+        public Columns copyOf(int capacity) {
+            long[][] longs = new long[fLongs.length][];
+            for (int i = 0; i < longs.length; i++) {
+                longs[i] = Arrays.copyOf(fLongs[i], capacity);
+            }
+            int[][] strings = new int[fStrings.length][];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = Arrays.copyOf(fStrings[i], capacity);
+            }
+            return new Columns(Arrays.copyOf(fStarts, capacity), Arrays.copyOf(fEnds, capacity), longs, strings);
+        }
+
+        public Columns permute(int[] order) {
+            Columns columns = new Columns(capacity(), fLongs.length, fStrings.length);
+            for (int i = 0; i < order.length; i++) {
+                int row = order[i];
+                columns.fStarts[i] = fStarts[row];
+                columns.fEnds[i] = fEnds[row];
+                for (int j = 0; j < fLongs.length; j++) {
+                    columns.fLongs[j][i] = fLongs[j][row];
+                }
+                for (int j = 0; j < fStrings.length; j++) {
+                    columns.fStrings[j][i] = fStrings[j][row];
+                }
+            }
+            return columns;
+        }
+
+        public boolean matches(int row, long[] longs, int[] ids) {
+            for (int i = 0; i < longs.length; i++) {
+                if (fLongs[i][row] != longs[i]) {
+                    return false;
+                }
+            }
+            for (int i = 0; i < ids.length; i++) {
+                if (fStrings[i][row] != ids[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Dictionary of the values of a string column. The values are only
+     * appended, so the array of values read by an iterator stays valid.
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> fIds = new HashMap<>();
+        private @Nullable String[] fValues = new String[16];
+
+        public int encode(String value) {
+            Integer id = fIds.get(value);
+            if (id == null) {
+                id = fIds.size();
+                if (id == fValues.length) {
+                    fValues = Arrays.copyOf(fValues, id * 2);
+                }
+                fValues[id] = value;
+                fIds.put(value, id);
+            }
+            return id;
+        }
+
+        public int lookup(String value) {
+            Integer id = fIds.get(value);
+            return (id == null) ? -1 : id;
+        }
+
+        public @Nullable String[] getValues() {
+            return fValues;
+        }
+    }
+
+    /**
+     * Growable list of row numbers
+     */
+    private static final class RowList {
+        private int[] fRows = new int[16];
+        private int fCount = 0;
+
+        public void add(int row) {
+            if (fCount == fRows.length) {
+                fRows = Arrays.copyOf(fRows, fCount * 2);
+            }
+            fRows[fCount++] = row;
+        }
+    }
+
+    /**
+     * Snapshot of rows of the store, creating the segments when iterated
+     */
+    private final class Segments extends AbstractCollection<E> {
+        private final Columns fSnapshot;
+        private final @Nullable String[][] fValues;
+        private final int @Nullable [] fRows;
+        private final int fCount;
+
+        /**
+         * Constructor, to call from inside the lock
+         *
+         * @param rows
+         *            The row numbers, or null for the first rows
+         * @param count
+         *            The number of rows
+         */
+        public Segments(int @Nullable [] rows, int count) {
+            fSnapshot = fColumns;
+            fValues = new String[fNbStrings][];
+            for (int i = 0; i < fNbStrings; i++) {
+                fValues[i] = fDictionaries[i].getValues();
+            }
+            fRows = rows;
+            fCount = count;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new Iterator<E>() {
+                private int fNext = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return fNext < fCount;
+                }
+
+                @Override
+                public E next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    int[] rows = fRows;
+                    int row = (rows == null) ? fNext : rows[fNext];
+                    fNext++;
+                    return get(row);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return fCount;
+        }
+
+        private E get(int row) {
+            Columns columns = fSnapshot;
+            long[] longs = new long[fNbLongs];
+            for (int i = 0; i < fNbLongs; i++) {
+                longs[i] = columns.fLongs[i][row];
+            }
+            String[] strings = new String[fNbStrings];
+            for (int i = 0; i < fNbStrings; i++) {
+                strings[i] = fValues[i][columns.fStrings[i][row]];
+            }
+            return fCodec.create(columns.fStarts[row], columns.fEnds[row], longs, strings);
+        }
+    }
+}
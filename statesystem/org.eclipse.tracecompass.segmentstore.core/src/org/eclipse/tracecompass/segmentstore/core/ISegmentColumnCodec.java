@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.segmentstore.core;
+
+/**
+ * Codec splitting segments in columns, for the segment stores of type
+ * {@link SegmentStoreFactory.SegmentStoreType#Columnar}. Besides the start and
+ * end times, a segment is described by a fixed number of long columns and a
+ * fixed number of string columns. The string columns are dictionary encoded by
+ * the store, so they should have few distinct values, like names or thread
+ * IDs.
+ *
+ * The segments are created back from the columns when the store is read, so
+ * the segment created from the columns of a segment should be equivalent to
+ * that segment.
+ *
+ * @param <E>
+ *            The type of segment
+ * @since 3.1
+ */
+public interface ISegmentColumnCodec<E extends ISegment> {
+
+    /**
+     * Get the type of the segments, used to know if an object can be in the
+     * store
+     *
+     * @return The class of the segments
+     */
+    Class<? extends E> getSegmentClass();
+
+    /**
+     * Get the number of long columns, besides the start and end times
+     *
+     * @return The number of long columns
+     */
+    int getNbLongColumns();
+
+    /**
+     * Get the number of string columns
+     *
+     * @return The number of string columns
+     */
+    int getNbStringColumns();
+
+    /**
+     * Get the value of a long column of a segment
+     *
+     * @param segment
+     *            The segment
+     * @param column
+     *            The index of the column
+     * @return The value of the column
+     */
+    long getLong(E segment, int column);
+
+    /**
+     * Get the value of a string column of a segment
+     *
+     * @param segment
+     *            The segment
+     * @param column
+     *            The index of the column
+     * @return The value of the column
+     */
+    String getString(E segment, int column);
+
+    /**
+     * Create a segment from the values of its columns. The arrays are not
+     * reused by the store.
+     *
+     * @param start
+     *            The start time of the segment
+     * @param end
+     *            The end time of the segment
+     * @param longs
+     *            The values of the long columns
+     * @param strings
+     *            The values of the string columns
+     * @return The segment
+     */
+    E create(long start, long end, long[] longs, String[] strings);
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 Polytechnique
+ * Copyright (c) 2016, 2026 Polytechnique
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -24,6 +24,7 @@ import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.datastore.core.interval.IHTIntervalReader;
 import org.eclipse.tracecompass.internal.segmentstore.core.arraylist.ArrayListStore;
 import org.eclipse.tracecompass.internal.segmentstore.core.arraylist.LazyArrayListStore;
+import org.eclipse.tracecompass.internal.segmentstore.core.columnar.ColumnarSegmentStore;
 import org.eclipse.tracecompass.internal.segmentstore.core.segmentHistoryTree.HistoryTreeSegmentStore;
 import org.eclipse.tracecompass.internal.segmentstore.core.treemap.TreeMapStore;
 
@@ -69,7 +70,19 @@ public final class SegmentStoreFactory<E> {
          *
          * @since 2.0
          */
-        OnDisk
+        OnDisk,
+        /**
+         * Segment store holding the segments in columns of primitive arrays
+         * instead of one object per segment, ideal for stores with too many
+         * segments to hold them as objects in memory. The segments are created
+         * back when the store is read. These kind of stores should be created
+         * using the
+         * {@link SegmentStoreFactory#createColumnarSegmentStore(ISegmentColumnCodec)}
+         * factory method
+         *
+         * @since 3.1
+         */
+        Columnar
     }
 
     private SegmentStoreFactory() {
@@ -148,6 +161,21 @@ public final class SegmentStoreFactory<E> {
         return new HistoryTreeSegmentStore<>(segmentFile, segmentReader, version);
     }
 
+    /**
+     * SegmentStore factory method that creates a segment store holding the
+     * segments in columns
+     *
+     * @param codec
+     *            The codec splitting the segments in columns and creating them
+     *            back
+     *
+     * @return an {@link ISegmentStore}
+     * @since 3.1
+     */
+    public static <E extends ISegment> ISegmentStore<E> createColumnarSegmentStore(ISegmentColumnCodec<E> codec) {
+        return new ColumnarSegmentStore<>(codec);
+    }
+
     private static Set<@NonNull SegmentStoreType> getListOfFlags(SegmentStoreType... segmentTypes) {
         Set<@NonNull SegmentStoreType> segments = new HashSet<>();
         for(@Nullable SegmentStoreType segmentType : segmentTypes ) {
@@ -29,7 +29,9 @@ import org.eclipse.test.performance.Dimension;
 import org.eclipse.test.performance.Performance;
 import org.eclipse.test.performance.PerformanceMeter;
 import org.eclipse.tracecompass.common.core.NonNullUtils;
+import org.eclipse.tracecompass.internal.statesystem.core.backend.historytree.HT_IO;
 import org.eclipse.tracecompass.internal.statesystem.core.backend.historytree.HistoryTreeBackend;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
 import org.eclipse.tracecompass.statesystem.core.ITmfStateSystemBuilder;
 import org.eclipse.tracecompass.statesystem.core.StateSystemFactory;
 import org.eclipse.tracecompass.statesystem.core.StateSystemUtils;
@@ -62,6 +64,10 @@ public class HistoryTreeBackendBenchmark {
     private static final @NonNull String TEST_QUERY_RANGE_ID = "Query History Range: ";
     private static final @NonNull String TEST_2D_QUERY_ID = "2D Queries: ";
     private static final @NonNull String TEST_REVERSE_2D_QUERY_ID = "Reverse 2D Queries: ";
+    private static final @NonNull String TEST_COLD_2D_QUERY_ID = "Reopened 2D Queries, cold: ";
+    private static final @NonNull String TEST_WARM_2D_QUERY_ID = "Reopened 2D Queries, warm: ";
+    private static final @NonNull String CHANNEL_READS = "channel reads, ";
+    private static final @NonNull String MAPPED_READS = "mapped reads, ";
     private static final @NonNull String ROOT_NODE = "root";
     private static final int QUEUE_SIZE = 10000;
     private static final long SEED = 5575784704147L;
@@ -285,35 +291,10 @@ public class HistoryTreeBackendBenchmark {
                 createFile();
                 IStateHistoryBackend backend = StateHistoryBackendFactory.createHistoryTreeBackendNewFile(TEST_BUILDING_ID, NonNullUtils.checkNotNull(fTempFile), 1, 1, QUEUE_SIZE);
                 ITmfStateSystemBuilder ss = StateSystemFactory.newStateSystem(backend);
-
-                /* Initialize the attributes */
-                Queue<QuarkEvent> quarkEvents = new PriorityQueue<>(fNbAttrib);
                 Random randomGenerator = new Random(SEED);
-                int rootQuark = ss.getQuarkAbsoluteAndAdd(ROOT_NODE);
-
-                /* Create all attributes before testing */
-                for (int j = 0; j < fNbAttrib; j++) {
-                    int quark = ss.getQuarkRelativeAndAdd(rootQuark, String.valueOf(j));
-                    quarkEvents.add(new QuarkEvent(quark, (Math.abs(randomGenerator.nextLong()) % INTERVAL_AVG_TIME) + 1, fValues.getValues()));
-                }
 
-                /* Adds random intervals to the state system */
                 pmBuild.start();
-                while (true) {
-                    QuarkEvent quarkEvent = quarkEvents.poll();
-                    if (quarkEvent == null) {
-                        break;
-                    }
-                    long eventTime = quarkEvent.getNextEventTime();
-                    ss.modifyAttribute(eventTime, quarkEvent.getNextValue(), quarkEvent.getQuark());
-                    long nextDelta = fDistributionMethod.getNextEndTime(randomGenerator, INTERVAL_AVG_TIME);
-                    long nextEndTime = eventTime + nextDelta;
-                    if (nextEndTime <= totalTime) {
-                        quarkEvent.setNextEventTime(nextEndTime);
-                        quarkEvents.add(quarkEvent);
-                    }
-                }
-                ss.closeHistory(totalTime);
+                int rootQuark = buildStateSystem(ss, randomGenerator, totalTime);
                 pmBuild.stop();
 
                 /*
@@ -392,6 +373,122 @@ public class HistoryTreeBackendBenchmark {
         pmReverse2DQuery.commit();
     }
 
+    /**
+     * Benchmarks 2D queries on a reopened history file, read either through the
+     * file channel or through memory mappings. The cold queries are the first
+     * ones after reopening the file, when the node cache is empty, the warm
+     * queries are the same queries repeated.
+     */
+    @Test
+    public void testReopenedFileBenchmark() {
+        long totalTime = (long) this.fNbAvgIntervals * INTERVAL_AVG_TIME;
+
+        Performance perf = Performance.getDefault();
+        PerformanceMeter pmChannelCold = perf.createPerformanceMeter(TEST_PREFIX + TEST_COLD_2D_QUERY_ID + CHANNEL_READS + fName);
+        perf.tagAsSummary(pmChannelCold, TEST_COLD_2D_QUERY_ID + CHANNEL_READS + fShortName, Dimension.CPU_TIME);
+
+        PerformanceMeter pmChannelWarm = perf.createPerformanceMeter(TEST_PREFIX + TEST_WARM_2D_QUERY_ID + CHANNEL_READS + fName);
+        perf.tagAsSummary(pmChannelWarm, TEST_WARM_2D_QUERY_ID + CHANNEL_READS + fShortName, Dimension.CPU_TIME);
+
+        PerformanceMeter pmMappedCold = perf.createPerformanceMeter(TEST_PREFIX + TEST_COLD_2D_QUERY_ID + MAPPED_READS + fName);
+        perf.tagAsSummary(pmMappedCold, TEST_COLD_2D_QUERY_ID + MAPPED_READS + fShortName, Dimension.CPU_TIME);
+
+        PerformanceMeter pmMappedWarm = perf.createPerformanceMeter(TEST_PREFIX + TEST_WARM_2D_QUERY_ID + MAPPED_READS + fName);
+        perf.tagAsSummary(pmMappedWarm, TEST_WARM_2D_QUERY_ID + MAPPED_READS + fShortName, Dimension.CPU_TIME);
+
+        String previousMode = System.getProperty(HT_IO.MAPPED_READS_PROPERTY);
+        try {
+            /* Build the file once, it is reopened for each loop */
+            createFile();
+            File file = NonNullUtils.checkNotNull(fTempFile);
+            IStateHistoryBackend backend = StateHistoryBackendFactory.createHistoryTreeBackendNewFile(TEST_BUILDING_ID, file, 1, 1, QUEUE_SIZE);
+            ITmfStateSystemBuilder builder = StateSystemFactory.newStateSystem(backend);
+            buildStateSystem(builder, new Random(SEED), totalTime);
+            builder.dispose();
+
+            for (int i = 0; i < fNbLoops; i++) {
+                System.setProperty(HT_IO.MAPPED_READS_PROPERTY, Boolean.FALSE.toString());
+                query2DOnReopenedFile(file, pmChannelCold, pmChannelWarm);
+                System.setProperty(HT_IO.MAPPED_READS_PROPERTY, Boolean.TRUE.toString());
+                query2DOnReopenedFile(file, pmMappedCold, pmMappedWarm);
+            }
+        } catch (IOException | StateValueTypeException | StateSystemDisposedException e) {
+            fail(e.getMessage());
+        } finally {
+            if (previousMode == null) {
+                System.clearProperty(HT_IO.MAPPED_READS_PROPERTY);
+            } else {
+                System.setProperty(HT_IO.MAPPED_READS_PROPERTY, previousMode);
+            }
+            deleteFile();
+        }
+        pmChannelCold.commit();
+        pmChannelWarm.commit();
+        pmMappedCold.commit();
+        pmMappedWarm.commit();
+    }
+
+    private static void query2DOnReopenedFile(File file, PerformanceMeter pmCold, PerformanceMeter pmWarm) throws IOException, StateSystemDisposedException {
+        IStateHistoryBackend backend = StateHistoryBackendFactory.createHistoryTreeBackendExistingFile(TEST_BUILDING_ID, file, 1);
+        ITmfStateSystem ss = StateSystemFactory.newStateSystem(backend, false);
+        List<@NonNull Integer> quarks = new ArrayList<>();
+        for (int quark = 0; quark < ss.getNbAttributes(); quark++) {
+            quarks.add(quark);
+        }
+
+        pmCold.start();
+        iterate(ss.query2D(quarks, ss.getStartTime(), ss.getCurrentEndTime()));
+        pmCold.stop();
+
+        pmWarm.start();
+        iterate(ss.query2D(quarks, ss.getStartTime(), ss.getCurrentEndTime()));
+        pmWarm.stop();
+
+        ss.dispose();
+    }
+
+    private static void iterate(Iterable<@NonNull ITmfStateInterval> query2d) {
+        Iterator<@NonNull ITmfStateInterval> iterator = query2d.iterator();
+        while (iterator.hasNext()) {
+            iterator.next();
+        }
+    }
+
+    /**
+     * Add random intervals to the state system, then close its history.
+     *
+     * @return The quark of the root attribute
+     */
+    private int buildStateSystem(ITmfStateSystemBuilder ss, Random randomGenerator, long totalTime) {
+        /* Initialize the attributes */
+        Queue<QuarkEvent> quarkEvents = new PriorityQueue<>(fNbAttrib);
+        int rootQuark = ss.getQuarkAbsoluteAndAdd(ROOT_NODE);
+
+        /* Create all attributes before testing */
+        for (int j = 0; j < fNbAttrib; j++) {
+            int quark = ss.getQuarkRelativeAndAdd(rootQuark, String.valueOf(j));
+            quarkEvents.add(new QuarkEvent(quark, (Math.abs(randomGenerator.nextLong()) % INTERVAL_AVG_TIME) + 1, fValues.getValues()));
+        }
+
+        /* Adds random intervals to the state system */
+        while (true) {
+            QuarkEvent quarkEvent = quarkEvents.poll();
+            if (quarkEvent == null) {
+                break;
+            }
+            long eventTime = quarkEvent.getNextEventTime();
+            ss.modifyAttribute(eventTime, quarkEvent.getNextValue(), quarkEvent.getQuark());
+            long nextDelta = fDistributionMethod.getNextEndTime(randomGenerator, INTERVAL_AVG_TIME);
+            long nextEndTime = eventTime + nextDelta;
+            if (nextEndTime <= totalTime) {
+                quarkEvent.setNextEventTime(nextEndTime);
+                quarkEvents.add(quarkEvent);
+            }
+        }
+        ss.closeHistory(totalTime);
+        return rootQuark;
+    }
+
     /**
      * Get a next random value between 1 and a boundary.
      */
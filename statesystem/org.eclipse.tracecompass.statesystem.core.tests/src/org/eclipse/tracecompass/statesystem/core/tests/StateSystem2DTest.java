@@ -18,10 +18,12 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.eclipse.jdt.annotation.NonNull;
@@ -36,6 +38,7 @@ import org.eclipse.tracecompass.statesystem.core.exceptions.AttributeNotFoundExc
 import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
 import org.eclipse.tracecompass.statesystem.core.exceptions.TimeRangeException;
 import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateInterval;
+import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateIntervalCursor;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -158,6 +161,39 @@ public class StateSystem2DTest {
         testContinuous(iterable, quarks, START_TIME, end, 11);
     }
 
+    /**
+     * Test the continuous 2D cursor query method.
+     *
+     * @throws AttributeNotFoundException
+     *             if the requested attribute simply did not exist in the system.
+     * @throws StateSystemDisposedException
+     *             If the query is sent after the state system has been disposed
+     */
+    @Test
+    public void testContinuous2DCursorQuery() throws AttributeNotFoundException, StateSystemDisposedException {
+        ITmfStateSystem ss = fStateSystem;
+        assertNotNull(ss);
+        long end = ss.getCurrentEndTime();
+
+        int stringQuark = fStateSystem.getQuarkAbsolute(STRING_ATTRIBUTE);
+        int integerQuark = fStateSystem.getQuarkAbsolute(INTEGER_ATTRIBUTE);
+        Collection<Integer> quarks = ImmutableList.of(stringQuark, integerQuark);
+        ITmfStateIntervalCursor cursor = ss.query2DCursor(quarks, START_TIME, end);
+        List<ITmfStateInterval> intervals = new ArrayList<>();
+        while (cursor.next()) {
+            intervals.add(cursor.toInterval());
+        }
+        testContinuous(intervals, quarks, START_TIME, end, 11);
+
+        /* Reverse queries return the same intervals */
+        cursor = ss.query2DCursor(quarks, end, START_TIME);
+        intervals.clear();
+        while (cursor.next()) {
+            intervals.add(cursor.toInterval());
+        }
+        testContinuous(intervals, quarks, START_TIME, end, 11);
+    }
+
     private static void testDiscrete(Iterable<ITmfStateInterval> iterable, Collection<Integer> quarks, Collection<Long> times, int totalCount) {
         Set<ITmfStateInterval> set = new HashSet<>();
         int countTimeStamps = 0;
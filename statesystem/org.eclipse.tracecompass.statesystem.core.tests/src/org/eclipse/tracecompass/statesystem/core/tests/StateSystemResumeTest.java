@@ -0,0 +1,305 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.statesystem.core.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.tracecompass.internal.statesystem.core.backend.historytree.HistoryTreeBackend;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystemBuilder;
+import org.eclipse.tracecompass.statesystem.core.StateSystemFactory;
+import org.eclipse.tracecompass.statesystem.core.backend.IStateHistoryBackend;
+import org.eclipse.tracecompass.statesystem.core.backend.StateHistoryBackendFactory;
+import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
+import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateInterval;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.rules.Timeout;
+
+/**
+ * Test suspending the construction of a history tree and resuming it later.
+ * The resumed history should be the same as a history built in one go.
+ */
+public class StateSystemResumeTest {
+
+    /** Time-out tests after 1 minute. */
+    @Rule
+    public TestRule globalTimeout = new Timeout(1, TimeUnit.MINUTES);
+
+    private static final String SSID = "test";
+    private static final int PROVIDER_VERSION = 1;
+    private static final long START_TIME = 1000;
+    private static final int NB_CHANGES = 20000;
+    private static final int NB_ATTRIBUTES = 10;
+    /* Small nodes, so that the tree is deep and has many branches */
+    private static final int BLOCK_SIZE = 4096;
+    private static final int MAX_CHILDREN = 3;
+
+    private File fReferenceFile;
+    private File fResumedFile;
+
+    /**
+     * Create the history files
+     *
+     * @throws IOException
+     *             If the files cannot be created
+     */
+    @Before
+    public void setup() throws IOException {
+        fReferenceFile = File.createTempFile("reference", ".ht");
+        fResumedFile = File.createTempFile("resumed", ".ht");
+    }
+
+    /**
+     * Delete the history files
+     */
+    @After
+    public void cleanup() {
+        fReferenceFile.delete();
+        fResumedFile.delete();
+    }
+
+    private static long timeOf(int change) {
+        return START_TIME + change * 10L;
+    }
+
+    /**
+     * Apply the state changes of a range, the even attributes have integer
+     * values, the odd ones string values, and some values are null
+     */
+    private static void applyChanges(ITmfStateSystemBuilder ss, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int attribute = i % NB_ATTRIBUTES;
+            int quark = ss.getQuarkAbsoluteAndAdd("attribute" + attribute);
+            Object value;
+            if (i % 13 == 0) {
+                value = null;
+            } else if (attribute % 2 == 0) {
+                value = (i / 7) % 5;
+            } else {
+                value = "value" + (i % 3);
+            }
+            ss.modifyAttribute(timeOf(i), value, quark);
+        }
+    }
+
+    private ITmfStateSystemBuilder buildReference() throws IOException {
+        IStateHistoryBackend backend = new HistoryTreeBackend(SSID, fReferenceFile, PROVIDER_VERSION, START_TIME, BLOCK_SIZE, MAX_CHILDREN);
+        ITmfStateSystemBuilder ss = StateSystemFactory.newStateSystem(backend);
+        applyChanges(ss, 0, NB_CHANGES);
+        ss.closeHistory(timeOf(NB_CHANGES));
+        return ss;
+    }
+
+    private static byte[] suspend(ITmfStateSystemBuilder ss) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            ss.suspendHistory(output);
+        }
+        ss.dispose();
+        return bytes.toByteArray();
+    }
+
+    private static ITmfStateSystemBuilder resume(IStateHistoryBackend backend, byte[] ongoingState) throws IOException {
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(ongoingState))) {
+            return StateSystemFactory.resumeStateSystem(backend, input);
+        }
+    }
+
+    private static void assertSameHistory(ITmfStateSystemBuilder expected, ITmfStateSystemBuilder actual) throws StateSystemDisposedException {
+        assertEquals(expected.getNbAttributes(), actual.getNbAttributes());
+        assertEquals(expected.getStartTime(), actual.getStartTime());
+        assertEquals(expected.getCurrentEndTime(), actual.getCurrentEndTime());
+        for (long t = expected.getStartTime(); t <= expected.getCurrentEndTime(); t += 7) {
+            List<ITmfStateInterval> expectedStates = expected.queryFullState(t);
+            List<ITmfStateInterval> actualStates = actual.queryFullState(t);
+            for (int quark = 0; quark < expected.getNbAttributes(); quark++) {
+                ITmfStateInterval expectedInterval = expectedStates.get(quark);
+                ITmfStateInterval actualInterval = actualStates.get(quark);
+                assertEquals("Start of " + quark + " at " + t, expectedInterval.getStartTime(), actualInterval.getStartTime());
+                assertEquals("End of " + quark + " at " + t, expectedInterval.getEndTime(), actualInterval.getEndTime());
+                assertEquals("Value of " + quark + " at " + t, expectedInterval.getValue(), actualInterval.getValue());
+            }
+        }
+    }
+
+    /**
+     * Test suspending and resuming the construction of a history several
+     * times
+     *
+     * @throws IOException
+     *             If the history files cannot be written or read
+     * @throws StateSystemDisposedException
+     *             Fails the test
+     */
+    @Test
+    public void testSuspendResume() throws IOException, StateSystemDisposedException {
+        ITmfStateSystemBuilder reference = buildReference();
+
+        IStateHistoryBackend backend = new HistoryTreeBackend(SSID, fResumedFile, PROVIDER_VERSION, START_TIME, BLOCK_SIZE, MAX_CHILDREN);
+        ITmfStateSystemBuilder ss = StateSystemFactory.newStateSystem(backend);
+        int[] suspensions = { NB_CHANGES / 3, NB_CHANGES / 2, 2 * NB_CHANGES / 3 };
+        int done = 0;
+        for (int suspension : suspensions) {
+            applyChanges(ss, done, suspension);
+            done = suspension;
+            byte[] ongoingState = suspend(ss);
+
+            backend = new HistoryTreeBackend(SSID, fResumedFile, PROVIDER_VERSION, true);
+            ss = resume(backend, ongoingState);
+        }
+        applyChanges(ss, done, NB_CHANGES);
+        ss.closeHistory(timeOf(NB_CHANGES));
+
+        assertSameHistory(reference, ss);
+        ss.dispose();
+
+        /* The completed file can be opened as a finished history */
+        ITmfStateSystemBuilder reopened = StateSystemFactory.newStateSystem(
+                StateHistoryBackendFactory.createHistoryTreeBackendExistingFile(SSID, fResumedFile, PROVIDER_VERSION), false);
+        assertSameHistory(reference, reopened);
+        reopened.dispose();
+        reference.dispose();
+    }
+
+    /**
+     * Test resuming a history with the threaded backend
+     *
+     * @throws IOException
+     *             If the history files cannot be written or read
+     * @throws StateSystemDisposedException
+     *             Fails the test
+     */
+    @Test
+    public void testResumeThreaded() throws IOException, StateSystemDisposedException {
+        ITmfStateSystemBuilder reference = buildReference();
+
+        IStateHistoryBackend backend = StateHistoryBackendFactory.createHistoryTreeBackendNewFile(SSID, fResumedFile, PROVIDER_VERSION, START_TIME, 100);
+        ITmfStateSystemBuilder ss = StateSystemFactory.newStateSystem(backend);
+        applyChanges(ss, 0, NB_CHANGES / 2);
+        byte[] ongoingState = suspend(ss);
+
+        backend = StateHistoryBackendFactory.resumeHistoryTreeBackend(SSID, fResumedFile, PROVIDER_VERSION, 100);
+        ss = resume(backend, ongoingState);
+        applyChanges(ss, NB_CHANGES / 2, NB_CHANGES);
+        ss.closeHistory(timeOf(NB_CHANGES));
+
+        assertSameHistory(reference, ss);
+        ss.dispose();
+        reference.dispose();
+    }
+
+    /**
+     * Test that a suspended history can be queried, and that its construction
+     * can be resumed in the same state system
+     *
+     * @throws IOException
+     *             If the history files cannot be written or read
+     * @throws StateSystemDisposedException
+     *             Fails the test
+     */
+    @Test
+    public void testResumeInPlace() throws IOException, StateSystemDisposedException {
+        ITmfStateSystemBuilder reference = buildReference();
+
+        IStateHistoryBackend backend = StateHistoryBackendFactory.createHistoryTreeBackendNewFile(SSID, fResumedFile, PROVIDER_VERSION, START_TIME, 100);
+        ITmfStateSystemBuilder ss = StateSystemFactory.newStateSystem(backend);
+        int[] suspensions = { NB_CHANGES / 3, 2 * NB_CHANGES / 3 };
+        int done = 0;
+        for (int suspension : suspensions) {
+            applyChanges(ss, done, suspension);
+            done = suspension;
+            try (DataOutputStream output = new DataOutputStream(new ByteArrayOutputStream())) {
+                ss.suspendHistory(output);
+            }
+            assertTrue(ss.waitUntilBuilt(0));
+
+            /* The ongoing states end at the latest state change */
+            assertEquals(timeOf(suspension - 1), ss.getCurrentEndTime());
+            for (long t = START_TIME; t <= ss.getCurrentEndTime(); t += 7) {
+                List<ITmfStateInterval> expectedStates = reference.queryFullState(t);
+                List<ITmfStateInterval> actualStates = ss.queryFullState(t);
+                for (int quark = 0; quark < ss.getNbAttributes(); quark++) {
+                    assertEquals(expectedStates.get(quark).getStartTime(), actualStates.get(quark).getStartTime());
+                    assertEquals(expectedStates.get(quark).getValue(), actualStates.get(quark).getValue());
+                }
+            }
+
+            ss.resumeHistory(StateHistoryBackendFactory.resumeHistoryTreeBackend(SSID, fResumedFile, PROVIDER_VERSION, 100));
+            assertFalse(ss.waitUntilBuilt(0));
+        }
+        applyChanges(ss, done, NB_CHANGES);
+        ss.closeHistory(timeOf(NB_CHANGES));
+        assertTrue(ss.waitUntilBuilt(0));
+
+        assertSameHistory(reference, ss);
+        ss.dispose();
+        reference.dispose();
+    }
+
+    /**
+     * Test that the state changes and the closing of a suspended history are
+     * ignored, and that a history being resumed cannot be opened as a
+     * finished one
+     *
+     * @throws IOException
+     *             If the history file cannot be written or read
+     */
+    @Test
+    public void testSuspended() throws IOException {
+        IStateHistoryBackend backend = new HistoryTreeBackend(SSID, fResumedFile, PROVIDER_VERSION, START_TIME, BLOCK_SIZE, MAX_CHILDREN);
+        ITmfStateSystemBuilder ss = StateSystemFactory.newStateSystem(backend);
+        applyChanges(ss, 0, 100);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            ss.suspendHistory(output);
+            /* The ongoing states end at the latest state change */
+            assertEquals(timeOf(99), ss.getCurrentEndTime());
+            try {
+                ss.suspendHistory(output);
+                fail("The history was suspended twice");
+            } catch (IOException e) {
+                // Expected
+            }
+        }
+        applyChanges(ss, 100, 200);
+        ss.closeHistory(timeOf(200));
+        assertEquals(timeOf(99), ss.getCurrentEndTime());
+        ss.dispose();
+
+        backend = new HistoryTreeBackend(SSID, fResumedFile, PROVIDER_VERSION, true);
+        ss = resume(backend, bytes.toByteArray());
+        assertNotNull(ss.queryOngoing(0));
+        try {
+            StateHistoryBackendFactory.createHistoryTreeBackendExistingFile(SSID, fResumedFile, PROVIDER_VERSION);
+            fail("A history being resumed was opened");
+        } catch (IOException e) {
+            // Expected
+        }
+        ss.removeFiles();
+    }
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.statesystem.core.tests.backend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.tracecompass.internal.statesystem.core.backend.historytree.HTConfig.NodeFormat;
+import org.eclipse.tracecompass.internal.statesystem.core.backend.historytree.HistoryTreeBackend;
+import org.eclipse.tracecompass.statesystem.core.backend.IStateHistoryBackend;
+import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
+import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateInterval;
+import org.eclipse.tracecompass.statesystem.core.interval.TmfStateInterval;
+import org.junit.Test;
+
+/**
+ * Test the history tree backend with files using the compressed node format.
+ */
+public class CompressedHistoryTreeBackendTest extends HistoryTreeBackendTest {
+
+    private NodeFormat fNodeFormat = NodeFormat.COMPRESSED;
+
+    /**
+     * Constructor
+     *
+     * @param reOpen
+     *            True if the backend should be disposed and re-opened as a new
+     *            backend from the file, or false to use the backend as-is
+     */
+    public CompressedHistoryTreeBackendTest(Boolean reOpen) {
+        super(reOpen);
+    }
+
+    @Override
+    protected IStateHistoryBackend getBackendForBuilding(long startTime) throws IOException {
+        String previousFormat = System.getProperty(HistoryTreeBackend.NODE_FORMAT_PROPERTY);
+        System.setProperty(HistoryTreeBackend.NODE_FORMAT_PROPERTY, fNodeFormat.name());
+        try {
+            return super.getBackendForBuilding(startTime);
+        } finally {
+            if (previousFormat == null) {
+                System.clearProperty(HistoryTreeBackend.NODE_FORMAT_PROPERTY);
+            } else {
+                System.setProperty(HistoryTreeBackend.NODE_FORMAT_PROPERTY, previousFormat);
+            }
+        }
+    }
+
+    private long buildAndGetFileSize(NodeFormat format, long endTime, List<ITmfStateInterval> intervals) throws StateSystemDisposedException {
+        fNodeFormat = format;
+        IStateHistoryBackend backend = prepareBackend(0, endTime, intervals);
+        assertNotNull(backend);
+
+        /* All the intervals are still there */
+        for (ITmfStateInterval interval : intervals) {
+            ITmfStateInterval result = backend.doSingularQuery(interval.getStartTime(), interval.getAttribute());
+            assertEquals(interval.getEndTime(), result.getEndTime());
+            assertEquals(interval.getValue(), result.getValue());
+        }
+        File file = fBackendMap.get(backend);
+        assertNotNull(file);
+        return file.length();
+    }
+
+    /**
+     * Test that the packed and compressed formats are smaller than the classic
+     * one for intervals with repeated strings.
+     *
+     * @throws StateSystemDisposedException
+     *             Should not happen
+     */
+    @Test
+    public void testFileSize() throws StateSystemDisposedException {
+        int nbAttributes = 10;
+        long endTime = 5000;
+        List<ITmfStateInterval> intervals = new ArrayList<>();
+        for (int attribute = 0; attribute < nbAttributes; attribute++) {
+            for (long t = 0; t + 10 <= endTime; t += 10) {
+                intervals.add(new TmfStateInterval(t, t + 9, attribute, "status" + (t / 10 % 4))); //$NON-NLS-1$
+            }
+        }
+
+        long classicSize = buildAndGetFileSize(NodeFormat.CLASSIC, endTime, intervals);
+        long packedSize = buildAndGetFileSize(NodeFormat.PACKED, endTime, intervals);
+        long compressedSize = buildAndGetFileSize(NodeFormat.COMPRESSED, endTime, intervals);
+        assertTrue("Packed: " + packedSize + ", classic: " + classicSize, packedSize < classicSize / 2);
+        assertTrue("Compressed: " + compressedSize + ", packed: " + packedSize, compressedSize < packedSize);
+    }
+}
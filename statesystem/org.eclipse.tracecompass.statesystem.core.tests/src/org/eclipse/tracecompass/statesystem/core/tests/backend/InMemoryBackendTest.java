@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2016 Ericsson
+ * Copyright (c) 2013, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -18,12 +18,19 @@ import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
+import java.util.Set;
 
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.internal.provisional.datastore.core.condition.IntegerRangeCondition;
+import org.eclipse.tracecompass.internal.provisional.datastore.core.condition.TimeRangeCondition;
 import org.eclipse.tracecompass.statesystem.core.backend.IStateHistoryBackend;
 import org.eclipse.tracecompass.statesystem.core.backend.StateHistoryBackendFactory;
 import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
@@ -35,6 +42,9 @@ import org.eclipse.tracecompass.statesystem.core.statevalue.TmfStateValue;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
 /**
  * Test cases for the in-memory backend
  *
@@ -264,4 +274,140 @@ public class InMemoryBackendTest extends StateHistoryBackendTestBase {
             fail(e.getMessage());
         }
     }
+
+    /**
+     * Test that the intervals inserted out of order are queried at their
+     * place, at their start and end times and in between
+     *
+     * @throws TimeRangeException
+     *             Fails the test
+     * @throws StateSystemDisposedException
+     *             Fails the test
+     */
+    @Test
+    public void testOutOfOrderInsertion() throws TimeRangeException, StateSystemDisposedException {
+        IStateHistoryBackend backend = StateHistoryBackendFactory.createInMemoryBackend(SSID, 0);
+        /* More intervals than the initial capacity, in a shuffled order */
+        int nbIntervals = 50;
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < nbIntervals; i++) {
+            order.add(i);
+        }
+        Collections.shuffle(order, new Random(42));
+        for (int i : order) {
+            backend.insertPastState(i * 10, i * 10 + 9, 0, i);
+        }
+        assertEquals(nbIntervals * 10 - 1, backend.getEndTime());
+
+        for (int i = 0; i < nbIntervals; i++) {
+            testInterval(backend.doSingularQuery(i * 10, 0), i * 10, i * 10 + 9, i);
+            testInterval(backend.doSingularQuery(i * 10 + 5, 0), i * 10, i * 10 + 9, i);
+            testInterval(backend.doSingularQuery(i * 10 + 9, 0), i * 10, i * 10 + 9, i);
+        }
+
+        /* The 2D query returns the intervals in order */
+        Iterable<ITmfStateInterval> intervals = backend.query2D(IntegerRangeCondition.forDiscreteRange(ImmutableList.of(0)),
+                TimeRangeCondition.forContinuousRange(0, backend.getEndTime()));
+        int expected = 0;
+        for (ITmfStateInterval interval : intervals) {
+            testInterval(interval, expected * 10, expected * 10 + 9, expected);
+            expected++;
+        }
+        assertEquals(nbIntervals, expected);
+    }
+
+    /**
+     * Test the queries exactly at the boundaries of the intervals, in the gaps
+     * between intervals and for missing attributes
+     *
+     * @throws TimeRangeException
+     *             Fails the test
+     * @throws StateSystemDisposedException
+     *             Fails the test
+     */
+    @Test
+    public void testQueryBoundaries() throws TimeRangeException, StateSystemDisposedException {
+        IStateHistoryBackend backend = StateHistoryBackendFactory.createInMemoryBackend(SSID, 0);
+        backend.insertPastState(0, 10, 0, 1);
+        backend.insertPastState(11, 20, 0, 2);
+        /* Attribute 1 has a gap between 10 and 20, attribute 2 is missing */
+        backend.insertPastState(5, 9, 1, 3);
+        backend.insertPastState(21, 30, 1, 4);
+        backend.insertPastState(0, 30, 3, 5);
+
+        testInterval(backend.doSingularQuery(0, 0), 0, 10, 1);
+        testInterval(backend.doSingularQuery(10, 0), 0, 10, 1);
+        testInterval(backend.doSingularQuery(11, 0), 11, 20, 2);
+        testInterval(backend.doSingularQuery(20, 0), 11, 20, 2);
+        assertNull(backend.doSingularQuery(21, 0));
+
+        assertNull(backend.doSingularQuery(4, 1));
+        testInterval(backend.doSingularQuery(5, 1), 5, 9, 3);
+        testInterval(backend.doSingularQuery(9, 1), 5, 9, 3);
+        assertNull(backend.doSingularQuery(10, 1));
+        assertNull(backend.doSingularQuery(20, 1));
+        testInterval(backend.doSingularQuery(21, 1), 21, 30, 4);
+        testInterval(backend.doSingularQuery(30, 1), 21, 30, 4);
+
+        assertNull(backend.doSingularQuery(15, 2));
+        assertNull(backend.doSingularQuery(15, 4));
+        assertNull(backend.doSingularQuery(15, -1));
+
+        /* The full query leaves the missing states as they are */
+        List<@Nullable ITmfStateInterval> states = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            states.add(null);
+        }
+        backend.doQuery(states, 15);
+        testInterval(states.get(0), 11, 20, 2);
+        assertNull(states.get(1));
+        assertNull(states.get(2));
+        testInterval(states.get(3), 0, 30, 5);
+        assertNull(states.get(4));
+        assertNull(states.get(5));
+    }
+
+    /**
+     * Test the 2D queries on a part of the attributes and of the time range,
+     * including attributes that do not exist
+     *
+     * @throws TimeRangeException
+     *             Fails the test
+     */
+    @Test
+    public void testQuery2DPartialRange() throws TimeRangeException {
+        IStateHistoryBackend backend = fixture;
+        assertNotNull(backend);
+        long start = 5050;
+        long end = 5205;
+        Set<ITmfStateInterval> expected = new HashSet<>();
+        for (int attribute = 3; attribute <= 5; attribute++) {
+            for (int timeStart = 50; timeStart <= 52; timeStart++) {
+                long stateStartTime = timeStart * 100 + attribute;
+                long stateEndTime = timeStart * 100 + 90 + attribute;
+                if (stateStartTime <= end && stateEndTime >= start) {
+                    expected.add(new TmfStateInterval(stateStartTime, stateEndTime, attribute, timeStart % 100));
+                }
+                if (stateEndTime + 1 <= end && stateEndTime + 9 >= start) {
+                    expected.add(new TmfStateInterval(stateEndTime + 1, stateEndTime + 9, attribute, (Object) null));
+                }
+            }
+        }
+
+        Set<ITmfStateInterval> actual = new HashSet<>();
+        for (ITmfStateInterval interval : backend.query2D(IntegerRangeCondition.forDiscreteRange(ImmutableList.of(3, 4, 5)),
+                TimeRangeCondition.forContinuousRange(start, end))) {
+            assertTrue(actual.add(interval));
+        }
+        assertEquals(expected, actual);
+
+        /* The attributes out of the backend are ignored */
+        actual.clear();
+        for (ITmfStateInterval interval : backend.query2D(IntegerRangeCondition.forDiscreteRange(ImmutableList.of(8, 9, NUMBER_OF_ATTRIBUTES, NUMBER_OF_ATTRIBUTES + 5)),
+                TimeRangeCondition.singleton(5095))) {
+            actual.add(interval);
+        }
+        assertEquals(ImmutableSet.of(new TmfStateInterval(5008, 5098, 8, 50),
+                new TmfStateInterval(5009, 5099, 9, 50)), actual);
+    }
 }
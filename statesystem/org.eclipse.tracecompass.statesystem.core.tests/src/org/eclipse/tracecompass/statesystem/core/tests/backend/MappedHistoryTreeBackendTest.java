@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson and others
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.statesystem.core.tests.backend;
+
+import java.io.IOException;
+
+import org.eclipse.tracecompass.internal.statesystem.core.backend.historytree.HT_IO;
+import org.eclipse.tracecompass.statesystem.core.backend.IStateHistoryBackend;
+
+/**
+ * Test the history tree backend when re-opened files are read through memory
+ * mappings.
+ */
+public class MappedHistoryTreeBackendTest extends HistoryTreeBackendTest {
+
+    /**
+     * Constructor
+     *
+     * @param reOpen
+     *            True if the backend should be disposed and re-opened as a new
+     *            backend from the file, or false to use the backend as-is
+     */
+    public MappedHistoryTreeBackendTest(Boolean reOpen) {
+        super(reOpen);
+    }
+
+    @Override
+    protected IStateHistoryBackend getBackendForQuerying(IStateHistoryBackend backend) throws IOException {
+        String previousMode = System.getProperty(HT_IO.MAPPED_READS_PROPERTY);
+        System.setProperty(HT_IO.MAPPED_READS_PROPERTY, Boolean.TRUE.toString());
+        try {
+            return super.getBackendForQuerying(backend);
+        } finally {
+            if (previousMode == null) {
+                System.clearProperty(HT_IO.MAPPED_READS_PROPERTY);
+            } else {
+                System.setProperty(HT_IO.MAPPED_READS_PROPERTY, previousMode);
+            }
+        }
+    }
+}
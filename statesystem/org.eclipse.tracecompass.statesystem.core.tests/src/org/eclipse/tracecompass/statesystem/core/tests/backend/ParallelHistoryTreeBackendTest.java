@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.statesystem.core.tests.backend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.tracecompass.internal.provisional.datastore.core.condition.IntegerRangeCondition;
+import org.eclipse.tracecompass.internal.provisional.datastore.core.condition.TimeRangeCondition;
+import org.eclipse.tracecompass.internal.statesystem.core.backend.historytree.HistoryTreeBackend;
+import org.eclipse.tracecompass.internal.statesystem.core.backend.historytree.HistoryTreeBackend.ParallelQueryMode;
+import org.eclipse.tracecompass.statesystem.core.backend.IStateHistoryBackend;
+import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateInterval;
+import org.eclipse.tracecompass.statesystem.core.interval.TmfStateInterval;
+import org.junit.Test;
+
+import com.google.common.collect.ContiguousSet;
+import com.google.common.collect.DiscreteDomain;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.Range;
+
+/**
+ * Test the history tree backend when the 2D queries read the nodes in
+ * parallel.
+ */
+public class ParallelHistoryTreeBackendTest extends HistoryTreeBackendTest {
+
+    /**
+     * Constructor
+     *
+     * @param reOpen
+     *            True if the backend should be disposed and re-opened as a new
+     *            backend from the file, or false to use the backend as-is
+     */
+    public ParallelHistoryTreeBackendTest(Boolean reOpen) {
+        super(reOpen);
+    }
+
+    @Override
+    protected IStateHistoryBackend getBackendForQuerying(IStateHistoryBackend backend) throws IOException {
+        IStateHistoryBackend queryBackend = super.getBackendForQuerying(backend);
+        ((HistoryTreeBackend) queryBackend).setParallelQueryMode(ParallelQueryMode.UNORDERED);
+        return queryBackend;
+    }
+
+    private static List<String> query(HistoryTreeBackend backend, ParallelQueryMode mode, IntegerRangeCondition quarks, TimeRangeCondition times, boolean reverse) {
+        backend.setParallelQueryMode(mode);
+        List<String> intervals = new ArrayList<>();
+        for (ITmfStateInterval interval : backend.query2D(quarks, times, reverse)) {
+            intervals.add(interval.toString());
+        }
+        return intervals;
+    }
+
+    /**
+     * Test that the parallel traversal returns the same intervals as the
+     * sequential one, in a deterministic order when it is ordered
+     */
+    @Test
+    public void testParallelQuery2D() {
+        int nbAttributes = 20;
+        long startTime = 0;
+        long endTime = 20000;
+        List<ITmfStateInterval> intervals = new ArrayList<>();
+        for (int attribute = 0; attribute < nbAttributes; attribute++) {
+            long step = 10 + attribute;
+            for (long t = startTime; t + step <= endTime; t += step) {
+                intervals.add(new TmfStateInterval(t, t + step - 1, attribute, t % 3 == 0 ? null : (Object) t));
+            }
+        }
+        IStateHistoryBackend backend = prepareBackend(startTime, endTime, intervals);
+        assertNotNull(backend);
+        HistoryTreeBackend htBackend = (HistoryTreeBackend) backend;
+
+        IntegerRangeCondition quarks = IntegerRangeCondition.forDiscreteRange(ContiguousSet.create(Range.closed(2, 12), DiscreteDomain.integers()));
+        TimeRangeCondition times = TimeRangeCondition.forContinuousRange(1000, 15000);
+        for (boolean reverse : new boolean[] { false, true }) {
+            List<String> sequential = query(htBackend, ParallelQueryMode.DISABLED, quarks, times, reverse);
+            assertTrue(sequential.size() > 1000);
+            Multiset<String> expected = HashMultiset.create(sequential);
+
+            List<String> ordered = query(htBackend, ParallelQueryMode.ORDERED, quarks, times, reverse);
+            assertEquals(expected, HashMultiset.create(ordered));
+            assertEquals(ordered, query(htBackend, ParallelQueryMode.ORDERED, quarks, times, reverse));
+
+            List<String> unordered = query(htBackend, ParallelQueryMode.UNORDERED, quarks, times, reverse);
+            assertEquals(expected, HashMultiset.create(unordered));
+        }
+    }
+}
@@ -12,19 +12,25 @@
 package org.eclipse.tracecompass.statesystem.core.tests.backend;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.internal.provisional.datastore.core.condition.IntegerRangeCondition;
+import org.eclipse.tracecompass.internal.provisional.datastore.core.condition.TimeRangeCondition;
 import org.eclipse.tracecompass.statesystem.core.backend.IStateHistoryBackend;
 import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
 import org.eclipse.tracecompass.statesystem.core.exceptions.TimeRangeException;
 import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateInterval;
+import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateIntervalCursor;
 import org.eclipse.tracecompass.statesystem.core.interval.TmfStateInterval;
 import org.eclipse.tracecompass.statesystem.core.statevalue.ITmfStateValue;
 import org.eclipse.tracecompass.statesystem.core.tests.stubs.statevalues.CustomStateValueStub;
@@ -258,6 +264,49 @@ public abstract class StateHistoryBackendTestBase {
         buildAndQueryFullRange(startTime, endTime, nbAttr, intervals, false);
     }
 
+    /**
+     * Test inserting intervals out of end time order, like the state changes
+     * of a partitioned state provider: the intervals ending in a window of
+     * time are inserted one partition of attributes after the other, so the
+     * end times only increase from one window to the next.
+     */
+    @Test
+    public void testPartitionedIntervals() {
+        final int nbAttr = 8;
+        final int nbPartitions = 3;
+        final long startTime = 0;
+        final long endTime = 5000;
+        final long window = 100;
+
+        /* Contiguous intervals of pseudo-random durations for each attribute */
+        List<List<ITmfStateInterval>> windows = new ArrayList<>();
+        for (long t = startTime; t <= endTime; t += window) {
+            windows.add(new ArrayList<>());
+        }
+        for (int attr = 0; attr < nbAttr; attr++) {
+            long start = startTime;
+            int i = 0;
+            while (start <= endTime) {
+                long end = Math.min(endTime, start + (i * 31 + attr * 17) % 97);
+                windows.get((int) ((end - startTime) / window)).add(new TmfStateInterval(start, end, attr, i));
+                start = end + 1;
+                i++;
+            }
+        }
+        List<ITmfStateInterval> intervals = new ArrayList<>();
+        for (List<ITmfStateInterval> windowIntervals : windows) {
+            for (int partition = 0; partition < nbPartitions; partition++) {
+                for (ITmfStateInterval interval : windowIntervals) {
+                    if (interval.getAttribute() % nbPartitions == partition) {
+                        intervals.add(interval);
+                    }
+                }
+            }
+        }
+
+        buildAndQueryFullRange(startTime, endTime, nbAttr, intervals, false);
+    }
+
     /**
      * Test inserting values of different types and querying them right after
      */
@@ -440,6 +489,61 @@ public abstract class StateHistoryBackendTestBase {
         }
     }
 
+    /**
+     * Test that the cursor query returns the same intervals and values as the
+     * 2D query, for all the state value types
+     */
+    @Test
+    public void testQuery2DCursor() {
+        long startTime = 10;
+        long timeStep = 5;
+        int nbSteps = 200;
+        Object[] values = { INT_VAL1, LONG_VAL1, DOUBLE_VAL1, STR_VAL1, null, INT_VAL2, LONG_VAL2, DOUBLE_VAL2, STR_VAL2 };
+        CustomStateValueStub.registerFactory();
+        ITmfStateValue customVal = new CustomStateValueStub(10, "a string");
+
+        List<ITmfStateInterval> intervals = new ArrayList<>();
+        for (int step = 0; step < nbSteps; step++) {
+            long start = startTime + step * timeStep;
+            for (int quark = 0; quark < values.length; quark++) {
+                Object value = (quark + step) % 3 == 0 ? null : values[quark];
+                intervals.add(new TmfStateInterval(start, start + timeStep - 1, quark, value));
+            }
+            intervals.add(new TmfStateInterval(start, start + timeStep - 1, values.length, customVal));
+        }
+        long endTime = startTime + nbSteps * timeStep - 1;
+        IStateHistoryBackend backend = prepareBackend(startTime, endTime, intervals);
+        assertNotNull(backend);
+
+        IntegerRangeCondition quarks = IntegerRangeCondition.forDiscreteRange(ImmutableList.of(1, 3, 4, 7, values.length));
+        TimeRangeCondition times = TimeRangeCondition.forContinuousRange(startTime + 100, startTime + 600);
+        Set<String> expected = new HashSet<>();
+        for (ITmfStateInterval interval : backend.query2D(quarks, times)) {
+            expected.add(interval.getStartTime() + "," + interval.getEndTime() + "," + interval.getAttribute() + "," + interval.getValue());
+        }
+        assertFalse(expected.isEmpty());
+
+        Set<String> actual = new HashSet<>();
+        ITmfStateIntervalCursor cursor = backend.query2DCursor(quarks, times, false);
+        while (cursor.next()) {
+            Object value = cursor.getValue();
+            assertEquals(value == null, cursor.isNullValue());
+            if (value instanceof Long) {
+                assertEquals(value, cursor.getValueLong());
+            } else if (value instanceof String) {
+                assertEquals(value, cursor.getValueString());
+            } else if (value == null) {
+                assertEquals(0, cursor.getValueInt());
+            }
+            ITmfStateInterval copy = cursor.toInterval();
+            assertEquals(cursor.getAttribute(), copy.getAttribute());
+            assertEquals(value, copy.getValue());
+            assertTrue(actual.add(cursor.getStartTime() + "," + cursor.getEndTime() + "," + cursor.getAttribute() + "," + value));
+        }
+        assertFalse(cursor.next());
+        assertEquals(expected, actual);
+    }
+
     /**
      * Test inserting an interval before the start of the backend
      */
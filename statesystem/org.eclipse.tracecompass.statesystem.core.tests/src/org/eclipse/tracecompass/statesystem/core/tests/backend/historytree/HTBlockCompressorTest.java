@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.statesystem.core.tests.backend.historytree;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.eclipse.tracecompass.internal.statesystem.core.backend.historytree.HTBlockCompressor;
+import org.junit.Test;
+
+/**
+ * Tests the block compressor of the history tree nodes
+ */
+public class HTBlockCompressorTest {
+
+    private static int roundTrip(byte[] data) throws IOException {
+        byte[] compressed = new byte[data.length + data.length / 255 + 16];
+        int length = HTBlockCompressor.compress(data, data.length, compressed);
+        assertTrue(length > 0);
+        byte[] decompressed = new byte[data.length];
+        HTBlockCompressor.decompress(compressed, 0, length, decompressed, data.length);
+        assertArrayEquals(data, decompressed);
+        return length;
+    }
+
+    /**
+     * Test blocks too small to contain a match
+     *
+     * @throws IOException
+     *             Should not happen
+     */
+    @Test
+    public void testSmallBlocks() throws IOException {
+        assertEquals(1, roundTrip(new byte[0]));
+        roundTrip(new byte[] { 1 });
+        roundTrip("abcdabcdabc".getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Test blocks with repetitions, including runs longer than the length
+     * extensions
+     *
+     * @throws IOException
+     *             Should not happen
+     */
+    @Test
+    public void testRepetitiveBlocks() throws IOException {
+        byte[] zeros = new byte[4096];
+        assertTrue(roundTrip(zeros) < 64);
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            sb.append("interval ").append(i % 7).append(';');
+        }
+        byte[] text = sb.toString().getBytes(StandardCharsets.UTF_8);
+        assertTrue(roundTrip(text) < text.length / 4);
+
+        /* Literals longer than 270 bytes between matches */
+        Random random = new Random(42);
+        byte[] mixed = new byte[8192];
+        random.nextBytes(mixed);
+        Arrays.fill(mixed, 1000, 2000, (byte) 7);
+        System.arraycopy(mixed, 3000, mixed, 6000, 1500);
+        roundTrip(mixed);
+    }
+
+    /**
+     * Test that incompressible blocks are reported as not fitting
+     *
+     * @throws IOException
+     *             Should not happen
+     */
+    @Test
+    public void testIncompressible() throws IOException {
+        byte[] data = new byte[4096];
+        new Random(1).nextBytes(data);
+        assertEquals(-1, HTBlockCompressor.compress(data, data.length, new byte[data.length]));
+        roundTrip(data);
+    }
+
+    /**
+     * Test that invalid blocks throw an exception instead of writing out of
+     * bounds
+     */
+    @Test
+    public void testInvalidBlocks() {
+        byte[] data = new byte[1024];
+        byte[] compressed = new byte[2048];
+        int length = HTBlockCompressor.compress(data, data.length, compressed);
+        byte[][] invalids = {
+                Arrays.copyOf(compressed, length - 1),
+                new byte[] { (byte) 0xF0 },
+                new byte[] { 0x10, 1, 5, 0 },
+        };
+        for (byte[] invalid : invalids) {
+            try {
+                HTBlockCompressor.decompress(invalid, 0, invalid.length, new byte[data.length], data.length);
+                throw new AssertionError("Expected an exception for " + Arrays.toString(invalid));
+            } catch (IOException e) {
+                // Expected
+            }
+        }
+    }
+
+    /**
+     * Test that corrupt blocks throw an exception instead of reading past the
+     * end of the block
+     */
+    @Test
+    public void testCorruptBlocks() {
+        /* A block that ends after a match, followed by other data */
+        byte[] src = { 0x10, 'a', 1, 0, 0x40, 'b', 'c', 'd', 'e' };
+        for (int length : new int[] { 4, src.length }) {
+            byte[] block = Arrays.copyOf(src, length);
+            try {
+                HTBlockCompressor.decompress(block, 0, 4, new byte[9], 9);
+                throw new AssertionError("Expected an exception for a block of " + length + " bytes");
+            } catch (IOException e) {
+                // Expected
+            }
+        }
+
+        /* A length extension that overflows */
+        byte[] overflow = new byte[1 << 24];
+        overflow[0] = (byte) 0xF0;
+        Arrays.fill(overflow, 1, overflow.length, (byte) 0xFF);
+        try {
+            HTBlockCompressor.decompress(overflow, 0, overflow.length, new byte[16], 16);
+            throw new AssertionError("Expected an exception for an overflowing length");
+        } catch (IOException e) {
+            // Expected
+        }
+
+        /* Corrupt bytes in a valid block */
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            sb.append("state ").append(i % 11).append(';');
+        }
+        byte[] data = sb.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = new byte[data.length * 2];
+        int length = HTBlockCompressor.compress(data, data.length, compressed);
+        Random random = new Random(7);
+        for (int i = 0; i < 1000; i++) {
+            byte[] corrupt = Arrays.copyOf(compressed, length + 16);
+            corrupt[random.nextInt(length)] = (byte) random.nextInt(256);
+            try {
+                HTBlockCompressor.decompress(corrupt, 0, length, new byte[data.length], data.length);
+            } catch (IOException e) {
+                // Expected for most corruptions
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.statesystem.core.tests.backend.historytree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.tracecompass.internal.statesystem.core.backend.historytree.HTConfig;
+import org.eclipse.tracecompass.internal.statesystem.core.backend.historytree.HTNode;
+import org.eclipse.tracecompass.internal.statesystem.core.backend.historytree.HTNodeCache;
+import org.eclipse.tracecompass.internal.statesystem.core.backend.historytree.LeafNode;
+import org.junit.Test;
+
+import com.google.common.cache.CacheStats;
+
+/**
+ * Tests the byte-weighted, sharded history tree node cache
+ */
+public class HTNodeCacheTest {
+
+    private static final int BLOCK_SIZE = 4096;
+    private static final HTConfig CONFIG = new HTConfig(new File("unused"), BLOCK_SIZE, 3, 1, 0); //$NON-NLS-1$
+
+    private static @NonNull HTNode createNode(int seqNumber) {
+        return new LeafNode(CONFIG, seqNumber, -1, 0);
+    }
+
+    /**
+     * Test that a node is loaded once, then served from the cache
+     *
+     * @throws IOException
+     *             Exceptions from the loader
+     */
+    @Test
+    public void testHitAndMiss() throws IOException {
+        HTNodeCache cache = new HTNodeCache(10 * BLOCK_SIZE, 10 * BLOCK_SIZE);
+        HTNodeCache.Shard shard = cache.createShard(BLOCK_SIZE);
+
+        HTNode node = shard.get(0, HTNodeCacheTest::createNode);
+        assertSame(node, shard.get(0, HTNodeCacheTest::createNode));
+        assertSame(node, shard.getIfPresent(0));
+        assertNull(shard.getIfPresent(1));
+
+        CacheStats stats = shard.getStats();
+        assertEquals(2, stats.hitCount());
+        assertEquals(1, stats.missCount());
+        assertEquals(0, stats.evictionCount());
+        assertEquals(BLOCK_SIZE, shard.getWeight());
+        assertEquals(BLOCK_SIZE, cache.getGlobalWeight());
+    }
+
+    /**
+     * Test that a shard does not grow past the per-history budget and evicts
+     * the least recently used node
+     *
+     * @throws IOException
+     *             Exceptions from the loader
+     */
+    @Test
+    public void testHistoryBudget() throws IOException {
+        HTNodeCache cache = new HTNodeCache(10 * BLOCK_SIZE, 2 * BLOCK_SIZE);
+        HTNodeCache.Shard shard = cache.createShard(BLOCK_SIZE);
+
+        shard.get(0, HTNodeCacheTest::createNode);
+        shard.get(1, HTNodeCacheTest::createNode);
+        /* Access node 0 so that node 1 is the least recently used */
+        shard.get(0, HTNodeCacheTest::createNode);
+        shard.get(2, HTNodeCacheTest::createNode);
+
+        assertNotNull(shard.getIfPresent(0));
+        assertNull(shard.getIfPresent(1));
+        assertNotNull(shard.getIfPresent(2));
+        assertEquals(2 * BLOCK_SIZE, shard.getWeight());
+        assertEquals(1, shard.getStats().evictionCount());
+    }
+
+    /**
+     * Test that the global budget is shared between shards, evicting from the
+     * heaviest one
+     *
+     * @throws IOException
+     *             Exceptions from the loader
+     */
+    @Test
+    public void testGlobalBudget() throws IOException {
+        HTNodeCache cache = new HTNodeCache(4 * BLOCK_SIZE, 3 * BLOCK_SIZE);
+        HTNodeCache.Shard shard1 = cache.createShard(BLOCK_SIZE);
+        HTNodeCache.Shard shard2 = cache.createShard(BLOCK_SIZE);
+
+        shard1.get(0, HTNodeCacheTest::createNode);
+        shard1.get(1, HTNodeCacheTest::createNode);
+        shard1.get(2, HTNodeCacheTest::createNode);
+        shard2.get(0, HTNodeCacheTest::createNode);
+        shard2.get(1, HTNodeCacheTest::createNode);
+
+        assertEquals(4 * BLOCK_SIZE, cache.getGlobalWeight());
+        assertEquals(2 * BLOCK_SIZE, shard1.getWeight());
+        assertEquals(2 * BLOCK_SIZE, shard2.getWeight());
+        assertNull(shard1.getIfPresent(0));
+        assertEquals(1, shard1.getStats().evictionCount());
+        assertEquals(0, shard2.getStats().evictionCount());
+    }
+
+    /**
+     * Test that releasing a shard frees its part of the global budget
+     *
+     * @throws IOException
+     *             Exceptions from the loader
+     */
+    @Test
+    public void testRelease() throws IOException {
+        HTNodeCache cache = new HTNodeCache(10 * BLOCK_SIZE, 10 * BLOCK_SIZE);
+        HTNodeCache.Shard shard = cache.createShard(BLOCK_SIZE);
+
+        shard.get(0, HTNodeCacheTest::createNode);
+        shard.get(1, HTNodeCacheTest::createNode);
+        shard.release();
+
+        assertEquals(0, cache.getGlobalWeight());
+        assertNull(shard.getIfPresent(0));
+
+        /* A released shard does not cache anymore */
+        shard.get(0, HTNodeCacheTest::createNode);
+        assertEquals(0, shard.getWeight());
+        assertEquals(0, cache.getGlobalWeight());
+    }
+}
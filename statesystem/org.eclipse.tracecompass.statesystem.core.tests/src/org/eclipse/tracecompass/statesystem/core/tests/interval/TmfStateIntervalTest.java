@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.statesystem.core.tests.interval;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateInterval;
+import org.eclipse.tracecompass.statesystem.core.interval.TmfStateInterval;
+import org.junit.Test;
+
+/**
+ * Test the equality of {@link TmfStateInterval}
+ */
+public class TmfStateIntervalTest {
+
+    private static final ITmfStateInterval INTERVAL = new TmfStateInterval(10, 20, 3, "value");
+
+    private static void assertEqualIntervals(ITmfStateInterval expected, ITmfStateInterval actual) {
+        assertEquals(expected, actual);
+        assertEquals(actual, expected);
+        assertEquals(expected.hashCode(), actual.hashCode());
+    }
+
+    private static void assertDifferentIntervals(ITmfStateInterval expected, ITmfStateInterval actual) {
+        assertNotEquals(expected, actual);
+        assertNotEquals(actual, expected);
+    }
+
+    /**
+     * Test that the intervals with the same times, attribute and value are
+     * equal and have the same hash code
+     */
+    @Test
+    public void testEquals() {
+        assertEqualIntervals(INTERVAL, INTERVAL);
+        assertEqualIntervals(INTERVAL, new TmfStateInterval(10, 20, 3, "value"));
+        /* The values are compared by value, not by reference */
+        assertEqualIntervals(INTERVAL, new TmfStateInterval(10, 20, 3, new StringBuilder("val").append("ue").toString()));
+        assertEqualIntervals(new TmfStateInterval(10, 20, 3, (Object) null), new TmfStateInterval(10, 20, 3, (Object) null));
+        assertEqualIntervals(new TmfStateInterval(10, 20, 3, 5000), new TmfStateInterval(10, 20, 3, Integer.valueOf(5000)));
+    }
+
+    /**
+     * Test that the intervals that differ by any of their fields are not equal
+     */
+    @Test
+    public void testNotEquals() {
+        assertDifferentIntervals(INTERVAL, new TmfStateInterval(11, 20, 3, "value"));
+        assertDifferentIntervals(INTERVAL, new TmfStateInterval(10, 21, 3, "value"));
+        assertDifferentIntervals(INTERVAL, new TmfStateInterval(10, 20, 4, "value"));
+        assertDifferentIntervals(INTERVAL, new TmfStateInterval(10, 20, 3, "other"));
+        assertDifferentIntervals(INTERVAL, new TmfStateInterval(10, 20, 3, (Object) null));
+        /* Values of different types are different */
+        assertDifferentIntervals(new TmfStateInterval(10, 20, 3, 5), new TmfStateInterval(10, 20, 3, 5L));
+        assertNotEquals(INTERVAL, null);
+        assertNotEquals(INTERVAL, "value");
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2017 Ericsson and others
+ * Copyright (c) 2012, 2026 Ericsson and others
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -15,6 +15,8 @@
 
 package org.eclipse.tracecompass.internal.statesystem.core;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -36,6 +38,7 @@ import org.eclipse.tracecompass.common.core.log.TraceCompassLogUtils;
 import org.eclipse.tracecompass.common.core.log.TraceCompassLogUtils.ScopeLog;
 import org.eclipse.tracecompass.internal.provisional.datastore.core.condition.IntegerRangeCondition;
 import org.eclipse.tracecompass.internal.provisional.datastore.core.condition.TimeRangeCondition;
+import org.eclipse.tracecompass.internal.statesystem.core.backend.historytree.HistoryTreeBackend;
 import org.eclipse.tracecompass.statesystem.core.ITmfStateSystemBuilder;
 import org.eclipse.tracecompass.statesystem.core.backend.IStateHistoryBackend;
 import org.eclipse.tracecompass.statesystem.core.exceptions.AttributeNotFoundException;
@@ -43,6 +46,8 @@ import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedE
 import org.eclipse.tracecompass.statesystem.core.exceptions.StateValueTypeException;
 import org.eclipse.tracecompass.statesystem.core.exceptions.TimeRangeException;
 import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateInterval;
+import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateIntervalCursor;
+import org.eclipse.tracecompass.statesystem.core.interval.StateIntervalCursors;
 import org.eclipse.tracecompass.statesystem.core.statevalue.ITmfStateValue;
 import org.eclipse.tracecompass.statesystem.core.statevalue.ITmfStateValue.Type;
 import org.eclipse.tracecompass.statesystem.core.statevalue.TmfStateValue;
@@ -75,13 +80,16 @@ public class StateSystem implements ITmfStateSystemBuilder {
     /* References to the inner structures */
     private final AttributeTree attributeTree;
     private final TransientState transState;
-    private final IStateHistoryBackend backend;
+    private volatile IStateHistoryBackend backend;
+    /* Backend replaced when resuming, kept for the queries still using it */
+    private @Nullable IStateHistoryBackend previousBackend = null;
 
     /* Latch tracking if the state history is done building or not */
-    private final CountDownLatch finishedLatch = new CountDownLatch(1);
+    private volatile CountDownLatch finishedLatch = new CountDownLatch(1);
 
     private boolean buildCancelled = false;
     private boolean isDisposed = false;
+    private volatile boolean isSuspended = false;
 
     /**
      * New-file constructor. For when you build a state system with a new file,
@@ -122,6 +130,29 @@ public class StateSystem implements ITmfStateSystemBuilder {
         }
     }
 
+    /**
+     * Constructor to resume the construction of a suspended history. The
+     * attribute tree is read from the backend and the ongoing state from the
+     * input.
+     *
+     * @param backend
+     *            The back-end of the suspended history, reopened to append to
+     *            it
+     * @param ongoingState
+     *            The input from which to read the ongoing state, written by
+     *            {@link #suspendHistory(DataOutput)}
+     * @throws IOException
+     *             If there was a problem reading the attribute tree or the
+     *             ongoing state
+     */
+    public StateSystem(@NonNull IStateHistoryBackend backend, @NonNull DataInput ongoingState)
+            throws IOException {
+        this.backend = backend;
+        this.transState = new TransientState(backend);
+        this.attributeTree = new AttributeTree(this, backend.supplyAttributeTreeReader());
+        transState.readOngoingState(ongoingState);
+    }
+
     @Override
     public String getSSID() {
         return backend.getSSID();
@@ -157,9 +188,15 @@ public class StateSystem implements ITmfStateSystemBuilder {
         isDisposed = true;
         if (transState.isActive()) {
             transState.setInactive();
-            buildCancelled = true;
+            /* A suspended history is saved, not cancelled */
+            buildCancelled = !isSuspended;
         }
         backend.dispose();
+        IStateHistoryBackend previous = previousBackend;
+        if (previous != null) {
+            previous.dispose();
+            previousBackend = null;
+        }
     }
 
     // --------------------------------------------------------------------------
@@ -222,8 +259,10 @@ public class StateSystem implements ITmfStateSystemBuilder {
 
     @Override
     public void closeHistory(long endTime) throws TimeRangeException {
-        File attributeTreeFile;
-        long attributeTreeFilePos;
+        if (isSuspended) {
+            /* The history will be closed once it is resumed and completed */
+            return;
+        }
         long realEndTime = endTime;
 
         if (realEndTime < backend.getEndTime()) {
@@ -235,9 +274,50 @@ public class StateSystem implements ITmfStateSystemBuilder {
         }
         transState.closeTransientState(realEndTime);
         backend.finishedBuilding(realEndTime);
+        writeAttributeTree();
+        finishedLatch.countDown(); /* Mark the history as finished building */
+    }
+
+    @Override
+    public synchronized void suspendHistory(DataOutput output) throws IOException {
+        if (!(backend instanceof HistoryTreeBackend) || !transState.isActive() || isSuspended) {
+            throw new IOException("The history of this state system cannot be suspended"); //$NON-NLS-1$
+        }
+        /*
+         * Ignore the state changes from now on, the ongoing state is not
+         * inserted in the backend, it will be restored when resuming. It is
+         * still queried with the backend meanwhile.
+         */
+        transState.freeze();
+        isSuspended = true;
+        transState.writeOngoingState(output);
+
+        long endTime = Math.max(transState.getLatestTime(), backend.getEndTime());
+        backend.finishedBuilding(endTime);
+        writeAttributeTree();
+        finishedLatch.countDown();
+    }
 
-        attributeTreeFile = backend.supplyAttributeTreeWriterFile();
-        attributeTreeFilePos = backend.supplyAttributeTreeWriterFilePosition();
+    @Override
+    public synchronized void resumeHistory(IStateHistoryBackend newBackend) throws IOException {
+        if (!isSuspended || isDisposed || !transState.isActive()) {
+            throw new IOException("The history of this state system is not suspended"); //$NON-NLS-1$
+        }
+        /* The history is being built again */
+        finishedLatch = new CountDownLatch(1);
+        IStateHistoryBackend previous = previousBackend;
+        if (previous != null) {
+            previous.dispose();
+        }
+        previousBackend = backend;
+        backend = newBackend;
+        transState.unfreeze(newBackend);
+        isSuspended = false;
+    }
+
+    private void writeAttributeTree() {
+        File attributeTreeFile = backend.supplyAttributeTreeWriterFile();
+        long attributeTreeFilePos = backend.supplyAttributeTreeWriterFilePosition();
         if (attributeTreeFile != null) {
             /*
              * If null was returned, we simply won't save the attribute tree,
@@ -245,7 +325,6 @@ public class StateSystem implements ITmfStateSystemBuilder {
              */
             getAttributeTree().writeSelf(attributeTreeFile, attributeTreeFilePos);
         }
-        finishedLatch.countDown(); /* Mark the history as finished building */
     }
 
     // --------------------------------------------------------------------------
@@ -648,23 +727,56 @@ public class StateSystem implements ITmfStateSystemBuilder {
 
     private Iterable<@NonNull ITmfStateInterval> query2D(@NonNull Collection<@NonNull Integer> quarks, TimeRangeCondition timeCondition, boolean reverse)
             throws TimeRangeException, IndexOutOfBoundsException {
+        IntegerRangeCondition quarkCondition = getQuarkCondition(quarks, timeCondition);
+        if (quarkCondition == null) {
+            return Collections.emptyList();
+        }
+
+        Iterable<@NonNull ITmfStateInterval> transStateIterable = transState.query2D(quarks, timeCondition);
+        Iterable<@NonNull ITmfStateInterval> backendIterable = backend.query2D(quarkCondition, timeCondition, reverse);
+
+        return Iterables.concat(transStateIterable, backendIterable);
+    }
+
+    /**
+     * Validate the conditions of a 2D query
+     *
+     * @return the condition on the quarks, or null if there are no quarks to
+     *         query
+     */
+    private @Nullable IntegerRangeCondition getQuarkCondition(@NonNull Collection<@NonNull Integer> quarks, TimeRangeCondition timeCondition)
+            throws TimeRangeException, IndexOutOfBoundsException {
         if (timeCondition.min() < getStartTime()) {
             throw new TimeRangeException("Time conditions " + timeCondition.min() + " is lower than state system start time: " + getStartTime()); //$NON-NLS-1$ //$NON-NLS-2$
         }
 
         if (quarks.isEmpty()) {
-            return Collections.emptyList();
+            return null;
         }
 
         IntegerRangeCondition quarkCondition = IntegerRangeCondition.forDiscreteRange(quarks);
         if (quarkCondition.min() < 0 || quarkCondition.max() >= getNbAttributes()) {
             throw new IndexOutOfBoundsException();
         }
+        return quarkCondition;
+    }
 
-        Iterable<@NonNull ITmfStateInterval> transStateIterable = transState.query2D(quarks, timeCondition);
-        Iterable<@NonNull ITmfStateInterval> backendIterable = backend.query2D(quarkCondition, timeCondition, reverse);
+    @Override
+    public ITmfStateIntervalCursor query2DCursor(Collection<@NonNull Integer> quarks, long start, long end)
+            throws StateSystemDisposedException, TimeRangeException, IndexOutOfBoundsException {
+        if (isDisposed) {
+            throw new StateSystemDisposedException();
+        }
 
-        return Iterables.concat(transStateIterable, backendIterable);
+        boolean reverse = start > end;
+        TimeRangeCondition timeCondition = TimeRangeCondition.forContinuousRange(Math.min(start, end), Math.max(start, end));
+        IntegerRangeCondition quarkCondition = getQuarkCondition(quarks, timeCondition);
+        if (quarkCondition == null) {
+            return StateIntervalCursors.fromIterable(Collections.emptyList());
+        }
+
+        ITmfStateIntervalCursor transStateCursor = StateIntervalCursors.fromIterable(transState.query2D(quarks, timeCondition));
+        return StateIntervalCursors.concat(transStateCursor, backend.query2DCursor(quarkCondition, timeCondition, reverse));
     }
 
     @Override
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2016 Ericsson
+ * Copyright (c) 2012, 2026 Ericsson
  * Copyright (c) 2010, 2011 École Polytechnique de Montréal
  * Copyright (c) 2010, 2011 Alexandre Montplaisir <alexandre.montplaisir@gmail.com>
  *
@@ -17,7 +17,12 @@
 
 package org.eclipse.tracecompass.internal.statesystem.core;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -32,6 +37,7 @@ import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.common.core.log.TraceCompassLog;
 import org.eclipse.tracecompass.common.core.log.TraceCompassLogUtils;
 import org.eclipse.tracecompass.internal.provisional.datastore.core.condition.TimeRangeCondition;
+import org.eclipse.tracecompass.internal.statesystem.core.backend.historytree.HTInterval;
 import org.eclipse.tracecompass.statesystem.core.backend.IStateHistoryBackend;
 import org.eclipse.tracecompass.statesystem.core.exceptions.StateValueTypeException;
 import org.eclipse.tracecompass.statesystem.core.exceptions.TimeRangeException;
@@ -55,12 +61,16 @@ public class TransientState {
 
     private static final Logger LOGGER = TraceCompassLog.getLogger(TransientState.class);
 
+    /** Magic number of the saved ongoing state */
+    private static final int ONGOING_STATE_MAGIC = 0x05FFA901;
+
     /* Indicates where to insert state changes that we generate */
-    private final IStateHistoryBackend fBackend;
+    private volatile IStateHistoryBackend fBackend;
 
     private final ReentrantReadWriteLock fRWLock = new ReentrantReadWriteLock(false);
 
     private volatile boolean fIsActive;
+    private volatile boolean fIsFrozen = false;
     private volatile long fLatestTime;
 
     /* A method accessing these arrays will have to go through the lock */
@@ -243,6 +253,77 @@ public class TransientState {
         }
     }
 
+    /**
+     * Write the ongoing state, that is the value and start time of the current
+     * state of every attribute, and the latest time seen so far. The values
+     * are written like the intervals of the history tree.
+     *
+     * @param output
+     *            The output to which the ongoing state is written
+     * @throws IOException
+     *             If there is an error writing the ongoing state
+     */
+    public void writeOngoingState(DataOutput output) throws IOException {
+        fRWLock.readLock().lock();
+        try {
+            output.writeInt(ONGOING_STATE_MAGIC);
+            output.writeLong(fLatestTime);
+            output.writeInt(fOngoingStateInfo.size());
+            for (int quark = 0; quark < fOngoingStateInfo.size(); quark++) {
+                long start = fOngoingStateStartTimes.get(quark);
+                /* The end time is not used, the interval is only a container */
+                HTInterval interval = new HTInterval(start, Math.max(start, fLatestTime), quark, fOngoingStateInfo.get(quark));
+                ByteBuffer buffer = ByteBuffer.allocate(interval.getSizeOnDisk(start));
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                interval.writeInterval(buffer, start);
+                output.writeLong(start);
+                output.writeInt(buffer.position());
+                output.write(buffer.array(), 0, buffer.position());
+            }
+        } finally {
+            fRWLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Restore the ongoing state written by {@link #writeOngoingState}. The
+     * attributes must have been added to this transient state already.
+     *
+     * @param input
+     *            The input from which to read the ongoing state
+     * @throws IOException
+     *             If there is an error reading the ongoing state, or if it
+     *             does not match the attributes
+     */
+    public void readOngoingState(DataInput input) throws IOException {
+        if (input.readInt() != ONGOING_STATE_MAGIC) {
+            throw new IOException("Invalid ongoing state"); //$NON-NLS-1$
+        }
+        long latestTime = input.readLong();
+        int size = input.readInt();
+
+        fRWLock.writeLock().lock();
+        try {
+            if (size != fOngoingStateInfo.size()) {
+                throw new IOException("The ongoing state has " + size + " attributes, expected " + fOngoingStateInfo.size()); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+            for (int quark = 0; quark < size; quark++) {
+                long start = input.readLong();
+                byte[] bytes = new byte[input.readInt()];
+                input.readFully(bytes);
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                Object value = HTInterval.readFrom(buffer, start).getValue();
+                fOngoingStateInfo.set(quark, value);
+                fOngoingStateStartTimes.set(quark, start);
+                fStateValueTypes.set(quark, value != null ? value.getClass() : null);
+            }
+            fLatestTime = latestTime;
+        } finally {
+            fRWLock.writeLock().unlock();
+        }
+    }
+
     /**
      * Add an "empty line" to both "ongoing..." vectors. This is needed so the
      * Ongoing... tables can stay in sync with the number of attributes in the
@@ -285,7 +366,7 @@ public class TransientState {
      */
     public void processStateChange(long eventTime, @Nullable Object value, int quark)
             throws TimeRangeException, StateValueTypeException {
-        if (!this.fIsActive) {
+        if (!this.fIsActive || fIsFrozen) {
             return;
         }
 
@@ -433,7 +514,7 @@ public class TransientState {
      *            change)
      */
     public void closeTransientState(long endTime) {
-        if (!this.fIsActive) {
+        if (!this.fIsActive || fIsFrozen) {
             return;
         }
 
@@ -488,6 +569,37 @@ public class TransientState {
         fIsActive = false;
     }
 
+    /**
+     * Freeze this transient state: the state changes are ignored from now on,
+     * but the ongoing state can still be queried, until
+     * {@link #unfreeze(IStateHistoryBackend)} is called.
+     */
+    public void freeze() {
+        fRWLock.writeLock().lock();
+        try {
+            fIsFrozen = true;
+        } finally {
+            fRWLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Accept the state changes again after {@link #freeze()}, and insert the
+     * generated intervals in a new back-end.
+     *
+     * @param backend
+     *            The back-end in which to insert the generated state intervals
+     */
+    public void unfreeze(IStateHistoryBackend backend) {
+        fRWLock.writeLock().lock();
+        try {
+            fBackend = backend;
+            fIsFrozen = false;
+        } finally {
+            fRWLock.writeLock().unlock();
+        }
+    }
+
     /**
      * Debugging method that prints the contents of the transient state
      *
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2016 Ericsson
+ * Copyright (c) 2013, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -12,21 +12,21 @@
  *   Alexandre Montplaisir - Initial API and implementation
  *   Matthew Khouzam - Modified to use a TreeSet
  *   Patrick Tasse - Add message to exceptions
+ *   Ericsson - Store the intervals in primitive arrays per attribute
  ******************************************************************************/
 
 package org.eclipse.tracecompass.internal.statesystem.core.backend;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.util.Comparator;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.NavigableSet;
-import java.util.TreeSet;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.common.core.log.TraceCompassLog;
 import org.eclipse.tracecompass.common.core.log.TraceCompassLogUtils;
 import org.eclipse.tracecompass.internal.provisional.datastore.core.condition.IntegerRangeCondition;
@@ -35,7 +35,6 @@ import org.eclipse.tracecompass.statesystem.core.backend.IStateHistoryBackend;
 import org.eclipse.tracecompass.statesystem.core.exceptions.TimeRangeException;
 import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateInterval;
 import org.eclipse.tracecompass.statesystem.core.interval.TmfStateInterval;
-import com.google.common.collect.Iterables;
 
 /**
  * State history back-end that stores its intervals in RAM only. It cannot be
@@ -43,9 +42,14 @@ import com.google.common.collect.Iterables;
  * trace. But it's relatively quick to build, so this shouldn't be a problem in
  * most cases.
  *
- * This should only be used with very small state histories (and/or, very small
- * traces). Since it's stored in standard Collections, it's limited to 2^31
- * intervals.
+ * The intervals of each attribute are stored in columns of primitive arrays
+ * (start times, end times and values), sorted by time. A query binary searches
+ * the columns of the queried attributes, so a full query costs O(attributes *
+ * log(intervals)), and the interval objects are only created for the query
+ * results.
+ *
+ * This should only be used with small state histories (and/or, small traces).
+ * Since it's stored in arrays, it's limited to 2^31 intervals per attribute.
  *
  * @author Alexandre Montplaisir
  */
@@ -53,9 +57,79 @@ public class InMemoryBackend implements IStateHistoryBackend {
 
     private static final @NonNull Logger LOGGER = TraceCompassLog.getLogger(InMemoryBackend.class);
 
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The intervals of one attribute, sorted by time. The intervals of an
+     * attribute do not overlap, so the end times are sorted too.
+     */
+    private static final class AttributeIntervals {
+        private long[] fStarts = new long[INITIAL_CAPACITY];
+        private long[] fEnds = new long[INITIAL_CAPACITY];
+        private @Nullable Object[] fValues = new Object[INITIAL_CAPACITY];
+        private int fSize = 0;
+
+        public synchronized void add(long start, long end, @Nullable Object value) {
+            if (fSize == fStarts.length) {
+                int capacity = fSize + (fSize >> 1);
+                fStarts = Arrays.copyOf(fStarts, capacity);
+                fEnds = Arrays.copyOf(fEnds, capacity);
+                fValues = Arrays.copyOf(fValues, capacity);
+            }
+            /* The intervals are almost always inserted in order */
+            int index = fSize;
+            if (fSize > 0 && start < fStarts[fSize - 1]) {
+                index = Arrays.binarySearch(fStarts, 0, fSize, start);
+                index = index < 0 ? -index - 1 : index;
+                System.arraycopy(fStarts, index, fStarts, index + 1, fSize - index);
+                System.arraycopy(fEnds, index, fEnds, index + 1, fSize - index);
+                System.arraycopy(fValues, index, fValues, index + 1, fSize - index);
+            }
+            fStarts[index] = start;
+            fEnds[index] = end;
+            fValues[index] = value;
+            fSize++;
+        }
+
+        /**
+         * Get the index of the first interval that ends at or after a time
+         */
+        private int indexOfEnd(long time) {
+            int low = 0;
+            int high = fSize;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (fEnds[mid] < time) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        public synchronized @Nullable ITmfStateInterval query(long time, int quark) {
+            int index = indexOfEnd(time);
+            if (index < fSize && fStarts[index] <= time) {
+                return new TmfStateInterval(fStarts[index], fEnds[index], quark, fValues[index]);
+            }
+            return null;
+        }
+
+        public synchronized void query(TimeRangeCondition times, int quark, List<@NonNull ITmfStateInterval> intervals) {
+            long max = times.max();
+            for (int index = indexOfEnd(times.min()); index < fSize && fStarts[index] <= max; index++) {
+                if (times.intersects(fStarts[index], fEnds[index])) {
+                    intervals.add(new TmfStateInterval(fStarts[index], fEnds[index], quark, fValues[index]));
+                }
+            }
+        }
+    }
+
     private final @NonNull String ssid;
-    private final NavigableSet<@NonNull ITmfStateInterval> intervals;
     private final long startTime;
+    /** The intervals of each attribute, indexed by quark */
+    private final List<@Nullable AttributeIntervals> attributes = new ArrayList<>();
 
     private volatile long latestTime;
 
@@ -71,14 +145,6 @@ public class InMemoryBackend implements IStateHistoryBackend {
         this.ssid = ssid;
         this.startTime = startTime;
         this.latestTime = startTime;
-        /**
-         * We need to compare the end time and the attribute, because we can
-         * have 2 intervals with the same end time (for different attributes).
-         * And TreeSet needs a unique "key" per element.
-         */
-        this.intervals = new TreeSet<>(Comparator
-                .comparing(ITmfStateInterval::getEndTime)
-                .thenComparing(ITmfStateInterval::getAttribute));
     }
 
     @Override
@@ -104,12 +170,18 @@ public class InMemoryBackend implements IStateHistoryBackend {
             throw new TimeRangeException(ssid + " Interval Start:" + stateStartTime + ", Interval End:" + stateEndTime + ", Backend Start:" + startTime); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
         }
 
-        ITmfStateInterval interval = new TmfStateInterval(stateStartTime, stateEndTime, quark, value);
-
-        /* Add the interval into the tree */
-        synchronized (intervals) {
-            intervals.add(interval);
+        AttributeIntervals column;
+        synchronized (attributes) {
+            while (attributes.size() <= quark) {
+                attributes.add(null);
+            }
+            column = attributes.get(quark);
+            if (column == null) {
+                column = new AttributeIntervals();
+                attributes.set(quark, column);
+            }
         }
+        column.add(stateStartTime, stateEndTime, value);
 
         /* Update the "latest seen time" */
         if (stateEndTime > latestTime) {
@@ -117,6 +189,12 @@ public class InMemoryBackend implements IStateHistoryBackend {
         }
     }
 
+    private @Nullable AttributeIntervals getAttribute(int quark) {
+        synchronized (attributes) {
+            return (quark >= 0 && quark < attributes.size()) ? attributes.get(quark) : null;
+        }
+    }
+
     @Override
     public void doQuery(List<ITmfStateInterval> currentStateInfo, long t)
             throws TimeRangeException {
@@ -124,19 +202,13 @@ public class InMemoryBackend implements IStateHistoryBackend {
             throw new TimeRangeException(ssid + " Time:" + t + ", Start:" + startTime + ", End:" + latestTime); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
         }
 
-        /*
-         * The intervals are sorted by end time, so we can binary search to get
-         * the first possible interval, then only compare their start times.
-         */
-        synchronized (intervals) {
-            Iterator<ITmfStateInterval> iter = searchforEndTime(intervals, 0, t).iterator();
-            for (int modCount = 0; iter.hasNext() && modCount < currentStateInfo.size();) {
-                ITmfStateInterval entry = iter.next();
-                final long entryStartTime = entry.getStartTime();
-                if (entryStartTime <= t) {
-                    /* Add this interval to the returned values */
-                    currentStateInfo.set(entry.getAttribute(), entry);
-                    modCount++;
+        /* Binary search the intervals of each attribute */
+        for (int quark = 0; quark < currentStateInfo.size(); quark++) {
+            AttributeIntervals column = getAttribute(quark);
+            if (column != null) {
+                ITmfStateInterval interval = column.query(t, quark);
+                if (interval != null) {
+                    currentStateInfo.set(quark, interval);
                 }
             }
         }
@@ -149,24 +221,8 @@ public class InMemoryBackend implements IStateHistoryBackend {
             throw new TimeRangeException(ssid + " Time:" + t + ", Start:" + startTime + ", End:" + latestTime); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
         }
 
-        /*
-         * The intervals are sorted by end time, so we can binary search to get
-         * the first possible interval, then only compare their start times.
-         */
-        synchronized (intervals) {
-            Iterable<ITmfStateInterval> iter = searchforEndTime(intervals, attributeQuark, t);
-            for (ITmfStateInterval entry : iter) {
-                final boolean attributeMatches = (entry.getAttribute() == attributeQuark);
-                final long entryStartTime = entry.getStartTime();
-                if (attributeMatches) {
-                    if (entryStartTime <= t) {
-                        /* This is the droid we are looking for */
-                        return entry;
-                    }
-                }
-            }
-        }
-        return null;
+        AttributeIntervals column = getAttribute(attributeQuark);
+        return column == null ? null : column.query(t, attributeQuark);
     }
 
     private boolean checkValidTime(long t) {
@@ -206,11 +262,6 @@ public class InMemoryBackend implements IStateHistoryBackend {
         /* Nothing to do */
     }
 
-    private static Iterable<@NonNull ITmfStateInterval> searchforEndTime(NavigableSet<@NonNull ITmfStateInterval> tree, int quark, long time) {
-        ITmfStateInterval dummyInterval = new TmfStateInterval(-1, time, quark, (Object) null);
-        return tree.tailSet(dummyInterval);
-    }
-
     @Override
     public Iterable<@NonNull ITmfStateInterval> query2D(IntegerRangeCondition quarks, TimeRangeCondition times)
             throws TimeRangeException {
@@ -218,11 +269,18 @@ public class InMemoryBackend implements IStateHistoryBackend {
                 "ssid", getSSID(), //$NON-NLS-1$
                 "quarks", quarks, //$NON-NLS-1$
                 "times", times)) { //$NON-NLS-1$
-            synchronized (intervals) {
-                return Iterables.filter(searchforEndTime(intervals, quarks.min(), times.min()),
-                        interval -> quarks.test(interval.getAttribute())
-                                && times.intersects(interval.getStartTime(), interval.getEndTime()));
+            List<@NonNull ITmfStateInterval> intervals = new ArrayList<>();
+            int max;
+            synchronized (attributes) {
+                max = Math.min(quarks.max(), attributes.size() - 1);
+            }
+            for (int quark = Math.max(0, quarks.min()); quark <= max; quark++) {
+                AttributeIntervals column = getAttribute(quark);
+                if (column != null && quarks.test(quark)) {
+                    column.query(times, quark, intervals);
+                }
             }
+            return intervals;
         }
     }
 
@@ -0,0 +1,242 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.internal.statesystem.core.backend.historytree;
+
+import java.io.IOException;
+
+/**
+ * Block compressor for the payloads of the history tree nodes. It uses the LZ4
+ * block format: a sequence of literals followed by a back-reference to a
+ * previous match, repeated until the last literals of the block.
+ *
+ * Each sequence is encoded as:
+ * <ul>
+ * <li>token (1 byte): literal length (high 4 bits) and match length minus 4
+ * (low 4 bits). A value of 15 means the length continues in the next
+ * bytes</li>
+ * <li>literal length extension (0-n bytes of 255, then one byte &lt; 255)</li>
+ * <li>literals</li>
+ * <li>match offset (2 bytes, little endian)</li>
+ * <li>match length extension (0-n bytes, like the literal length)</li>
+ * </ul>
+ *
+ * The compressor favors speed over ratio: it only keeps the last position of
+ * each hashed 4-byte sequence.
+ */
+public final class HTBlockCompressor {
+
+    private static final int MIN_MATCH = 4;
+    /* The last 5 bytes are always literals */
+    private static final int LAST_LITERALS = 5;
+    /* A match cannot start in the last 12 bytes */
+    private static final int MATCH_FIND_LIMIT = 12;
+    private static final int MAX_OFFSET = 0xFFFF;
+    private static final int HASH_LOG = 12;
+    private static final int RUN_MASK = 0x0F;
+    private static final int EXTENSION_BYTE = 0xFF;
+
+    private HTBlockCompressor() {
+        // Do nothing
+    }
+
+    /**
+     * Compress a block
+     *
+     * @param src
+     *            The bytes to compress
+     * @param srcLength
+     *            The number of bytes to compress, from the start of src
+     * @param dst
+     *            The array in which to write the compressed bytes
+     * @return The length of the compressed block, or -1 if it does not fit in
+     *         dst, in which case the block should be stored uncompressed
+     */
+    public static int compress(byte[] src, int srcLength, byte[] dst) {
+        int[] table = new int[1 << HASH_LOG];
+        int anchor = 0;
+        int op = 0;
+        int ip = 0;
+        int matchLimit = srcLength - LAST_LITERALS;
+        int findLimit = srcLength - MATCH_FIND_LIMIT;
+
+        while (ip < findLimit) {
+            int sequence = readInt(src, ip);
+            int hash = hash(sequence);
+            /* Positions are stored + 1, so 0 means an empty slot */
+            int ref = table[hash] - 1;
+            table[hash] = ip + 1;
+            if (ref < 0 || ip - ref > MAX_OFFSET || readInt(src, ref) != sequence) {
+                ip++;
+                continue;
+            }
+            /* Extend the match backwards, then forwards */
+            while (ip > anchor && ref > 0 && src[ip - 1] == src[ref - 1]) {
+                ip--;
+                ref--;
+            }
+            int matchLength = MIN_MATCH;
+            while (ip + matchLength < matchLimit && src[ref + matchLength] == src[ip + matchLength]) {
+                matchLength++;
+            }
+            op = writeSequence(src, anchor, ip - anchor, ip - ref, matchLength, dst, op);
+            if (op < 0) {
+                return -1;
+            }
+            ip += matchLength;
+            anchor = ip;
+        }
+        return writeSequence(src, anchor, srcLength - anchor, 0, 0, dst, op);
+    }
+
+    /**
+     * Decompress a block
+     *
+     * @param src
+     *            The array containing the compressed block
+     * @param srcOffset
+     *            The offset of the block in src
+     * @param srcLength
+     *            The length of the compressed block
+     * @param dst
+     *            The array in which to decompress the block
+     * @param dstLength
+     *            The expected length of the decompressed block
+     * @throws IOException
+     *             If the compressed block is invalid
+     */
+    public static void decompress(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstLength) throws IOException {
+        int ip = srcOffset;
+        int end = srcOffset + srcLength;
+        int op = 0;
+        if (srcLength <= 0 || end > src.length || dstLength > dst.length) {
+            throw new IOException("Invalid compressed block bounds"); //$NON-NLS-1$
+        }
+        while (true) {
+            /* A match must be followed by another sequence */
+            checkBounds(ip < end);
+            int token = src[ip++] & 0xFF;
+
+            /* Copy the literals */
+            int literalLength = token >>> 4;
+            if (literalLength == RUN_MASK) {
+                int b;
+                do {
+                    checkBounds(ip < end);
+                    b = src[ip++] & 0xFF;
+                    literalLength += b;
+                } while (b == EXTENSION_BYTE);
+            }
+            /* The lengths are compared so that a huge length cannot overflow */
+            checkBounds(literalLength <= end - ip && literalLength <= dstLength - op);
+            System.arraycopy(src, ip, dst, op, literalLength);
+            ip += literalLength;
+            op += literalLength;
+            if (ip == end) {
+                /* The last sequence only has literals */
+                break;
+            }
+
+            /* Copy the match, which may overlap the bytes being written */
+            checkBounds(2 <= end - ip);
+            int offset = (src[ip] & 0xFF) | ((src[ip + 1] & 0xFF) << 8);
+            ip += 2;
+            checkBounds(offset > 0 && offset <= op);
+            int matchLength = token & RUN_MASK;
+            if (matchLength == RUN_MASK) {
+                int b;
+                do {
+                    checkBounds(ip < end);
+                    b = src[ip++] & 0xFF;
+                    matchLength += b;
+                } while (b == EXTENSION_BYTE);
+            }
+            matchLength += MIN_MATCH;
+            checkBounds(matchLength <= dstLength - op);
+            int ref = op - offset;
+            for (int i = 0; i < matchLength; i++) {
+                dst[op++] = dst[ref++];
+            }
+        }
+        if (op != dstLength) {
+            throw new IOException("Expected " + dstLength + " decompressed bytes, but got " + op); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+
+    private static void checkBounds(boolean condition) throws IOException {
+        if (!condition) {
+            throw new IOException("Invalid compressed block"); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Write a sequence of literals, followed by a match if matchLength is not
+     * 0.
+     *
+     * @return The new position in dst, or -1 if the sequence does not fit
+     */
+    private static int writeSequence(byte[] src, int literalStart, int literalLength, int offset, int matchLength, byte[] dst, int dstPosition) {
+        int op = dstPosition;
+        int matchRun = matchLength - MIN_MATCH;
+        if (op + sequenceLength(literalLength, matchLength) > dst.length) {
+            return -1;
+        }
+        int tokenPosition = op++;
+        int token = Math.min(literalLength, RUN_MASK) << 4;
+        op = writeLength(literalLength, dst, op);
+        System.arraycopy(src, literalStart, dst, op, literalLength);
+        op += literalLength;
+        if (matchLength > 0) {
+            token |= Math.min(matchRun, RUN_MASK);
+            dst[op++] = (byte) offset;
+            dst[op++] = (byte) (offset >>> 8);
+            op = writeLength(matchRun, dst, op);
+        }
+        dst[tokenPosition] = (byte) token;
+        return op;
+    }
+
+    private static int sequenceLength(int literalLength, int matchLength) {
+        int length = 1 + extensionLength(literalLength) + literalLength;
+        if (matchLength > 0) {
+            length += 2 + extensionLength(matchLength - MIN_MATCH);
+        }
+        return length;
+    }
+
+    private static int extensionLength(int length) {
+        return (length < RUN_MASK) ? 0 : (length - RUN_MASK) / EXTENSION_BYTE + 1;
+    }
+
+    private static int writeLength(int length, byte[] dst, int dstPosition) {
+        int op = dstPosition;
+        if (length >= RUN_MASK) {
+            int remaining = length - RUN_MASK;
+            while (remaining >= EXTENSION_BYTE) {
+                dst[op++] = (byte) EXTENSION_BYTE;
+                remaining -= EXTENSION_BYTE;
+            }
+            dst[op++] = (byte) remaining;
+        }
+        return op;
+    }
+
+    private static int readInt(byte[] array, int position) {
+        return (array[position] & 0xFF)
+                | ((array[position + 1] & 0xFF) << 8)
+                | ((array[position + 2] & 0xFF) << 16)
+                | ((array[position + 3] & 0xFF) << 24);
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (Integer.SIZE - HASH_LOG);
+    }
+}
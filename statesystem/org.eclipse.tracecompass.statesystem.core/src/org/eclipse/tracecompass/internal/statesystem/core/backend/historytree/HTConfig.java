@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2014 Ericsson
+ * Copyright (c) 2012, 2026 Ericsson
  * Copyright (c) 2010, 2011 École Polytechnique de Montréal
  * Copyright (c) 2010, 2011 Alexandre Montplaisir <alexandre.montplaisir@gmail.com>
  *
@@ -15,6 +15,7 @@
 package org.eclipse.tracecompass.internal.statesystem.core.backend.historytree;
 
 import java.io.File;
+import java.io.IOException;
 
 /**
  * Configuration object for the {@link IHistoryTree}.
@@ -23,6 +24,54 @@ import java.io.File;
  */
 public final class HTConfig {
 
+    /**
+     * Layout of the nodes in the history file
+     */
+    public enum NodeFormat {
+        /**
+         * Each node is written in a fixed-size block, padded with zeros. The
+         * nodes can be located from their sequence number only.
+         */
+        CLASSIC,
+        /**
+         * Each node is written without padding, and the strings that appear
+         * more than once in a node are only written once. The position of
+         * the nodes is saved in an index at the end of the node section.
+         */
+        PACKED,
+        /**
+         * Like {@link #PACKED}, but the nodes are also block-compressed with
+         * {@link HTBlockCompressor}.
+         */
+        COMPRESSED;
+
+        /**
+         * Get the node format from its byte representation
+         *
+         * @param rep
+         *            The byte representation of the format
+         * @return The node format
+         * @throws IOException
+         *             If the format is unknown
+         */
+        public static NodeFormat fromByte(byte rep) throws IOException {
+            if (rep < 0 || rep >= values().length) {
+                throw new IOException("Unknown node format: " + rep); //$NON-NLS-1$
+            }
+            return values()[rep];
+        }
+
+        /**
+         * Get the byte representation of this node format. It can then be
+         * read with {@link #fromByte}.
+         *
+         * @return The byte matching this node format
+         */
+        public byte toByte() {
+            return (byte) ordinal();
+        }
+    }
+
     private static final int DEFAULT_BLOCKSIZE = 64 * 1024;
     private static final int DEFAULT_MAXCHILDREN = 50;
 
@@ -31,6 +80,7 @@ public final class HTConfig {
     private final int maxChildren;
     private final int providerVersion;
     private final long treeStart;
+    private final NodeFormat nodeFormat;
 
     /**
      * Full constructor.
@@ -49,14 +99,40 @@ public final class HTConfig {
      *            uselessly.
      * @param startTime
      *            The start time of the history
+     * @param nodeFormat
+     *            The layout of the nodes in the history file
      */
     public HTConfig(File newStateFile, int blockSize, int maxChildren,
-            int providerVersion, long startTime) {
+            int providerVersion, long startTime, NodeFormat nodeFormat) {
         this.stateFile = newStateFile;
         this.blockSize = blockSize;
         this.maxChildren = maxChildren;
         this.providerVersion = providerVersion;
         this.treeStart = startTime;
+        this.nodeFormat = nodeFormat;
+    }
+
+    /**
+     * Constructor for history files using the classic node format.
+     *
+     * @param newStateFile
+     *            The name of the history file
+     * @param blockSize
+     *            The size of each "block" on disk. One node will always fit in
+     *            one block.
+     * @param maxChildren
+     *            The maximum number of children allowed per core (non-leaf)
+     *            node.
+     * @param providerVersion
+     *            The version of the state provider. If a file already exists,
+     *            and their versions match, the history file will not be rebuilt
+     *            uselessly.
+     * @param startTime
+     *            The start time of the history
+     */
+    public HTConfig(File newStateFile, int blockSize, int maxChildren,
+            int providerVersion, long startTime) {
+        this(newStateFile, blockSize, maxChildren, providerVersion, startTime, NodeFormat.CLASSIC);
     }
 
     /**
@@ -124,4 +200,13 @@ public final class HTConfig {
     public long getTreeStart() {
         return treeStart;
     }
+
+    /**
+     * Get the layout of the nodes in the history file
+     *
+     * @return The node format
+     */
+    public NodeFormat getNodeFormat() {
+        return nodeFormat;
+    }
 }
@@ -20,6 +20,8 @@ package org.eclipse.tracecompass.internal.statesystem.core.backend.historytree;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import org.eclipse.jdt.annotation.NonNull;
@@ -47,12 +49,14 @@ public final class HTInterval implements ITmfStateInterval {
     private static final String errMsg = "Invalid interval data. Maybe your file is corrupt?"; //$NON-NLS-1$
 
     /* 'Byte' equivalent for state values types */
-    private static final byte TYPE_NULL = -1;
-    private static final byte TYPE_INTEGER = 0;
-    private static final byte TYPE_STRING = 1;
-    private static final byte TYPE_LONG = 2;
-    private static final byte TYPE_DOUBLE = 3;
-    private static final byte TYPE_CUSTOM = 20;
+    static final byte TYPE_NULL = -1;
+    static final byte TYPE_INTEGER = 0;
+    static final byte TYPE_STRING = 1;
+    static final byte TYPE_LONG = 2;
+    static final byte TYPE_DOUBLE = 3;
+    /* Index of a string already written in the same node, in packed nodes */
+    static final byte TYPE_STRING_REF = 4;
+    static final byte TYPE_CUSTOM = 20;
 
     private final long fStart;
     private final long fDuration;
@@ -179,7 +183,29 @@ public final class HTInterval implements ITmfStateInterval {
      *             If there was an error reading from the buffer
      */
     public static final HTInterval readFrom(ByteBuffer buffer, long nodeStart) throws IOException {
+        return readFrom(buffer, nodeStart, null);
+    }
+
+    /**
+     * Reader factory method for the intervals of a packed node, in which the
+     * strings that were already written in the node are replaced by their
+     * index. The size on disk of the interval is still the size it would have
+     * in a classic node, so the nodes are filled the same way in both formats.
+     *
+     * @param buffer
+     *            The ByteBuffer from which to read the information
+     * @param nodeStart
+     *            The start time of the node this interval is linked to
+     * @param strings
+     *            The strings read so far in this node, to which new strings
+     *            are added, or null if the node is not packed
+     * @return The interval object
+     * @throws IOException
+     *             If there was an error reading from the buffer
+     */
+    public static final HTInterval readFrom(ByteBuffer buffer, long nodeStart, @Nullable List<String> strings) throws IOException {
         Object value;
+        boolean isReference = false;
 
         int posStart = buffer.position();
         /* Read the Data Section entry */
@@ -212,6 +238,19 @@ public final class HTInterval implements ITmfStateInterval {
             if (res != 0) {
                 throw new IOException(errMsg);
             }
+            if (strings != null) {
+                strings.add((String) value);
+            }
+            break;
+        }
+
+        case TYPE_STRING_REF: {
+            long index = HTVarInt.readLong(buffer);
+            if (strings == null || index < 0 || index >= strings.size()) {
+                throw new IOException(errMsg);
+            }
+            value = strings.get((int) index);
+            isReference = true;
             break;
         }
 
@@ -237,12 +276,54 @@ public final class HTInterval implements ITmfStateInterval {
         }
 
         try {
-            return new HTInterval(intervalStart, intervalEnd, attribute, value, buffer.position() - posStart);
+            HTInterval interval = new HTInterval(intervalStart, intervalEnd, attribute, value, buffer.position() - posStart);
+            if (isReference) {
+                interval.setSizeOnDisk(interval.getSizeOnDisk(nodeStart));
+            }
+            return interval;
         } catch (TimeRangeException e) {
             throw new IOException(errMsg);
         }
     }
 
+    /**
+     * Skip the state value of a serialized interval, without decoding it. The
+     * buffer must be positioned right after the attribute, at the value type.
+     *
+     * @param buffer
+     *            The ByteBuffer from which to read the information
+     * @throws IOException
+     *             If the value type is unknown
+     */
+    static void skipValue(ByteBuffer buffer) throws IOException {
+        byte valueType = buffer.get();
+        int valueSize;
+        switch (valueType) {
+        case TYPE_NULL:
+            valueSize = 0;
+            break;
+        case TYPE_INTEGER:
+            valueSize = Integer.BYTES;
+            break;
+        case TYPE_STRING:
+            /* The string's bytes, then the 0'ed byte at the end */
+            valueSize = buffer.getShort() + 1;
+            break;
+        case TYPE_LONG:
+            valueSize = Long.BYTES;
+            break;
+        case TYPE_DOUBLE:
+            valueSize = Double.BYTES;
+            break;
+        case TYPE_CUSTOM:
+            valueSize = buffer.getShort();
+            break;
+        default:
+            throw new IOException(errMsg);
+        }
+        buffer.position(buffer.position() + valueSize);
+    }
+
     /**
      * Antagonist of the previous constructor, write the Data entry
      * corresponding to this interval in a ByteBuffer (mapped to a block in the
@@ -261,8 +342,28 @@ public final class HTInterval implements ITmfStateInterval {
      *
      * @param buffer
      *            The already-allocated ByteBuffer corresponding to a SHT Node
+     * @param nodeStart
+     *            The start time of the node this interval is linked to
      */
     public void writeInterval(ByteBuffer buffer, long nodeStart) {
+        writeInterval(buffer, nodeStart, null);
+    }
+
+    /**
+     * Write this interval in a packed node, where the strings that were
+     * already written in the node are replaced by their index. The interval is
+     * never bigger than in a classic node.
+     *
+     * @param buffer
+     *            The already-allocated ByteBuffer corresponding to a SHT Node
+     * @param nodeStart
+     *            The start time of the node this interval is linked to
+     * @param strings
+     *            The index of the strings written so far in this node, to
+     *            which new strings are added, or null if the node is not
+     *            packed
+     */
+    public void writeInterval(ByteBuffer buffer, long nodeStart, @Nullable Map<String, Integer> strings) {
         HTVarInt.writeLong(buffer, fStart - nodeStart);
         HTVarInt.writeLong(buffer, fDuration);
         buffer.putInt(fAttribute);
@@ -286,6 +387,15 @@ public final class HTInterval implements ITmfStateInterval {
                 ((CustomStateValue) value).serialize(safeBuffer);
             } else {
                 String string = String.valueOf(value);
+                if (strings != null) {
+                    Integer index = strings.get(string);
+                    if (index != null) {
+                        buffer.put(TYPE_STRING_REF);
+                        HTVarInt.writeLong(buffer, index);
+                        return;
+                    }
+                    strings.put(string, strings.size());
+                }
                 buffer.put(TYPE_STRING);
                 byte[] strArray = string.getBytes(CHARSET);
 
@@ -18,20 +18,25 @@ package org.eclipse.tracecompass.internal.statesystem.core.backend.historytree;
 
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.common.core.log.TraceCompassLog;
 import org.eclipse.tracecompass.common.core.log.TraceCompassLogUtils;
+import org.eclipse.tracecompass.datastore.core.encoding.HTVarInt;
 import org.eclipse.tracecompass.internal.provisional.datastore.core.condition.IntegerRangeCondition;
 import org.eclipse.tracecompass.internal.provisional.datastore.core.condition.TimeRangeCondition;
 import org.eclipse.tracecompass.statesystem.core.exceptions.TimeRangeException;
@@ -144,6 +149,21 @@ public abstract class HTNode {
     /* Vector containing all the intervals contained in this node */
     private final List<HTInterval> fIntervals;
 
+    /*
+     * Read-only view of the interval section, for nodes read from a mapped
+     * file. When it is set, intervals are decoded lazily from this buffer and
+     * fIntervals stays empty.
+     */
+    private @Nullable ByteBuffer fMappedIntervals = null;
+    private int fMappedIntervalCount = 0;
+
+    /*
+     * Positions of the mapped intervals in the interval section, followed by
+     * the size of the section. They are computed on the first read, to binary
+     * search the intervals by end time.
+     */
+    private volatile int @Nullable [] fMappedOffsets = null;
+
     /* Lock used to protect the accesses to intervals, nodeEnd and such */
     private final ReentrantReadWriteLock fRwl = new ReentrantReadWriteLock(false);
 
@@ -196,8 +216,6 @@ public abstract class HTNode {
      */
     public static final @NonNull HTNode readNode(HTConfig config, FileChannel fc, IHistoryTree.IHTNodeFactory nodeFactory)
             throws IOException {
-        HTNode newNode = null;
-
         ByteBuffer buffer = ByteBuffer.allocate(config.getBlockSize());
         buffer.order(ByteOrder.LITTLE_ENDIAN);
         buffer.clear();
@@ -206,6 +224,97 @@ public abstract class HTNode {
             throw new IOException("Expected " + config.getBlockSize() + " block size, but got " + res); //$NON-NLS-1$//$NON-NLS-2$
         }
         buffer.flip();
+        return readNode(config, buffer, nodeFactory, false);
+    }
+
+    /**
+     * Reader factory method. Build a Node object (of the right type) by reading
+     * a block in the file at the given position. The position of the channel
+     * is not modified, so this method can be called concurrently on the same
+     * channel.
+     *
+     * @param config
+     *            Configuration of the History Tree
+     * @param fc
+     *            FileChannel to the history file
+     * @param position
+     *            Position of the start of the node in the file
+     * @param nodeFactory
+     *            The factory to create the nodes for this tree
+     * @return The node object
+     * @throws IOException
+     *             If there was an error reading from the file channel
+     */
+    public static final @NonNull HTNode readNode(HTConfig config, FileChannel fc, long position, IHistoryTree.IHTNodeFactory nodeFactory)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(config.getBlockSize());
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            int res = fc.read(buffer, position + buffer.position());
+            if (res < 0) {
+                throw new IOException("Expected " + config.getBlockSize() + " block size, but got " + buffer.position()); //$NON-NLS-1$//$NON-NLS-2$
+            }
+        }
+        buffer.flip();
+        return readNode(config, buffer, nodeFactory, false);
+    }
+
+    /**
+     * Reader factory method for nodes of a finished history file that is mapped
+     * in memory. Only the header is decoded, the intervals are decoded lazily
+     * from the buffer when the node is queried.
+     *
+     * @param config
+     *            Configuration of the History Tree
+     * @param buffer
+     *            Read-only buffer containing exactly the block of this node.
+     *            It must not be modified afterwards.
+     * @param nodeFactory
+     *            The factory to create the nodes for this tree
+     * @return The node object
+     * @throws IOException
+     *             If the block does not contain a valid node
+     */
+    public static final @NonNull HTNode readMappedNode(HTConfig config, ByteBuffer buffer, IHistoryTree.IHTNodeFactory nodeFactory)
+            throws IOException {
+        if (buffer.remaining() != config.getBlockSize()) {
+            throw new IOException("Expected " + config.getBlockSize() + " block size, but got " + buffer.remaining()); //$NON-NLS-1$//$NON-NLS-2$
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return readNode(config, buffer, nodeFactory, true);
+    }
+
+    /**
+     * Reader factory method for a node written with {@link #writePacked()}.
+     *
+     * @param config
+     *            Configuration of the History Tree
+     * @param buffer
+     *            Buffer containing the packed node
+     * @param nodeFactory
+     *            The factory to create the nodes for this tree
+     * @return The node object
+     * @throws IOException
+     *             If the buffer does not contain a valid node
+     */
+    public static final @NonNull HTNode readPackedNode(HTConfig config, ByteBuffer buffer, IHistoryTree.IHTNodeFactory nodeFactory)
+            throws IOException {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            return readNode(config, buffer, nodeFactory, false, new ArrayList<>());
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated packed node", e); //$NON-NLS-1$
+        }
+    }
+
+    private static @NonNull HTNode readNode(HTConfig config, ByteBuffer buffer, IHistoryTree.IHTNodeFactory nodeFactory, boolean lazy)
+            throws IOException {
+        return readNode(config, buffer, nodeFactory, lazy, null);
+    }
+
+    private static @NonNull HTNode readNode(HTConfig config, ByteBuffer buffer, IHistoryTree.IHTNodeFactory nodeFactory, boolean lazy,
+            @Nullable List<String> strings) throws IOException {
+        HTNode newNode = null;
 
         /* Read the common header part */
         byte typeByte = buffer.get();
@@ -241,10 +350,17 @@ public abstract class HTNode {
          * At this point, we should be done reading the header and 'buffer'
          * should only have the intervals left
          */
-        for (int i = 0; i < intervalCount; i++) {
-            HTInterval interval = HTInterval.readFrom(buffer, start);
-            newNode.fIntervals.add(interval);
-            newNode.fSizeOfIntervalSection += interval.getSizeOnDisk();
+        if (lazy) {
+            newNode.fMappedIntervals = buffer.slice().asReadOnlyBuffer();
+            newNode.fMappedIntervalCount = intervalCount;
+            /* The size of the interval section is computed when needed */
+            newNode.fSizeOfIntervalSection = -1;
+        } else {
+            for (int i = 0; i < intervalCount; i++) {
+                HTInterval interval = HTInterval.readFrom(buffer, start, strings);
+                newNode.fIntervals.add(interval);
+                newNode.fSizeOfIntervalSection += interval.getSizeOnDisk();
+            }
         }
 
         /* Assign the node's other information we have read previously */
@@ -273,28 +389,7 @@ public abstract class HTNode {
         fRwl.readLock().lock();
         try {
             final int blockSize = fConfig.getBlockSize();
-
-            ByteBuffer buffer = ByteBuffer.allocate(blockSize);
-            buffer.order(ByteOrder.LITTLE_ENDIAN);
-            buffer.clear();
-
-            /* Write the common header part */
-            buffer.put(getNodeType().toByte());
-            buffer.putLong(fNodeStart);
-            buffer.putLong(fNodeEnd);
-            buffer.putInt(fMinQuark);
-            buffer.putInt(fMaxQuark);
-            buffer.putInt(fSequenceNumber);
-            buffer.putInt(fParentSequenceNumber);
-            buffer.putInt(fIntervals.size());
-
-            /* Now call the inner method to write the specific header part */
-            writeSpecificHeader(buffer);
-
-            /* Back to us, we write the intervals */
-            for (HTInterval interval : fIntervals) {
-                interval.writeInterval(buffer, fNodeStart);
-            }
+            ByteBuffer buffer = writeContent(null);
             if (blockSize - buffer.position() != getNodeFreeSpace()) {
                 throw new IllegalStateException("Wrong free space: Actual: " + (blockSize - buffer.position()) + ", Expected: " + getNodeFreeSpace()); //$NON-NLS-1$ //$NON-NLS-2$
             }
@@ -318,6 +413,56 @@ public abstract class HTNode {
         fIsOnDisk = true;
     }
 
+    /**
+     * Serialize this node in the packed format, without padding and with the
+     * strings that appear more than once in the node written only once. The
+     * payload is never bigger than the block size.
+     *
+     * @return The buffer containing the node, ready to be read
+     */
+    public final ByteBuffer writePacked() {
+        fRwl.readLock().lock();
+        try {
+            ByteBuffer buffer = writeContent(new HashMap<>());
+            buffer.flip();
+            fIsOnDisk = true;
+            return buffer;
+        } finally {
+            fRwl.readLock().unlock();
+        }
+    }
+
+    /**
+     * Write the header and intervals of this node in a new buffer of the block
+     * size. Must be called with the read lock held.
+     */
+    private ByteBuffer writeContent(@Nullable Map<String, Integer> strings) {
+        List<HTInterval> intervals = getIntervals();
+
+        ByteBuffer buffer = ByteBuffer.allocate(fConfig.getBlockSize());
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.clear();
+
+        /* Write the common header part */
+        buffer.put(getNodeType().toByte());
+        buffer.putLong(fNodeStart);
+        buffer.putLong(fNodeEnd);
+        buffer.putInt(fMinQuark);
+        buffer.putInt(fMaxQuark);
+        buffer.putInt(fSequenceNumber);
+        buffer.putInt(fParentSequenceNumber);
+        buffer.putInt(intervals.size());
+
+        /* Now call the inner method to write the specific header part */
+        writeSpecificHeader(buffer);
+
+        /* Back to us, we write the intervals */
+        for (HTInterval interval : intervals) {
+            interval.writeInterval(buffer, fNodeStart, strings);
+        }
+        return buffer;
+    }
+
     // ------------------------------------------------------------------------
     // Accessors
     // ------------------------------------------------------------------------
@@ -401,6 +546,9 @@ public abstract class HTNode {
     public void addInterval(HTInterval newInterval) {
         fRwl.writeLock().lock();
         try {
+            if (fMappedIntervals != null) {
+                throw new IllegalStateException("Cannot add intervals to a node read from a mapped file"); //$NON-NLS-1$
+            }
             /*
              * Just in case, should be checked before even calling this function
              */
@@ -460,6 +608,23 @@ public abstract class HTNode {
         }
     }
 
+    /**
+     * Reopen a node of the latest branch of a tree that was read from disk, so
+     * that intervals can be added to it again. It keeps its current end time
+     * until it is closed again.
+     */
+    public void reopenThisNode() {
+        fRwl.writeLock().lock();
+        try {
+            if (fMappedIntervals != null) {
+                throw new IllegalStateException("Cannot reopen a node read from a mapped file"); //$NON-NLS-1$
+            }
+            fIsOnDisk = false;
+        } finally {
+            fRwl.writeLock().unlock();
+        }
+    }
+
     /**
      * The method to fill up the stateInfo (passed on from the Current State
      * Tree when it does a query on the SHT). We'll replace the data in that
@@ -478,6 +643,14 @@ public abstract class HTNode {
         /* This is from a state system query, we are "reading" this node */
         fRwl.readLock().lock();
         try {
+            ByteBuffer mapped = fMappedIntervals;
+            if (mapped != null) {
+                for (HTInterval interval : readMappedIntervals(mapped, t,
+                        (start, end, attribute) -> start <= t && attribute < stateInfo.size(), false)) {
+                    stateInfo.set(interval.getAttribute(), interval);
+                }
+                return;
+            }
             for (int i = getStartIndexFor(t); i < fIntervals.size(); i++) {
                 /*
                  * Now we only have to compare the Start times, since we now the
@@ -516,6 +689,12 @@ public abstract class HTNode {
         try (TraceCompassLogUtils.ScopeLog log = new TraceCompassLogUtils.ScopeLog(LOGGER, Level.FINEST, "HTNode:singleQuery", //$NON-NLS-1$
                 "time", t, //$NON-NLS-1$
                 "attribute", key)) { //$NON-NLS-1$
+            ByteBuffer mapped = fMappedIntervals;
+            if (mapped != null) {
+                List<HTInterval> found = readMappedIntervals(mapped, t,
+                        (start, end, attribute) -> attribute == key && start <= t, true);
+                return found.isEmpty() ? null : found.get(0);
+            }
             for (int i = getStartIndexFor(t); i < fIntervals.size(); i++) {
                 HTInterval curInterval = fIntervals.get(i);
                 if (curInterval.getAttribute() == key
@@ -547,6 +726,11 @@ public abstract class HTNode {
         try (TraceCompassLogUtils.ScopeLog log = new TraceCompassLogUtils.ScopeLog(LOGGER, Level.FINEST, "HTNode:query2D", //$NON-NLS-1$
                 "quarks", quarks, //$NON-NLS-1$
                 "times", times)) { //$NON-NLS-1$
+            ByteBuffer mapped = fMappedIntervals;
+            if (mapped != null) {
+                return readMappedIntervals(mapped, times.min(),
+                        (start, end, attribute) -> quarks.test(attribute) && times.intersects(start, end), false);
+            }
             List<@NonNull HTInterval> intervals = new ArrayList<>();
             for (HTInterval interval : fIntervals.subList(getStartIndexFor(times.min()), fIntervals.size())) {
                 if (quarks.test(interval.getAttribute())
@@ -560,6 +744,168 @@ public abstract class HTNode {
         }
     }
 
+    /**
+     * Filter on the fixed part of a serialized interval, used to decide
+     * whether the rest of a mapped interval should be decoded.
+     */
+    @FunctionalInterface
+    private interface IMappedIntervalFilter {
+        boolean accept(long start, long end, int attribute);
+    }
+
+    /**
+     * Decode the intervals of a mapped node that end at or after a time and
+     * are accepted by the filter. The state value of the other intervals is
+     * skipped without being decoded.
+     */
+    private List<@NonNull HTInterval> readMappedIntervals(ByteBuffer mapped, long t, IMappedIntervalFilter filter, boolean firstOnly) {
+        ByteBuffer buffer = mapped.duplicate();
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int[] offsets = getMappedOffsets(mapped);
+        int index = getMappedStartIndexFor(buffer, offsets, t);
+        buffer.position(offsets[index]);
+        List<@NonNull HTInterval> intervals = new ArrayList<>();
+        try {
+            for (int i = index; i < fMappedIntervalCount; i++) {
+                int position = buffer.position();
+                long start = HTVarInt.readLong(buffer) + fNodeStart;
+                long end = HTVarInt.readLong(buffer) + start;
+                int attribute = buffer.getInt();
+                if (filter.accept(start, end, attribute)) {
+                    buffer.position(position);
+                    intervals.add(HTInterval.readFrom(buffer, fNodeStart));
+                    if (firstOnly) {
+                        break;
+                    }
+                } else {
+                    HTInterval.skipValue(buffer);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Invalid interval data in node " + fSequenceNumber, e); //$NON-NLS-1$
+        }
+        return intervals;
+    }
+
+    /**
+     * Get all the intervals of this node, decoding them if the node is mapped.
+     * Should only be called by methods with the readLock taken.
+     */
+    private List<HTInterval> getIntervals() {
+        ByteBuffer mapped = fMappedIntervals;
+        if (mapped == null) {
+            return fIntervals;
+        }
+        return new ArrayList<>(readMappedIntervals(mapped, Long.MIN_VALUE, (start, end, attribute) -> true, false));
+    }
+
+    /**
+     * Get a view of the interval section of a node read from a mapped file,
+     * for cursors that decode intervals in place. It is positioned on the
+     * first interval that may intersect a timestamp, and its limit is the end
+     * of the interval section.
+     *
+     * @param t
+     *            The timestamp
+     * @return The interval section, or <code>null</code> if this node is not
+     *         mapped
+     */
+    @Nullable ByteBuffer getMappedIntervals(long t) {
+        ByteBuffer mapped = fMappedIntervals;
+        if (mapped == null) {
+            return null;
+        }
+        ByteBuffer buffer = mapped.duplicate();
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int[] offsets = getMappedOffsets(mapped);
+        int index = getMappedStartIndexFor(buffer, offsets, t);
+        buffer.limit(offsets[fMappedIntervalCount]);
+        buffer.position(offsets[index]);
+        return buffer;
+    }
+
+    /**
+     * Get the positions of the intervals in the interval section of a mapped
+     * node, followed by the size of the section
+     */
+    private int[] getMappedOffsets(ByteBuffer mapped) {
+        int[] offsets = fMappedOffsets;
+        if (offsets != null) {
+            return offsets;
+        }
+        /* Skip through the intervals to find where they start */
+        ByteBuffer buffer = mapped.duplicate();
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        offsets = new int[fMappedIntervalCount + 1];
+        try {
+            for (int i = 0; i < fMappedIntervalCount; i++) {
+                offsets[i] = buffer.position();
+                HTVarInt.readLong(buffer);
+                HTVarInt.readLong(buffer);
+                buffer.getInt();
+                HTInterval.skipValue(buffer);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Invalid interval data in node " + fSequenceNumber, e); //$NON-NLS-1$
+        }
+        offsets[fMappedIntervalCount] = buffer.position();
+        fMappedOffsets = offsets;
+        return offsets;
+    }
+
+    /**
+     * Binary search the first mapped interval that ends at or after a time,
+     * like {@link #getStartIndexFor(long)} does for the intervals in memory.
+     * Only the times of the probed intervals are decoded.
+     */
+    private int getMappedStartIndexFor(ByteBuffer buffer, int[] offsets, long t) {
+        int low = 0;
+        int high = fMappedIntervalCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            buffer.position(offsets[mid]);
+            long start = HTVarInt.readLong(buffer) + fNodeStart;
+            long end = HTVarInt.readLong(buffer) + start;
+            if (end < t) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Get the intervals of a node whose intervals are final, without copying
+     * them, starting at the first one that may intersect a timestamp. The
+     * intervals of a node that is on disk cannot change anymore, so they can
+     * be scanned without holding the lock.
+     *
+     * @param t
+     *            The timestamp
+     * @return The intervals, or <code>null</code> if the node is not on disk
+     *         yet and its intervals could still change
+     */
+    @Nullable List<HTInterval> getFinalIntervals(long t) {
+        if (!fIsOnDisk) {
+            return null;
+        }
+        fRwl.readLock().lock();
+        try {
+            return fIntervals.subList(getStartIndexFor(t), fIntervals.size());
+        } finally {
+            fRwl.readLock().unlock();
+        }
+    }
+
+    private int getSizeOfIntervalSection() {
+        ByteBuffer mapped = fMappedIntervals;
+        if (mapped != null && fSizeOfIntervalSection < 0) {
+            fSizeOfIntervalSection = getMappedOffsets(mapped)[fMappedIntervalCount];
+        }
+        return fSizeOfIntervalSection;
+    }
+
     private int getStartIndexFor(long t) throws TimeRangeException {
         /* Should only be called by methods with the readLock taken */
 
@@ -593,7 +939,7 @@ public abstract class HTNode {
      * @return The offset, within the node, where the Data section ends
      */
     private int getDataSectionEndOffset() {
-        return getTotalHeaderSize() + fSizeOfIntervalSection;
+        return getTotalHeaderSize() + getSizeOfIntervalSection();
     }
 
     /**
@@ -672,7 +1018,7 @@ public abstract class HTNode {
                 fSequenceNumber,
                 (fParentSequenceNumber == -1) ? "Root" : "Parent #" + fParentSequenceNumber,
                 toStringSpecific(),
-                fIntervals.size(),
+                (fMappedIntervals != null) ? fMappedIntervalCount : fIntervals.size(),
                 getNodeUsagePercent(),
                 fNodeStart,
                 (fIsOnDisk || fNodeEnd != 0) ? fNodeEnd : "...");
@@ -705,8 +1051,13 @@ public abstract class HTNode {
 
         /* List of intervals in the node */
         writer.println("  Intervals contained:");
-        for (int i = 0; i < fIntervals.size(); i++) {
-            writer.println(fIntervals.get(i).toString());
+        fRwl.readLock().lock();
+        try {
+            for (HTInterval interval : getIntervals()) {
+                writer.println(interval.toString());
+            }
+        } finally {
+            fRwl.readLock().unlock();
         }
         writer.println('\n');
     }
@@ -0,0 +1,306 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.internal.statesystem.core.backend.historytree;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.common.core.log.TraceCompassLog;
+import org.eclipse.tracecompass.common.core.log.TraceCompassLogUtils;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.CacheStats;
+
+/**
+ * Cache of history tree nodes, shared by all the {@link HT_IO} objects.
+ *
+ * Each history tree gets its own {@link Shard}, so lookups from different
+ * trees never contend on the same lock. Shards are weighed in bytes, using the
+ * block size of their tree, and are bounded by two budgets: a per-history
+ * budget, and a global budget shared by all open histories. When the global
+ * budget is exceeded, the least recently used nodes of the heaviest shard are
+ * evicted first.
+ *
+ * The budgets can be configured with the {@link #GLOBAL_SIZE_PROPERTY} and
+ * {@link #HISTORY_SIZE_PROPERTY} system properties, in bytes.
+ */
+public final class HTNodeCache {
+
+    private static final @NonNull Logger LOGGER = TraceCompassLog.getLogger(HTNodeCache.class);
+
+    /** System property to set the global cache budget, in bytes */
+    public static final String GLOBAL_SIZE_PROPERTY = "org.eclipse.tracecompass.statesystem.core.nodeCache.globalSize"; //$NON-NLS-1$
+
+    /** System property to set the cache budget of one history, in bytes */
+    public static final String HISTORY_SIZE_PROPERTY = "org.eclipse.tracecompass.statesystem.core.nodeCache.historySize"; //$NON-NLS-1$
+
+    private static final long DEFAULT_GLOBAL_SIZE = 256L * 1024 * 1024;
+    private static final long DEFAULT_HISTORY_SIZE = 32L * 1024 * 1024;
+
+    private static final HTNodeCache INSTANCE = new HTNodeCache(
+            getSizeProperty(GLOBAL_SIZE_PROPERTY, DEFAULT_GLOBAL_SIZE),
+            getSizeProperty(HISTORY_SIZE_PROPERTY, DEFAULT_HISTORY_SIZE));
+
+    /**
+     * Function used to read a node from disk on a cache miss
+     */
+    @FunctionalInterface
+    public interface INodeLoader {
+        /**
+         * Load the node with the given sequence number
+         *
+         * @param seqNumber
+         *            The sequence number of the node
+         * @return The node
+         * @throws IOException
+         *             Exceptions thrown while reading the node
+         */
+        @NonNull HTNode load(int seqNumber) throws IOException;
+    }
+
+    private final long fGlobalBudget;
+    private final long fHistoryBudget;
+    private final AtomicLong fGlobalWeight = new AtomicLong();
+    private final Set<Shard> fShards = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructor
+     *
+     * @param globalBudget
+     *            The maximum weight, in bytes, of all the shards of this cache
+     * @param historyBudget
+     *            The maximum weight, in bytes, of a single shard
+     */
+    @VisibleForTesting
+    public HTNodeCache(long globalBudget, long historyBudget) {
+        fGlobalBudget = globalBudget;
+        fHistoryBudget = Math.min(globalBudget, historyBudget);
+    }
+
+    /**
+     * Get the node cache shared by all history trees
+     *
+     * @return The node cache instance
+     */
+    public static HTNodeCache getInstance() {
+        return INSTANCE;
+    }
+
+    private static long getSizeProperty(String property, long defaultValue) {
+        Long value = Long.getLong(property);
+        if (value == null || value <= 0) {
+            return defaultValue;
+        }
+        return value;
+    }
+
+    /**
+     * Create a new shard for a history tree. The shard should be released
+     * with {@link Shard#release()} when the history tree is closed.
+     *
+     * @param nodeWeight
+     *            The weight of one node of this tree, typically its block size
+     * @return The new shard
+     */
+    public Shard createShard(int nodeWeight) {
+        Shard shard = new Shard(nodeWeight);
+        fShards.add(shard);
+        return shard;
+    }
+
+    /**
+     * Get the total weight of the nodes currently cached
+     *
+     * @return The global weight, in bytes
+     */
+    public long getGlobalWeight() {
+        return fGlobalWeight.get();
+    }
+
+    /**
+     * Evict nodes from the heaviest shards until the global weight fits in the
+     * global budget.
+     */
+    private void trimToGlobalBudget() {
+        while (fGlobalWeight.get() > fGlobalBudget) {
+            Shard heaviest = null;
+            for (Shard shard : fShards) {
+                if (heaviest == null || shard.getWeight() > heaviest.getWeight()) {
+                    heaviest = shard;
+                }
+            }
+            if (heaviest == null || !heaviest.evictEldest()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * The part of the cache that holds the nodes of one history tree. Nodes are
+     * evicted in least recently used order.
+     */
+    public final class Shard {
+
+        private final long fNodeWeight;
+        private final long fMaxWeight;
+        private final Map<Integer, @NonNull HTNode> fNodes = new LinkedHashMap<>(16, 0.75f, true);
+
+        private final LongAdder fHitCount = new LongAdder();
+        private final LongAdder fMissCount = new LongAdder();
+        private final LongAdder fEvictionCount = new LongAdder();
+        private final LongAdder fLoadTime = new LongAdder();
+
+        private long fWeight = 0;
+        private boolean fReleased = false;
+
+        private Shard(int nodeWeight) {
+            fNodeWeight = nodeWeight;
+            /* Always allow at least one node per shard */
+            fMaxWeight = Math.max(fHistoryBudget, nodeWeight);
+        }
+
+        /**
+         * Get a node from the cache, loading it with the loader if it is not
+         * present.
+         *
+         * @param seqNumber
+         *            The sequence number of the node
+         * @param loader
+         *            The loader to use on a cache miss
+         * @return The node
+         * @throws IOException
+         *             Exceptions thrown by the loader
+         */
+        public @NonNull HTNode get(int seqNumber, INodeLoader loader) throws IOException {
+            HTNode node = getIfPresent(seqNumber);
+            if (node != null) {
+                return node;
+            }
+            fMissCount.increment();
+            TraceCompassLogUtils.traceInstant(LOGGER, Level.FINEST, "Ht_Io:CacheMiss", "seqNum", seqNumber); //$NON-NLS-1$ //$NON-NLS-2$
+            long start = System.nanoTime();
+            node = loader.load(seqNumber);
+            fLoadTime.add(System.nanoTime() - start);
+            put(seqNumber, node);
+            return node;
+        }
+
+        /**
+         * Get a node from the cache, only if it is present. A miss is not
+         * counted in the statistics.
+         *
+         * @param seqNumber
+         *            The sequence number of the node
+         * @return The cached node, or <code>null</code> if it is not in the
+         *         cache
+         */
+        public @Nullable HTNode getIfPresent(int seqNumber) {
+            HTNode node;
+            synchronized (this) {
+                node = fNodes.get(seqNumber);
+            }
+            if (node != null) {
+                fHitCount.increment();
+            }
+            return node;
+        }
+
+        /**
+         * Put a node in the cache, replacing any node with the same sequence
+         * number.
+         *
+         * @param seqNumber
+         *            The sequence number of the node
+         * @param node
+         *            The node
+         */
+        public void put(int seqNumber, @NonNull HTNode node) {
+            synchronized (this) {
+                if (fReleased) {
+                    return;
+                }
+                if (fNodes.put(seqNumber, node) == null) {
+                    fWeight += fNodeWeight;
+                    fGlobalWeight.addAndGet(fNodeWeight);
+                }
+                while (fWeight > fMaxWeight && evictEldest()) {
+                    /* Keep evicting until the shard fits in its budget */
+                }
+            }
+            trimToGlobalBudget();
+        }
+
+        /**
+         * Evict the least recently used node of this shard
+         *
+         * @return Whether a node was evicted
+         */
+        private synchronized boolean evictEldest() {
+            Iterator<Integer> iterator = fNodes.keySet().iterator();
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            Integer seqNumber = iterator.next();
+            iterator.remove();
+            fWeight -= fNodeWeight;
+            fGlobalWeight.addAndGet(-fNodeWeight);
+            fEvictionCount.increment();
+            TraceCompassLogUtils.traceInstant(LOGGER, Level.FINEST, "Ht_Io:CacheEvict", "seqNum", seqNumber); //$NON-NLS-1$ //$NON-NLS-2$
+            return true;
+        }
+
+        /**
+         * Get the current weight of this shard
+         *
+         * @return The weight, in bytes
+         */
+        public synchronized long getWeight() {
+            return fWeight;
+        }
+
+        /**
+         * Get the statistics of this shard. The load counts are the same as
+         * the miss count, as node loads are not deduplicated.
+         *
+         * @return The cache statistics
+         */
+        public CacheStats getStats() {
+            long misses = fMissCount.sum();
+            return new CacheStats(fHitCount.sum(), misses, misses, 0, fLoadTime.sum(), fEvictionCount.sum());
+        }
+
+        /**
+         * Remove all the nodes of this shard from the cache and unregister it.
+         * The shard can still be queried afterwards, but it will not cache
+         * nodes anymore.
+         */
+        public void release() {
+            synchronized (this) {
+                fReleased = true;
+                fNodes.clear();
+                fGlobalWeight.addAndGet(-fWeight);
+                fWeight = 0;
+            }
+            fShards.remove(this);
+        }
+    }
+}
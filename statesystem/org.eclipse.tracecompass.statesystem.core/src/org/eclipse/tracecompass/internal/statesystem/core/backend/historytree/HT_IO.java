@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2018 Ericsson
+ * Copyright (c) 2012, 2026 Ericsson
  * Copyright (c) 2010, 2011 École Polytechnique de Montréal
  * Copyright (c) 2010, 2011 Alexandre Montplaisir <alexandre.montplaisir@gmail.com>
  *
@@ -16,15 +16,18 @@ package org.eclipse.tracecompass.internal.statesystem.core.backend.historytree;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.Deque;
 import java.util.Iterator;
-import java.util.Objects;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -35,9 +38,7 @@ import org.eclipse.tracecompass.common.core.log.TraceCompassLogUtils;
 import org.eclipse.tracecompass.internal.statesystem.core.Activator;
 import org.eclipse.tracecompass.internal.statesystem.core.backend.historytree.IHistoryTree.IHTNodeFactory;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.google.common.cache.CacheStats;
 
 /**
  * This class abstracts inputs/outputs of the HistoryTree nodes.
@@ -54,63 +55,27 @@ public class HT_IO {
 
     private static final @NonNull Logger LOGGER = TraceCompassLog.getLogger(HT_IO.class);
 
-    // ------------------------------------------------------------------------
-    // Global cache of nodes
-    // ------------------------------------------------------------------------
-
-    private static final class CacheKey {
-
-        public final HT_IO fStateHistory;
-        public final int fSeqNumber;
-
-        public CacheKey(HT_IO stateHistory, int seqNumber) {
-            fStateHistory = stateHistory;
-            fSeqNumber = seqNumber;
-        }
-
-        @Override
-        public int hashCode() {
-            return Objects.hash(fStateHistory.fConfig.getStateFile().getAbsolutePath(), fSeqNumber);
-        }
-
-        @Override
-        public boolean equals(@Nullable Object obj) {
-            if (this == obj) {
-                return true;
-            }
-            if (obj == null) {
-                return false;
-            }
-            if (getClass() != obj.getClass()) {
-                return false;
-            }
-            CacheKey other = (CacheKey) obj;
-            return (fStateHistory.equals(other.fStateHistory) &&
-                    fSeqNumber == other.fSeqNumber);
-        }
-    }
-
-    private static final int CACHE_SIZE = 200;
-
-    private static final class HTNodeCacheLoader extends CacheLoader<CacheKey, HTNode> {
-        @Override
-        public HTNode load(CacheKey key) throws IOException {
-            HT_IO io = key.fStateHistory;
-            int seqNb = key.fSeqNumber;
-
-            TraceCompassLogUtils.traceInstant(LOGGER, Level.FINEST, "Ht_Io:CacheMiss", "seqNum", seqNb); //$NON-NLS-1$ //$NON-NLS-2$
-
-            synchronized (io) {
-                io.seekFCToNodePos(io.fFileChannelIn, seqNb);
-                return HTNode.readNode(io.fConfig, io.fFileChannelIn, key.fStateHistory.fNodeFactory);
-            }
-        }
-    }
+    /**
+     * System property to read finished history files through memory-mapped
+     * windows instead of file channel reads. Nodes read this way decode their
+     * intervals lazily from the mapping.
+     */
+    public static final String MAPPED_READS_PROPERTY = "org.eclipse.tracecompass.statesystem.core.mappedReads"; //$NON-NLS-1$
 
-    private static final HTNodeCacheLoader NODE_LOADER = new HTNodeCacheLoader();
+    /** Approximate size of each mapped window of the file */
+    private static final long MAPPED_WINDOW_SIZE = 64L * 1024 * 1024;
 
-    private static final LoadingCache<CacheKey, HTNode> NODE_CACHE = CacheBuilder.newBuilder()
-            .maximumSize(CACHE_SIZE).build(NODE_LOADER);
+    /**
+     * Header of each node record of a packed file:
+     *
+     * <pre>
+     *  1 - byte (encoding of the payload)
+     *  8 - 2x int (length of the node, length of the payload)
+     * </pre>
+     */
+    private static final int RECORD_HEADER_SIZE = Byte.BYTES + 2 * Integer.BYTES;
+    private static final byte RECORD_RAW = 0;
+    private static final byte RECORD_COMPRESSED = 1;
 
     // ------------------------------------------------------------------------
     // Instance fields
@@ -121,18 +86,45 @@ public class HT_IO {
 
     /* Fields related to the file I/O */
     private final FileInputStream fFileInputStream;
-    private final FileOutputStream fFileOutputStream;
+    private final RandomAccessFile fFileOutput;
     private final FileChannel fFileChannelIn;
     private final FileChannel fFileChannelOut;
 
     private final IHTNodeFactory fNodeFactory;
 
+    /*
+     * Nodes are read with positional reads, so concurrent readers do not
+     * contend with each other, but they must not read a block while it is
+     * being written.
+     */
+    private final ReentrantReadWriteLock fRwl = new ReentrantReadWriteLock(false);
+
+    /* This tree's part of the node cache shared by all history trees */
+    private final HTNodeCache.Shard fNodeCache;
+
+    /*
+     * Memory-mapped windows of a read-only file, each one containing
+     * fNodesPerWindow nodes. Null if the file is not read through mappings.
+     */
+    private final MappedByteBuffer @Nullable [] fMappedWindows;
+    private final int fNodesPerWindow;
+
+    /*
+     * Position of the record of each node in a packed file, by sequence
+     * number, and end of the last record, or of the node index once it is
+     * written. Protected by fRwl.
+     */
+    private final boolean fPacked;
+    private long[] fNodePositions = new long[0];
+    private long fPackedEnd = IHistoryTree.TREE_HEADER_SIZE;
+
     // ------------------------------------------------------------------------
     // Methods
     // ------------------------------------------------------------------------
 
     /**
-     * Standard constructor
+     * Standard constructor. Existing files are read through memory mappings if
+     * the {@link #MAPPED_READS_PROPERTY} system property is set.
      *
      * @param config
      *            The configuration object for the StateHistoryTree
@@ -145,6 +137,31 @@ public class HT_IO {
      *             An exception can be thrown when file cannot be accessed
      */
     public HT_IO(HTConfig config, boolean newFile, IHTNodeFactory nodeFactory) throws IOException {
+        this(config, newFile, nodeFactory, !newFile && Boolean.getBoolean(MAPPED_READS_PROPERTY));
+    }
+
+    /**
+     * Constructor
+     *
+     * @param config
+     *            The configuration object for the StateHistoryTree
+     * @param newFile
+     *            Flag indicating that the file must be created from scratch
+     * @param nodeFactory
+     *            The factory to create new nodes for this tree
+     * @param mappedReads
+     *            Whether to read the nodes through memory mappings of the
+     *            file. Should only be used for finished files, which will not
+     *            be written to anymore. It is ignored for packed node formats,
+     *            whose nodes are always decoded when they are read.
+     *
+     * @throws IOException
+     *             An exception can be thrown when file cannot be accessed
+     */
+    public HT_IO(HTConfig config, boolean newFile, IHTNodeFactory nodeFactory, boolean mappedReads) throws IOException {
+        if (newFile && mappedReads) {
+            throw new IllegalArgumentException("Only existing files can be read through mappings"); //$NON-NLS-1$
+        }
         fConfig = config;
 
         File historyTreeFile = config.getStateFile();
@@ -164,18 +181,31 @@ public class HT_IO {
                         historyTreeFile.getName());
             }
             fFileInputStream = new FileInputStream(historyTreeFile);
-            fFileOutputStream = new FileOutputStream(historyTreeFile, false);
+            fFileOutput = new RandomAccessFile(historyTreeFile, "rw"); //$NON-NLS-1$
         } else {
             /*
              * We want to open an existing file, make sure we don't squash the
-             * existing content when opening the fos!
+             * existing content. The file is not opened in append mode, so the
+             * nodes of a tree that is resumed can be written back in place.
              */
             fFileInputStream = new FileInputStream(historyTreeFile);
-            fFileOutputStream = new FileOutputStream(historyTreeFile, true);
+            fFileOutput = new RandomAccessFile(historyTreeFile, "rw"); //$NON-NLS-1$
         }
         fFileChannelIn = fFileInputStream.getChannel();
-        fFileChannelOut = fFileOutputStream.getChannel();
+        fFileChannelOut = fFileOutput.getChannel();
         fNodeFactory = nodeFactory;
+        fNodeCache = HTNodeCache.getInstance().createShard(config.getBlockSize());
+        fPacked = (config.getNodeFormat() != HTConfig.NodeFormat.CLASSIC);
+
+        /* Windows are aligned on node boundaries */
+        fNodesPerWindow = (int) Math.max(1, MAPPED_WINDOW_SIZE / config.getBlockSize());
+        if (mappedReads && !fPacked) {
+            long nodeSectionSize = Math.max(0, fFileChannelIn.size() - IHistoryTree.TREE_HEADER_SIZE);
+            long windowSize = (long) fNodesPerWindow * config.getBlockSize();
+            fMappedWindows = new MappedByteBuffer[(int) ((nodeSectionSize + windowSize - 1) / windowSize)];
+        } else {
+            fMappedWindows = null;
+        }
     }
 
     /**
@@ -192,16 +222,11 @@ public class HT_IO {
     public @NonNull HTNode readNode(int seqNumber) throws ClosedChannelException {
         /* Do a cache lookup. If it's not present it will be loaded from disk */
         TraceCompassLogUtils.traceInstant(LOGGER, Level.FINEST, "Ht_Io:CacheLookup", "seqNum", seqNumber); //$NON-NLS-1$ //$NON-NLS-2$
-        CacheKey key = new CacheKey(this, seqNumber);
         try {
-            return Objects.requireNonNull(NODE_CACHE.get(key));
-
-        } catch (ExecutionException e) {
-            /* Get the inner exception that was generated */
-            Throwable cause = e.getCause();
-            if (cause instanceof ClosedChannelException) {
-                throw (ClosedChannelException) cause;
-            }
+            return fNodeCache.get(seqNumber, this::loadNode);
+        } catch (ClosedChannelException e) {
+            throw e;
+        } catch (IOException e) {
             /*
              * Other types of IOExceptions shouldn't happen at this point
              * though.
@@ -211,6 +236,95 @@ public class HT_IO {
         }
     }
 
+    private @NonNull HTNode loadNode(int seqNumber) throws IOException {
+        MappedByteBuffer[] windows = fMappedWindows;
+        if (windows != null) {
+            return loadMappedNode(windows, seqNumber);
+        }
+        fRwl.readLock().lock();
+        try {
+            if (fPacked) {
+                return loadPackedNode(seqNumber);
+            }
+            return HTNode.readNode(fConfig, fFileChannelIn, getNodePosition(seqNumber), fNodeFactory);
+        } finally {
+            fRwl.readLock().unlock();
+        }
+    }
+
+    private @NonNull HTNode loadPackedNode(int seqNumber) throws IOException {
+        long position = (seqNumber < fNodePositions.length) ? fNodePositions[seqNumber] : 0;
+        if (position < IHistoryTree.TREE_HEADER_SIZE) {
+            throw new IOException("Node " + seqNumber + " was not written to the file"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        readFully(header, position);
+        header.flip();
+        byte encoding = header.get();
+        int nodeLength = header.getInt();
+        int payloadLength = header.getInt();
+        if (nodeLength <= 0 || nodeLength > fConfig.getBlockSize() || payloadLength <= 0 || payloadLength > nodeLength) {
+            throw new IOException("Invalid record for node " + seqNumber); //$NON-NLS-1$
+        }
+
+        ByteBuffer payload = ByteBuffer.allocate(payloadLength);
+        readFully(payload, position + RECORD_HEADER_SIZE);
+        payload.flip();
+        switch (encoding) {
+        case RECORD_RAW:
+            break;
+        case RECORD_COMPRESSED: {
+            byte[] node = new byte[nodeLength];
+            HTBlockCompressor.decompress(payload.array(), 0, payloadLength, node, nodeLength);
+            payload = ByteBuffer.wrap(node);
+            break;
+        }
+        default:
+            throw new IOException("Unknown encoding for node " + seqNumber + ": " + encoding); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        return HTNode.readPackedNode(fConfig, payload, fNodeFactory);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int res = fFileChannelIn.read(buffer, position + buffer.position());
+            if (res < 0) {
+                throw new IOException("Unexpected end of file at " + (position + buffer.position())); //$NON-NLS-1$
+            }
+        }
+    }
+
+    private @NonNull HTNode loadMappedNode(MappedByteBuffer[] windows, int seqNumber) throws IOException {
+        if (!fFileChannelIn.isOpen()) {
+            throw new ClosedChannelException();
+        }
+        int windowIndex = seqNumber / fNodesPerWindow;
+        if (windowIndex >= windows.length) {
+            throw new IOException("Node " + seqNumber + " is outside of the mapped file"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        MappedByteBuffer window;
+        synchronized (windows) {
+            window = windows[windowIndex];
+            if (window == null) {
+                long windowSize = (long) fNodesPerWindow * fConfig.getBlockSize();
+                long position = IHistoryTree.TREE_HEADER_SIZE + windowIndex * windowSize;
+                long size = Math.min(windowSize, fFileChannelIn.size() - position);
+                TraceCompassLogUtils.traceInstant(LOGGER, Level.FINER, "Ht_Io:MapWindow", "window", windowIndex, "size", size); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                window = fFileChannelIn.map(FileChannel.MapMode.READ_ONLY, position, size);
+                windows[windowIndex] = window;
+            }
+        }
+        int offset = (seqNumber % fNodesPerWindow) * fConfig.getBlockSize();
+        if (offset + fConfig.getBlockSize() > window.capacity()) {
+            throw new IOException("Node " + seqNumber + " is outside of the mapped file"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        ByteBuffer block = window.duplicate();
+        block.position(offset);
+        block.limit(offset + fConfig.getBlockSize());
+        return HTNode.readMappedNode(fConfig, block.slice(), fNodeFactory);
+    }
+
     /**
      * Read a node from a file on disk
      *
@@ -231,8 +345,7 @@ public class HT_IO {
         Iterator<Integer> iterator = queue.iterator();
         while (iterator.hasNext()) {
             Integer seqNumber = iterator.next();
-            CacheKey key = new CacheKey(this, seqNumber);
-            HTNode node = NODE_CACHE.getIfPresent(key);
+            HTNode node = fNodeCache.getIfPresent(seqNumber);
             if (node != null) {
                 iterator.remove();
                 return node;
@@ -249,17 +362,27 @@ public class HT_IO {
      *            The node to write.
      */
     public void writeNode(HTNode node) {
+        if (fMappedWindows != null) {
+            throw new IllegalStateException("Cannot write nodes to a file opened for mapped reads"); //$NON-NLS-1$
+        }
         try {
             int seqNumber = node.getSequenceNumber();
 
             /* "Write-back" the node into the cache */
-            CacheKey key = new CacheKey(this, seqNumber);
-            NODE_CACHE.put(key, node);
+            fNodeCache.put(seqNumber, node);
+
+            if (fPacked) {
+                writePackedNode(seqNumber, node.writePacked());
+                return;
+            }
 
             /* Position ourselves at the start of the node and write it */
-            synchronized (this) {
+            fRwl.writeLock().lock();
+            try {
                 seekFCToNodePos(fFileChannelOut, seqNumber);
                 node.writeSelf(fFileChannelOut);
+            } finally {
+                fRwl.writeLock().unlock();
             }
         } catch (IOException e) {
             /* If we were able to open the file, we should be fine now... */
@@ -267,6 +390,132 @@ public class HT_IO {
         }
     }
 
+    /**
+     * Append the record of a packed node at the end of the node section. A
+     * node that is written again gets a new record.
+     */
+    private void writePackedNode(int seqNumber, ByteBuffer node) throws IOException {
+        int nodeLength = node.remaining();
+        byte encoding = RECORD_RAW;
+        byte[] payload = node.array();
+        int payloadLength = nodeLength;
+        if (fConfig.getNodeFormat() == HTConfig.NodeFormat.COMPRESSED) {
+            byte[] compressed = new byte[nodeLength];
+            int compressedLength = HTBlockCompressor.compress(payload, nodeLength, compressed);
+            if (compressedLength > 0 && compressedLength < nodeLength) {
+                encoding = RECORD_COMPRESSED;
+                payload = compressed;
+                payloadLength = compressedLength;
+            }
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payloadLength);
+        record.order(ByteOrder.LITTLE_ENDIAN);
+        record.put(encoding);
+        record.putInt(nodeLength);
+        record.putInt(payloadLength);
+        record.put(payload, 0, payloadLength);
+        record.flip();
+
+        fRwl.writeLock().lock();
+        try {
+            long position = fPackedEnd;
+            writeFully(record, position);
+            if (seqNumber >= fNodePositions.length) {
+                fNodePositions = Arrays.copyOf(fNodePositions, Math.max(seqNumber + 1, fNodePositions.length * 2));
+            }
+            fNodePositions[seqNumber] = position;
+            fPackedEnd = position + record.capacity();
+        } finally {
+            fRwl.writeLock().unlock();
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            fFileChannelOut.write(buffer, position + buffer.position());
+        }
+    }
+
+    /**
+     * Write the index of the node positions after the last node of a packed
+     * file. The attribute tree is then written after the index.
+     *
+     * @param nodeCount
+     *            The number of nodes in the tree
+     * @return The position of the index in the file
+     * @throws IOException
+     *             If the index could not be written
+     */
+    public long writeNodeIndex(int nodeCount) throws IOException {
+        fRwl.writeLock().lock();
+        try {
+            long indexPosition = fPackedEnd;
+            ByteBuffer index = ByteBuffer.allocate(nodeCount * Long.BYTES);
+            index.order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < nodeCount; i++) {
+                index.putLong(i < fNodePositions.length ? fNodePositions[i] : 0);
+            }
+            index.flip();
+            writeFully(index, indexPosition);
+            fPackedEnd = indexPosition + index.capacity();
+            return indexPosition;
+        } finally {
+            fRwl.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Read the index of the node positions of an existing packed file
+     *
+     * @param indexPosition
+     *            The position of the index in the file
+     * @param nodeCount
+     *            The number of nodes in the tree
+     * @throws IOException
+     *             If the index could not be read
+     */
+    public void readNodeIndex(long indexPosition, int nodeCount) throws IOException {
+        if (indexPosition < IHistoryTree.TREE_HEADER_SIZE || indexPosition + (long) nodeCount * Long.BYTES > fFileChannelIn.size()) {
+            throw new IOException("Invalid node index position: " + indexPosition); //$NON-NLS-1$
+        }
+        ByteBuffer index = ByteBuffer.allocate(nodeCount * Long.BYTES);
+        index.order(ByteOrder.LITTLE_ENDIAN);
+        readFully(index, indexPosition);
+        index.flip();
+        long[] positions = new long[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            positions[i] = index.getLong();
+        }
+        fRwl.writeLock().lock();
+        try {
+            fNodePositions = positions;
+            fPackedEnd = indexPosition + index.capacity();
+        } finally {
+            fRwl.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get the position of the end of the node section in the file, which is
+     * where the attribute tree is written.
+     *
+     * @param nodeCount
+     *            The number of nodes in the tree
+     * @return The position after the last node, or after the node index for
+     *         packed files
+     */
+    public long getNodeSectionEnd(int nodeCount) {
+        if (!fPacked) {
+            return getNodePosition(nodeCount);
+        }
+        fRwl.readLock().lock();
+        try {
+            return fPackedEnd;
+        } finally {
+            fRwl.readLock().unlock();
+        }
+    }
+
     /**
      * Get the output file channel, used for writing.
      *
@@ -290,20 +539,37 @@ public class HT_IO {
              * Position ourselves at the start of the Mapping section in the
              * file (which is right after the Blocks)
              */
-            seekFCToNodePos(fFileChannelIn, nodeOffset);
+            fFileChannelIn.position(getNodeSectionEnd(nodeOffset));
         } catch (IOException e) {
             Activator.getDefault().logError(e.getMessage(), e);
         }
         return fFileInputStream;
     }
 
+    /**
+     * Get the statistics of the node cache for this history tree.
+     *
+     * @return The cache statistics
+     */
+    public CacheStats getNodeCacheStats() {
+        return fNodeCache.getStats();
+    }
+
     /**
      * Close all file channels and streams.
      */
     public synchronized void closeFile() {
+        fNodeCache.release();
+        MappedByteBuffer[] windows = fMappedWindows;
+        if (windows != null) {
+            /* The mappings are unmapped once they are garbage collected */
+            synchronized (windows) {
+                Arrays.fill(windows, null);
+            }
+        }
         try {
             fFileInputStream.close();
-            fFileOutputStream.close();
+            fFileOutput.close();
         } catch (IOException e) {
             Activator.getDefault().logError(e.getMessage(), e);
         }
@@ -335,8 +601,11 @@ public class HT_IO {
      */
     private void seekFCToNodePos(FileChannel fc, long seqNumber)
             throws IOException {
-        fc.position(IHistoryTree.TREE_HEADER_SIZE
-                + seqNumber * fConfig.getBlockSize());
+        fc.position(getNodePosition(seqNumber));
+    }
+
+    private long getNodePosition(long seqNumber) {
+        return IHistoryTree.TREE_HEADER_SIZE + seqNumber * fConfig.getBlockSize();
     }
 
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2016 Ericsson
+ * Copyright (c) 2012, 2026 Ericsson
  * Copyright (c) 2010, 2011 École Polytechnique de Montréal
  * Copyright (c) 2010, 2011 Alexandre Montplaisir <alexandre.montplaisir@gmail.com>
  *
@@ -39,8 +39,10 @@ import org.eclipse.tracecompass.statesystem.core.backend.IStateHistoryBackend;
 import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
 import org.eclipse.tracecompass.statesystem.core.exceptions.TimeRangeException;
 import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateInterval;
+import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateIntervalCursor;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.CacheStats;
 
 /**
  * History Tree backend for storing a state history. This is the basic version
@@ -52,8 +54,56 @@ public class HistoryTreeBackend implements IStateHistoryBackend {
 
     private static final @NonNull Logger LOGGER = TraceCompassLog.getLogger(HistoryTreeBackend.class);
 
+    /**
+     * System property to enable the parallel traversal of the tree for 2D
+     * queries. The value is the name of a {@link ParallelQueryMode}, case
+     * insensitive. The traversal is sequential if it is not set.
+     */
+    public static final String PARALLEL_QUERIES_PROPERTY = "org.eclipse.tracecompass.statesystem.core.parallelQueries"; //$NON-NLS-1$
+
+    /**
+     * System property to choose the layout of the nodes of new history files.
+     * The value is the name of a {@link HTConfig.NodeFormat}, case
+     * insensitive. New files use the classic format if it is not set. Existing
+     * files are always read with the format found in their header.
+     */
+    public static final String NODE_FORMAT_PROPERTY = "org.eclipse.tracecompass.statesystem.core.nodeFormat"; //$NON-NLS-1$
+
+    /**
+     * How the nodes of the tree are traversed by the 2D queries
+     */
+    public enum ParallelQueryMode {
+        /** Nodes are read sequentially by the thread iterating on the results */
+        DISABLED,
+        /**
+         * Nodes are read in parallel, and their intervals are returned in a
+         * deterministic depth-first order
+         */
+        ORDERED,
+        /**
+         * Nodes are read in parallel, and their intervals are returned as soon
+         * as the node is read
+         */
+        UNORDERED;
+
+        private static ParallelQueryMode fromProperty() {
+            String value = System.getProperty(PARALLEL_QUERIES_PROPERTY);
+            if (value == null) {
+                return DISABLED;
+            }
+            for (ParallelQueryMode mode : values()) {
+                if (mode.name().equalsIgnoreCase(value)) {
+                    return mode;
+                }
+            }
+            return DISABLED;
+        }
+    }
+
     private final @NonNull String fSsid;
 
+    private volatile ParallelQueryMode fParallelQueryMode = ParallelQueryMode.fromProperty();
+
     /**
      * The history tree that sits underneath.
      */
@@ -112,10 +162,22 @@ public class HistoryTreeBackend implements IStateHistoryBackend {
             int maxChildren) throws IOException {
         fSsid = ssid;
         final HTConfig conf = new HTConfig(newStateFile, blockSize, maxChildren,
-                providerVersion, startTime);
+                providerVersion, startTime, getNodeFormatFromProperty());
         fSht = initializeSHT(conf);
     }
 
+    private static HTConfig.NodeFormat getNodeFormatFromProperty() {
+        String value = System.getProperty(NODE_FORMAT_PROPERTY);
+        if (value != null) {
+            for (HTConfig.NodeFormat format : HTConfig.NodeFormat.values()) {
+                if (format.name().equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+        }
+        return HTConfig.NodeFormat.CLASSIC;
+    }
+
     /**
      * Constructor for new history files. Use this when creating a new history
      * from scratch. This version supplies sane defaults for the configuration
@@ -162,6 +224,36 @@ public class HistoryTreeBackend implements IStateHistoryBackend {
         fFinishedBuilding = true;
     }
 
+    /**
+     * Existing history constructor, which can also reopen the file of a
+     * history whose construction was suspended, to continue building it.
+     *
+     * @param ssid
+     *            The state system's id
+     * @param existingStateFile
+     *            Filename/location of the history we want to load
+     * @param providerVersion
+     *            Expected version of of the state provider plugin.
+     * @param append
+     *            Whether to append new intervals to the history. If false, the
+     *            history is opened as a finished one.
+     * @throws IOException
+     *             If we can't read the file, if it doesn't exist, is not
+     *             recognized, if the version of the file does not match the
+     *             expected providerVersion, or if it cannot be appended to.
+     */
+    public HistoryTreeBackend(@NonNull String ssid, @NonNull File existingStateFile, int providerVersion, boolean append)
+            throws IOException {
+        fSsid = ssid;
+        if (append) {
+            fSht = initializeAppendableSHT(existingStateFile, providerVersion);
+            fFinishedBuilding = false;
+        } else {
+            fSht = initializeSHT(existingStateFile, providerVersion);
+            fFinishedBuilding = true;
+        }
+    }
+
     /**
      * New-tree initializer for the History Tree wrapped by this backend. Can be
      * overriden to use different implementations.
@@ -195,6 +287,23 @@ public class HistoryTreeBackend implements IStateHistoryBackend {
         return HistoryTreeFactory.createFromFile(existingStateFile.toPath(), providerVersion);
     }
 
+    /**
+     * Initializer for a History Tree opened from an existing file to append
+     * intervals to it. Can be overriden to use different implementations.
+     *
+     * @param existingStateFile
+     *            The file to open
+     * @param providerVersion
+     *            The expected state provider version
+     * @return The history tree opened from the given file
+     * @throws IOException
+     *             If there was a problem opening the file, or if the tree
+     *             cannot be appended to
+     */
+    protected @NonNull IHistoryTree initializeAppendableSHT(@NonNull File existingStateFile, int providerVersion) throws IOException {
+        return HistoryTreeFactory.createFromFile(existingStateFile.toPath(), providerVersion, true);
+    }
+
     /**
      * Get the History Tree built by this backend.
      *
@@ -263,6 +372,9 @@ public class HistoryTreeBackend implements IStateHistoryBackend {
     public void dispose() {
         if (fFinishedBuilding) {
             TraceCompassLogUtils.traceInstant(LOGGER, Level.FINE, "HistoryTreeBackend:ClosingFile", "size", getSHT().getFileSize()); //$NON-NLS-1$ //$NON-NLS-2$
+            CacheStats stats = getSHT().getNodeCacheStats();
+            TraceCompassLogUtils.traceInstant(LOGGER, Level.FINE, "HistoryTreeBackend:NodeCacheStats", //$NON-NLS-1$
+                    "ssid", fSsid, "hits", stats.hitCount(), "misses", stats.missCount(), "evictions", stats.evictionCount()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
             TraceCompassLogUtils.traceObjectDestruction(LOGGER, Level.FINER, this);
             getSHT().closeFile();
         } else {
@@ -361,10 +473,37 @@ public class HistoryTreeBackend implements IStateHistoryBackend {
                 "ssid", getSSID(), //$NON-NLS-1$
                 "quarks", quarks, //$NON-NLS-1$
                 "timeCondition", times).build()) { //$NON-NLS-1$
+            ParallelQueryMode mode = fParallelQueryMode;
+            if (mode != ParallelQueryMode.DISABLED) {
+                return () -> new ParallelHistoryTreeIterator(getSHT(), quarks, times, reverse, mode == ParallelQueryMode.ORDERED, log);
+            }
             return () -> new HistoryTreeBackendIterator(getSHT(), quarks, times, reverse, log);
         }
     }
 
+    /**
+     * Set how the nodes of the tree are traversed by the 2D queries. The
+     * default mode is given by the {@link #PARALLEL_QUERIES_PROPERTY} system
+     * property.
+     *
+     * @param mode
+     *            The traversal mode of the next queries
+     */
+    public void setParallelQueryMode(ParallelQueryMode mode) {
+        fParallelQueryMode = mode;
+    }
+
+    @Override
+    public ITmfStateIntervalCursor query2DCursor(IntegerRangeCondition quarks, TimeRangeCondition times, boolean reverse) {
+        try (FlowScopeLog log = new FlowScopeLogBuilder(LOGGER, Level.FINER,
+                "HistoryTreeBackend:query2DCursor:init", //$NON-NLS-1$
+                "ssid", getSSID(), //$NON-NLS-1$
+                "quarks", quarks, //$NON-NLS-1$
+                "timeCondition", times).build()) { //$NON-NLS-1$
+            return new HistoryTreeBackendCursor(getSHT(), quarks, times, reverse, log);
+        }
+    }
+
     /**
      * Return the size of the tree history file
      *
@@ -374,6 +513,17 @@ public class HistoryTreeBackend implements IStateHistoryBackend {
         return getSHT().getFileSize();
     }
 
+    /**
+     * Return the statistics of the node cache for this history. The counters
+     * are specific to this state system, even though the cache budget is
+     * shared with the other open histories.
+     *
+     * @return The node cache statistics
+     */
+    public CacheStats getNodeCacheStats() {
+        return getSHT().getNodeCacheStats();
+    }
+
     /**
      * Return the average node usage as a percentage (between 0 and 100)
      *
@@ -0,0 +1,328 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.internal.statesystem.core.backend.historytree;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.common.core.log.TraceCompassLog;
+import org.eclipse.tracecompass.common.core.log.TraceCompassLogUtils.FlowScopeLog;
+import org.eclipse.tracecompass.common.core.log.TraceCompassLogUtils.FlowScopeLogBuilder;
+import org.eclipse.tracecompass.datastore.core.encoding.HTVarInt;
+import org.eclipse.tracecompass.internal.provisional.datastore.core.condition.IntegerRangeCondition;
+import org.eclipse.tracecompass.internal.provisional.datastore.core.condition.TimeRangeCondition;
+import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateInterval;
+import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateIntervalCursor;
+
+/**
+ * Flyweight cursor over the intervals of a history tree that match a 2D query.
+ * Nodes are visited in the same order as the {@link HistoryTreeBackendIterator}.
+ *
+ * Intervals of nodes read from a mapped file are decoded in place from the
+ * node's buffer: the times, attribute and primitive values are read into the
+ * fields of the cursor, and only strings and custom values are decoded into
+ * objects, when they are requested. Intervals of the other nodes are read from
+ * the node's interval objects, without copying them for nodes that are on
+ * disk.
+ */
+class HistoryTreeBackendCursor implements ITmfStateIntervalCursor {
+    private static final @NonNull Logger LOGGER = TraceCompassLog.getLogger(HistoryTreeBackendCursor.class);
+
+    private final @NonNull IHistoryTree fSht;
+    private final IntegerRangeCondition fQuarks;
+    private final TimeRangeCondition fTimes;
+    private final boolean fReverse;
+    private final @NonNull FlowScopeLog fParentLog;
+    private final Deque<Integer> fSeqNumberQueue;
+
+    /* Conditions reduced to the current node */
+    private @Nullable TimeRangeCondition fNodeTimes = null;
+
+    /* Interval objects of the current node, if it is not mapped */
+    private Iterator<@NonNull HTInterval> fIntervals = Collections.emptyIterator();
+    private @Nullable HTInterval fCurrentInterval = null;
+
+    /* Interval section of the current node, if it is mapped */
+    private @Nullable ByteBuffer fBuffer = null;
+    private long fNodeStart;
+
+    /* Current interval decoded from the mapped buffer */
+    private long fStart;
+    private long fEnd;
+    private int fAttribute;
+    private byte fValueType;
+    private long fRawValue;
+    private int fIntervalPosition;
+
+    private boolean fPositioned = false;
+
+    HistoryTreeBackendCursor(@NonNull IHistoryTree sht, IntegerRangeCondition quarks, TimeRangeCondition times, boolean reverse, @NonNull FlowScopeLog parentLog) {
+        fSht = sht;
+        fQuarks = quarks;
+        fTimes = times;
+        fReverse = reverse;
+        fParentLog = parentLog;
+        fSeqNumberQueue = new ArrayDeque<>(Collections.singleton(fSht.getRootNode().getSequenceNumber()));
+    }
+
+    @Override
+    public boolean next() {
+        fPositioned = nextInNode();
+        while (!fPositioned && !fSeqNumberQueue.isEmpty()) {
+            try {
+                loadNextNode();
+            } catch (ClosedChannelException e) {
+                try (FlowScopeLog closedChannelLog = new FlowScopeLogBuilder(LOGGER, Level.FINER,
+                        "HistoryTreeBackendCursor:query2D:channelClosed").setParentScope(fParentLog).build()) { //$NON-NLS-1$
+                    fSeqNumberQueue.clear();
+                    return false;
+                }
+            }
+            fPositioned = nextInNode();
+        }
+        return fPositioned;
+    }
+
+    private void loadNextNode() throws ClosedChannelException {
+        HTNode currentNode = fSht.readNode(fSeqNumberQueue);
+        fBuffer = null;
+        fIntervals = Collections.emptyIterator();
+        fCurrentInterval = null;
+
+        /*
+         * Compute reduced conditions here to reduce complexity in queuing
+         * operations.
+         */
+        TimeRangeCondition subTimes = fTimes.subCondition(currentNode.getNodeStart(), currentNode.getNodeEnd());
+        if (!fQuarks.intersects(currentNode.getMinQuark(), currentNode.getMaxQuark()) || subTimes == null) {
+            return;
+        }
+        if (currentNode.getNodeType() == HTNode.NodeType.CORE) {
+            // Queue the relevant children nodes for BFS.
+            ((ParentNode) currentNode).queueNextChildren2D(fQuarks, subTimes, fSeqNumberQueue, fReverse);
+        }
+        fNodeTimes = subTimes;
+
+        ByteBuffer mapped = currentNode.getMappedIntervals(subTimes.min());
+        if (mapped != null) {
+            fBuffer = mapped;
+            fNodeStart = currentNode.getNodeStart();
+            return;
+        }
+        List<HTInterval> intervals = currentNode.getFinalIntervals(subTimes.min());
+        fIntervals = (intervals != null) ? intervals.iterator() : currentNode.iterable2D(fQuarks, subTimes).iterator();
+    }
+
+    /**
+     * Move to the next matching interval of the current node
+     */
+    private boolean nextInNode() {
+        TimeRangeCondition times = fNodeTimes;
+        if (times == null) {
+            return false;
+        }
+        ByteBuffer buffer = fBuffer;
+        if (buffer != null) {
+            return nextInBuffer(buffer, times);
+        }
+        while (fIntervals.hasNext()) {
+            HTInterval interval = fIntervals.next();
+            if (fQuarks.test(interval.getAttribute())
+                    && times.intersects(interval.getStartTime(), interval.getEndTime())) {
+                fCurrentInterval = interval;
+                return true;
+            }
+        }
+        fCurrentInterval = null;
+        return false;
+    }
+
+    private boolean nextInBuffer(ByteBuffer buffer, TimeRangeCondition times) {
+        try {
+            while (buffer.hasRemaining()) {
+                fIntervalPosition = buffer.position();
+                fStart = HTVarInt.readLong(buffer) + fNodeStart;
+                fEnd = HTVarInt.readLong(buffer) + fStart;
+                fAttribute = buffer.getInt();
+                if (!fQuarks.test(fAttribute) || !times.intersects(fStart, fEnd)) {
+                    HTInterval.skipValue(buffer);
+                    continue;
+                }
+                fValueType = buffer.get();
+                switch (fValueType) {
+                case HTInterval.TYPE_NULL:
+                    fRawValue = 0;
+                    break;
+                case HTInterval.TYPE_INTEGER:
+                    fRawValue = buffer.getInt();
+                    break;
+                case HTInterval.TYPE_LONG:
+                    fRawValue = buffer.getLong();
+                    break;
+                case HTInterval.TYPE_DOUBLE:
+                    fRawValue = Double.doubleToRawLongBits(buffer.getDouble());
+                    break;
+                default:
+                    /* Objects are decoded lazily, skip them for now */
+                    buffer.position(buffer.position() - 1);
+                    HTInterval.skipValue(buffer);
+                    break;
+                }
+                return true;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Invalid interval data in history tree", e); //$NON-NLS-1$
+        }
+        fBuffer = null;
+        return false;
+    }
+
+    private void checkPositioned() {
+        if (!fPositioned) {
+            throw new NoSuchElementException("The cursor is not positioned on an interval"); //$NON-NLS-1$
+        }
+    }
+
+    private @Nullable HTInterval currentInterval() {
+        checkPositioned();
+        return fCurrentInterval;
+    }
+
+    @Override
+    public long getStartTime() {
+        HTInterval interval = currentInterval();
+        return (interval != null) ? interval.getStartTime() : fStart;
+    }
+
+    @Override
+    public long getEndTime() {
+        HTInterval interval = currentInterval();
+        return (interval != null) ? interval.getEndTime() : fEnd;
+    }
+
+    @Override
+    public int getAttribute() {
+        HTInterval interval = currentInterval();
+        return (interval != null) ? interval.getAttribute() : fAttribute;
+    }
+
+    @Override
+    public boolean isNullValue() {
+        HTInterval interval = currentInterval();
+        return (interval != null) ? interval.getValue() == null : fValueType == HTInterval.TYPE_NULL;
+    }
+
+    @Override
+    public @Nullable Object getValue() {
+        HTInterval interval = currentInterval();
+        if (interval != null) {
+            return interval.getValue();
+        }
+        switch (fValueType) {
+        case HTInterval.TYPE_NULL:
+            return null;
+        case HTInterval.TYPE_INTEGER:
+            return (int) fRawValue;
+        case HTInterval.TYPE_LONG:
+            return fRawValue;
+        case HTInterval.TYPE_DOUBLE:
+            return Double.longBitsToDouble(fRawValue);
+        default:
+            return decodeCurrentInterval().getValue();
+        }
+    }
+
+    /**
+     * Decode the whole current interval from the mapped buffer, used for the
+     * values that are not primitives.
+     */
+    private HTInterval decodeCurrentInterval() {
+        ByteBuffer buffer = fBuffer;
+        if (buffer == null) {
+            throw new NoSuchElementException("The cursor is not positioned on an interval"); //$NON-NLS-1$
+        }
+        ByteBuffer intervalBuffer = buffer.duplicate();
+        intervalBuffer.order(buffer.order());
+        intervalBuffer.position(fIntervalPosition);
+        try {
+            return HTInterval.readFrom(intervalBuffer, fNodeStart);
+        } catch (IOException e) {
+            throw new IllegalStateException("Invalid interval data in history tree", e); //$NON-NLS-1$
+        }
+    }
+
+    @Override
+    public int getValueInt() {
+        HTInterval interval = currentInterval();
+        if (interval != null) {
+            return interval.getValueInt();
+        }
+        if (fValueType == HTInterval.TYPE_NULL) {
+            return 0;
+        }
+        if (fValueType != HTInterval.TYPE_INTEGER) {
+            return (int) getValue();
+        }
+        return (int) fRawValue;
+    }
+
+    @Override
+    public long getValueLong() {
+        HTInterval interval = currentInterval();
+        if (interval != null) {
+            return interval.getValueLong();
+        }
+        if (fValueType == HTInterval.TYPE_NULL) {
+            return 0;
+        }
+        if (fValueType != HTInterval.TYPE_LONG) {
+            return (long) getValue();
+        }
+        return fRawValue;
+    }
+
+    @Override
+    public double getValueDouble() {
+        HTInterval interval = currentInterval();
+        if (interval != null) {
+            return interval.getValueDouble();
+        }
+        if (fValueType == HTInterval.TYPE_NULL) {
+            return 0.0;
+        }
+        if (fValueType != HTInterval.TYPE_DOUBLE) {
+            return (double) getValue();
+        }
+        return Double.longBitsToDouble(fRawValue);
+    }
+
+    @Override
+    public ITmfStateInterval toInterval() {
+        HTInterval interval = currentInterval();
+        if (interval != null) {
+            /* The interval objects are immutable, no need to copy them */
+            return interval;
+        }
+        return decodeCurrentInterval();
+    }
+}
@@ -19,6 +19,8 @@ import java.util.Deque;
 
 import org.eclipse.tracecompass.statesystem.core.exceptions.TimeRangeException;
 
+import com.google.common.cache.CacheStats;
+
 /**
  * Meta-container for the History Tree. This structure contains all the
  * high-level data relevant to the tree.
@@ -180,6 +182,13 @@ public interface IHistoryTree {
      */
     void writeNode(HTNode node);
 
+    /**
+     * Get the statistics of the node cache of this tree.
+     *
+     * @return The node cache statistics
+     */
+    CacheStats getNodeCacheStats();
+
     /**
      * Close the history file.
      */
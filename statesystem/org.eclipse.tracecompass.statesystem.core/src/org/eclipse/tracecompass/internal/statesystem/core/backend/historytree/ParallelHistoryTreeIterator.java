@@ -0,0 +1,264 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.internal.statesystem.core.backend.historytree;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.common.core.log.TraceCompassLog;
+import org.eclipse.tracecompass.common.core.log.TraceCompassLogUtils.FlowScopeLog;
+import org.eclipse.tracecompass.common.core.log.TraceCompassLogUtils.FlowScopeLogBuilder;
+import org.eclipse.tracecompass.internal.provisional.datastore.core.condition.IntegerRangeCondition;
+import org.eclipse.tracecompass.internal.provisional.datastore.core.condition.TimeRangeCondition;
+import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateInterval;
+
+/**
+ * Iterator over the intervals of a 2D query, which reads and filters the nodes
+ * of the history tree on a shared, bounded {@link ForkJoinPool}.
+ *
+ * As soon as a node is read, its relevant children are submitted to the pool,
+ * so that the nodes of a large query are read and filtered concurrently, while
+ * the caller consumes the intervals. The number of nodes in flight for one
+ * query is bounded, which also bounds the number of intervals held in memory.
+ *
+ * In ordered mode, the intervals are returned in a deterministic depth-first
+ * order of the nodes, with the children of a node in the order given by the
+ * reverse hint. In unordered mode, the intervals of a node are returned as
+ * soon as the node is read.
+ */
+class ParallelHistoryTreeIterator implements Iterator<@NonNull ITmfStateInterval> {
+
+    private static final @NonNull Logger LOGGER = TraceCompassLog.getLogger(ParallelHistoryTreeIterator.class);
+
+    /** System property to set the number of threads of the query pool */
+    static final String THREADS_PROPERTY = "org.eclipse.tracecompass.statesystem.core.parallelQueries.threads"; //$NON-NLS-1$
+
+    /** Number of nodes in flight for a query, for each thread of the pool */
+    private static final int NODES_IN_FLIGHT_PER_THREAD = 4;
+
+    private static @Nullable ForkJoinPool sPool = null;
+
+    /** Nodes that were read and filtered, with the children to query next */
+    private static final class NodeResult {
+        private final Iterable<@NonNull HTInterval> fIntervals;
+        private final List<Integer> fChildren;
+        private final boolean fClosed;
+
+        public NodeResult(Iterable<@NonNull HTInterval> intervals, List<Integer> children, boolean closed) {
+            fIntervals = intervals;
+            fChildren = children;
+            fClosed = closed;
+        }
+    }
+
+    /** Node to query, with the task reading it once it is submitted */
+    private static final class PendingNode {
+        private final int fSeqNumber;
+        private @Nullable CompletableFuture<NodeResult> fFuture = null;
+
+        public PendingNode(int seqNumber) {
+            fSeqNumber = seqNumber;
+        }
+    }
+
+    private final @NonNull IHistoryTree fSht;
+    private final IntegerRangeCondition fQuarks;
+    private final TimeRangeCondition fTimes;
+    private final boolean fReverse;
+    private final boolean fOrdered;
+    private final @NonNull FlowScopeLog fParentLog;
+    private final ForkJoinPool fPool;
+    private final int fMaxInFlight;
+
+    /* Nodes to query, in depth-first order */
+    private final Deque<PendingNode> fPending = new ArrayDeque<>();
+    /* Results of the nodes in flight, for the unordered mode */
+    private final BlockingQueue<CompletableFuture<NodeResult>> fCompleted = new LinkedBlockingQueue<>();
+    private int fInFlight = 0;
+    private boolean fDone = false;
+
+    private Iterator<@NonNull HTInterval> fIntervals = Collections.emptyIterator();
+
+    ParallelHistoryTreeIterator(@NonNull IHistoryTree sht, IntegerRangeCondition quarks, TimeRangeCondition times,
+            boolean reverse, boolean ordered, @NonNull FlowScopeLog parentLog) {
+        fSht = sht;
+        fQuarks = quarks;
+        fTimes = times;
+        fReverse = reverse;
+        fOrdered = ordered;
+        fParentLog = parentLog;
+        fPool = getPool();
+        fMaxInFlight = fPool.getParallelism() * NODES_IN_FLIGHT_PER_THREAD;
+        fPending.add(new PendingNode(fSht.getRootNode().getSequenceNumber()));
+    }
+
+    /**
+     * Get the pool shared by the parallel queries of all the history trees
+     *
+     * @return The pool
+     */
+    static synchronized ForkJoinPool getPool() {
+        ForkJoinPool pool = sPool;
+        if (pool == null) {
+            Integer threads = Integer.getInteger(THREADS_PROPERTY);
+            int parallelism = (threads == null || threads <= 0) ? Runtime.getRuntime().availableProcessors() : threads;
+            pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                thread.setName("HistoryTree query worker " + thread.getPoolIndex()); //$NON-NLS-1$
+                return thread;
+            }, null, false);
+            sPool = pool;
+        }
+        return pool;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!fIntervals.hasNext() && !fDone) {
+            NodeResult result = nextResult();
+            if (result == null) {
+                fDone = true;
+                try (FlowScopeLog noNext = new FlowScopeLogBuilder(LOGGER, Level.FINER,
+                        "ParallelHistoryTreeIterator:query2D:iteratorEnd").setParentScope(fParentLog).build()) { //$NON-NLS-1$
+                    // Nothing to do, the scope logs the end of the query
+                }
+            } else if (result.fClosed) {
+                fDone = true;
+                try (FlowScopeLog closedChannelLog = new FlowScopeLogBuilder(LOGGER, Level.FINER,
+                        "ParallelHistoryTreeIterator:query2D:channelClosed").setParentScope(fParentLog).build()) { //$NON-NLS-1$
+                    // Nothing to do, the scope logs the closed channel
+                }
+            } else {
+                /* Keep the depth-first order by queuing the children first */
+                List<Integer> children = result.fChildren;
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    fPending.addFirst(new PendingNode(children.get(i)));
+                }
+                fIntervals = result.fIntervals.iterator();
+            }
+        }
+        return fIntervals.hasNext();
+    }
+
+    @Override
+    public ITmfStateInterval next() {
+        hasNext();
+        return fIntervals.next();
+    }
+
+    /**
+     * Get the result of the next node, submitting pending nodes to the pool as
+     * long as there is room for them.
+     *
+     * @return The result, or null if there are no more nodes to read
+     */
+    private @Nullable NodeResult nextResult() {
+        CompletableFuture<NodeResult> future;
+        if (fOrdered) {
+            submitPendingOrdered();
+            PendingNode head = fPending.poll();
+            if (head == null) {
+                return null;
+            }
+            future = head.fFuture;
+            if (future == null) {
+                future = submit(head.fSeqNumber);
+            }
+        } else {
+            submitPendingUnordered();
+            if (fInFlight == 0) {
+                return null;
+            }
+            try {
+                future = fCompleted.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+        fInFlight--;
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+    }
+
+    private void submitPendingOrdered() {
+        Iterator<PendingNode> iterator = fPending.iterator();
+        while (fInFlight < fMaxInFlight && iterator.hasNext()) {
+            PendingNode pending = iterator.next();
+            if (pending.fFuture == null) {
+                pending.fFuture = submit(pending.fSeqNumber);
+            }
+        }
+    }
+
+    private void submitPendingUnordered() {
+        while (fInFlight < fMaxInFlight && !fPending.isEmpty()) {
+            CompletableFuture<NodeResult> future = submit(fPending.pop().fSeqNumber);
+            future.whenComplete((result, e) -> fCompleted.add(future));
+        }
+    }
+
+    private CompletableFuture<NodeResult> submit(int seqNumber) {
+        fInFlight++;
+        return CompletableFuture.supplyAsync(() -> readNode(seqNumber), fPool);
+    }
+
+    /**
+     * Read a node and filter its intervals. Called by the threads of the pool.
+     */
+    private NodeResult readNode(int seqNumber) {
+        HTNode currentNode;
+        try {
+            currentNode = fSht.readNode(seqNumber);
+        } catch (ClosedChannelException e) {
+            return new NodeResult(Collections.emptyList(), Collections.emptyList(), true);
+        }
+        /*
+         * Compute reduced conditions here to reduce complexity in queuing
+         * operations.
+         */
+        TimeRangeCondition subTimes = fTimes.subCondition(currentNode.getNodeStart(), currentNode.getNodeEnd());
+        if (!fQuarks.intersects(currentNode.getMinQuark(), currentNode.getMaxQuark()) || subTimes == null) {
+            return new NodeResult(Collections.emptyList(), Collections.emptyList(), false);
+        }
+        List<Integer> children = Collections.emptyList();
+        if (currentNode.getNodeType() == HTNode.NodeType.CORE) {
+            Deque<Integer> queue = new ArrayDeque<>();
+            ((ParentNode) currentNode).queueNextChildren2D(fQuarks, subTimes, queue, fReverse);
+            children = new ArrayList<>(queue);
+        }
+        /* The filtered intervals are copied, so they can be consumed later */
+        return new NodeResult(currentNode.iterable2D(fQuarks, subTimes), children, false);
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2016 Ericsson
+ * Copyright (c) 2012, 2026 Ericsson
  * Copyright (c) 2010, 2011 École Polytechnique de Montréal
  * Copyright (c) 2010, 2011 Alexandre Montplaisir <alexandre.montplaisir@gmail.com>
  *
@@ -134,13 +134,40 @@ public final class ThreadedHistoryTreeBackend extends HistoryTreeBackend
         shtThread.start();
     }
 
-    /*
-     * The Threaded version does not specify an "existing file" constructor,
-     * since the history is already built (and we only use the other thread
-     * during building). Just use a plain HistoryTreeProvider in this case.
+    /**
+     * Constructor to resume the construction of a history whose construction
+     * was suspended. The existing file is reopened to append new intervals to
+     * it.
+     *
+     * To simply read a finished history, use a plain
+     * {@link HistoryTreeBackend} instead, since the other thread is only used
+     * during building.
      *
-     * TODO but what about streaming??
+     * @param ssid
+     *            The state system's id
+     * @param existingStateFile
+     *            The history file to resume
+     * @param providerVersion
+     *            Expected version of of the state provider.
+     * @param queueSize
+     *            The size of the interval insertion queue. 2000 - 10000 usually
+     *            works well
+     * @throws IOException
+     *             If the file cannot be read or appended to, or if its version
+     *             does not match the expected providerVersion.
      */
+    public ThreadedHistoryTreeBackend(@NonNull String ssid,
+            @NonNull File existingStateFile,
+            int providerVersion,
+            int queueSize)
+                    throws IOException {
+        super(ssid, existingStateFile, providerVersion, true);
+        fEndTime = getSHT().getTreeEnd();
+
+        intervalQueue = new BufferedBlockingQueue<>(queueSize / CHUNK_SIZE, CHUNK_SIZE);
+        shtThread = new Thread(this, "History Tree Thread"); //$NON-NLS-1$
+        shtThread.start();
+    }
 
     @Override
     public void insertPastState(long stateStartTime, long stateEndTime,
@@ -171,6 +198,11 @@ public final class ThreadedHistoryTreeBackend extends HistoryTreeBackend
          */
 
         stopRunningThread(endTime);
+        /*
+         * The tree is closed at the end time even if no interval ends there,
+         * which is the case when the construction is suspended
+         */
+        fEndTime = Math.max(fEndTime, endTime);
         setFinishedBuilding(true);
         return;
     }
@@ -226,6 +226,25 @@ public final class CoreNode extends ParentNode {
         return -1;
     }
 
+    /**
+     * Reset the bounds of the latest child to those of a child that is still
+     * being built, when the latest branch of the tree is reopened
+     */
+    public void reopenLatestChild() {
+        rwl.writeLock().lock();
+        try {
+            if (fNbChildren == 0) {
+                return;
+            }
+            int latest = fNbChildren - 1;
+            fChildEnd[latest] = Long.MAX_VALUE;
+            fChildMin[latest] = 0;
+            fChildMax[latest] = Integer.MAX_VALUE;
+        } finally {
+            rwl.writeLock().unlock();
+        }
+    }
+
     @Override
     public void linkNewChild(HTNode childNode) {
         rwl.writeLock().lock();
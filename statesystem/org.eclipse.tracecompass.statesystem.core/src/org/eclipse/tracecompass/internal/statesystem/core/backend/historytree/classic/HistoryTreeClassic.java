@@ -40,6 +40,7 @@ import org.eclipse.tracecompass.statesystem.core.ITmfStateSystemBuilder;
 import org.eclipse.tracecompass.statesystem.core.exceptions.TimeRangeException;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ImmutableList;
 
 /**
@@ -58,6 +59,12 @@ public class HistoryTreeClassic implements IHistoryTree {
     /** File format version. Increment when breaking compatibility. */
     private static final int FILE_VERSION = 11;
 
+    /**
+     * File format version of the files with packed nodes. The header of these
+     * files also contains the node format and the position of the node index.
+     */
+    private static final int PACKED_FILE_VERSION = 12;
+
     private static final IHTNodeFactory CLASSIC_NODE_FACTORY = new IHTNodeFactory() {
 
         @Override
@@ -143,6 +150,27 @@ public class HistoryTreeClassic implements IHistoryTree {
      *             If an error happens reading the file
      */
     public HistoryTreeClassic(File existingStateFile, int expProviderVersion) throws IOException {
+        this(existingStateFile, expProviderVersion, false);
+    }
+
+    /**
+     * Constructor to open an existing tree file on disk, either to read it, or
+     * to append intervals to a tree whose construction was suspended. In that
+     * case, the nodes of the latest branch are reopened, and the magic number
+     * is cleared from the header until the tree is closed again, so that the
+     * file cannot be opened as a complete history in the meantime.
+     *
+     * @param existingStateFile
+     *            Path/filename of the history-file we are to open
+     * @param expProviderVersion
+     *            The expected version of the state provider
+     * @param append
+     *            Whether intervals will be appended to the tree
+     * @throws IOException
+     *             If an error happens reading the file, or if the nodes of the
+     *             file are not in the classic format and cannot be appended to
+     */
+    public HistoryTreeClassic(File existingStateFile, int expProviderVersion, boolean append) throws IOException {
         /*
          * Open the file ourselves, get the tree header information we need,
          * then pass on the descriptor to the TreeIO object.
@@ -152,6 +180,8 @@ public class HistoryTreeClassic implements IHistoryTree {
         int bs;
         int maxc;
         long startTime;
+        HTConfig.NodeFormat nodeFormat = HTConfig.NodeFormat.CLASSIC;
+        long nodeIndexPosition = 0;
 
         /* Java I/O mumbo jumbo... */
         if (!existingStateFile.exists()) {
@@ -184,8 +214,8 @@ public class HistoryTreeClassic implements IHistoryTree {
                 throw new IOException("Wrong magic number"); //$NON-NLS-1$
             }
 
-            res = buffer.getInt(); /* File format version number */
-            if (res != FILE_VERSION) {
+            int fileVersion = buffer.getInt(); /* File format version number */
+            if (fileVersion != FILE_VERSION && fileVersion != PACKED_FILE_VERSION) {
                 throw new IOException("Mismatching History Tree file format versions"); //$NON-NLS-1$
             }
 
@@ -209,7 +239,12 @@ public class HistoryTreeClassic implements IHistoryTree {
             rootNodeSeqNb = buffer.getInt();
             startTime = buffer.getLong();
 
-            fConfig = new HTConfig(existingStateFile, bs, maxc, expProviderVersion, startTime);
+            if (fileVersion == PACKED_FILE_VERSION) {
+                nodeFormat = HTConfig.NodeFormat.fromByte(buffer.get());
+                nodeIndexPosition = buffer.getLong();
+            }
+
+            fConfig = new HTConfig(existingStateFile, bs, maxc, expProviderVersion, startTime, nodeFormat);
         }
 
         /*
@@ -217,7 +252,14 @@ public class HistoryTreeClassic implements IHistoryTree {
          * file, not extremely elegant. But how to pass the information here to
          * the SHT otherwise?
          */
-        fTreeIO = new HT_IO(fConfig, false, CLASSIC_NODE_FACTORY);
+        if (append && nodeFormat != HTConfig.NodeFormat.CLASSIC) {
+            /* The records of packed nodes cannot be rewritten in place */
+            throw new IOException("Only history files with classic nodes can be appended to"); //$NON-NLS-1$
+        }
+        fTreeIO = append ? new HT_IO(fConfig, false, CLASSIC_NODE_FACTORY, false) : new HT_IO(fConfig, false, CLASSIC_NODE_FACTORY);
+        if (nodeFormat != HTConfig.NodeFormat.CLASSIC) {
+            fTreeIO.readNodeIndex(nodeIndexPosition, fNodeCount);
+        }
 
         fLatestBranch = buildLatestBranch(rootNodeSeqNb);
         fTreeEnd = getRootNode().getNodeEnd();
@@ -230,6 +272,31 @@ public class HistoryTreeClassic implements IHistoryTree {
             throw new IOException("Inconsistent start times in the" + //$NON-NLS-1$
                     "history file, it might be corrupted."); //$NON-NLS-1$
         }
+
+        if (append) {
+            reopenLatestBranch();
+        }
+    }
+
+    /**
+     * Reopen the nodes of the latest branch, which were closed at the end time
+     * of the suspended tree, so that new intervals can be inserted in them.
+     * The nodes keep the intervals they already have.
+     */
+    private void reopenLatestBranch() throws IOException {
+        for (HTNode node : fLatestBranch) {
+            node.reopenThisNode();
+            if (node instanceof CoreNode) {
+                ((CoreNode) node).reopenLatestChild();
+            }
+        }
+
+        /* The header will be written again when the tree is closed */
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0);
+        buffer.flip();
+        fTreeIO.getFcOut().write(buffer, 0);
     }
 
     /**
@@ -273,6 +340,9 @@ public class HistoryTreeClassic implements IHistoryTree {
             closeBranch(0, requestedEndTime);
 
             try (FileChannel fc = fTreeIO.getFcOut()) {
+                boolean packed = (fConfig.getNodeFormat() != HTConfig.NodeFormat.CLASSIC);
+                long nodeIndexPosition = packed ? fTreeIO.writeNodeIndex(fNodeCount) : 0;
+
                 ByteBuffer buffer = ByteBuffer.allocate(TREE_HEADER_SIZE);
                 buffer.order(ByteOrder.LITTLE_ENDIAN);
                 buffer.clear();
@@ -282,7 +352,7 @@ public class HistoryTreeClassic implements IHistoryTree {
 
                 buffer.putInt(HISTORY_FILE_MAGIC_NUMBER);
 
-                buffer.putInt(FILE_VERSION);
+                buffer.putInt(packed ? PACKED_FILE_VERSION : FILE_VERSION);
                 buffer.putInt(fConfig.getProviderVersion());
 
                 buffer.putInt(fConfig.getBlockSize());
@@ -296,6 +366,11 @@ public class HistoryTreeClassic implements IHistoryTree {
                 /* start time of this history */
                 buffer.putLong(fLatestBranch.get(0).getNodeStart());
 
+                if (packed) {
+                    buffer.put(fConfig.getNodeFormat().toByte());
+                    buffer.putLong(nodeIndexPosition);
+                }
+
                 buffer.flip();
                 int res = fc.write(buffer);
 
@@ -396,8 +471,7 @@ public class HistoryTreeClassic implements IHistoryTree {
 
     @Override
     public long supplyATWriterFilePos() {
-        return IHistoryTree.TREE_HEADER_SIZE
-                + ((long) getNodeCount() * fConfig.getBlockSize());
+        return fTreeIO.getNodeSectionEnd(getNodeCount());
     }
 
     @Override
@@ -435,6 +509,11 @@ public class HistoryTreeClassic implements IHistoryTree {
         fTreeIO.writeNode(node);
     }
 
+    @Override
+    public CacheStats getNodeCacheStats() {
+        return fTreeIO.getNodeCacheStats();
+    }
+
     @Override
     public void closeFile() {
         fTreeIO.closeFile();
@@ -23,6 +23,8 @@ import org.eclipse.tracecompass.statesystem.core.exceptions.AttributeNotFoundExc
 import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
 import org.eclipse.tracecompass.statesystem.core.exceptions.TimeRangeException;
 import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateInterval;
+import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateIntervalCursor;
+import org.eclipse.tracecompass.statesystem.core.interval.StateIntervalCursors;
 import org.eclipse.tracecompass.statesystem.core.statevalue.ITmfStateValue;
 
 
@@ -534,4 +536,32 @@ public interface ITmfStateSystem {
      */
     Iterable<@NonNull ITmfStateInterval> query2D(@NonNull Collection<Integer> quarks,
             long start, long end) throws StateSystemDisposedException, IndexOutOfBoundsException, TimeRangeException;
+
+    /**
+     * Multiple attribute and time range cursor query. Same as
+     * {@link #query2D(Collection, long, long)}, but the results are returned
+     * through a flyweight cursor instead of one object per interval, so
+     * scanning a large number of intervals puts less pressure on the garbage
+     * collector.
+     *
+     * @param quarks
+     *            a collection of quarks for which we want information
+     * @param start
+     *            lower bound for the query
+     * @param end
+     *            upper bound for the query
+     * @return a lazily evaluated un-ordered cursor over the queried intervals
+     * @throws StateSystemDisposedException
+     *             If the query is sent after the state system has been disposed
+     * @throws IndexOutOfBoundsException
+     *             If the smallest attribute is {@literal <} 0 or if the largest
+     *             is {@literal >=} to the number of attributes.
+     * @throws TimeRangeException
+     *             If the smallest time is before the state system start time.
+     * @since 5.2
+     */
+    default @NonNull ITmfStateIntervalCursor query2DCursor(@NonNull Collection<Integer> quarks,
+            long start, long end) throws StateSystemDisposedException, IndexOutOfBoundsException, TimeRangeException {
+        return StateIntervalCursors.fromIterable(query2D(quarks, start, end));
+    }
 }
\ No newline at end of file
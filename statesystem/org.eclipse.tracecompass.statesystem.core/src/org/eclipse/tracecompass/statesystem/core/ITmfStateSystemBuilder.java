@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2016 Ericsson
+ * Copyright (c) 2012, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -14,11 +14,14 @@
 
 package org.eclipse.tracecompass.statesystem.core;
 
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.statesystem.core.backend.IStateHistoryBackend;
 import org.eclipse.tracecompass.statesystem.core.exceptions.StateValueTypeException;
 import org.eclipse.tracecompass.statesystem.core.exceptions.TimeRangeException;
 import org.eclipse.tracecompass.statesystem.core.statevalue.ITmfStateValue;
@@ -279,6 +282,45 @@ public interface ITmfStateSystemBuilder extends ITmfStateSystem {
      */
     void closeHistory(long endTime);
 
+    /**
+     * Suspend the construction of the history, to resume it later with
+     * {@link StateSystemFactory#resumeStateSystem}, for example when more data
+     * is added to a trace that is still growing. The intervals inserted so far
+     * are saved by the backend, and the ongoing state is written to the output.
+     * The state system can still be queried, but the state changes that come
+     * after this call are ignored, and {@link #closeHistory(long)} does nothing
+     * until the construction is resumed with
+     * {@link #resumeHistory(IStateHistoryBackend)}.
+     *
+     * @param output
+     *            The output to which the ongoing state is written
+     * @throws IOException
+     *             If the history of this state system cannot be suspended, or
+     *             if there is an error writing the ongoing state
+     * @since 5.2
+     */
+    default void suspendHistory(DataOutput output) throws IOException {
+        throw new IOException("The history of this state system cannot be suspended"); //$NON-NLS-1$
+    }
+
+    /**
+     * Resume, in this state system, the construction of a history that was
+     * suspended with {@link #suspendHistory(DataOutput)}. The state changes are
+     * applied again from the ongoing state at the time of the suspension, and
+     * the intervals are inserted in the given backend.
+     *
+     * @param backend
+     *            The backend of the suspended history, reopened to append
+     *            intervals to it
+     * @throws IOException
+     *             If the history of this state system is not suspended or
+     *             cannot be resumed
+     * @since 5.2
+     */
+    default void resumeHistory(IStateHistoryBackend backend) throws IOException {
+        throw new IOException("The history of this state system cannot be resumed"); //$NON-NLS-1$
+    }
+
     /**
      * Delete any generated files or anything that might have been created by
      * the history backend (either temporary or save files). By calling this, we
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014 Ericsson
+ * Copyright (c) 2014, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -14,6 +14,7 @@
 
 package org.eclipse.tracecompass.statesystem.core;
 
+import java.io.DataInput;
 import java.io.IOException;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -66,4 +67,26 @@ public final class StateSystemFactory {
         return new StateSystem(backend, newFile);
     }
 
+    /**
+     * Factory method to resume the construction of a history that was
+     * suspended with {@link ITmfStateSystemBuilder#suspendHistory}. The
+     * attribute tree is read from the backend, which must have been reopened
+     * to append to the suspended history, and the ongoing state is read from
+     * the input.
+     *
+     * @param backend
+     *            The backend of the suspended history
+     * @param input
+     *            The input from which to read the ongoing state
+     * @return The state system, ready to receive new state changes
+     * @throws IOException
+     *             If there was a problem reading the attribute tree or the
+     *             ongoing state
+     * @since 5.2
+     */
+    public static ITmfStateSystemBuilder resumeStateSystem(IStateHistoryBackend backend,
+            DataInput input) throws IOException {
+        return new StateSystem(backend, input);
+    }
+
 }
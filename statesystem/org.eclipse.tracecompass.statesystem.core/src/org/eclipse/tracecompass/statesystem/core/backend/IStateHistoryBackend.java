@@ -25,6 +25,8 @@ import org.eclipse.tracecompass.internal.provisional.datastore.core.condition.Ti
 import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
 import org.eclipse.tracecompass.statesystem.core.exceptions.TimeRangeException;
 import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateInterval;
+import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateIntervalCursor;
+import org.eclipse.tracecompass.statesystem.core.interval.StateIntervalCursors;
 import org.eclipse.tracecompass.statesystem.core.statevalue.TmfStateValue;
 
 /**
@@ -292,6 +294,30 @@ public interface IStateHistoryBackend {
         return query2D(quarkCondition, timeCondition);
     }
 
+    /**
+     * Generalized 2D cursor query method. Moves a flyweight cursor over the
+     * intervals that match the conditions on quarks and times, with no
+     * guaranteed order. Backends which can decode intervals in place should
+     * override this method, the default implementation wraps
+     * {@link #query2D(IntegerRangeCondition, TimeRangeCondition, boolean)}.
+     *
+     * @param quarkCondition
+     *            Condition on the quarks for returned intervals.
+     * @param timeCondition
+     *            Condition on the times for returned intervals
+     * @param reverse
+     *            A hint to tell whether the backend should be queried backward
+     *            or forward
+     * @return An un-ordered cursor over the queried intervals
+     * @throws TimeRangeException
+     *             if the time bounds are outside the range of the HistoryTree
+     * @since 5.2
+     */
+    default ITmfStateIntervalCursor query2DCursor(IntegerRangeCondition quarkCondition, TimeRangeCondition timeCondition, boolean reverse)
+            throws TimeRangeException {
+        return StateIntervalCursors.fromIterable(query2D(quarkCondition, timeCondition, reverse));
+    }
+
     /**
      * Defines whether backend is able to insert states before existing states.
      *
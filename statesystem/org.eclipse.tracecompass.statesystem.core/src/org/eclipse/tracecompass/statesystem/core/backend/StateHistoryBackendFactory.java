@@ -117,4 +117,34 @@ public final class StateHistoryBackendFactory {
             int providerVersion) throws IOException {
         return new HistoryTreeBackend(ssid, stateFile, providerVersion);
     }
+
+    /**
+     * Reopen the file of a History Tree whose construction was suspended, to
+     * continue building it. If the file cannot be found or recognized, or if
+     * it cannot be appended to, an IOException will be thrown.
+     *
+     * @param ssid
+     *            The state system's id
+     * @param stateFile
+     *            Filename/location of the suspended history
+     * @param providerVersion
+     *            Expected version of of the state provider plugin.
+     * @param queueSize
+     *            The size of the interval insertion queue between the receiver
+     *            and writer threads. If 0 is specified, no queue is used and
+     *            the writes happen in the same thread.
+     * @return The state system backend
+     * @throws IOException
+     *             If we can't read the file, if it doesn't exist, is not
+     *             recognized, if the version of the file does not match the
+     *             expected providerVersion, or if it cannot be appended to.
+     * @since 5.2
+     */
+    public static IStateHistoryBackend resumeHistoryTreeBackend(String ssid, File stateFile,
+            int providerVersion, int queueSize) throws IOException {
+        if (queueSize > 0) {
+            return new ThreadedHistoryTreeBackend(ssid, stateFile, providerVersion, queueSize);
+        }
+        return new HistoryTreeBackend(ssid, stateFile, providerVersion, true);
+    }
 }
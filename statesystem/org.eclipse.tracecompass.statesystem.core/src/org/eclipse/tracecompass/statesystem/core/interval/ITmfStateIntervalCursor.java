@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.statesystem.core.interval;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Cursor over the results of a state system query. Unlike an
+ * {@link ITmfStateInterval} iterable, the cursor is a flyweight: a single
+ * object is moved from one interval to the next, so scanning a large number of
+ * intervals does not allocate one object per interval.
+ *
+ * The cursor must first be moved with {@link #next()} before reading the
+ * current interval, and the accessors are only valid until the next call to
+ * {@link #next()}. Use {@link #toInterval()} to keep a copy of the current
+ * interval. A cursor is not thread-safe.
+ *
+ * Typical usage:
+ *
+ * <pre>
+ * ITmfStateIntervalCursor cursor = ss.query2DCursor(quarks, start, end);
+ * while (cursor.next()) {
+ *     long duration = cursor.getEndTime() - cursor.getStartTime();
+ *     int status = cursor.getValueInt();
+ *     ...
+ * }
+ * </pre>
+ *
+ * @since 5.2
+ */
+public interface ITmfStateIntervalCursor {
+
+    /**
+     * Move the cursor to the next interval
+     *
+     * @return true if the cursor is positioned on an interval, false if there
+     *         are no more intervals
+     */
+    boolean next();
+
+    /**
+     * Retrieve the start time of the current interval
+     *
+     * @return the start time of the current interval
+     */
+    long getStartTime();
+
+    /**
+     * Retrieve the end time of the current interval
+     *
+     * @return the end time of the current interval
+     */
+    long getEndTime();
+
+    /**
+     * Retrieve the quark of the attribute of the current interval
+     *
+     * @return the quark of the current interval
+     */
+    int getAttribute();
+
+    /**
+     * Retrieve whether the value of the current interval is null
+     *
+     * @return true if the current value is null
+     */
+    boolean isNullValue();
+
+    /**
+     * Retrieve the value of the current interval. Primitive values are boxed
+     * by this method, so the typed accessors should be preferred when the
+     * type of the value is known.
+     *
+     * @return the value of the current interval
+     */
+    @Nullable Object getValue();
+
+    /**
+     * Retrieve the value of the current interval as an int, or 0 if the value
+     * is null.
+     *
+     * @return the int value of the current interval
+     * @throws ClassCastException
+     *             if the value is not an int
+     */
+    int getValueInt();
+
+    /**
+     * Retrieve the value of the current interval as a long, or 0L if the
+     * value is null.
+     *
+     * @return the long value of the current interval
+     * @throws ClassCastException
+     *             if the value is not a long
+     */
+    long getValueLong();
+
+    /**
+     * Retrieve the value of the current interval as a double, or 0.0 if the
+     * value is null.
+     *
+     * @return the double value of the current interval
+     * @throws ClassCastException
+     *             if the value is not a double
+     */
+    double getValueDouble();
+
+    /**
+     * Retrieve the value of the current interval as a String
+     *
+     * @return the String value of the current interval, or null if the value
+     *         is null
+     * @throws ClassCastException
+     *             if the value is not a String
+     */
+    default @Nullable String getValueString() {
+        return (String) getValue();
+    }
+
+    /**
+     * Test if the current interval intersects a timestamp, inclusively.
+     *
+     * @param timestamp
+     *            The target timestamp
+     * @return True if the current interval and timestamp intersect
+     */
+    default boolean intersects(long timestamp) {
+        return getStartTime() <= timestamp && timestamp <= getEndTime();
+    }
+
+    /**
+     * Copy the current interval into a new interval object that stays valid
+     * after the cursor moves.
+     *
+     * @return a copy of the current interval
+     */
+    default ITmfStateInterval toInterval() {
+        return new TmfStateInterval(getStartTime(), getEndTime(), getAttribute(), getValue());
+    }
+}
@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.statesystem.core.interval;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Utility methods to create {@link ITmfStateIntervalCursor}s
+ *
+ * @since 5.2
+ */
+public final class StateIntervalCursors {
+
+    private StateIntervalCursors() {
+        // Do nothing
+    }
+
+    /**
+     * Create a cursor over an iterable of intervals, for backends and state
+     * systems that do not have a flyweight implementation. The cursor does not
+     * allocate anything itself, but the intervals still come from the
+     * iterable.
+     *
+     * @param intervals
+     *            The intervals to iterate on
+     * @return The cursor
+     */
+    public static ITmfStateIntervalCursor fromIterable(Iterable<@NonNull ITmfStateInterval> intervals) {
+        return new IteratorCursor(intervals.iterator());
+    }
+
+    /**
+     * Create a cursor that goes through the intervals of a first cursor, then
+     * through those of a second one.
+     *
+     * @param first
+     *            The first cursor
+     * @param second
+     *            The second cursor
+     * @return The concatenated cursor
+     */
+    public static ITmfStateIntervalCursor concat(ITmfStateIntervalCursor first, ITmfStateIntervalCursor second) {
+        return new ConcatCursor(first, second);
+    }
+
+    private static final class IteratorCursor implements ITmfStateIntervalCursor {
+
+        private final Iterator<@NonNull ITmfStateInterval> fIterator;
+        private @Nullable ITmfStateInterval fCurrent = null;
+
+        public IteratorCursor(Iterator<@NonNull ITmfStateInterval> iterator) {
+            fIterator = iterator;
+        }
+
+        private ITmfStateInterval current() {
+            ITmfStateInterval current = fCurrent;
+            if (current == null) {
+                throw new NoSuchElementException("The cursor is not positioned on an interval"); //$NON-NLS-1$
+            }
+            return current;
+        }
+
+        @Override
+        public boolean next() {
+            fCurrent = fIterator.hasNext() ? fIterator.next() : null;
+            return fCurrent != null;
+        }
+
+        @Override
+        public long getStartTime() {
+            return current().getStartTime();
+        }
+
+        @Override
+        public long getEndTime() {
+            return current().getEndTime();
+        }
+
+        @Override
+        public int getAttribute() {
+            return current().getAttribute();
+        }
+
+        @Override
+        public boolean isNullValue() {
+            return current().getValue() == null;
+        }
+
+        @Override
+        public @Nullable Object getValue() {
+            return current().getValue();
+        }
+
+        @Override
+        public int getValueInt() {
+            return current().getValueInt();
+        }
+
+        @Override
+        public long getValueLong() {
+            return current().getValueLong();
+        }
+
+        @Override
+        public double getValueDouble() {
+            return current().getValueDouble();
+        }
+
+        @Override
+        public ITmfStateInterval toInterval() {
+            /* The intervals are immutable, no need to copy them */
+            return current();
+        }
+    }
+
+    private static final class ConcatCursor implements ITmfStateIntervalCursor {
+
+        private final ITmfStateIntervalCursor fSecond;
+        private ITmfStateIntervalCursor fCurrent;
+
+        public ConcatCursor(ITmfStateIntervalCursor first, ITmfStateIntervalCursor second) {
+            fCurrent = first;
+            fSecond = second;
+        }
+
+        @Override
+        public boolean next() {
+            if (fCurrent.next()) {
+                return true;
+            }
+            if (fCurrent == fSecond) {
+                return false;
+            }
+            fCurrent = fSecond;
+            return fCurrent.next();
+        }
+
+        @Override
+        public long getStartTime() {
+            return fCurrent.getStartTime();
+        }
+
+        @Override
+        public long getEndTime() {
+            return fCurrent.getEndTime();
+        }
+
+        @Override
+        public int getAttribute() {
+            return fCurrent.getAttribute();
+        }
+
+        @Override
+        public boolean isNullValue() {
+            return fCurrent.isNullValue();
+        }
+
+        @Override
+        public @Nullable Object getValue() {
+            return fCurrent.getValue();
+        }
+
+        @Override
+        public int getValueInt() {
+            return fCurrent.getValueInt();
+        }
+
+        @Override
+        public long getValueLong() {
+            return fCurrent.getValueLong();
+        }
+
+        @Override
+        public double getValueDouble() {
+            return fCurrent.getValueDouble();
+        }
+
+        @Override
+        public @Nullable String getValueString() {
+            return fCurrent.getValueString();
+        }
+
+        @Override
+        public ITmfStateInterval toInterval() {
+            return fCurrent.toInterval();
+        }
+    }
+}
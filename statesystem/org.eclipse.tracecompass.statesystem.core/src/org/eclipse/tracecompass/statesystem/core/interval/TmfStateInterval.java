@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2018 Ericsson
+ * Copyright (c) 2012, 2026 Ericsson
  * Copyright (c) 2010, 2011 École Polytechnique de Montréal
  * Copyright (c) 2010, 2011 Alexandre Montplaisir <alexandre.montplaisir@gmail.com>
  *
@@ -14,6 +14,8 @@
 
 package org.eclipse.tracecompass.statesystem.core.interval;
 
+import java.util.Objects;
+
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.statesystem.core.statevalue.ITmfStateValue;
@@ -83,6 +85,29 @@ public final class TmfStateInterval implements ITmfStateInterval {
         return fStart <= timestamp && fEnd >= timestamp;
     }
 
+    @Override
+    public boolean equals(@Nullable Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        TmfStateInterval other = (TmfStateInterval) obj;
+        return (fStart == other.fStart &&
+                fEnd == other.fEnd &&
+                fAttribute == other.fAttribute &&
+                Objects.equals(fValue, other.fValue));
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(fStart, fEnd, fAttribute, fValue);
+    }
+
     @Override
     public String toString() {
         /* Only used for debugging */
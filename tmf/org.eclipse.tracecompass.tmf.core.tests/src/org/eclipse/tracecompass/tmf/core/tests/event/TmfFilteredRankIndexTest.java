@@ -0,0 +1,163 @@
+/**********************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ **********************************************************************/
+
+package org.eclipse.tracecompass.tmf.core.tests.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import org.eclipse.tracecompass.internal.provisional.tmf.core.model.events.TmfFilteredRankIndex;
+import org.junit.Test;
+
+/**
+ * Test the {@link TmfFilteredRankIndex}
+ */
+public class TmfFilteredRankIndexTest {
+
+    private static final int MAX_ENTRIES = 100;
+    private static final int NB_EVENTS = 1000000;
+
+    /**
+     * Fill an index with the events of a fake trace matching with a given
+     * probability
+     *
+     * @return the ranks of all the matching events
+     */
+    private static List<Long> fill(TmfFilteredRankIndex index, long seed) {
+        Random random = new Random(seed);
+        List<Long> ranks = new ArrayList<>();
+        for (long rank = 0; rank < NB_EVENTS; rank++) {
+            if (random.nextInt(10) == 0) {
+                index.add(rank);
+                ranks.add(rank);
+            }
+        }
+        index.setComplete(NB_EVENTS);
+        return ranks;
+    }
+
+    /**
+     * Check that the floor entries are indexed events, and that they are the
+     * closest ones given the interval between the entries
+     */
+    private static void checkIndex(TmfFilteredRankIndex index, List<Long> ranks) {
+        assertEquals(ranks.size(), index.getCount());
+        Random random = new Random(1);
+        for (int i = 0; i < 1000; i++) {
+            long row = random.nextInt(ranks.size());
+            Entry<Long, Long> entry = index.floorIndexEntry(row);
+            assertNotNull(entry);
+            long entryRow = entry.getKey();
+            assertTrue(entryRow <= row);
+            assertEquals(ranks.get((int) entryRow), entry.getValue());
+
+            long rank = random.nextInt(NB_EVENTS);
+            Entry<Long, Long> rankEntry = index.floorRankEntry(rank);
+            if (rank < ranks.get(0)) {
+                assertNull(rankEntry);
+                continue;
+            }
+            assertNotNull(rankEntry);
+            assertTrue(rankEntry.getKey() <= rank);
+            assertEquals(rankEntry.getKey(), ranks.get(rankEntry.getValue().intValue()));
+        }
+    }
+
+    /**
+     * Test an empty index
+     */
+    @Test
+    public void testEmpty() {
+        TmfFilteredRankIndex index = new TmfFilteredRankIndex(MAX_ENTRIES);
+        assertEquals(0, index.getCount());
+        assertNull(index.floorIndexEntry(0));
+        assertNull(index.floorRankEntry(10));
+        assertFalse(index.isComplete(0));
+        assertFalse(index.isBuilding());
+        index.setComplete(0);
+        assertTrue(index.isComplete(0));
+        assertFalse(index.isComplete(1));
+    }
+
+    /**
+     * Test the lookups in an index that was compacted many times, the
+     * number of entries stays bounded
+     */
+    @Test
+    public void testCompaction() {
+        TmfFilteredRankIndex index = new TmfFilteredRankIndex(MAX_ENTRIES);
+        List<Long> ranks = fill(index, 0);
+        checkIndex(index, ranks);
+
+        /* The last entry is close to the last event, within 2 intervals */
+        Entry<Long, Long> last = index.floorIndexEntry(Long.MAX_VALUE);
+        assertNotNull(last);
+        long interval = ranks.size() / MAX_ENTRIES;
+        assertTrue(ranks.size() - last.getKey() <= 4 * interval);
+    }
+
+    /**
+     * Test saving an index and reading it back
+     *
+     * @throws IOException
+     *             if the temporary file cannot be created
+     */
+    @Test
+    public void testSaveLoad() throws IOException {
+        File file = File.createTempFile("filtered-rank-index", ".idx");
+        try {
+            TmfFilteredRankIndex index = new TmfFilteredRankIndex(MAX_ENTRIES);
+            List<Long> ranks = fill(index, 2);
+            index.save(file);
+
+            /* The index is not read for another number of events */
+            assertNull(TmfFilteredRankIndex.load(file, NB_EVENTS + 1));
+
+            TmfFilteredRankIndex loaded = TmfFilteredRankIndex.load(file, NB_EVENTS);
+            assertNotNull(loaded);
+            assertTrue(loaded.isComplete(NB_EVENTS));
+            assertFalse(loaded.isBuilding());
+            checkIndex(loaded, ranks);
+            for (long row = 0; row < ranks.size(); row += 997) {
+                assertEquals(index.floorIndexEntry(row), loaded.floorIndexEntry(row));
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Test that a file that is not an index is not read
+     *
+     * @throws IOException
+     *             if the temporary file cannot be created
+     */
+    @Test
+    public void testLoadInvalid() throws IOException {
+        File file = File.createTempFile("filtered-rank-index", ".idx");
+        try {
+            assertNull(TmfFilteredRankIndex.load(file, 0));
+            assertNull(TmfFilteredRankIndex.load(new File(file.getPath() + ".missing"), 0));
+        } finally {
+            file.delete();
+        }
+    }
+}
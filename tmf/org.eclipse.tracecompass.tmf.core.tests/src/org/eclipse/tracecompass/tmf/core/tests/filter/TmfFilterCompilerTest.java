@@ -0,0 +1,229 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.tmf.core.tests.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.internal.provisional.tmf.core.model.filter.parser.FilterCu;
+import org.eclipse.tracecompass.internal.tmf.core.filter.TmfFilterCompiler;
+import org.eclipse.tracecompass.internal.tmf.core.filter.TmfFilterHelper;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEventField;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEventType;
+import org.eclipse.tracecompass.tmf.core.event.TmfEvent;
+import org.eclipse.tracecompass.tmf.core.event.TmfEventField;
+import org.eclipse.tracecompass.tmf.core.event.TmfEventType;
+import org.eclipse.tracecompass.tmf.core.event.aspect.ITmfEventAspect;
+import org.eclipse.tracecompass.tmf.core.event.aspect.TmfBaseAspects;
+import org.eclipse.tracecompass.tmf.core.filter.ITmfFilter;
+import org.eclipse.tracecompass.tmf.core.filter.model.TmfFilterAndNode;
+import org.eclipse.tracecompass.tmf.core.filter.model.TmfFilterCompareNode;
+import org.eclipse.tracecompass.tmf.core.filter.model.TmfFilterContainsNode;
+import org.eclipse.tracecompass.tmf.core.filter.model.TmfFilterEqualsNode;
+import org.eclipse.tracecompass.tmf.core.filter.model.TmfFilterMatchesNode;
+import org.eclipse.tracecompass.tmf.core.filter.model.TmfFilterOrNode;
+import org.eclipse.tracecompass.tmf.core.filter.model.TmfFilterTraceTypeNode;
+import org.eclipse.tracecompass.tmf.core.tests.shared.TmfTestTrace;
+import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimestamp;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test the {@link TmfFilterCompiler} class, the compiled predicates should
+ * match the same events as the filters
+ */
+@NonNullByDefault
+public class TmfFilterCompilerTest {
+
+    private static @Nullable ITmfTrace STUB_TRACE;
+
+    private static final String FIELD1_NAME = "afield";
+    private static final String FIELD2_NAME = "bfield";
+    private static final String EVENT_NAME1 = "type1";
+    private static final String EVENT_NAME2 = "type2";
+    private static final ITmfEventType EVENT_TYPE1 = new TmfEventType(EVENT_NAME1, TmfEventField.makeRoot(new String[] { FIELD1_NAME }));
+    private static final ITmfEventType EVENT_TYPE2 = new TmfEventType(EVENT_NAME2, TmfEventField.makeRoot(new String[] { FIELD1_NAME, FIELD2_NAME }));
+
+    private static final List<String> REGEXES = Arrays.asList(
+            "afield value",
+            "Afield",
+            "afield == \"afield value 1\"",
+            "afield != \"afield value 1\"",
+            "afield contains other",
+            "afield matches \"v.*e 1$\"",
+            "afield present",
+            "!(afield present)",
+            "bfield > 5",
+            "bfield < 0x10",
+            "bfield > 1.5",
+            "bfield == 10",
+            "bfield > 5 && afield matches another",
+            "bfield < 5 || afield contains 1",
+            "!(bfield > 5 && afield present)",
+            "!(bfield > 5 || afield contains 1)",
+            "\"Event type\" == type1",
+            "type2 && bfield present");
+
+    private final List<ITmfEvent> fEvents = Arrays.asList(
+            createEvent(0, EVENT_TYPE1, new TmfEventField(FIELD1_NAME, "afield value 1", null)),
+            createEvent(1, EVENT_TYPE2, new TmfEventField(FIELD1_NAME, "another value", null), new TmfEventField(FIELD2_NAME, 10L, null)),
+            createEvent(2, EVENT_TYPE2, new TmfEventField(FIELD1_NAME, "AFIELD VALUE 1", null), new TmfEventField(FIELD2_NAME, 3L, null)),
+            createEvent(3, EVENT_TYPE2, new TmfEventField(FIELD2_NAME, 1.25, null)),
+            createEvent(4, EVENT_TYPE2, new TmfEventField(FIELD1_NAME, "value", null), new TmfEventField(FIELD2_NAME, "0x20", null)),
+            createEvent(5, EVENT_TYPE1, new TmfEventField(FIELD1_NAME, "other", null), new TmfEventField(FIELD2_NAME, "text", null)));
+
+    /**
+     * Initialize the trace
+     */
+    @BeforeClass
+    public static void initTrace() {
+        STUB_TRACE = TmfTestTrace.A_TEST_10K.getTrace();
+    }
+
+    /**
+     * Cleanup the trace
+     */
+    @AfterClass
+    public static void cleanUp() {
+        ITmfTrace trace = STUB_TRACE;
+        if (trace != null) {
+            trace.dispose();
+        }
+    }
+
+    private static ITmfEvent createEvent(long rank, ITmfEventType type, ITmfEventField... fields) {
+        ITmfEventField content = new TmfEventField(ITmfEventField.ROOT_FIELD_ID, null, fields);
+        return new TmfEvent(STUB_TRACE, rank, TmfTimestamp.fromNanos(rank), type, content);
+    }
+
+    private void assertSameMatches(ITmfFilter filter) {
+        Predicate<ITmfEvent> predicate = TmfFilterCompiler.compile(filter);
+        for (ITmfEvent event : fEvents) {
+            assertEquals(filter.toString() + " on " + event.getRank(), filter.matches(event), predicate.test(event));
+        }
+    }
+
+    /**
+     * Test the predicates of the filters of the filter language
+     */
+    @Test
+    public void testRegexFilters() {
+        ITmfTrace trace = STUB_TRACE;
+        assertNotNull(trace);
+        for (String regex : REGEXES) {
+            ITmfFilter filter = TmfFilterHelper.buildFilterFromRegex(Collections.singleton(regex), trace);
+            assertNotNull(regex, filter);
+            assertSameMatches(filter);
+
+            FilterCu cu = FilterCu.compile(regex);
+            assertNotNull(regex, cu);
+            Predicate<ITmfEvent> predicate = cu.getEventPredicate(trace);
+            for (ITmfEvent event : fEvents) {
+                assertEquals(regex + " on " + event.getRank(), filter.matches(event), predicate.test(event));
+            }
+        }
+    }
+
+    /**
+     * Test the predicates of the filter nodes and their negations
+     */
+    @Test
+    public void testNodes() {
+        ITmfEventAspect<@NonNull Object> field1Aspect = TmfBaseAspects.getContentsAspect().forField(FIELD1_NAME);
+        ITmfEventAspect<@NonNull Object> field2Aspect = TmfBaseAspects.getContentsAspect().forField(FIELD2_NAME);
+        for (boolean not : new boolean[] { false, true }) {
+            TmfFilterEqualsNode equalsNode = new TmfFilterEqualsNode(null);
+            equalsNode.setEventAspect(field1Aspect);
+            equalsNode.setValue("afield value 1");
+            equalsNode.setIgnoreCase(true);
+            equalsNode.setNot(not);
+            assertSameMatches(equalsNode);
+
+            TmfFilterContainsNode containsNode = new TmfFilterContainsNode(null);
+            containsNode.setEventAspect(field1Aspect);
+            containsNode.setValue("Value");
+            containsNode.setIgnoreCase(true);
+            containsNode.setNot(not);
+            assertSameMatches(containsNode);
+
+            TmfFilterMatchesNode matchesNode = new TmfFilterMatchesNode(null);
+            matchesNode.setEventAspect(field1Aspect);
+            matchesNode.setRegex("value");
+            matchesNode.setNot(not);
+            assertSameMatches(matchesNode);
+
+            /* An invalid regex does not match */
+            TmfFilterMatchesNode invalidNode = new TmfFilterMatchesNode(null);
+            invalidNode.setEventAspect(field1Aspect);
+            invalidNode.setRegex("[");
+            invalidNode.setNot(not);
+            assertSameMatches(invalidNode);
+
+            for (int result = -1; result <= 1; result++) {
+                TmfFilterCompareNode compareNode = new TmfFilterCompareNode(null);
+                compareNode.setEventAspect(field2Aspect);
+                compareNode.setValue("3");
+                compareNode.setResult(result);
+                compareNode.setNot(not);
+                assertSameMatches(compareNode);
+
+                /* The alphabetical comparison is not compiled */
+                compareNode.setType(TmfFilterCompareNode.Type.ALPHA);
+                assertSameMatches(compareNode);
+            }
+
+            TmfFilterAndNode andNode = new TmfFilterAndNode(null);
+            andNode.setNot(not);
+            assertSameMatches(andNode);
+            andNode.addChild(matchesNode);
+            andNode.addChild(containsNode);
+            assertSameMatches(andNode);
+
+            TmfFilterOrNode orNode = new TmfFilterOrNode(null);
+            orNode.setNot(not);
+            assertSameMatches(orNode);
+            orNode.addChild(equalsNode);
+            orNode.addChild(new TmfFilterTraceTypeNode(null));
+            assertSameMatches(orNode);
+        }
+    }
+
+    /**
+     * Test that the compiled predicate does not depend on later changes to
+     * the filter
+     */
+    @Test
+    public void testCompiledOnce() {
+        TmfFilterMatchesNode matchesNode = new TmfFilterMatchesNode(null);
+        matchesNode.setEventAspect(TmfBaseAspects.getContentsAspect().forField(FIELD1_NAME));
+        matchesNode.setRegex("other");
+        Predicate<ITmfEvent> predicate = TmfFilterCompiler.compile(matchesNode);
+        matchesNode.setRegex("afield");
+
+        ITmfEvent event = fEvents.get(5);
+        assertTrue(predicate.test(event));
+        assertFalse(matchesNode.matches(event));
+    }
+}
@@ -0,0 +1,294 @@
+/**********************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ **********************************************************************/
+package org.eclipse.tracecompass.tmf.core.tests.model.timegraph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.internal.tmf.core.model.timegraph.TimeGraphRowTileCache;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystemBuilder;
+import org.eclipse.tracecompass.statesystem.core.StateSystemFactory;
+import org.eclipse.tracecompass.statesystem.core.StateSystemUtils;
+import org.eclipse.tracecompass.statesystem.core.backend.StateHistoryBackendFactory;
+import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
+import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateInterval;
+import org.eclipse.tracecompass.tmf.core.dataprovider.DataProviderParameterUtils;
+import org.eclipse.tracecompass.tmf.core.model.timegraph.ITimeGraphRowModel;
+import org.eclipse.tracecompass.tmf.core.model.timegraph.ITimeGraphState;
+import org.eclipse.tracecompass.tmf.core.model.timegraph.TimeGraphModel;
+import org.eclipse.tracecompass.tmf.core.model.timegraph.TimeGraphRowModel;
+import org.eclipse.tracecompass.tmf.core.model.timegraph.TimeGraphState;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the {@link TimeGraphRowTileCache}, the cached rows must have the states
+ * that the provider returns for the same query, and only the missing tiles
+ * must be fetched.
+ */
+public class TimeGraphRowTileCacheTest {
+
+    private static final long START = 1000;
+    private static final long END = 1000000;
+    private static final int NB_ROWS = 5;
+    /* The states are longer than the resolutions of the queries */
+    private static final long MIN_DURATION = 300;
+    private static final long RESOLUTION = 100;
+
+    private ITmfStateSystemBuilder fSs;
+    private final List<Map<String, Object>> fFetches = new ArrayList<>();
+
+    /**
+     * The provider, returns a row per requested attribute with the states at
+     * the requested times
+     */
+    private @Nullable TimeGraphModel fetch(Map<String, Object> parameters) throws StateSystemDisposedException {
+        fFetches.add(parameters);
+        List<Long> times = DataProviderParameterUtils.extractTimeRequested(parameters);
+        List<Long> items = DataProviderParameterUtils.extractSelectedItems(parameters);
+        assertNotNull(times);
+        assertNotNull(items);
+        List<@NonNull ITimeGraphRowModel> rows = new ArrayList<>();
+        for (Long item : items) {
+            Map<Long, ITimeGraphState> states = new LinkedHashMap<>();
+            for (Long time : times) {
+                if (time >= fSs.getStartTime() && time <= fSs.getCurrentEndTime()) {
+                    ITmfStateInterval interval = fSs.querySingleState(time, item.intValue());
+                    states.computeIfAbsent(interval.getStartTime(), t -> new TimeGraphState(interval.getStartTime(),
+                            interval.getEndTime() - interval.getStartTime() + 1, interval.getValueInt()));
+                }
+            }
+            rows.add(new TimeGraphRowModel(item, new ArrayList<>(states.values())));
+        }
+        return new TimeGraphModel(rows);
+    }
+
+    /**
+     * Build a state system with a few attributes
+     */
+    @Before
+    public void setup() {
+        fSs = StateSystemFactory.newStateSystem(StateHistoryBackendFactory.createInMemoryBackend("test", START));
+        for (int row = 0; row < NB_ROWS; row++) {
+            int quark = fSs.getQuarkAbsoluteAndAdd("row" + row);
+            long time = START;
+            int value = 0;
+            while (time < END) {
+                fSs.modifyAttribute(time, value, quark);
+                time += MIN_DURATION + (value * 7919L + row * 104729L) % 1000;
+                value++;
+            }
+        }
+        fSs.closeHistory(END);
+    }
+
+    /**
+     * Dispose the state system
+     */
+    @After
+    public void cleanup() {
+        fSs.dispose();
+        fFetches.clear();
+    }
+
+    private static Map<String, Object> getParameters(long start, long end, long resolution) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put(DataProviderParameterUtils.REQUESTED_TIME_KEY, StateSystemUtils.getTimes(start, end, resolution));
+        List<Long> items = new ArrayList<>();
+        for (long item = 0; item < NB_ROWS; item++) {
+            items.add(item);
+        }
+        parameters.put(DataProviderParameterUtils.REQUESTED_ITEMS_KEY, items);
+        return parameters;
+    }
+
+    private void assertSameRows(TimeGraphRowTileCache cache, long start, long end, long resolution) throws StateSystemDisposedException {
+        Map<String, Object> parameters = getParameters(start, end, resolution);
+        TimeGraphModel expected = fetch(parameters);
+        TimeGraphModel actual = cache.fetch(fSs, parameters, this::fetch);
+        assertNotNull(expected);
+        assertNotNull(actual);
+        assertEquals(expected.getRows().size(), actual.getRows().size());
+        for (int i = 0; i < expected.getRows().size(); i++) {
+            ITimeGraphRowModel expectedRow = expected.getRows().get(i);
+            ITimeGraphRowModel actualRow = actual.getRows().get(i);
+            assertEquals(expectedRow.getEntryID(), actualRow.getEntryID());
+            List<@NonNull ITimeGraphState> expectedStates = expectedRow.getStates();
+            List<@NonNull ITimeGraphState> actualStates = actualRow.getStates();
+            assertEquals("Row " + i, expectedStates.size(), actualStates.size());
+            for (int j = 0; j < expectedStates.size(); j++) {
+                assertEquals(expectedStates.get(j).getStartTime(), actualStates.get(j).getStartTime());
+                assertEquals(expectedStates.get(j).getDuration(), actualStates.get(j).getDuration());
+                assertEquals(expectedStates.get(j).getValue(), actualStates.get(j).getValue());
+            }
+        }
+    }
+
+    /**
+     * Test that the cached rows have the same states as the rows of the
+     * provider, for several windows and resolutions
+     *
+     * @throws StateSystemDisposedException
+     *             Fails the test
+     */
+    @Test
+    public void testSameRows() throws StateSystemDisposedException {
+        TimeGraphRowTileCache cache = new TimeGraphRowTileCache();
+        assertSameRows(cache, START, END, RESOLUTION * 3);
+        assertSameRows(cache, 50000, 150000, RESOLUTION);
+        assertSameRows(cache, 50000 + 12345, 150000 + 12345, RESOLUTION);
+        assertSameRows(cache, 0, 100000, RESOLUTION);
+        assertSameRows(cache, END - 100000, END + 100000, RESOLUTION);
+        assertSameRows(cache, 50000, 150000, RESOLUTION);
+    }
+
+    /**
+     * Test that the same query is served from the cache, and that panning only
+     * fetches the tiles that become visible
+     *
+     * @throws StateSystemDisposedException
+     *             Fails the test
+     */
+    @Test
+    public void testPan() throws StateSystemDisposedException {
+        TimeGraphRowTileCache cache = new TimeGraphRowTileCache();
+        assertNotNull(cache.fetch(fSs, getParameters(100000, 200000, RESOLUTION), this::fetch));
+        assertEquals(1, fFetches.size());
+        List<Long> first = DataProviderParameterUtils.extractTimeRequested(fFetches.get(0));
+        assertNotNull(first);
+        long lastSample = Collections.max(first);
+
+        fFetches.clear();
+        assertNotNull(cache.fetch(fSs, getParameters(100000, 200000, RESOLUTION), this::fetch));
+        assertTrue(fFetches.isEmpty());
+
+        assertNotNull(cache.fetch(fSs, getParameters(150000, 250000, RESOLUTION), this::fetch));
+        assertEquals(1, fFetches.size());
+        List<Long> panned = DataProviderParameterUtils.extractTimeRequested(fFetches.get(0));
+        assertNotNull(panned);
+        assertTrue(Collections.min(panned) > lastSample);
+    }
+
+    /**
+     * Test that the queries with filters, and the queries on a state system
+     * that is being built are not cached
+     *
+     * @throws StateSystemDisposedException
+     *             Fails the test
+     */
+    @Test
+    public void testNotCached() throws StateSystemDisposedException {
+        TimeGraphRowTileCache cache = new TimeGraphRowTileCache();
+        Map<String, Object> parameters = getParameters(100000, 200000, RESOLUTION);
+        parameters.put(DataProviderParameterUtils.FULL_SEARCH_KEY, Boolean.TRUE);
+        assertNotNull(cache.fetch(fSs, parameters, this::fetch));
+        assertNotNull(cache.fetch(fSs, parameters, this::fetch));
+        assertEquals(2, fFetches.size());
+        assertEquals(parameters, fFetches.get(1));
+
+        fFetches.clear();
+        ITmfStateSystemBuilder building = StateSystemFactory.newStateSystem(StateHistoryBackendFactory.createInMemoryBackend("building", START));
+        building.modifyAttribute(START, 0, building.getQuarkAbsoluteAndAdd("row"));
+        parameters = getParameters(START, START + 1000, RESOLUTION);
+        cache.fetch(building, parameters, this::fetch);
+        cache.fetch(building, parameters, this::fetch);
+        assertEquals(2, fFetches.size());
+        building.dispose();
+    }
+
+    /**
+     * Test that the least recently used tiles are evicted
+     *
+     * @throws StateSystemDisposedException
+     *             Fails the test
+     */
+    @Test
+    public void testEviction() throws StateSystemDisposedException {
+        TimeGraphRowTileCache cache = new TimeGraphRowTileCache(100);
+        assertNotNull(cache.fetch(fSs, getParameters(100000, 200000, RESOLUTION), this::fetch));
+        assertNotNull(cache.fetch(fSs, getParameters(500000, 600000, RESOLUTION), this::fetch));
+        assertNotNull(cache.fetch(fSs, getParameters(100000, 200000, RESOLUTION), this::fetch));
+        assertEquals(3, fFetches.size());
+
+        cache.clear();
+        assertNotNull(cache.fetch(fSs, getParameters(500000, 600000, RESOLUTION), this::fetch));
+        assertEquals(4, fFetches.size());
+    }
+
+    /**
+     * Test that a cancelled fetch cancels the query and is not cached
+     *
+     * @throws StateSystemDisposedException
+     *             Fails the test
+     */
+    @Test
+    public void testCancelled() throws StateSystemDisposedException {
+        TimeGraphRowTileCache cache = new TimeGraphRowTileCache();
+        Map<String, Object> parameters = getParameters(100000, 200000, RESOLUTION);
+        assertNull(cache.fetch(fSs, parameters, p -> null));
+        assertNotNull(cache.fetch(fSs, parameters, this::fetch));
+        assertEquals(Arrays.asList(0L, 1L, 2L, 3L, 4L), DataProviderParameterUtils.extractSelectedItems(fFetches.get(0)));
+    }
+
+    /**
+     * Test that the tiles are fetched again when the construction of the
+     * history is resumed, and its ongoing states end later
+     *
+     * @throws IOException
+     *             Fails the test
+     * @throws StateSystemDisposedException
+     *             Fails the test
+     */
+    @Test
+    public void testResumed() throws IOException, StateSystemDisposedException {
+        File file = File.createTempFile("resumed", ".ht");
+        try {
+            fSs.dispose();
+            fSs = StateSystemFactory.newStateSystem(StateHistoryBackendFactory.createHistoryTreeBackendNewFile("resumed", file, 1, START, 0));
+            for (int row = 0; row < NB_ROWS; row++) {
+                int quark = fSs.getQuarkAbsoluteAndAdd("row" + row);
+                fSs.modifyAttribute(START, 0, quark);
+                fSs.modifyAttribute(START + 1000 * (row + 1), 1, quark);
+            }
+            fSs.suspendHistory(new DataOutputStream(new ByteArrayOutputStream()));
+
+            TimeGraphRowTileCache cache = new TimeGraphRowTileCache();
+            assertSameRows(cache, START, START + 100000, RESOLUTION);
+            assertSameRows(cache, START, START + 100000, RESOLUTION);
+            assertEquals(3, fFetches.size());
+
+            fSs.resumeHistory(StateHistoryBackendFactory.resumeHistoryTreeBackend("resumed", file, 1, 0));
+            fSs.modifyAttribute(START + 50000, 2, fSs.getQuarkAbsoluteAndAdd("row0"));
+            fSs.suspendHistory(new DataOutputStream(new ByteArrayOutputStream()));
+            assertSameRows(cache, START, START + 100000, RESOLUTION);
+            assertEquals(5, fFetches.size());
+        } finally {
+            fSs.removeFiles();
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2017 Ericsson
+ * Copyright (c) 2009, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -512,8 +512,34 @@ public class TmfCoalescedEventRequestTest {
         runCoalescedRequest(5);
     }
 
+    @Test
+    public void testPipelinedCoalescedRequest() throws InterruptedException {
+        System.setProperty(TmfCoalescedEventRequest.PIPELINED_FAN_OUT_PROPERTY, Boolean.TRUE.toString());
+        try {
+            runCoalescedRequest(0);
+            runCoalescedRequest(1);
+            runCoalescedRequest(5);
+        } finally {
+            System.clearProperty(TmfCoalescedEventRequest.PIPELINED_FAN_OUT_PROPERTY);
+        }
+    }
+
     @Test
     public void testCancelCoalescedRequest() throws InterruptedException {
+        runCancelCoalescedRequest();
+    }
+
+    @Test
+    public void testCancelPipelinedCoalescedRequest() throws InterruptedException {
+        System.setProperty(TmfCoalescedEventRequest.PIPELINED_FAN_OUT_PROPERTY, Boolean.TRUE.toString());
+        try {
+            runCancelCoalescedRequest();
+        } finally {
+            System.clearProperty(TmfCoalescedEventRequest.PIPELINED_FAN_OUT_PROPERTY);
+        }
+    }
+
+    private void runCancelCoalescedRequest() throws InterruptedException {
 
         fTrace = setupTrace(TEST_TRACE.getFullPath());
 
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.tmf.core.tests.request;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.tracecompass.internal.tmf.core.component.TmfEventThread;
+import org.eclipse.tracecompass.internal.tmf.core.request.TmfRequestExecutor;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
+import org.eclipse.tracecompass.tmf.core.exceptions.TmfTraceException;
+import org.eclipse.tracecompass.tmf.core.request.ITmfEventRequest.ExecutionType;
+import org.eclipse.tracecompass.tmf.core.request.TmfEventRequest;
+import org.eclipse.tracecompass.tmf.core.signal.TmfSignalManager;
+import org.eclipse.tracecompass.tmf.core.tests.shared.TmfTestTrace;
+import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimeRange;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+import org.eclipse.tracecompass.tmf.tests.stubs.request.TmfEventRequestStub;
+import org.eclipse.tracecompass.tmf.tests.stubs.trace.TmfTraceStub;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.rules.Timeout;
+
+/**
+ * Test suite for the TmfRequestExecutor class
+ */
+public class TmfRequestExecutorTest {
+
+    /**
+     * The test should timeout after a few seconds, that would mean a deadlock
+     * may have happened
+     */
+    @Rule
+    public TestRule globalTimeout = new Timeout(2, TimeUnit.MINUTES);
+
+    private static final TmfTestTrace TEST_TRACE = TmfTestTrace.A_TEST_10K;
+    private static final int NB_EVENTS = 1000;
+
+    private TmfTraceStub fTrace;
+    private TmfRequestExecutor fExecutor;
+
+    /**
+     * Test setup
+     */
+    @Before
+    public void setUp() {
+        try {
+            fTrace = new TmfTraceStub(TEST_TRACE.getFullPath(), ITmfTrace.DEFAULT_TRACE_CACHE_SIZE, false, null);
+            TmfSignalManager.deregister(fTrace);
+            fTrace.indexTrace(true);
+        } catch (final TmfTraceException e) {
+            e.printStackTrace();
+            fail("Error setting up test trace");
+        }
+        fExecutor = new TmfRequestExecutor();
+        fExecutor.init();
+    }
+
+    /**
+     * Test clean-up
+     */
+    @After
+    public void tearDown() {
+        fExecutor.stop();
+        fTrace.dispose();
+    }
+
+    /**
+     * Test that many requests sent at the same time are all executed, instead
+     * of being cancelled when too many are waiting
+     *
+     * @throws InterruptedException
+     *             The test timed out
+     */
+    @Test
+    public void testManyRequests() throws InterruptedException {
+        List<TmfEventRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            ExecutionType type = (i % 3 == 0) ? ExecutionType.FOREGROUND : ExecutionType.BACKGROUND;
+            TmfEventRequest request = new TmfEventRequestStub(ITmfEvent.class, TmfTimeRange.ETERNITY, NB_EVENTS, 0, type, 0);
+            requests.add(request);
+            fExecutor.execute(new TmfEventThread(fTrace, request));
+        }
+        for (TmfEventRequest request : requests) {
+            request.waitForCompletion();
+            assertTrue(request.isCompleted());
+            assertFalse(request.isCancelled());
+            assertFalse(request.isFailed());
+            assertEquals(NB_EVENTS, request.getNbRead());
+        }
+        assertEquals(requests.size(), fExecutor.getQueueWaitStatistics().getCount());
+    }
+
+    /**
+     * Test that stopping the executor cancels the waiting and suspended
+     * requests
+     *
+     * @throws InterruptedException
+     *             The test timed out
+     */
+    @Test
+    public void testStop() throws InterruptedException {
+        List<TmfEventRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            TmfEventRequest request = new TmfEventRequestStub(ITmfEvent.class, TmfTimeRange.ETERNITY, Integer.MAX_VALUE, 0, ExecutionType.BACKGROUND, 0);
+            requests.add(request);
+            fExecutor.execute(new TmfEventThread(fTrace, request));
+        }
+        fExecutor.stop();
+        assertTrue(fExecutor.isShutdown());
+        for (TmfEventRequest request : requests) {
+            request.waitForCompletion();
+            assertTrue(request.isCompleted());
+        }
+    }
+
+    /**
+     * Test the system property bounding the number of requests running at the
+     * same time
+     */
+    @Test
+    public void testMaxConcurrency() {
+        assertEquals(1, fExecutor.getMaxConcurrency());
+        System.setProperty(TmfRequestExecutor.MAX_CONCURRENCY_PROPERTY, "3");
+        try {
+            TmfRequestExecutor executor = new TmfRequestExecutor();
+            assertEquals(3, executor.getMaxConcurrency());
+            executor.stop();
+        } finally {
+            System.clearProperty(TmfRequestExecutor.MAX_CONCURRENCY_PROPERTY);
+        }
+    }
+}
@@ -24,6 +24,7 @@ import java.util.Map;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.annotation.NonNull;
@@ -35,6 +36,8 @@ import org.eclipse.tracecompass.statesystem.core.tests.shared.utils.StateSystemT
 import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
 import org.eclipse.tracecompass.tmf.core.exceptions.TmfAnalysisException;
 import org.eclipse.tracecompass.tmf.core.signal.TmfTraceOpenedSignal;
+import org.eclipse.tracecompass.tmf.core.signal.TmfTraceRangeUpdatedSignal;
+import org.eclipse.tracecompass.tmf.core.statesystem.AbstractTmfStateProvider;
 import org.eclipse.tracecompass.tmf.core.statesystem.ITmfStateProvider;
 import org.eclipse.tracecompass.tmf.core.statesystem.ITmfStateProvider.FutureEventType;
 import org.eclipse.tracecompass.tmf.core.statesystem.Messages;
@@ -516,4 +519,159 @@ public class StateSystemAnalysisModuleTest {
             TestStateSystemProvider.setEventHandler(null);
         }
     }
+
+    /**
+     * Test a state provider whose events are handled by several threads, one
+     * partition per event name
+     *
+     * @throws TmfAnalysisException
+     *             An exception when setting the trace
+     */
+    @Test
+    public void testPartitionedProvider() throws TmfAnalysisException {
+        ITmfTrace trace = fTrace;
+        assertNotNull(trace);
+
+        String previousThreads = System.getProperty(AbstractTmfStateProvider.PARTITION_THREADS_PROPERTY);
+        System.setProperty(AbstractTmfStateProvider.PARTITION_THREADS_PROPERTY, "2");
+        TestStateSystemProvider.setEventHandler((ss, provider, event) -> {
+            int quark = ss.getQuarkAbsoluteAndAdd(event.getName());
+            ss.modifyAttribute(event.getTimestamp().toNanos(), (int) event.getTimestamp().toNanos(), quark);
+            return true;
+        });
+        TmfStateSystemAnalysisModule module = new TestStateSystemModule() {
+
+            @Override
+            protected @NonNull ITmfStateProvider createStateProvider() {
+                return new TestStateSystemProvider(trace) {
+
+                    @Override
+                    protected boolean isPartitioned() {
+                        return true;
+                    }
+
+                    @Override
+                    protected @Nullable Object getPartitionKey(@NonNull ITmfEvent event) {
+                        return event.getName();
+                    }
+                };
+            }
+
+        };
+        try {
+            module.setTrace(trace);
+            module.schedule();
+            assertTrue(module.waitForCompletion());
+
+            ITmfStateSystem ss = module.getStateSystem();
+            assertNotNull(ss);
+
+            List<@NonNull ITmfStateInterval> expected = ImmutableList.of(new StateIntervalStub(1, 4, 1),
+                    new StateIntervalStub(5, 6, 5), new StateIntervalStub(7, 10, 7));
+            StateSystemTestUtils.testIntervalForAttributes(ss, expected, "noise");
+
+            expected = ImmutableList.of(new StateIntervalStub(1, 4, (Object) null), new StateIntervalStub(5, 6, 5),
+                    new StateIntervalStub(7, 9, 7), new StateIntervalStub(10, 10, 10));
+            StateSystemTestUtils.testIntervalForAttributes(ss, expected, "crucialEvent");
+        } finally {
+            module.dispose();
+            TestStateSystemProvider.setEventHandler(null);
+            if (previousThreads == null) {
+                System.clearProperty(AbstractTmfStateProvider.PARTITION_THREADS_PROPERTY);
+            } else {
+                System.setProperty(AbstractTmfStateProvider.PARTITION_THREADS_PROPERTY, previousThreads);
+            }
+        }
+    }
+
+    /**
+     * Test that the history of a resumable analysis is closed normally at the
+     * end of a complete trace, without keeping a resume file, and that it is
+     * opened as is when the trace is opened again, without handling the same
+     * events again
+     *
+     * @throws TmfAnalysisException
+     *             An exception when setting the trace
+     */
+    @Test
+    public void testResumableCompleteTrace() throws TmfAnalysisException {
+        ITmfTrace trace = fTrace;
+        assertNotNull(trace);
+
+        AtomicInteger nbEvents = new AtomicInteger();
+        TestStateSystemProvider.setEventHandler((ss, provider, event) -> {
+            nbEvents.incrementAndGet();
+            int quark = ss.getQuarkAbsoluteAndAdd(event.getName());
+            ss.modifyAttribute(event.getTimestamp().toNanos(), (int) event.getTimestamp().toNanos(), quark);
+            return true;
+        });
+        TestStateSystemModule module = new ResumableTestModule();
+        TestStateSystemModule module2 = new ResumableTestModule();
+        File ssFile = null;
+        File resumeFile = null;
+        try {
+            module.setTrace(trace);
+            module2.setTrace(trace);
+            ssFile = module.getSsFile();
+            assertNotNull(ssFile);
+            resumeFile = new File(ssFile.getPath() + ".resume");
+            ssFile.delete();
+            resumeFile.delete();
+
+            module.schedule();
+            assertTrue(module.waitForCompletion());
+            ITmfStateSystem ss = module.getStateSystem();
+            assertNotNull(ss);
+            assertTrue(ss.waitUntilBuilt(0));
+            assertFalse(resumeFile.exists());
+            assertEquals(7, nbEvents.get());
+            /* The history ends at the time of the last event */
+            assertEquals(10, ss.getCurrentEndTime());
+            assertResumableIntervals(ss);
+
+            /* The completed history is not built again when the range is updated */
+            module.traceRangeUpdated(new TmfTraceRangeUpdatedSignal(this, trace, trace.getTimeRange()));
+            assertTrue(ss.waitUntilBuilt(0));
+            assertEquals(7, nbEvents.get());
+            module.dispose();
+            assertFalse(resumeFile.exists());
+
+            /* The completed history is opened when the trace is opened again */
+            module2.schedule();
+            assertTrue(module2.waitForCompletion());
+            ITmfStateSystem ss2 = module2.getStateSystem();
+            assertNotNull(ss2);
+            assertEquals(7, nbEvents.get());
+            assertEquals(10, ss2.getCurrentEndTime());
+            assertResumableIntervals(ss2);
+        } finally {
+            module.dispose();
+            module2.dispose();
+            TestStateSystemProvider.setEventHandler(null);
+            if (ssFile != null) {
+                ssFile.delete();
+            }
+            if (resumeFile != null) {
+                resumeFile.delete();
+            }
+        }
+    }
+
+    private static void assertResumableIntervals(ITmfStateSystem ss) {
+        List<@NonNull ITmfStateInterval> expected = ImmutableList.of(new StateIntervalStub(1, 4, 1),
+                new StateIntervalStub(5, 6, 5), new StateIntervalStub(7, 10, 7));
+        StateSystemTestUtils.testIntervalForAttributes(ss, expected, "noise");
+    }
+
+    private static class ResumableTestModule extends TestStateSystemModule {
+
+        public ResumableTestModule() {
+            super(true);
+        }
+
+        @Override
+        protected boolean isResumable() {
+            return true;
+        }
+    }
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2014 Ericsson
+ * Copyright (c) 2013, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -40,10 +40,21 @@ public class BTreeTest extends AbstractCheckpointCollectionTest {
 
     @Override
     protected BTree createCollection() {
-        fCheckpointCollection = fBTree = new BTree(DEGREE, getFile(), (ITmfPersistentlyIndexable) getTrace());
+        fCheckpointCollection = fBTree = createBTree(DEGREE);
         return fBTree;
     }
 
+    /**
+     * Create the BTree for the test
+     *
+     * @param degree
+     *            the degree of the tree
+     * @return the BTree
+     */
+    protected BTree createBTree(int degree) {
+        return new BTree(degree, getFile(), (ITmfPersistentlyIndexable) getTrace());
+    }
+
     @Override
     public boolean isPersistableCollection() {
         return true;
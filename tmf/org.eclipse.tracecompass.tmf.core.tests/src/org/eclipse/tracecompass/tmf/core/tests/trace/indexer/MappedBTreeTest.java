@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.tmf.core.tests.trace.indexer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+
+import org.eclipse.tracecompass.internal.tmf.core.trace.indexer.BTree;
+import org.eclipse.tracecompass.internal.tmf.core.trace.indexer.BTreeCheckpointVisitor;
+import org.eclipse.tracecompass.internal.tmf.core.trace.indexer.MappedBTree;
+import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimestamp;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.ITmfPersistentlyIndexable;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.checkpoint.TmfCheckpoint;
+import org.eclipse.tracecompass.tmf.core.trace.location.TmfLongLocation;
+import org.junit.Test;
+
+/**
+ * Tests for the MappedBTree class
+ */
+public class MappedBTreeTest extends BTreeTest {
+
+    private static final int DEGREE = 15;
+
+    @Override
+    protected BTree createBTree(int degree) {
+        return new MappedBTree(degree, getFile(), (ITmfPersistentlyIndexable) getTrace());
+    }
+
+    /**
+     * Test that a file written by a BTree can be read by a mapped BTree and
+     * the other way around
+     */
+    @Test
+    public void testFileCompatibility() {
+        fCheckpointCollection.dispose();
+        BTree bTree = new BTree(DEGREE, getFile(), (ITmfPersistentlyIndexable) getTrace());
+        fCheckpointCollection = bTree;
+        ArrayList<Integer> list = insertAlot();
+
+        MappedBTree mappedBTree = new MappedBTree(DEGREE, getFile(), (ITmfPersistentlyIndexable) getTrace());
+        fCheckpointCollection = mappedBTree;
+        assertFalse(mappedBTree.isCreatedFromScratch());
+        assertEquals(CHECKPOINTS_INSERT_NUM, mappedBTree.size());
+        checkCheckpoints(mappedBTree, list);
+
+        /* Insert checkpoints with the mapped tree, then reopen the file */
+        for (int i = 0; i < CHECKPOINTS_INSERT_NUM; i++) {
+            mappedBTree.insert(createCheckpoint(CHECKPOINTS_INSERT_NUM + i));
+        }
+        mappedBTree.dispose();
+
+        bTree = new BTree(DEGREE, getFile(), (ITmfPersistentlyIndexable) getTrace());
+        fCheckpointCollection = bTree;
+        assertEquals(2 * CHECKPOINTS_INSERT_NUM, bTree.size());
+        checkCheckpoints(bTree, list);
+        for (int i = 0; i < CHECKPOINTS_INSERT_NUM; i++) {
+            TmfCheckpoint checkpoint = createCheckpoint(CHECKPOINTS_INSERT_NUM + i);
+            BTreeCheckpointVisitor treeVisitor = new BTreeCheckpointVisitor(checkpoint);
+            bTree.accept(treeVisitor);
+            assertEquals(checkpoint, treeVisitor.getCheckpoint());
+        }
+    }
+
+    private static void checkCheckpoints(BTree bTree, ArrayList<Integer> list) {
+        for (int i = 0; i < CHECKPOINTS_INSERT_NUM; i++) {
+            TmfCheckpoint checkpoint = createCheckpoint(list.get(i));
+            BTreeCheckpointVisitor treeVisitor = new BTreeCheckpointVisitor(checkpoint);
+            bTree.accept(treeVisitor);
+            assertEquals(checkpoint, treeVisitor.getCheckpoint());
+        }
+    }
+
+    private static TmfCheckpoint createCheckpoint(int checkpointIndex) {
+        return new TmfCheckpoint(TmfTimestamp.fromSeconds(12345 + checkpointIndex), new TmfLongLocation(123456L + checkpointIndex), 0);
+    }
+}
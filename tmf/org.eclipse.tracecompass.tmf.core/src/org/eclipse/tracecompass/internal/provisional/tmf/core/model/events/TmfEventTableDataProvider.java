@@ -1,5 +1,5 @@
 /**********************************************************************
- * Copyright (c) 2018, 2021 Ericsson
+ * Copyright (c) 2018, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -11,6 +11,8 @@
 
 package org.eclipse.tracecompass.internal.provisional.tmf.core.model.events;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -19,7 +21,6 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
 
@@ -36,6 +37,7 @@ import org.eclipse.tracecompass.internal.provisional.tmf.core.model.table.ITmfVi
 import org.eclipse.tracecompass.internal.provisional.tmf.core.model.table.TmfVirtualTableModel;
 import org.eclipse.tracecompass.internal.provisional.tmf.core.model.table.VirtualTableCell;
 import org.eclipse.tracecompass.internal.tmf.core.filter.TmfCollapseFilter;
+import org.eclipse.tracecompass.internal.tmf.core.filter.TmfFilterCompiler;
 import org.eclipse.tracecompass.internal.tmf.core.model.AbstractTmfTraceDataProvider;
 import org.eclipse.tracecompass.internal.tmf.core.model.filters.FetchParametersUtils;
 import org.eclipse.tracecompass.tmf.core.dataprovider.DataProviderParameterUtils;
@@ -64,12 +66,14 @@ import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimeRange;
 import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimestamp;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+import org.eclipse.tracecompass.tmf.core.trace.TmfTraceManager;
 import org.eclipse.tracecompass.tmf.core.trace.experiment.TmfExperiment;
 
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
 
 /**
  * This data provider will return a virtual table model (wrapped in a response)
@@ -98,25 +102,23 @@ public class TmfEventTableDataProvider extends AbstractTmfTraceDataProvider impl
      */
     public static final String ID = "org.eclipse.tracecompass.internal.provisional.tmf.core.model.events.TmfEventTableDataProvider"; //$NON-NLS-1$
 
-    private @Nullable ITmfFilter fFilter;
-
     /**
-     * Maps used for the optimization of filtered query.
-     *
-     * TODO: Since these map can take a lot of memory, one solution would be to
-     * replace these maps by two lists and use binary search instead of TreeMap
-     * floor.
+     * Indexes of the ranks of the filtered events used for the optimization of
+     * filtered queries, by filter. The least recently used index is disposed
+     * when there are too many of them.
      */
-    private TreeMap<Long, Long> fIndexToRankMap = new TreeMap<>();
-    private TreeMap<Long, Long> fRankToIndexMap = new TreeMap<>();
+    private final Map<String, TmfFilteredRankIndex> fRankIndexes = new LinkedHashMap<String, TmfFilteredRankIndex>(MAX_RANK_INDEXES, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
 
-    /**
-     * Keep the filtered count for future request with the same filter.
-     *
-     * TODO: Remove this cache since it is not thread safe and replace it with a
-     * better cache with the two list of cached index/rank.
-     */
-    private long fFilteredCount = -1L;
+        @Override
+        protected boolean removeEldestEntry(Map.@Nullable Entry<String, TmfFilteredRankIndex> eldest) {
+            if (eldest != null && size() > MAX_RANK_INDEXES) {
+                eldest.getValue().dispose();
+                return true;
+            }
+            return false;
+        }
+    };
 
     /**
      * Atomic Long so that every column has a unique ID.
@@ -126,15 +128,16 @@ public class TmfEventTableDataProvider extends AbstractTmfTraceDataProvider impl
     private static final BiMap<ITmfEventAspect<?>, Long> fAspectToIdMap = HashBiMap.create();
 
     /**
-     * To optimize filtered request a map of index to rank is used to find the
-     * starting point of a request in the trace. This value is used to avoid
-     * storing too many entries in the map. The corresponding rank associated to
-     * an index is only store each time the index is a factor of this value.
-     *
-     * TODO: Can be improve in the future to have a constant number of point per
-     * trace to avoid getting a huge map.
+     * Maximum number of filters whose rank index is kept in memory
+     */
+    private static final int MAX_RANK_INDEXES = 4;
+
+    /**
+     * Prefix and suffix of the files of the rank indexes, in the supplementary
+     * files of the trace. The name is completed with the hash of the filter.
      */
-    private static final int INDEX_STORING_INTERVAL = 1000;
+    private static final String RANK_INDEX_FILE_PREFIX = "filtered-rank-index-"; //$NON-NLS-1$
+    private static final String RANK_INDEX_FILE_SUFFIX = ".idx"; //$NON-NLS-1$
 
     /**
      * Direction of search, navigation etc.
@@ -240,9 +243,9 @@ public class TmfEventTableDataProvider extends AbstractTmfTraceDataProvider impl
             @Nullable WrappedEvent event = null;
             Predicate<@NonNull ITmfEvent> predicate;
             if (filter == null) {
-                predicate = searchFilter::matches;
+                predicate = TmfFilterCompiler.compile(searchFilter);
             } else {
-                predicate = e -> (filter.matches(e) && searchFilter.matches(e));
+                predicate = TmfFilterCompiler.compile(filter).and(TmfFilterCompiler.compile(searchFilter));
             }
             if (direction == Direction.NEXT) {
                 event = getNextWrappedEventMatching(getTrace(), Math.abs(queryFilter.getIndex()), predicate, monitor);
@@ -340,12 +343,13 @@ public class TmfEventTableDataProvider extends AbstractTmfTraceDataProvider impl
         if (filter == null) {
             return new TmfModelResponse<>(Collections.singletonList(rank), ITmfResponse.Status.COMPLETED, CommonStatusMessage.COMPLETED);
         }
-        applyFilter(filter);
+        TmfFilteredRankIndex rankIndex = getRankIndex(filter);
 
-        Entry<Long, Long> nearestEntry = fRankToIndexMap.floorEntry(rank);
+        Entry<Long, Long> nearestEntry = rankIndex.floorRankEntry(rank);
         long startingIndex = nearestEntry != null ? nearestEntry.getValue() : 0L;
         long startingRank = nearestEntry != null ? nearestEntry.getKey() : 0L;
 
+        Predicate<ITmfEvent> filterPredicate = TmfFilterCompiler.compile(filter);
         List<Long> foundIndex = new ArrayList<>();
         TmfEventRequest request = new TmfEventRequest(ITmfEvent.class, TmfTimeRange.ETERNITY, startingRank, ITmfEventRequest.ALL_DATA, ExecutionType.FOREGROUND) {
             private long currentIndex = startingIndex;
@@ -365,7 +369,7 @@ public class TmfEventTableDataProvider extends AbstractTmfTraceDataProvider impl
                     return;
                 }
 
-                if (filter.matches(event)) {
+                if (filterPredicate.test(event)) {
                     currentIndex++;
                 }
                 fRank++;
@@ -437,13 +441,24 @@ public class TmfEventTableDataProvider extends AbstractTmfTraceDataProvider impl
             @Nullable ITmfFilter collapseFilter,
             @Nullable IProgressMonitor monitor) {
 
-        applyFilter(filter);
-
-        Entry<Long, Long> nearestEntry = fIndexToRankMap.floorEntry(queryIndex);
+        /*
+         * The collapse filter depends on the previous events, the request
+         * cannot start from an event of the index
+         */
+        TmfFilteredRankIndex rankIndex = collapseFilter == null ? getRankIndex(filter) : null;
+        Entry<Long, Long> nearestEntry = rankIndex != null ? rankIndex.floorIndexEntry(queryIndex) : null;
         long startingRank = nearestEntry != null ? nearestEntry.getValue() : 0L;
         Long startingIndex = nearestEntry != null ? nearestEntry.getKey() : 0L;
+        /*
+         * Once the index is complete, the number of filtered events is known
+         * and the request can stop when it has all the requested events.
+         * Otherwise it reads the whole trace to count them.
+         */
+        long filteredCount = (rankIndex != null && rankIndex.isComplete(getTrace().getNbEvents())) ? rankIndex.getCount() : -1L;
+        Predicate<ITmfEvent> filterPredicate = TmfFilterCompiler.compile(filter);
+        @Nullable Predicate<ITmfEvent> searchPredicate = searchFilter != null ? TmfFilterCompiler.compile(searchFilter) : null;
 
-        return new TableEventRequest(startingRank) {
+        TableEventRequest tableRequest = new TableEventRequest(startingRank) {
             private long currentIndex = startingIndex;
             private long rank = startingRank;
 
@@ -456,17 +471,17 @@ public class TmfEventTableDataProvider extends AbstractTmfTraceDataProvider impl
                 }
 
                 List<EventTableLine> events = getEventLines();
-                if (filter.matches(event) && (collapseFilter == null || collapseFilter.matches(event))) {
-                    boolean matches = searchFilter != null && searchFilter.matches(event);
+                if (filterPredicate.test(event) && (collapseFilter == null || collapseFilter.matches(event))) {
+                    boolean matches = searchPredicate != null && searchPredicate.test(event);
                     if (events.size() < queryCount && queryIndex <= currentIndex) {
                         events.add(buildEventTableLine(aspects, event, currentIndex, rank, matches));
                     }
-                    if (currentIndex % INDEX_STORING_INTERVAL == 0) {
-                        fIndexToRankMap.put(currentIndex, rank);
-                        fRankToIndexMap.put(rank, currentIndex);
-                    }
                     currentIndex++;
                     incrementCount();
+                    if (filteredCount >= 0 && events.size() >= queryCount) {
+                        done();
+                        return;
+                    }
                 } else if (collapseFilter != null && !events.isEmpty()) {
                     // If a collapse filter is present, we need to update the
                     // last event we have in
@@ -477,29 +492,17 @@ public class TmfEventTableDataProvider extends AbstractTmfTraceDataProvider impl
                     events.set(lastIndex, new EventTableLine(prevLine.getCells(), prevLine.getIndex(), prevLine.getTimestamp(), prevLine.getRank(), ++prevRepeatCount));
                 }
 
-                /*
-                 * FIXME: Right now the whole trace is read to determine the
-                 * number of matched events. In case of search filter being
-                 * present, it only starts counting from the first matched event
-                 * and the total number of filtered event is incorrect.
-                 *
-                 * However, the number of matched events should only be done
-                 * once per filter and after the filter changed. Implement way
-                 * to determine the number of matched events.
-                 */
-
                 rank++;
             }
 
             @Override
             public long getCurrentCount() {
-                long currentCount = super.getCurrentCount();
-                if (fFilteredCount == -1L) {
-                    fFilteredCount = currentCount;
-                }
-                return fFilteredCount;
+                return filteredCount >= 0 ? filteredCount : super.getCurrentCount();
             }
         };
+        /* The events before the starting point are counted too */
+        tableRequest.setEventCount(startingIndex);
+        return tableRequest;
     }
 
     /**
@@ -528,6 +531,7 @@ public class TmfEventTableDataProvider extends AbstractTmfTraceDataProvider impl
             @Nullable ITmfFilter collapseFilter,
             @Nullable IProgressMonitor monitor) {
 
+        @Nullable Predicate<ITmfEvent> searchPredicate = searchFilter != null ? TmfFilterCompiler.compile(searchFilter) : null;
         return new TableEventRequest(queryIndex) {
             private long rank = queryIndex;
 
@@ -540,7 +544,7 @@ public class TmfEventTableDataProvider extends AbstractTmfTraceDataProvider impl
                 }
 
                 List<EventTableLine> events = getEventLines();
-                boolean matches = searchFilter != null && searchFilter.matches(event);
+                boolean matches = searchPredicate != null && searchPredicate.test(event);
                 if (collapseFilter == null || collapseFilter.matches(event)) {
                     if (events.size() < queryCount) {
                         events.add(buildEventTableLine(aspects, event, rank, rank, matches));
@@ -590,20 +594,47 @@ public class TmfEventTableDataProvider extends AbstractTmfTraceDataProvider impl
     }
 
     /**
-     * Apply a filter to this provider that will be used for future request. If
-     * the current filter is null or not equal to the provided filter, the
-     * IndexToRank and RankToIndex maps are cleared
+     * Get the rank index of a filter. If it is not in memory, it is read from
+     * the supplementary files of the trace, or built in the background. The
+     * filters are identified by their description, since each query creates
+     * new filters.
      *
      * @param filter
-     *            Filter to apply
+     *            The filter
+     * @return The rank index of the filter, which may not be complete
      */
-    private void applyFilter(ITmfFilter filter) {
-        // TODO: Verify if this works correctly.
-        if (!filter.equals(fFilter)) {
-            fFilter = filter;
-            fIndexToRankMap.clear();
-            fRankToIndexMap.clear();
-            fFilteredCount = -1L;
+    private TmfFilteredRankIndex getRankIndex(ITmfFilter filter) {
+        String key = filter instanceof ITmfFilterTreeNode ? ((ITmfFilterTreeNode) filter).toString(true) : filter.toString();
+        ITmfTrace trace = getTrace();
+        long nbEvents = trace.getNbEvents();
+        synchronized (fRankIndexes) {
+            TmfFilteredRankIndex rankIndex = fRankIndexes.get(key);
+            if (rankIndex != null && (rankIndex.isBuilding() || rankIndex.isComplete(nbEvents))) {
+                return rankIndex;
+            }
+            if (rankIndex != null) {
+                /* The trace has new events, or the build was cancelled */
+                rankIndex.dispose();
+            }
+            String hash = Hashing.sha256().hashString(key + '@' + trace.getStartTime().toNanos(), StandardCharsets.UTF_8).toString();
+            File file = new File(TmfTraceManager.getSupplementaryFileDir(trace) + RANK_INDEX_FILE_PREFIX + hash + RANK_INDEX_FILE_SUFFIX);
+            rankIndex = TmfFilteredRankIndex.load(file, nbEvents);
+            if (rankIndex == null) {
+                rankIndex = new TmfFilteredRankIndex();
+                /* The index is built on another thread, with its own filter */
+                ITmfFilter buildFilter = filter instanceof ITmfFilterTreeNode ? ((ITmfFilterTreeNode) filter).clone() : filter;
+                rankIndex.build(trace, buildFilter, file);
+            }
+            fRankIndexes.put(key, rankIndex);
+            return rankIndex;
+        }
+    }
+
+    @Override
+    public void dispose() {
+        synchronized (fRankIndexes) {
+            fRankIndexes.values().forEach(TmfFilteredRankIndex::dispose);
+            fRankIndexes.clear();
         }
     }
 
@@ -0,0 +1,377 @@
+/**********************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ **********************************************************************/
+
+package org.eclipse.tracecompass.internal.provisional.tmf.core.model.events;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Map.Entry;
+import java.util.function.Predicate;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.internal.tmf.core.Activator;
+import org.eclipse.tracecompass.internal.tmf.core.filter.TmfFilterCompiler;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
+import org.eclipse.tracecompass.tmf.core.filter.ITmfFilter;
+import org.eclipse.tracecompass.tmf.core.request.ITmfEventRequest;
+import org.eclipse.tracecompass.tmf.core.request.ITmfEventRequest.ExecutionType;
+import org.eclipse.tracecompass.tmf.core.request.TmfEventRequest;
+import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimeRange;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
+
+/**
+ * Index of the ranks in the trace of the events matching a filter, to find the
+ * rank of a row of a filtered event table and the row of an event of the
+ * trace. The rank of every n-th matching event is kept in an off-heap buffer.
+ * When the buffer is full, every other entry is dropped and the interval
+ * between the entries doubles, so the index is bounded whatever the size of
+ * the trace.
+ *
+ * The index is built by a background request reading the whole trace, and
+ * the entries read so far can be used before it completes. A complete index
+ * can be saved to a file and read back from it into an off-heap buffer.
+ *
+ * This class is thread safe.
+ */
+@NonNullByDefault
+public final class TmfFilteredRankIndex {
+
+    /**
+     * System property to set the maximum number of entries of an index. The
+     * default is 1M entries, so an index takes at most 8 MiB.
+     */
+    public static final String MAX_ENTRIES_PROPERTY = "org.eclipse.tracecompass.tmf.core.filteredIndexMaxEntries"; //$NON-NLS-1$
+
+    private static final int DEFAULT_MAX_ENTRIES = 1 << 20;
+    private static final int MIN_ENTRIES = 2;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int INITIAL_INTERVAL = 64;
+
+    private static final int MAGIC = 0x46524958; /* "FRIX" */
+    private static final int VERSION = 1;
+    /* magic, version, nb events, count, interval, nb entries */
+    private static final int HEADER_SIZE = Integer.BYTES * 2 + Long.BYTES * 3 + Integer.BYTES;
+
+    private final int fMaxEntries;
+
+    /** The ranks of the matching events of index 0, interval, 2*interval... */
+    private LongBuffer fRanks;
+    private int fNbEntries = 0;
+    private long fInterval = INITIAL_INTERVAL;
+    /** The number of matching events added so far */
+    private long fCount = 0;
+    /** The number of events of the trace when complete, -1 otherwise */
+    private long fNbEvents = -1;
+    private @Nullable ITmfEventRequest fRequest = null;
+
+    /**
+     * Constructor of an empty index
+     */
+    public TmfFilteredRankIndex() {
+        this(Integer.getInteger(MAX_ENTRIES_PROPERTY, DEFAULT_MAX_ENTRIES));
+    }
+
+    /**
+     * Constructor of an empty index
+     *
+     * @param maxEntries
+     *            the maximum number of entries of the index
+     */
+    public TmfFilteredRankIndex(int maxEntries) {
+        fMaxEntries = Math.max(MIN_ENTRIES, maxEntries);
+        fRanks = allocate(Math.min(INITIAL_CAPACITY, fMaxEntries));
+    }
+
+    private TmfFilteredRankIndex(LongBuffer ranks, int nbEntries, long interval, long count, long nbEvents) {
+        fMaxEntries = nbEntries;
+        fRanks = ranks;
+        fNbEntries = nbEntries;
+        fInterval = interval;
+        fCount = count;
+        fNbEvents = nbEvents;
+    }
+
+    private static LongBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+    }
+
+    /**
+     * Build the index in the background, by reading the whole trace
+     *
+     * @param trace
+     *            the trace
+     * @param filter
+     *            the filter, which should not be used by other threads while
+     *            the index is built
+     * @param file
+     *            the file where to save the index once complete, or null
+     */
+    public void build(ITmfTrace trace, ITmfFilter filter, @Nullable File file) {
+        Predicate<ITmfEvent> predicate = TmfFilterCompiler.compile(filter);
+        ITmfEventRequest request = new TmfEventRequest(ITmfEvent.class, TmfTimeRange.ETERNITY, 0, ITmfEventRequest.ALL_DATA, ExecutionType.BACKGROUND) {
+            private long fRank = 0;
+
+            @Override
+            public void handleData(ITmfEvent event) {
+                super.handleData(event);
+                if (predicate.test(event)) {
+                    add(fRank);
+                }
+                fRank++;
+            }
+
+            @Override
+            public void handleSuccess() {
+                super.handleSuccess();
+                setComplete(fRank);
+                if (file != null) {
+                    save(file);
+                }
+            }
+        };
+        synchronized (this) {
+            fRequest = request;
+        }
+        trace.sendRequest(request);
+    }
+
+    /**
+     * Add the next matching event
+     *
+     * @param rank
+     *            the rank of the event in the trace, greater than the rank of
+     *            the previous one
+     */
+    public synchronized void add(long rank) {
+        if (fCount % fInterval == 0) {
+            if (fNbEntries == fRanks.capacity()) {
+                grow();
+            }
+            /* The interval may have changed when compacting */
+            if (fCount % fInterval == 0) {
+                fRanks.put(fNbEntries++, rank);
+            }
+        }
+        fCount++;
+    }
+
+    private void grow() {
+        if (fNbEntries < fMaxEntries) {
+            LongBuffer ranks = allocate((int) Math.min((long) fRanks.capacity() * 2, fMaxEntries));
+            LongBuffer old = fRanks.duplicate();
+            old.position(0).limit(fNbEntries);
+            ranks.put(old);
+            fRanks = ranks;
+            return;
+        }
+        /* Keep the entries of the even indexes, the interval doubles */
+        int nbEntries = (fNbEntries + 1) / 2;
+        for (int i = 1; i < nbEntries; i++) {
+            fRanks.put(i, fRanks.get(2 * i));
+        }
+        fNbEntries = nbEntries;
+        fInterval *= 2;
+    }
+
+    /**
+     * Mark the index as complete
+     *
+     * @param nbEvents
+     *            the number of events of the trace that were read
+     */
+    public synchronized void setComplete(long nbEvents) {
+        fNbEvents = nbEvents;
+        fRequest = null;
+    }
+
+    /**
+     * Get whether the index is complete for the trace
+     *
+     * @param nbEvents
+     *            the current number of events of the trace
+     * @return true if the index was built from all those events
+     */
+    public synchronized boolean isComplete(long nbEvents) {
+        return fNbEvents >= 0 && fNbEvents == nbEvents;
+    }
+
+    /**
+     * Get whether the index is being built
+     *
+     * @return true if the request building the index is running
+     */
+    public synchronized boolean isBuilding() {
+        ITmfEventRequest request = fRequest;
+        return request != null && !request.isCompleted();
+    }
+
+    /**
+     * Get the number of matching events added so far, which is the number of
+     * rows of the filtered table once the index is complete
+     *
+     * @return the number of matching events
+     */
+    public synchronized long getCount() {
+        return fCount;
+    }
+
+    /**
+     * Get the closest indexed row at or before a row
+     *
+     * @param index
+     *            the index of the row in the filtered table
+     * @return the entry with the index of the row and its rank in the trace,
+     *         or null if there is none
+     */
+    public synchronized @Nullable Entry<Long, Long> floorIndexEntry(long index) {
+        if (fNbEntries == 0 || index < 0) {
+            return null;
+        }
+        int entry = (int) Math.min(index / fInterval, fNbEntries - 1);
+        return new SimpleImmutableEntry<>(entry * fInterval, fRanks.get(entry));
+    }
+
+    /**
+     * Get the closest indexed event at or before a rank
+     *
+     * @param rank
+     *            the rank of an event in the trace
+     * @return the entry with the rank of the event and its index in the
+     *         filtered table, or null if there is none
+     */
+    public synchronized @Nullable Entry<Long, Long> floorRankEntry(long rank) {
+        int low = 0;
+        int high = fNbEntries - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (fRanks.get(mid) <= rank) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (found < 0) {
+            return null;
+        }
+        return new SimpleImmutableEntry<>(fRanks.get(found), found * fInterval);
+    }
+
+    /**
+     * Save a complete index to a file
+     *
+     * @param file
+     *            the file
+     */
+    public synchronized void save(File file) {
+        if (fNbEvents < 0) {
+            return;
+        }
+        File tmpFile = new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+        try (FileChannel channel = FileChannel.open(tmpFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + fNbEntries * Long.BYTES).order(ByteOrder.nativeOrder());
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putLong(fNbEvents);
+            buffer.putLong(fCount);
+            buffer.putLong(fInterval);
+            buffer.putInt(fNbEntries);
+            for (int i = 0; i < fNbEntries; i++) {
+                buffer.putLong(fRanks.get(i));
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            Activator.logWarning("Could not save the filtered rank index " + file, e); //$NON-NLS-1$
+            tmpFile.delete();
+            return;
+        }
+        if (!tmpFile.renameTo(file)) {
+            tmpFile.delete();
+        }
+    }
+
+    /**
+     * Read a complete index from a file
+     *
+     * @param file
+     *            the file
+     * @param nbEvents
+     *            the number of events of the trace, the index is only read if
+     *            it was built from the same number of events
+     * @return the index, or null if the file does not exist or is not valid
+     */
+    public static @Nullable TmfFilteredRankIndex load(File file, long nbEvents) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                return null;
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.nativeOrder());
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                /* Read the whole header */
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION || header.getLong() != nbEvents) {
+                return null;
+            }
+            long count = header.getLong();
+            long interval = header.getLong();
+            int nbEntries = header.getInt();
+            if (interval <= 0 || nbEntries < 0 || nbEntries > Integer.MAX_VALUE / Long.BYTES || channel.size() < HEADER_SIZE + (long) nbEntries * Long.BYTES) {
+                return null;
+            }
+            /*
+             * Read the entries rather than mapping them, a mapping is only
+             * released when it is garbage collected and would keep the file
+             * open until then.
+             */
+            ByteBuffer entries = ByteBuffer.allocateDirect(nbEntries * Long.BYTES).order(ByteOrder.nativeOrder());
+            while (entries.hasRemaining() && channel.read(entries, HEADER_SIZE + entries.position()) >= 0) {
+                /* Read all the entries */
+            }
+            if (entries.hasRemaining()) {
+                return null;
+            }
+            entries.flip();
+            return new TmfFilteredRankIndex(entries.asLongBuffer(), nbEntries, interval, count, nbEvents);
+        } catch (IOException e) {
+            Activator.logWarning("Could not read the filtered rank index " + file, e); //$NON-NLS-1$
+            return null;
+        }
+    }
+
+    /**
+     * Dispose the index, cancelling its build if it is not complete
+     */
+    public void dispose() {
+        ITmfEventRequest request;
+        synchronized (this) {
+            request = fRequest;
+            fRequest = null;
+        }
+        if (request != null && !request.isCompleted()) {
+            request.cancel();
+        }
+    }
+}
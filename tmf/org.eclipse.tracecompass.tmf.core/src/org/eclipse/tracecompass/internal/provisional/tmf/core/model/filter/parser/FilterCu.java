@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018 Ericsson
+ * Copyright (c) 2018, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -19,6 +19,8 @@ import org.antlr.runtime.CommonTokenStream;
 import org.antlr.runtime.RecognitionException;
 import org.antlr.runtime.tree.CommonTree;
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.internal.tmf.core.filter.TmfFilterCompiler;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
 import org.eclipse.tracecompass.tmf.core.filter.model.ITmfFilterTreeNode;
 import org.eclipse.tracecompass.tmf.core.filter.model.TmfFilterRootNode;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
@@ -142,6 +144,19 @@ public class FilterCu implements IFilterCu {
         return rootNode;
     }
 
+    /**
+     * Get a predicate on events for this filter. The event filter is compiled
+     * once for the trace, so the predicate is faster to evaluate on many
+     * events than the event filter.
+     *
+     * @param trace
+     *            A trace this filter will be applied on
+     * @return The predicate matching the same events as the event filter
+     */
+    public Predicate<ITmfEvent> getEventPredicate(ITmfTrace trace) {
+        return TmfFilterCompiler.compile(getEventFilter(trace));
+    }
+
     /**
      * Get whether this Cu expression is a negation
      *
@@ -0,0 +1,328 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.internal.tmf.core.filter;
+
+import java.text.NumberFormat;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
+import org.eclipse.tracecompass.tmf.core.event.aspect.ITmfEventAspect;
+import org.eclipse.tracecompass.tmf.core.filter.ITmfFilter;
+import org.eclipse.tracecompass.tmf.core.filter.model.ITmfFilterTreeNode;
+import org.eclipse.tracecompass.tmf.core.filter.model.TmfFilterAndNode;
+import org.eclipse.tracecompass.tmf.core.filter.model.TmfFilterCompareNode;
+import org.eclipse.tracecompass.tmf.core.filter.model.TmfFilterContainsNode;
+import org.eclipse.tracecompass.tmf.core.filter.model.TmfFilterEqualsNode;
+import org.eclipse.tracecompass.tmf.core.filter.model.TmfFilterMatchesNode;
+import org.eclipse.tracecompass.tmf.core.filter.model.TmfFilterNode;
+import org.eclipse.tracecompass.tmf.core.filter.model.TmfFilterOrNode;
+import org.eclipse.tracecompass.tmf.core.filter.model.TmfFilterRootNode;
+
+/**
+ * Compiles an event filter tree to a predicate on events. The predicate
+ * matches the same events as the filter, but it is faster to evaluate on many
+ * events:
+ * <ul>
+ * <li>the aspects and values of the nodes are read once, so the predicate does
+ * not depend on later changes to the filter</li>
+ * <li>the value of a numerical comparison is parsed once</li>
+ * <li>a regex without special characters is a simple substring search, and the
+ * {@code .*} regex only checks that the aspect has a value</li>
+ * <li>the children of the logical nodes are evaluated from the cheapest to the
+ * most expensive, so the cheap numerical conditions short-circuit the regexes
+ * </li>
+ * </ul>
+ *
+ * The nodes of unknown types, or of subclasses of the known types, are
+ * evaluated by the filter itself.
+ */
+@NonNullByDefault
+public final class TmfFilterCompiler {
+
+    private static final String REGEX_SPECIAL_CHARACTERS = "\\[](){}.*+?^$|"; //$NON-NLS-1$
+    private static final String ANY_REGEX = ".*"; //$NON-NLS-1$
+
+    /* Relative costs of the conditions, to order the children of a node */
+    private static final int COST_PRESENT = 1;
+    private static final int COST_NUMERIC = 2;
+    private static final int COST_STRING = 3;
+    private static final int COST_REGEX = 5;
+    private static final int COST_UNKNOWN = 8;
+
+    private TmfFilterCompiler() {
+        // nothing to do
+    }
+
+    /**
+     * A predicate with the cost of its evaluation
+     */
+    private static final class CompiledFilter {
+        private final Predicate<ITmfEvent> fPredicate;
+        private final int fCost;
+
+        public CompiledFilter(Predicate<ITmfEvent> predicate, int cost) {
+            fPredicate = predicate;
+            fCost = cost;
+        }
+    }
+
+    /**
+     * Compile a filter to a predicate on events
+     *
+     * @param filter
+     *            The filter
+     * @return A predicate that matches the same events as the filter
+     */
+    public static Predicate<ITmfEvent> compile(ITmfFilter filter) {
+        return compileFilter(filter).fPredicate;
+    }
+
+    private static CompiledFilter compileFilter(ITmfFilter filter) {
+        Class<?> filterClass = filter.getClass();
+        if (filterClass == TmfFilterRootNode.class) {
+            /* All the children must match, there is no negation */
+            return all(compileChildren((ITmfFilterTreeNode) filter), false);
+        }
+        if (filterClass == TmfFilterAndNode.class) {
+            TmfFilterAndNode node = (TmfFilterAndNode) filter;
+            List<CompiledFilter> children = compileChildren(node);
+            if (children.isEmpty()) {
+                return constant(node.isNot());
+            }
+            return all(children, node.isNot());
+        }
+        if (filterClass == TmfFilterOrNode.class) {
+            TmfFilterOrNode node = (TmfFilterOrNode) filter;
+            List<CompiledFilter> children = compileChildren(node);
+            if (children.isEmpty()) {
+                return constant(node.isNot());
+            }
+            return any(children, node.isNot());
+        }
+        if (filterClass == TmfFilterNode.class) {
+            /* At least one child must match */
+            return any(compileChildren((ITmfFilterTreeNode) filter), false);
+        }
+        if (filterClass == TmfFilterMatchesNode.class) {
+            return compileMatches((TmfFilterMatchesNode) filter);
+        }
+        if (filterClass == TmfFilterEqualsNode.class) {
+            return compileEquals((TmfFilterEqualsNode) filter);
+        }
+        if (filterClass == TmfFilterContainsNode.class) {
+            return compileContains((TmfFilterContainsNode) filter);
+        }
+        if (filterClass == TmfFilterCompareNode.class && ((TmfFilterCompareNode) filter).getType() == TmfFilterCompareNode.Type.NUM) {
+            return compileNumericCompare((TmfFilterCompareNode) filter);
+        }
+        return new CompiledFilter(filter::matches, COST_UNKNOWN);
+    }
+
+    private static List<CompiledFilter> compileChildren(ITmfFilterTreeNode node) {
+        List<CompiledFilter> children = new ArrayList<>();
+        for (ITmfFilterTreeNode child : node.getChildren()) {
+            children.add(compileFilter(Objects.requireNonNull(child)));
+        }
+        /* The sort is stable, the children of same cost keep their order */
+        children.sort(Comparator.comparingInt(child -> child.fCost));
+        return children;
+    }
+
+    private static CompiledFilter constant(boolean value) {
+        return new CompiledFilter(event -> value, 0);
+    }
+
+    private static int cost(List<CompiledFilter> children) {
+        int cost = 0;
+        for (CompiledFilter child : children) {
+            cost += child.fCost;
+        }
+        return cost;
+    }
+
+    private static CompiledFilter all(List<CompiledFilter> children, boolean not) {
+        @SuppressWarnings("unchecked")
+        Predicate<ITmfEvent>[] predicates = children.stream().map(child -> child.fPredicate).toArray(Predicate[]::new);
+        Predicate<ITmfEvent> predicate = event -> {
+            for (Predicate<ITmfEvent> child : predicates) {
+                if (!child.test(event)) {
+                    return not;
+                }
+            }
+            return !not;
+        };
+        return new CompiledFilter(predicate, cost(children));
+    }
+
+    private static CompiledFilter any(List<CompiledFilter> children, boolean not) {
+        @SuppressWarnings("unchecked")
+        Predicate<ITmfEvent>[] predicates = children.stream().map(child -> child.fPredicate).toArray(Predicate[]::new);
+        Predicate<ITmfEvent> predicate = event -> {
+            for (Predicate<ITmfEvent> child : predicates) {
+                if (child.test(event)) {
+                    return !not;
+                }
+            }
+            return not;
+        };
+        return new CompiledFilter(predicate, cost(children));
+    }
+
+    /**
+     * Compile a condition on the string value of an aspect. Like the filter
+     * nodes, an event without a value for the aspect does not match the
+     * condition.
+     */
+    private static CompiledFilter compileString(@Nullable ITmfEventAspect<?> nullableAspect, boolean not, @Nullable Predicate<String> nullableCondition, int cost) {
+        if (nullableAspect == null || nullableCondition == null) {
+            return constant(not);
+        }
+        ITmfEventAspect<?> aspect = nullableAspect;
+        Predicate<String> condition = nullableCondition;
+        Predicate<ITmfEvent> predicate = event -> {
+            Object value = aspect.resolve(event);
+            if (value == null) {
+                return not;
+            }
+            return condition.test(value.toString()) ^ not;
+        };
+        return new CompiledFilter(predicate, cost);
+    }
+
+    private static CompiledFilter compileMatches(TmfFilterMatchesNode node) {
+        @Nullable ITmfEventAspect<?> nullableAspect = node.getEventAspect();
+        boolean not = node.isNot();
+        @Nullable String regex = node.getRegex();
+        if (regex == null) {
+            return constant(not);
+        }
+        if (regex.equals(ANY_REGEX)) {
+            if (nullableAspect == null) {
+                return constant(not);
+            }
+            ITmfEventAspect<?> aspect = nullableAspect;
+            return new CompiledFilter(event -> (aspect.resolve(event) != null) ^ not, COST_PRESENT);
+        }
+        if (isLiteral(regex)) {
+            return compileString(nullableAspect, not, value -> value.contains(regex), COST_STRING);
+        }
+        Pattern pattern;
+        try {
+            pattern = Pattern.compile(regex, Pattern.DOTALL);
+        } catch (PatternSyntaxException e) {
+            return constant(not);
+        }
+        return compileString(nullableAspect, not, value -> pattern.matcher(value).find(), COST_REGEX);
+    }
+
+    private static boolean isLiteral(String regex) {
+        for (int i = 0; i < regex.length(); i++) {
+            if (REGEX_SPECIAL_CHARACTERS.indexOf(regex.charAt(i)) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static CompiledFilter compileEquals(TmfFilterEqualsNode node) {
+        @Nullable String filterValue = node.getValue();
+        Predicate<String> condition;
+        if (filterValue == null) {
+            condition = value -> false;
+        } else if (node.isIgnoreCase()) {
+            condition = value -> value.equalsIgnoreCase(filterValue);
+        } else {
+            condition = value -> value.equals(filterValue);
+        }
+        return compileString(node.getEventAspect(), node.isNot(), condition, COST_STRING);
+    }
+
+    private static CompiledFilter compileContains(TmfFilterContainsNode node) {
+        @Nullable String filterValue = node.getValue();
+        @Nullable Predicate<String> condition;
+        if (filterValue == null) {
+            condition = null;
+        } else if (node.isIgnoreCase()) {
+            String upperCase = filterValue.toUpperCase();
+            condition = value -> value.toUpperCase().contains(upperCase);
+        } else {
+            condition = value -> value.contains(filterValue);
+        }
+        return compileString(node.getEventAspect(), node.isNot(), condition, COST_STRING);
+    }
+
+    /**
+     * Compile a numerical comparison. Like the filter node, an event that
+     * cannot be compared does not match, whether the node is negated or not.
+     */
+    private static CompiledFilter compileNumericCompare(TmfFilterCompareNode node) {
+        @Nullable ITmfEventAspect<?> nullableAspect = node.getEventAspect();
+        @Nullable String filterValue = node.getValue();
+        @Nullable Number filterNumber = filterValue == null ? null : toNumber(filterValue);
+        if (nullableAspect == null || filterNumber == null) {
+            return constant(false);
+        }
+        ITmfEventAspect<?> aspect = nullableAspect;
+        int result = node.getResult();
+        boolean not = node.isNot();
+        boolean filterIsDouble = filterNumber instanceof Double;
+        double filterDouble = filterNumber.doubleValue();
+        long filterLong = filterNumber.longValue();
+        Predicate<ITmfEvent> predicate = event -> {
+            Object value = aspect.resolve(event);
+            if (value == null) {
+                return false;
+            }
+            Number number = toNumber(value);
+            if (number == null) {
+                return false;
+            }
+            int comp;
+            if (filterIsDouble || number instanceof Double || number instanceof Float) {
+                comp = Double.compare(number.doubleValue(), filterDouble);
+            } else {
+                comp = Long.compare(number.longValue(), filterLong);
+            }
+            return (comp == result) ^ not;
+        };
+        return new CompiledFilter(predicate, COST_NUMERIC);
+    }
+
+    /**
+     * Convert a value to a number like {@link TmfFilterCompareNode} does
+     */
+    private static @Nullable Number toNumber(Object value) {
+        if (value instanceof Number) {
+            return (Number) value;
+        }
+        try {
+            return Long.decode(value.toString());
+        } catch (NumberFormatException e) {
+            // Try the number format
+        }
+        try {
+            return NumberFormat.getInstance().parse(value.toString());
+        } catch (ParseException e) {
+            // Not a number
+        }
+        return null;
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018, 2019 Ericsson
+ * Copyright (c) 2018, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -21,6 +21,7 @@ import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.common.core.log.TraceCompassLogUtils.FlowScopeLog;
 import org.eclipse.tracecompass.common.core.log.TraceCompassLogUtils.FlowScopeLogBuilder;
+import org.eclipse.tracecompass.internal.tmf.core.model.timegraph.TimeGraphRowTileCache.IRowModelFetcher;
 import org.eclipse.tracecompass.internal.tmf.core.model.tree.AbstractTreeDataProvider;
 import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
 import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
@@ -43,7 +44,8 @@ import com.google.common.collect.Multimap;
 /**
  * Class to abstract {@link ITimeGraphDataProvider} methods and fields. Handles
  * the exceptions that can be thrown by the concrete classes, and logs the time
- * taken to build the time graph models.
+ * taken to build the time graph models. The states of the rows can be cached
+ * by tiles of time with a {@link TimeGraphRowTileCache}.
  *
  * @param <A>
  *            Generic type for the encapsulated
@@ -56,6 +58,8 @@ import com.google.common.collect.Multimap;
 public abstract class AbstractTimeGraphDataProvider<A extends TmfStateSystemAnalysisModule, M extends ITimeGraphEntryModel>
     extends AbstractTreeDataProvider<A, M> implements ITimeGraphDataProvider<M> {
 
+    private final @Nullable TimeGraphRowTileCache fRowModelCache;
+
     /**
      * Constructor
      *
@@ -65,7 +69,24 @@ public abstract class AbstractTimeGraphDataProvider<A extends TmfStateSystemAnal
      *            the analysis encapsulated by this provider
      */
     public AbstractTimeGraphDataProvider(ITmfTrace trace, A analysisModule) {
+        this(trace, analysisModule, false);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param trace
+     *            the trace this provider represents
+     * @param analysisModule
+     *            the analysis encapsulated by this provider
+     * @param cacheRows
+     *            whether the states of the rows are cached, see
+     *            {@link #clearRowModelCache()}
+     * @since 8.1
+     */
+    protected AbstractTimeGraphDataProvider(ITmfTrace trace, A analysisModule, boolean cacheRows) {
         super(trace, analysisModule);
+        fRowModelCache = cacheRows ? new TimeGraphRowTileCache() : null;
     }
 
     @Override
@@ -80,6 +101,31 @@ public abstract class AbstractTimeGraphDataProvider<A extends TmfStateSystemAnal
             return new TmfModelResponse<>(null, ITmfResponse.Status.FAILED, CommonStatusMessage.STATE_SYSTEM_FAILED);
         }
 
+        try (FlowScopeLog scope = new FlowScopeLogBuilder(LOGGER, Level.FINE, "AbstractTimeGraphDataProvider#fetchRowModel") //$NON-NLS-1$
+                .setCategory(getClass().getSimpleName()).build()) {
+            return getRowModelResponse(ss, parameters, fRowModelCache, p -> getRowModel(ss, p, monitor));
+        }
+    }
+
+    /**
+     * Get the response to a row model query on a state system, with the rows
+     * from a cache if there is one. The providers that do not extend this class
+     * can use it to cache their rows the same way.
+     *
+     * @param ss
+     *            the state system of the provider
+     * @param parameters
+     *            the query's parameters
+     * @param cache
+     *            the cache of the rows of the provider, or null to always fetch
+     *            them
+     * @param fetcher
+     *            the function that fetches the row models from the provider
+     * @return the response to the query
+     * @since 8.1
+     */
+    public static TmfModelResponse<TimeGraphModel> getRowModelResponse(ITmfStateSystem ss, Map<String, Object> parameters,
+            @Nullable TimeGraphRowTileCache cache, IRowModelFetcher fetcher) {
         long currentEnd = ss.getCurrentEndTime();
         Object times = parameters.get(DataProviderParameterUtils.REQUESTED_TIME_KEY);
         Object items = parameters.get(DataProviderParameterUtils.REQUESTED_ITEMS_KEY);
@@ -92,10 +138,8 @@ public abstract class AbstractTimeGraphDataProvider<A extends TmfStateSystemAnal
         }
         boolean complete = ss.waitUntilBuilt(0) || ((Number) end).longValue() <= currentEnd;
 
-        try (FlowScopeLog scope = new FlowScopeLogBuilder(LOGGER, Level.FINE, "AbstractTimeGraphDataProvider#fetchRowModel") //$NON-NLS-1$
-                .setCategory(getClass().getSimpleName()).build()) {
-
-            TimeGraphModel models = getRowModel(ss, parameters, monitor);
+        try {
+            TimeGraphModel models = (cache != null) ? cache.fetch(ss, parameters, fetcher) : fetcher.fetch(parameters);
             if (models == null) {
                 // getRowModel returns null if the query was cancelled.
                 return new TmfModelResponse<>(null, ITmfResponse.Status.CANCELLED, CommonStatusMessage.TASK_CANCELLED);
@@ -113,6 +157,24 @@ public abstract class AbstractTimeGraphDataProvider<A extends TmfStateSystemAnal
                 getEntryMetadata(entryId));
     }
 
+    /**
+     * Clear the cached states of the rows. The rows are only cached for the
+     * providers that ask for it in their constructor, and only once the state
+     * system is built. The cache is cleared when the end time of the state
+     * system changes, so a provider whose rows only depend on the state system
+     * has nothing to do. A provider whose rows also depend on something else,
+     * for example names resolved by symbol providers, must call this method
+     * when that changes.
+     *
+     * @since 8.1
+     */
+    protected void clearRowModelCache() {
+        TimeGraphRowTileCache cache = fRowModelCache;
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
     /**
      * Abstract method to be implemented by the providers to return rows. Lets the
      * abstract class handle waiting for {@link ITmfStateSystem} initialization and
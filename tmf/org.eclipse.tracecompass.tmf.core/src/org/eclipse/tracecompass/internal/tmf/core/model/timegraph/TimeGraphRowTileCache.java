@@ -0,0 +1,363 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.internal.tmf.core.model.timegraph;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
+import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
+import org.eclipse.tracecompass.tmf.core.dataprovider.DataProviderParameterUtils;
+import org.eclipse.tracecompass.tmf.core.model.timegraph.ITimeGraphRowModel;
+import org.eclipse.tracecompass.tmf.core.model.timegraph.ITimeGraphState;
+import org.eclipse.tracecompass.tmf.core.model.timegraph.TimeGraphModel;
+import org.eclipse.tracecompass.tmf.core.model.timegraph.TimeGraphRowModel;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Cache of the states of the time graph rows, by tiles of time.
+ * <p>
+ * The requested times are snapped to a grid whose step is the largest power of
+ * two that is not larger than the requested resolution, and the grid is cut in
+ * tiles of a fixed number of samples. The states of each row are fetched
+ * and kept per (entry, resolution, tile), so that panning only fetches the
+ * tiles that become visible, and that going back to a zoom level is served
+ * from memory. The least recently used tiles are evicted when the cache holds
+ * too many states.
+ * <p>
+ * Only the queries on the times and items of a state system that is completely
+ * built are cached, the states do not change anymore. The other queries, for
+ * example the ones with filters, are passed to the fetcher as they are. The
+ * cache is cleared when it is used with another state system, or when the end
+ * time of the state system changes, since the ongoing states of a history
+ * whose construction is resumed end later.
+ */
+public class TimeGraphRowTileCache {
+
+    /**
+     * Function that fetches the row model of a provider
+     */
+    @FunctionalInterface
+    public interface IRowModelFetcher {
+
+        /**
+         * Fetch the row model for a query
+         *
+         * @param parameters
+         *            the query's parameters
+         * @return the row model, null if the query was cancelled
+         * @throws StateSystemDisposedException
+         *             if the state system was closed during the query
+         */
+        @Nullable TimeGraphModel fetch(Map<String, Object> parameters) throws StateSystemDisposedException;
+    }
+
+    /** Number of samples of the grid in each tile */
+    private static final int TILE_SAMPLES = 256;
+
+    /** Default maximum number of states kept in the cache */
+    private static final int DEFAULT_MAX_STATES = 200000;
+
+    /** The only parameters of the queries that can be served by tiles */
+    private static final Set<String> TILED_KEYS = ImmutableSet.of(DataProviderParameterUtils.REQUESTED_TIME_KEY,
+            DataProviderParameterUtils.REQUESTED_ITEMS_KEY);
+
+    /** Marker of the tiles of the items for which the fetcher returns no row */
+    private static final List<ITimeGraphState> NO_ROW = new ArrayList<>(0);
+
+    private static final Comparator<ITimeGraphState> START_COMPARATOR = Comparator.comparingLong(ITimeGraphState::getStartTime);
+
+    /**
+     * Key of a tile of a row
+     */
+    private static final class TileKey {
+        private final long fEntryId;
+        private final long fResolution;
+        private final long fIndex;
+
+        public TileKey(long entryId, long resolution, long index) {
+            fEntryId = entryId;
+            fResolution = resolution;
+            fIndex = index;
+        }
+
+        @Override
+        public int hashCode() {
+            return (Long.hashCode(fEntryId) * 31 + Long.hashCode(fResolution)) * 31 + Long.hashCode(fIndex);
+        }
+
+        @Override
+        public boolean equals(@Nullable Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof TileKey)) {
+                return false;
+            }
+            TileKey other = (TileKey) obj;
+            return fEntryId == other.fEntryId && fResolution == other.fResolution && fIndex == other.fIndex;
+        }
+    }
+
+    private final int fMaxStates;
+    /* Access ordered, the least recently used tiles come first */
+    private final Map<TileKey, List<ITimeGraphState>> fTiles = new LinkedHashMap<>(16, 0.75f, true);
+    private int fNbStates = 0;
+    /* The state system and its end time when the tiles were fetched */
+    private @Nullable ITmfStateSystem fStateSystem = null;
+    private long fEndTime;
+
+    /**
+     * Constructor
+     */
+    public TimeGraphRowTileCache() {
+        this(DEFAULT_MAX_STATES);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param maxStates
+     *            the number of states above which the least recently used
+     *            tiles are evicted
+     */
+    public TimeGraphRowTileCache(int maxStates) {
+        fMaxStates = maxStates;
+    }
+
+    /**
+     * Get the row model for a query, from the cached tiles and the tiles that
+     * are fetched for the rows that miss them. The rows returned by the fetcher
+     * must only be for the requested items.
+     *
+     * @param ss
+     *            the state system of the provider
+     * @param parameters
+     *            the query's parameters
+     * @param fetcher
+     *            the function that fetches the row models from the provider
+     * @return the row model, null if the query was cancelled
+     * @throws StateSystemDisposedException
+     *             if the state system was closed during the query
+     */
+    public @Nullable TimeGraphModel fetch(ITmfStateSystem ss, Map<String, Object> parameters, IRowModelFetcher fetcher) throws StateSystemDisposedException {
+        List<Long> times = DataProviderParameterUtils.extractTimeRequested(parameters);
+        List<Long> items = DataProviderParameterUtils.extractSelectedItems(parameters);
+        if (times == null || items == null || times.size() < 3 || !TILED_KEYS.containsAll(parameters.keySet()) || !ss.waitUntilBuilt(0)) {
+            return fetcher.fetch(parameters);
+        }
+        long windowStart = times.get(0);
+        long windowEnd = times.get(times.size() - 1);
+        long resolution = Long.highestOneBit(times.get(1) - windowStart);
+        if (resolution <= 0 || resolution > Long.MAX_VALUE / TILE_SAMPLES) {
+            return fetcher.fetch(parameters);
+        }
+        long tileLength = resolution * TILE_SAMPLES;
+        long start = Math.max(windowStart, ss.getStartTime());
+        long end = Math.min(windowEnd, ss.getCurrentEndTime());
+        if (start > end || start < Long.MIN_VALUE + tileLength || end > Long.MAX_VALUE - tileLength) {
+            return fetcher.fetch(parameters);
+        }
+        long firstTile = Math.floorDiv(start, tileLength);
+        long lastTile = Math.floorDiv(end, tileLength);
+
+        /*
+         * Group the items by the tiles that they miss, the items that were
+         * shown together usually miss the same tiles and are fetched at once.
+         */
+        Map<TileKey, List<ITimeGraphState>> tiles = new HashMap<>();
+        Map<List<Long>, List<Long>> missingTilesToItems = new LinkedHashMap<>();
+        synchronized (fTiles) {
+            if (ss != fStateSystem || ss.getCurrentEndTime() != fEndTime) {
+                clear();
+                fStateSystem = ss;
+                fEndTime = ss.getCurrentEndTime();
+            }
+            for (Long item : items) {
+                List<Long> missingTiles = new ArrayList<>();
+                for (long tile = firstTile; tile <= lastTile; tile++) {
+                    TileKey key = new TileKey(item, resolution, tile);
+                    List<ITimeGraphState> states = fTiles.get(key);
+                    if (states != null) {
+                        tiles.put(key, states);
+                    } else {
+                        missingTiles.add(tile);
+                    }
+                }
+                if (!missingTiles.isEmpty()) {
+                    missingTilesToItems.computeIfAbsent(missingTiles, t -> new ArrayList<>()).add(item);
+                }
+            }
+        }
+        for (Entry<List<Long>, List<Long>> entry : missingTilesToItems.entrySet()) {
+            Map<TileKey, List<ITimeGraphState>> fetched = fetchTiles(ss, entry.getKey(), entry.getValue(), resolution, fetcher);
+            if (fetched == null) {
+                return null;
+            }
+            tiles.putAll(fetched);
+        }
+
+        List<ITimeGraphRowModel> rows = new ArrayList<>();
+        for (Long item : items) {
+            List<ITimeGraphState> row = null;
+            for (long tile = firstTile; tile <= lastTile; tile++) {
+                List<ITimeGraphState> states = tiles.get(new TileKey(item, resolution, tile));
+                if (states == null || states == NO_ROW) {
+                    continue;
+                }
+                List<ITimeGraphState> rowStates = row == null ? new ArrayList<>() : row;
+                row = rowStates;
+                long tileStart = tile * tileLength;
+                for (ITimeGraphState state : states) {
+                    long stateStart = state.getStartTime();
+                    if (stateStart + state.getDuration() - 1 < windowStart || stateStart > windowEnd) {
+                        continue;
+                    }
+                    if (stateStart < tileStart && !rowStates.isEmpty() && stateStart <= rowStates.get(rowStates.size() - 1).getStartTime()) {
+                        // This state spans the previous tile and was already added
+                        continue;
+                    }
+                    rowStates.add(state);
+                }
+            }
+            if (row != null) {
+                rows.add(new TimeGraphRowModel(item, row));
+            }
+        }
+        return new TimeGraphModel(rows);
+    }
+
+    /**
+     * Fetch the states of some tiles for some items, and add them to the
+     * cache.
+     *
+     * @return the fetched tiles, null if the query was cancelled
+     */
+    private @Nullable Map<TileKey, List<ITimeGraphState>> fetchTiles(ITmfStateSystem ss, List<Long> tileIndexes, List<Long> items,
+            long resolution, IRowModelFetcher fetcher) throws StateSystemDisposedException {
+        long tileLength = resolution * TILE_SAMPLES;
+        long ssStart = ss.getStartTime();
+        long ssEnd = ss.getCurrentEndTime();
+        List<Long> samples = new ArrayList<>();
+        for (long tile : tileIndexes) {
+            long tileStart = tile * tileLength;
+            long tileEnd = tileStart + tileLength - 1;
+            /*
+             * Also sample the bounds of the state system when they are in the
+             * tile, so that the tiles at the edges have their first and last
+             * states.
+             */
+            if (ssStart > tileStart && ssStart <= tileEnd && (ssStart - tileStart) % resolution != 0) {
+                samples.add(ssStart);
+            }
+            for (int i = 0; i < TILE_SAMPLES; i++) {
+                long t = tileStart + i * resolution;
+                if (t >= ssStart && t <= ssEnd) {
+                    samples.add(t);
+                }
+            }
+            if (ssEnd >= tileStart && ssEnd < tileEnd && (ssEnd - tileStart) % resolution != 0) {
+                samples.add(ssEnd);
+            }
+        }
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put(DataProviderParameterUtils.REQUESTED_TIME_KEY, samples);
+        parameters.put(DataProviderParameterUtils.REQUESTED_ITEMS_KEY, items);
+        TimeGraphModel model = fetcher.fetch(parameters);
+        if (model == null) {
+            return null;
+        }
+        Map<Long, ITimeGraphRowModel> rows = new HashMap<>();
+        for (ITimeGraphRowModel row : model.getRows()) {
+            rows.put(row.getEntryID(), row);
+        }
+
+        /* Split the states of each row in the tiles that they intersect */
+        long firstTile = tileIndexes.get(0);
+        long lastTile = tileIndexes.get(tileIndexes.size() - 1);
+        Map<TileKey, List<ITimeGraphState>> tiles = new HashMap<>();
+        for (Long item : items) {
+            ITimeGraphRowModel row = rows.get(item);
+            Map<Long, List<ITimeGraphState>> rowTiles = new HashMap<>();
+            for (Long tile : tileIndexes) {
+                rowTiles.put(tile, row == null ? NO_ROW : new ArrayList<>());
+            }
+            if (row != null) {
+                List<ITimeGraphState> states = new ArrayList<>(row.getStates());
+                states.sort(START_COMPARATOR);
+                for (ITimeGraphState state : states) {
+                    long stateStart = state.getStartTime();
+                    long from = Math.max(firstTile, Math.floorDiv(stateStart, tileLength));
+                    long to = Math.min(lastTile, Math.floorDiv(stateStart + Math.max(state.getDuration(), 1) - 1, tileLength));
+                    for (long tile = from; tile <= to; tile++) {
+                        List<ITimeGraphState> tileStates = rowTiles.get(tile);
+                        if (tileStates != null) {
+                            tileStates.add(state);
+                        }
+                    }
+                }
+            }
+            for (Entry<Long, List<ITimeGraphState>> entry : rowTiles.entrySet()) {
+                tiles.put(new TileKey(item, resolution, entry.getKey()), entry.getValue());
+            }
+        }
+        store(ss, ssEnd, tiles);
+        return tiles;
+    }
+
+    private void store(ITmfStateSystem ss, long endTime, Map<TileKey, List<ITimeGraphState>> tiles) {
+        synchronized (fTiles) {
+            if (ss != fStateSystem || endTime != fEndTime) {
+                // The tiles were fetched before the cache was cleared
+                return;
+            }
+            for (Entry<TileKey, List<ITimeGraphState>> entry : tiles.entrySet()) {
+                List<ITimeGraphState> previous = fTiles.put(entry.getKey(), entry.getValue());
+                if (previous != null) {
+                    fNbStates -= weight(previous);
+                }
+                fNbStates += weight(entry.getValue());
+            }
+            Iterator<List<ITimeGraphState>> iterator = fTiles.values().iterator();
+            while (fNbStates > fMaxStates && iterator.hasNext()) {
+                fNbStates -= weight(iterator.next());
+                iterator.remove();
+            }
+        }
+    }
+
+    private static int weight(List<ITimeGraphState> states) {
+        // Empty tiles also take some room
+        return Math.max(1, states.size());
+    }
+
+    /**
+     * Remove all the tiles from the cache, when the states of the provider
+     * change, for example when the names of its states are resolved again.
+     */
+    public void clear() {
+        synchronized (fTiles) {
+            fTiles.clear();
+            fNbStates = 0;
+        }
+    }
+}
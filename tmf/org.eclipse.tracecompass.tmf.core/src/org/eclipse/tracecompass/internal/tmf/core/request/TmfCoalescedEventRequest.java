@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2015 Ericsson
+ * Copyright (c) 2009, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -23,6 +23,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.internal.tmf.core.Activator;
 import org.eclipse.tracecompass.internal.tmf.core.TmfCoreTracer;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
@@ -34,10 +35,29 @@ import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimeRange;
 /**
  * The TMF coalesced event request
  *
+ * By default, each event is dispatched to the sub-requests in turn, on the
+ * thread of the coalesced request. If the {@link #PIPELINED_FAN_OUT_PROPERTY}
+ * system property is set, the events are published once in a ring buffer and
+ * each sub-request handles them on its own thread, so that the sub-requests run
+ * concurrently off a single read of the trace.
+ *
  * @author Francois Chouinard
  */
 public class TmfCoalescedEventRequest extends TmfEventRequest {
 
+    // ------------------------------------------------------------------------
+    // Constants
+    // ------------------------------------------------------------------------
+
+    /**
+     * System property to dispatch the events to the sub-requests on their own
+     * threads
+     */
+    public static final String PIPELINED_FAN_OUT_PROPERTY = "org.eclipse.tracecompass.tmf.core.request.pipelinedFanOut"; //$NON-NLS-1$
+
+    /** Number of events in the ring buffer of the pipelined fan-out */
+    private static final int FAN_OUT_CAPACITY = 1024;
+
     // ------------------------------------------------------------------------
     // Attributes
     // ------------------------------------------------------------------------
@@ -56,6 +76,12 @@ public class TmfCoalescedEventRequest extends TmfEventRequest {
      */
     private Map<String, Set<ITmfEventRequest>> fRequestsCache = new HashMap<>();
 
+    /**
+     * The pipelined fan-out of the events, while the request is running in
+     * this mode
+     */
+    private volatile @Nullable TmfEventFanOut fFanOut = null;
+
     // ------------------------------------------------------------------------
     // Constructor
     // ------------------------------------------------------------------------
@@ -215,6 +241,12 @@ public class TmfCoalescedEventRequest extends TmfEventRequest {
 
         long index = getIndex() + getNbRead() - 1;
 
+        TmfEventFanOut fanOut = fFanOut;
+        if (fanOut != null) {
+            fanOut.publish(data, index);
+            return;
+        }
+
         String traceName = data.getTrace().getName();
         Set<ITmfEventRequest> requests = fRequestsCache.get(traceName);
 
@@ -231,25 +263,32 @@ public class TmfCoalescedEventRequest extends TmfEventRequest {
 
         // dispatch event to relevant requests
         for (ITmfEventRequest request : requests) {
-            long start = request.getIndex();
-            if (!request.isCompleted() && index >= start && request.getNbRead() < request.getNbRequested()) {
-                ITmfTimestamp ts = data.getTimestamp();
-                if (request.getRange().contains(ts)) {
-                    if (request.getDataType().isInstance(data)) {
-                        try {
-                            request.handleData(data);
-                        } catch (Exception e) {
-                            /*
-                             * We don't usually catch all exception, but here it
-                             * is important because this will cause the request
-                             * thread to hang forever and the other requests to
-                             * be stopped. This should properly cancel the
-                             * request with the exception and let the rest
-                             * continue.
-                             */
-                            Activator.logError("An uncaught exception happened on request " + request + ": " + e.getMessage());  //$NON-NLS-1$//$NON-NLS-2$
-                            request.fail(e);
-                        }
+            dispatch(request, data, index);
+        }
+    }
+
+    /**
+     * Dispatch an event to a sub-request if it is in its range
+     */
+    private static void dispatch(ITmfEventRequest request, ITmfEvent data, long index) {
+        long start = request.getIndex();
+        if (!request.isCompleted() && index >= start && request.getNbRead() < request.getNbRequested()) {
+            ITmfTimestamp ts = data.getTimestamp();
+            if (request.getRange().contains(ts)) {
+                if (request.getDataType().isInstance(data)) {
+                    try {
+                        request.handleData(data);
+                    } catch (Exception e) {
+                        /*
+                         * We don't usually catch all exception, but here it
+                         * is important because this will cause the request
+                         * thread to hang forever and the other requests to
+                         * be stopped. This should properly cancel the
+                         * request with the exception and let the rest
+                         * continue.
+                         */
+                        Activator.logError("An uncaught exception happened on request " + request + ": " + e.getMessage());  //$NON-NLS-1$//$NON-NLS-2$
+                        request.fail(e);
                     }
                 }
             }
@@ -263,11 +302,34 @@ public class TmfCoalescedEventRequest extends TmfEventRequest {
                 request.start();
             }
         }
+        if (fRequests.size() > 1 && Boolean.getBoolean(PIPELINED_FAN_OUT_PROPERTY)) {
+            fFanOut = new TmfEventFanOut("Coalesced request " + getRequestId(), fRequests, FAN_OUT_CAPACITY, TmfCoalescedEventRequest::dispatch); //$NON-NLS-1$
+        }
         super.start();
     }
 
+    /**
+     * Stop the pipelined fan-out, if any
+     *
+     * @param drain
+     *            whether the sub-requests should first handle the events
+     *            already published
+     */
+    private void stopFanOut(boolean drain) {
+        TmfEventFanOut fanOut = fFanOut;
+        if (fanOut != null) {
+            if (drain) {
+                fanOut.finish();
+            } else {
+                fanOut.stop();
+            }
+            fFanOut = null;
+        }
+    }
+
     @Override
     public synchronized void done() {
+        stopFanOut(true);
         for (ITmfEventRequest request : fRequests) {
             if (!request.isCompleted()) {
                 request.done();
@@ -278,6 +340,7 @@ public class TmfCoalescedEventRequest extends TmfEventRequest {
 
     @Override
     public void fail(Exception e) {
+        stopFanOut(false);
         for (ITmfEventRequest request : fRequests) {
             request.fail(e);
         }
@@ -286,6 +349,7 @@ public class TmfCoalescedEventRequest extends TmfEventRequest {
 
     @Override
     public void cancel() {
+        stopFanOut(false);
         for (ITmfEventRequest request : fRequests) {
             if (!request.isCompleted()) {
                 request.cancel();
@@ -0,0 +1,242 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.internal.tmf.core.request;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.internal.tmf.core.Activator;
+import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
+import org.eclipse.tracecompass.tmf.core.filter.ITmfFilter;
+import org.eclipse.tracecompass.tmf.core.request.ITmfEventRequest;
+
+/**
+ * Fan-out of the events read by a coalesced request to its sub-requests. The
+ * events are published once in a ring buffer and each sub-request consumes
+ * them on its own thread, at its own pace. The publisher waits when the
+ * slowest sub-request is a whole buffer behind.
+ *
+ * There is a single publisher, the thread of the coalesced request.
+ */
+@NonNullByDefault
+final class TmfEventFanOut {
+
+    /**
+     * Handler of an event by a sub-request, called on the thread of the
+     * sub-request
+     */
+    @FunctionalInterface
+    interface IEventHandler {
+        /**
+         * Handle an event
+         *
+         * @param request
+         *            the sub-request
+         * @param event
+         *            the event
+         * @param index
+         *            the rank of the event in the coalesced request
+         */
+        void handle(ITmfEventRequest request, ITmfEvent event, long index);
+    }
+
+    private static final int SPIN_TRIES = 100;
+    private static final long PARK_NANOS = 50000;
+
+    private final @Nullable ITmfEvent[] fEvents;
+    private final long[] fIndexes;
+    private final int fMask;
+    private final IEventHandler fHandler;
+    private final List<Consumer> fConsumers = new ArrayList<>();
+    private final List<Thread> fThreads = new ArrayList<>();
+    private final CountDownLatch fFinished;
+
+    /** Number of events published, written by the publisher only */
+    private volatile long fPublished = 0;
+    /** Lowest number of events consumed by a sub-request, last time it was read */
+    private long fMinConsumed = 0;
+    private volatile boolean fEnded = false;
+    private volatile boolean fStopped = false;
+
+    /**
+     * Constructor, starts the threads of the sub-requests
+     *
+     * @param name
+     *            the name of the threads
+     * @param requests
+     *            the sub-requests
+     * @param capacity
+     *            the number of events in the buffer, a power of two
+     * @param handler
+     *            the handler of the events
+     */
+    TmfEventFanOut(String name, List<ITmfEventRequest> requests, int capacity, IEventHandler handler) {
+        fEvents = new ITmfEvent[capacity];
+        fIndexes = new long[capacity];
+        fMask = capacity - 1;
+        fHandler = handler;
+        fFinished = new CountDownLatch(requests.size());
+        for (ITmfEventRequest request : requests) {
+            Consumer consumer = new Consumer(request);
+            fConsumers.add(consumer);
+            Thread thread = new Thread(consumer, name + " - " + request.getRequestId()); //$NON-NLS-1$
+            thread.setDaemon(true);
+            fThreads.add(thread);
+        }
+        for (Thread thread : fThreads) {
+            thread.start();
+        }
+    }
+
+    /**
+     * Publish an event to all the sub-requests, waiting for a free slot in the
+     * buffer if needed
+     *
+     * @param event
+     *            the event
+     * @param index
+     *            the rank of the event in the coalesced request
+     */
+    void publish(ITmfEvent event, long index) {
+        long sequence = fPublished;
+        long wrap = sequence - fEvents.length;
+        int tries = 0;
+        while (fMinConsumed <= wrap) {
+            fMinConsumed = getMinConsumed();
+            if (fMinConsumed > wrap) {
+                break;
+            }
+            if (fStopped) {
+                return;
+            }
+            tries = backOff(tries);
+        }
+        int slot = (int) (sequence & fMask);
+        fEvents[slot] = event;
+        fIndexes[slot] = index;
+        fPublished = sequence + 1;
+    }
+
+    /**
+     * Wait until the sub-requests consumed all the published events
+     */
+    void finish() {
+        fEnded = true;
+        await();
+    }
+
+    /**
+     * Stop the sub-requests without consuming the remaining events
+     */
+    void stop() {
+        fStopped = true;
+        await();
+    }
+
+    private void await() {
+        if (fThreads.contains(Thread.currentThread())) {
+            /* Called by a sub-request, which cannot wait for itself */
+            return;
+        }
+        try {
+            fFinished.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Arrays.fill(fEvents, null);
+    }
+
+    private long getMinConsumed() {
+        long min = Long.MAX_VALUE;
+        for (Consumer consumer : fConsumers) {
+            min = Math.min(min, consumer.fConsumed);
+        }
+        return min;
+    }
+
+    private static int backOff(int tries) {
+        if (tries < SPIN_TRIES) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+        return tries + 1;
+    }
+
+    /**
+     * The consumer of the events for a sub-request
+     */
+    private final class Consumer implements Runnable {
+
+        private final ITmfEventRequest fRequest;
+        /** Whether the provider filter of the request matches a trace */
+        private final Map<String, Boolean> fMatches = new HashMap<>();
+        /** Number of events consumed, read by the publisher */
+        private volatile long fConsumed = 0;
+
+        Consumer(ITmfEventRequest request) {
+            fRequest = request;
+        }
+
+        @Override
+        public void run() {
+            long consumed = 0;
+            try {
+                int tries = 0;
+                while (!fStopped && !fRequest.isCompleted()) {
+                    long available = fPublished;
+                    if (consumed == available) {
+                        if (fEnded) {
+                            break;
+                        }
+                        tries = backOff(tries);
+                        continue;
+                    }
+                    tries = 0;
+                    while (consumed < available && !fStopped) {
+                        int slot = (int) (consumed & fMask);
+                        ITmfEvent event = fEvents[slot];
+                        if (event != null && matches(event)) {
+                            fHandler.handle(fRequest, event, fIndexes[slot]);
+                        }
+                        consumed++;
+                        fConsumed = consumed;
+                    }
+                }
+            } catch (RuntimeException e) {
+                Activator.logError("An uncaught exception happened on request " + fRequest + ": " + e.getMessage(), e); //$NON-NLS-1$ //$NON-NLS-2$
+            } finally {
+                /* Do not hold back the publisher anymore */
+                fConsumed = Long.MAX_VALUE;
+                fFinished.countDown();
+            }
+        }
+
+        private boolean matches(ITmfEvent event) {
+            String traceName = event.getTrace().getName();
+            Boolean matches = fMatches.get(traceName);
+            if (matches == null) {
+                ITmfFilter filter = fRequest.getProviderFilter();
+                matches = (filter == null || filter.matches(event));
+                fMatches.put(traceName, matches);
+            }
+            return matches;
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2014 Ericsson
+ * Copyright (c) 2009, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -18,13 +18,16 @@ package org.eclipse.tracecompass.internal.tmf.core.request;
 
 import static org.eclipse.tracecompass.common.core.NonNullUtils.checkNotNull;
 
-import java.util.Queue;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.LongSummaryStatistics;
 import java.util.Timer;
 import java.util.TimerTask;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -33,21 +36,32 @@ import org.eclipse.tracecompass.common.core.log.TraceCompassLog;
 import org.eclipse.tracecompass.common.core.log.TraceCompassLogUtils;
 import org.eclipse.tracecompass.common.core.log.TraceCompassLogUtils.FlowScopeLog;
 import org.eclipse.tracecompass.common.core.log.TraceCompassLogUtils.FlowScopeLogBuilder;
+import org.eclipse.tracecompass.common.core.log.TraceCompassMonitorManager;
 import org.eclipse.tracecompass.internal.tmf.core.TmfCoreTracer;
 import org.eclipse.tracecompass.internal.tmf.core.component.TmfEventThread;
 import org.eclipse.tracecompass.tmf.core.request.ITmfEventRequest.ExecutionType;
 
 /**
- * The request scheduler works with 5 slots with a specific time. It has 4 slots
- * for foreground requests and 1 slot for background requests, and it passes
- * through all the slots (foreground first and background after).
+ * The request scheduler shares the event provider between its requests in
+ * time slices. Each request has a weight given by its priority class
+ * (foreground or background) and accumulates a virtual run time, which is its
+ * run time divided by its weight. At the end of each slice, the requests with
+ * the lowest virtual run time are run, so each request gets a share of the
+ * provider proportional to its weight, and a new request is not starved by
+ * the ones which were sent before it.
  *
- * Example: if we have one foreground and one background request, the foreground
- * request will be executed four times more often than the background request.
+ * Example: with the default weights, if we have one foreground and one
+ * background request, the foreground request will be executed four times more
+ * often than the background request.
+ *
+ * The number of requests running at the same time on the provider is bounded,
+ * to one by default. The weights and the bound can be set with system
+ * properties. The queue wait and the throughput of the requests are published
+ * with the {@link TraceCompassMonitorManager}.
  *
  * @author Francois Chouinard
  * @author Simon Delisle
- * @version 1.1
+ * @version 1.2
  */
 public class TmfRequestExecutor implements Executor {
 
@@ -58,8 +72,27 @@ public class TmfRequestExecutor implements Executor {
     // Constants
     // ------------------------------------------------------------------------
 
+    /** System property to set the weight of the foreground requests */
+    public static final String FOREGROUND_WEIGHT_PROPERTY = "org.eclipse.tracecompass.tmf.core.request.foregroundWeight"; //$NON-NLS-1$
+
+    /** System property to set the weight of the background requests */
+    public static final String BACKGROUND_WEIGHT_PROPERTY = "org.eclipse.tracecompass.tmf.core.request.backgroundWeight"; //$NON-NLS-1$
+
+    /**
+     * System property to set the maximum number of requests running at the
+     * same time on an event provider
+     */
+    public static final String MAX_CONCURRENCY_PROPERTY = "org.eclipse.tracecompass.tmf.core.request.maxConcurrency"; //$NON-NLS-1$
+
+    /** Label of the queue wait of the requests, in nanoseconds */
+    public static final String QUEUE_WAIT_LABEL = "TmfRequestExecutor:QueueWait"; //$NON-NLS-1$
+
+    /** Label of the number of events read per second by the requests */
+    public static final String EVENTS_PER_SECOND_LABEL = "TmfRequestExecutor:EventsPerSecond"; //$NON-NLS-1$
+
     private static final long REQUEST_TIME = 100;
-    private static final int FOREGROUND_SLOT = 4;
+    private static final int DEFAULT_FOREGROUND_WEIGHT = 4;
+    private static final int DEFAULT_BACKGROUND_WEIGHT = 1;
 
     // ------------------------------------------------------------------------
     // Attributes
@@ -69,18 +102,25 @@ public class TmfRequestExecutor implements Executor {
     private final ExecutorService fExecutor = Executors.newCachedThreadPool();
     private final String fExecutorName;
 
-    // The request queues
-    private final Queue<TmfEventThread> fForegroundTasks = new ArrayBlockingQueue<>(10);
-    private final Queue<TmfEventThread> fBackgroundTasks = new ArrayBlockingQueue<>(10);
+    private final int fForegroundWeight = Math.max(1, Integer.getInteger(FOREGROUND_WEIGHT_PROPERTY, DEFAULT_FOREGROUND_WEIGHT));
+    private final int fBackgroundWeight = Math.max(1, Integer.getInteger(BACKGROUND_WEIGHT_PROPERTY, DEFAULT_BACKGROUND_WEIGHT));
+    private final int fMaxConcurrency = Math.max(1, Integer.getInteger(MAX_CONCURRENCY_PROPERTY, 1));
+
+    // The tasks waiting to be run or resumed
+    private final List<ScheduledTask> fReadyTasks = new ArrayList<>();
 
-    // The tasks
-    private TmfEventThread fActiveTask;
+    // The running tasks
+    private final List<ScheduledTask> fActiveTasks = new ArrayList<>();
+
+    // The lowest virtual run time of the tasks, given to the new tasks
+    private long fMinVirtualTime = 0;
+    private long fSequence = 0;
+
+    private final LongSummaryStatistics fQueueWaits = new LongSummaryStatistics();
 
     private Timer fTimer;
     private TimerTask fTimerTask;
 
-    private int fForegroundCycle = 0;
-
     // ------------------------------------------------------------------------
     // Constructors
     // ------------------------------------------------------------------------
@@ -116,6 +156,23 @@ public class TmfRequestExecutor implements Executor {
         return fExecutor.isTerminated();
     }
 
+    /**
+     * @return the maximum number of requests running at the same time
+     */
+    public int getMaxConcurrency() {
+        return fMaxConcurrency;
+    }
+
+    /**
+     * @return the statistics of the time the requests waited before being
+     *         started, in nanoseconds
+     */
+    public synchronized LongSummaryStatistics getQueueWaitStatistics() {
+        LongSummaryStatistics statistics = new LongSummaryStatistics();
+        statistics.combine(fQueueWaits);
+        return statistics;
+    }
+
     // ------------------------------------------------------------------------
     // Operations
     // ------------------------------------------------------------------------
@@ -143,31 +200,16 @@ public class TmfRequestExecutor implements Executor {
         }
 
         try (FlowScopeLog scope = new FlowScopeLogBuilder(LOGGER, Level.FINE, "RequestExecutor:CreatingThread").setCategory(LOG_CATEGORY).build()) { //$NON-NLS-1$
-            // Wrap the thread in a MyThread
+            // Wrap the thread in a ScheduledTask
             TmfEventThread thread = (TmfEventThread) command;
-            TmfEventThread wrapper = new TmfEventThread(thread) {
-                @Override
-                public void run() {
-                    try (FlowScopeLog log = new FlowScopeLogBuilder(LOGGER, Level.FINE, "RequestExecutor:RunningRequest", "thread", thread.getThread(), "execution type", thread.getExecType()).setParentScope(scope).build()) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-                        thread.run();
-                    } finally {
-                        scheduleNext();
-                    }
-                }
-            };
-
-            // Add the thread to the appropriate queue
-            ExecutionType priority = thread.getExecType();
-
-            if (priority == ExecutionType.FOREGROUND) {
-                if (!fForegroundTasks.offer(wrapper)) {
-                    wrapper.cancel();
-                }
-            } else {
-                if (!fBackgroundTasks.offer(wrapper)) {
-                    wrapper.cancel();
-                }
-            }
+            int weight = (thread.getExecType() == ExecutionType.FOREGROUND) ? fForegroundWeight : fBackgroundWeight;
+            ScheduledTask task = new ScheduledTask(thread, weight, scope);
+            fReadyTasks.add(task);
+        }
+
+        // Start the task right away if a slot is free
+        if (fActiveTasks.size() < fMaxConcurrency) {
+            scheduleNext();
         }
     }
 
@@ -186,43 +228,101 @@ public class TmfRequestExecutor implements Executor {
     }
 
     /**
-     * Executes the next pending request, if applicable.
+     * A task wrapping an event thread, with its scheduling information
+     */
+    private class ScheduledTask extends TmfEventThread {
+
+        private final int fWeight;
+        private final long fOrder;
+        private final long fQueuedTime = System.nanoTime();
+        private final FlowScopeLog fScope;
+        private long fVirtualTime;
+        private long fSliceStart;
+        private long fRunTime;
+        private boolean fStarted = false;
+
+        ScheduledTask(TmfEventThread thread, int weight, FlowScopeLog scope) {
+            super(thread);
+            fWeight = weight;
+            fOrder = fSequence++;
+            fVirtualTime = fMinVirtualTime;
+            fScope = scope;
+        }
+
+        @Override
+        public void run() {
+            TmfEventThread thread = getThread();
+            try (FlowScopeLog log = new FlowScopeLogBuilder(LOGGER, Level.FINE, "RequestExecutor:RunningRequest", "thread", thread, "execution type", thread.getExecType()).setParentScope(fScope).build()) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                thread.run();
+            } finally {
+                taskCompleted(this);
+            }
+        }
+
+        /**
+         * Add the time since the start of the slice to the run time
+         */
+        void account(long now) {
+            long elapsed = now - fSliceStart;
+            fRunTime += elapsed;
+            fVirtualTime += elapsed / fWeight;
+            fSliceStart = now;
+        }
+
+        /**
+         * Whether this task should run before another one
+         */
+        boolean isBefore(ScheduledTask other) {
+            if (fVirtualTime != other.fVirtualTime) {
+                return fVirtualTime < other.fVirtualTime;
+            }
+            if (fWeight != other.fWeight) {
+                return fWeight > other.fWeight;
+            }
+            return fOrder < other.fOrder;
+        }
+    }
+
+    /**
+     * Executes the next pending requests, if applicable.
      */
     protected synchronized void scheduleNext() {
-        if (!isShutdown()) {
-            if (fActiveTask == null) {
-                schedule();
-            } else if (fActiveTask.getExecType() == ExecutionType.FOREGROUND) {
-                if (fActiveTask.getThread().isCompleted()) {
-                    fActiveTask = null;
-                    schedule();
-                } else {
-                    if (hasTasks()) {
-                        fActiveTask.getThread().suspend();
-                        if (!fForegroundTasks.offer(fActiveTask)) {
-                            fActiveTask.cancel();
-                            fActiveTask = null;
-                        }
-                        schedule();
-                    }
-                }
-
-            } else if (fActiveTask.getExecType() == ExecutionType.BACKGROUND) {
-                if (fActiveTask.getThread().isCompleted()) {
-                    fActiveTask = null;
-                    schedule();
-                } else {
-                    if (hasTasks()) {
-                        fActiveTask.getThread().suspend();
-                        if (!fBackgroundTasks.offer(fActiveTask)) {
-                            fActiveTask.cancel();
-                            fActiveTask = null;
-                        }
-                        schedule();
-                    }
-                }
+        if (isShutdown()) {
+            return;
+        }
+        long now = System.nanoTime();
+        Iterator<ScheduledTask> iter = fActiveTasks.iterator();
+        while (iter.hasNext()) {
+            ScheduledTask task = iter.next();
+            if (task.getThread().isCompleted()) {
+                iter.remove();
+            } else {
+                task.account(now);
+            }
+        }
+
+        // Fill the free slots
+        while (fActiveTasks.size() < fMaxConcurrency && !fReadyTasks.isEmpty()) {
+            ScheduledTask next = getFirst(fReadyTasks);
+            fReadyTasks.remove(next);
+            start(next, now);
+        }
+
+        // Preempt the running tasks that had more than their share
+        while (!fReadyTasks.isEmpty()) {
+            ScheduledTask next = getFirst(fReadyTasks);
+            ScheduledTask last = getLast(fActiveTasks);
+            if (!next.isBefore(last)) {
+                break;
             }
+            last.getThread().suspend();
+            fActiveTasks.remove(last);
+            fReadyTasks.add(last);
+            fReadyTasks.remove(next);
+            start(next, now);
         }
+
+        updateMinVirtualTime();
     }
 
     /**
@@ -237,16 +337,18 @@ public class TmfRequestExecutor implements Executor {
             fTimer.cancel();
         }
 
-        if (fActiveTask != null) {
-            fActiveTask.cancel();
+        for (ScheduledTask task : fActiveTasks) {
+            task.cancel();
         }
-
-        while ((fActiveTask = fForegroundTasks.poll()) != null) {
-            fActiveTask.cancel();
-        }
-        while ((fActiveTask = fBackgroundTasks.poll()) != null) {
-            fActiveTask.cancel();
+        for (ScheduledTask task : fReadyTasks) {
+            task.cancel();
+            // A suspended task stops once it sees that its request is cancelled
+            if (task.getThread().isPaused()) {
+                task.getThread().resume();
+            }
         }
+        fActiveTasks.clear();
+        fReadyTasks.clear();
 
         fExecutor.shutdown();
         if (TmfCoreTracer.isComponentTraced()) {
@@ -259,58 +361,69 @@ public class TmfRequestExecutor implements Executor {
     // ------------------------------------------------------------------------
 
     /**
-     * Determine which type of request (foreground or background) we schedule
-     * next
+     * Execute or resume a task
      */
-    private void schedule() {
-        if (!fForegroundTasks.isEmpty()) {
-            scheduleNextForeground();
+    private void start(ScheduledTask task, long now) {
+        fActiveTasks.add(task);
+        task.fSliceStart = now;
+        if (task.fStarted) {
+            task.getThread().resume();
         } else {
-            scheduleNextBackground();
+            task.fStarted = true;
+            long queueWait = now - task.fQueuedTime;
+            fQueueWaits.accept(queueWait);
+            TraceCompassMonitorManager.getInstance().update(QUEUE_WAIT_LABEL, queueWait);
+            fExecutor.execute(task);
         }
     }
 
     /**
-     * Schedule the next foreground request
+     * Remove a completed task and schedule the next ones
      */
-    private void scheduleNextForeground() {
-        if (fForegroundCycle < FOREGROUND_SLOT || fBackgroundTasks.isEmpty()) {
-            ++fForegroundCycle;
-            fActiveTask = fForegroundTasks.poll();
-            executefActiveTask();
-        } else {
-            fActiveTask = null;
-            scheduleNextBackground();
+    private synchronized void taskCompleted(ScheduledTask task) {
+        if (fActiveTasks.remove(task)) {
+            task.account(System.nanoTime());
+        }
+        // The task may have been suspended after reading its last event
+        fReadyTasks.remove(task);
+        int nbRead = task.getRequest().getNbRead();
+        if (task.fRunTime > 0 && nbRead > 0) {
+            TraceCompassMonitorManager.getInstance().update(EVENTS_PER_SECOND_LABEL, nbRead * TimeUnit.SECONDS.toNanos(1) / task.fRunTime);
         }
+        scheduleNext();
     }
 
-    /**
-     * Schedule the next background request
-     */
-    private void scheduleNextBackground() {
-        fForegroundCycle = 0;
-        if (!fBackgroundTasks.isEmpty()) {
-            fActiveTask = fBackgroundTasks.poll();
-            executefActiveTask();
+    private static ScheduledTask getFirst(List<ScheduledTask> tasks) {
+        ScheduledTask first = tasks.get(0);
+        for (ScheduledTask task : tasks) {
+            if (task.isBefore(first)) {
+                first = task;
+            }
         }
+        return first;
     }
 
-    /**
-     * Execute or resume the active task
-     */
-    private void executefActiveTask() {
-        if (fActiveTask.getThread().isPaused()) {
-            fActiveTask.getThread().resume();
-        } else {
-            fExecutor.execute(fActiveTask);
+    private static ScheduledTask getLast(List<ScheduledTask> tasks) {
+        ScheduledTask last = tasks.get(0);
+        for (ScheduledTask task : tasks) {
+            if (last.isBefore(task)) {
+                last = task;
+            }
         }
+        return last;
     }
 
-    /**
-     * Check if the scheduler has tasks
-     */
-    private boolean hasTasks() {
-        return !(fForegroundTasks.isEmpty() && fBackgroundTasks.isEmpty());
+    private void updateMinVirtualTime() {
+        long min = Long.MAX_VALUE;
+        for (ScheduledTask task : fActiveTasks) {
+            min = Math.min(min, task.fVirtualTime);
+        }
+        for (ScheduledTask task : fReadyTasks) {
+            min = Math.min(min, task.fVirtualTime);
+        }
+        if (min != Long.MAX_VALUE) {
+            fMinVirtualTime = Math.max(fMinVirtualTime, min);
+        }
     }
 
     // ------------------------------------------------------------------------
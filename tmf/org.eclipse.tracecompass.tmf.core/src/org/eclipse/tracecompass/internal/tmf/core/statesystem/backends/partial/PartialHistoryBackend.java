@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2016 Ericsson
+ * Copyright (c) 2013, 2026 Ericsson
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
  * accompanies this distribution, and is available at
@@ -16,31 +16,46 @@ package org.eclipse.tracecompass.internal.tmf.core.statesystem.backends.partial;
 
 import static org.eclipse.tracecompass.common.core.NonNullUtils.checkNotNullContents;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableSet;
+import java.util.Queue;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.internal.provisional.datastore.core.condition.IntegerRangeCondition;
 import org.eclipse.tracecompass.internal.provisional.datastore.core.condition.TimeRangeCondition;
+import org.eclipse.tracecompass.internal.tmf.core.Activator;
 import org.eclipse.tracecompass.statesystem.core.ITmfStateSystem;
+import org.eclipse.tracecompass.statesystem.core.ITmfStateSystemBuilder;
 import org.eclipse.tracecompass.statesystem.core.backend.IPartialStateHistoryBackend;
 import org.eclipse.tracecompass.statesystem.core.backend.IStateHistoryBackend;
 import org.eclipse.tracecompass.statesystem.core.exceptions.StateSystemDisposedException;
 import org.eclipse.tracecompass.statesystem.core.exceptions.TimeRangeException;
 import org.eclipse.tracecompass.statesystem.core.interval.ITmfStateInterval;
+import org.eclipse.tracecompass.statesystem.core.interval.TmfStateInterval;
 import org.eclipse.tracecompass.tmf.core.event.ITmfEvent;
 import org.eclipse.tracecompass.tmf.core.request.ITmfEventRequest;
 import org.eclipse.tracecompass.tmf.core.request.TmfEventRequest;
@@ -48,6 +63,7 @@ import org.eclipse.tracecompass.tmf.core.statesystem.AbstractTmfStateProvider;
 import org.eclipse.tracecompass.tmf.core.statesystem.ITmfStateProvider;
 import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimeRange;
 import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimestamp;
+import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
 
 /**
@@ -64,10 +80,23 @@ import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
  * earlier checkpoint, and will re-feed the state-change-input with events from
  * the trace, to restore the real state at the time that was requested.
  *
+ * A 2D query replays each segment between two checkpoints that contains
+ * queried times once, and the segments are replayed concurrently by a few
+ * worker threads, each with its own copy of the state provider and reading
+ * the trace with its own context. The checkpoints can be saved next to the
+ * history file, so that re-opening the history does not need to read the
+ * whole trace again.
+ *
  * @author Alexandre Montplaisir
  */
 public class PartialHistoryBackend implements IStateHistoryBackend {
 
+    /** Suffix of the file where the checkpoints are saved */
+    public static final String CHECKPOINTS_FILE_SUFFIX = ".checkpoints"; //$NON-NLS-1$
+
+    private static final int CHECKPOINTS_MAGIC = 0x43484B50;
+    private static final int MAX_REPLAY_THREADS = 4;
+
     private final @NonNull String fSSID;
 
     /**
@@ -95,10 +124,19 @@ public class PartialHistoryBackend implements IStateHistoryBackend {
 
     private long fLatestTime;
 
-    private final NavigableSet<@NonNull ITmfStateInterval> fCurrentIntervals;
-
     private final IPartialStateHistoryBackend fBackend;
 
+    /** File where the checkpoints are saved, if any */
+    private final @Nullable File fCheckpointsFile;
+
+    /** Providers and state systems that are not replaying a segment */
+    private final Queue<ReplayContext> fIdleContexts = new ConcurrentLinkedQueue<>();
+
+    /** All the providers and state systems created for the 2D queries */
+    private final List<ReplayContext> fContexts = new ArrayList<>();
+
+    private @Nullable ExecutorService fReplayExecutor = null;
+
     /**
      * Constructor
      *
@@ -126,6 +164,42 @@ public class PartialHistoryBackend implements IStateHistoryBackend {
             IStateHistoryBackend realBackend,
             long granularity,
             @NonNull IPartialStateHistoryBackend backend) {
+        this(ssid, partialInput, pss, realBackend, granularity, backend, null);
+    }
+
+    /**
+     * Constructor with a file for the checkpoints. If the file contains the
+     * checkpoints of the same granularity, they are read from it instead of
+     * the trace. Otherwise, they are saved to it once the history is built.
+     *
+     * @param ssid
+     *            The state system's ID
+     * @param partialInput
+     *            The state change input object that was used to build the
+     *            upstream state system. This partial history will make its own
+     *            copy (since they have different targets).
+     * @param pss
+     *            The partial history's inner state system. It should already be
+     *            assigned to partialInput.
+     * @param realBackend
+     *            The real state history back-end to use. It's supposed to be
+     *            modular, so it should be able to be of any type.
+     * @param granularity
+     *            Configuration parameter indicating how many trace events there
+     *            should be between each checkpoint
+     * @param backend
+     *            The backend used for storage
+     * @param checkpointsFile
+     *            The file where the checkpoints are saved, or null to not save
+     *            them
+     */
+    public PartialHistoryBackend(@NonNull String ssid,
+            ITmfStateProvider partialInput,
+            PartialStateSystem pss,
+            IStateHistoryBackend realBackend,
+            long granularity,
+            @NonNull IPartialStateHistoryBackend backend,
+            @Nullable File checkpointsFile) {
         if (granularity <= 0 || partialInput == null || pss == null ||
                 partialInput.getAssignedStateSystem() != pss) {
             throw new IllegalArgumentException();
@@ -140,18 +214,14 @@ public class PartialHistoryBackend implements IStateHistoryBackend {
         fInnerHistory = realBackend;
         fGranularity = granularity;
         fBackend = backend;
+        fCheckpointsFile = checkpointsFile;
 
-        /**
-         * We need to compare the end time and the attribute, because we can
-         * have 2 intervals with the same end time (for different attributes).
-         * And TreeSet needs a unique "key" per element.
-         */
-        this.fCurrentIntervals = new TreeSet<>(Comparator
-                .comparing(ITmfStateInterval::getEndTime)
-                .thenComparing(ITmfStateInterval::getAttribute));
-        fLatestTime = startTime;
+        /* The real history may be an existing one */
+        fLatestTime = Math.max(startTime, realBackend.getEndTime());
 
-        registerCheckpoints();
+        if (!loadCheckpoints()) {
+            registerCheckpoints();
+        }
     }
 
     private void registerCheckpoints() {
@@ -160,6 +230,64 @@ public class PartialHistoryBackend implements IStateHistoryBackend {
         /* The request will countDown the checkpoints latch once it's finished */
     }
 
+    /**
+     * Read the checkpoints from the checkpoints file
+     *
+     * @return true if the checkpoints were read
+     */
+    private boolean loadCheckpoints() {
+        File file = fCheckpointsFile;
+        if (file == null || !file.exists()) {
+            return false;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (input.readInt() != CHECKPOINTS_MAGIC || input.readLong() != fGranularity) {
+                return false;
+            }
+            int count = input.readInt();
+            TreeMap<Long, Long> checkpoints = new TreeMap<>();
+            for (int i = 0; i < count; i++) {
+                long time = input.readLong();
+                checkpoints.put(time, input.readLong());
+            }
+            if (checkpoints.isEmpty()) {
+                return false;
+            }
+            fCheckpoints.putAll(checkpoints);
+        } catch (IOException e) {
+            /* The checkpoints will be read from the trace */
+            return false;
+        }
+        fCheckpointsReady.countDown();
+        return true;
+    }
+
+    /**
+     * Write the checkpoints to the checkpoints file
+     */
+    private void saveCheckpoints() {
+        File file = fCheckpointsFile;
+        if (file == null) {
+            return;
+        }
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            output.writeInt(CHECKPOINTS_MAGIC);
+            output.writeLong(fGranularity);
+            output.writeInt(fCheckpoints.size());
+            for (Map.Entry<Long, Long> checkpoint : fCheckpoints.entrySet()) {
+                output.writeLong(checkpoint.getKey());
+                output.writeLong(checkpoint.getValue());
+            }
+        } catch (IOException e) {
+            Activator.logWarning("Could not save the checkpoints of " + fSSID, e); //$NON-NLS-1$
+            try {
+                Files.deleteIfExists(file.toPath());
+            } catch (IOException e1) {
+                // Do nothing
+            }
+        }
+    }
+
     @Override
     public String getSSID() {
         return fSSID;
@@ -201,6 +329,8 @@ public class PartialHistoryBackend implements IStateHistoryBackend {
     @Override
     public void finishedBuilding(long endTime) throws TimeRangeException {
         fInnerHistory.finishedBuilding(endTime);
+        waitForCheckpoints();
+        saveCheckpoints();
     }
 
     @Override
@@ -221,10 +351,29 @@ public class PartialHistoryBackend implements IStateHistoryBackend {
     @Override
     public void removeFiles() {
         fInnerHistory.removeFiles();
+        File file = fCheckpointsFile;
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file.toPath());
+            } catch (IOException e) {
+                Activator.logWarning("Could not delete the checkpoints of " + fSSID, e); //$NON-NLS-1$
+            }
+        }
     }
 
     @Override
     public void dispose() {
+        synchronized (fContexts) {
+            ExecutorService executor = fReplayExecutor;
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+            for (ReplayContext context : fContexts) {
+                context.dispose();
+            }
+            fContexts.clear();
+            fIdleContexts.clear();
+        }
         fPartialInput.dispose();
         fPartialSS.dispose();
         fInnerHistory.dispose();
@@ -257,6 +406,10 @@ public class PartialHistoryBackend implements IStateHistoryBackend {
                 checkNotNullContents(currentStateInfo.stream()).collect(Collectors.toList());
 
         fPartialSS.takeQueryLock();
+        if (fBackend instanceof PartialInMemoryBackend) {
+            /* Only the intervals of this replay are needed */
+            ((PartialInMemoryBackend) fBackend).clear();
+        }
         fPartialSS.replaceOngoingState(filledStateInfo);
 
         /*
@@ -289,14 +442,7 @@ public class PartialHistoryBackend implements IStateHistoryBackend {
                  */
                 TmfTimestamp.fromNanos(checkpointTime1 + 1),
                 TmfTimestamp.fromNanos(checkpointTime2));
-        ITmfEventRequest request = new PartialStateSystemRequest(fPartialInput, range);
-        fPartialInput.getTrace().sendRequest(request);
-
-        try {
-            request.waitForCompletion();
-        } catch (InterruptedException e) {
-            // Do nothing
-        }
+        replay(fPartialInput, range);
 
         /*
          * Now, we have the intervals with their real end times written to the
@@ -324,7 +470,7 @@ public class PartialHistoryBackend implements IStateHistoryBackend {
             try {
                 fInnerHistory.doQuery(intervalsList, checkpointTime2);
             } catch (StateSystemDisposedException e) {
-                e.printStackTrace();
+                Activator.logError("The state system was disposed during a query of " + fSSID, e); //$NON-NLS-1$
             }
 
             filledStateInfo = checkNotNullContents(intervalsList.stream()).collect(Collectors.toList());
@@ -384,138 +530,208 @@ public class PartialHistoryBackend implements IStateHistoryBackend {
     @Override
     public Iterable<@NonNull ITmfStateInterval> query2D(IntegerRangeCondition quarks, TimeRangeCondition times)
             throws TimeRangeException {
-        /* Clearing the old intervals*/
-        fCurrentIntervals.clear();
-
         waitForCheckpoints();
         fPartialSS.getUpstreamSS().waitUntilBuilt();
 
-        /* Updating the backend with the quarks and time ranges */
-        synchronized (fBackend) {
-            fBackend.updateRangeCondition(quarks);
-            fBackend.updateTimeCondition(times);
-            /*
-             * Tell the backend that the request is a 2D in order to filter the
-             * intervals to write
-             */
-            fBackend.updateQueryType(true);
-
-        }
-
         /*
-         * Getting the lower and upper checkpoint timestamps that bound the time
-         * range condition
+         * Only the segments between two checkpoints that contain queried times
+         * are replayed, each one once.
          */
         long min = times.min();
         long max = times.max();
-        long lowerCheckpoint = fCheckpoints.floorKey(min);
-        long upperCheckpoint = max;
-        if (fCheckpoints.ceilingKey(max) != null) {
-            upperCheckpoint = fCheckpoints.ceilingKey(max);
+        Long lowerCheckpoint = fCheckpoints.floorKey(min);
+        if (lowerCheckpoint == null) {
+            throw new TimeRangeException("Invalid timestamp caused a TimeRangeException: " + fSSID + " Time:" + min + ", Start:" + getStartTime() + ", End:" + getEndTime()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+        }
+        List<Segment> segments = new ArrayList<>();
+        for (Long checkpoint : fCheckpoints.subMap(lowerCheckpoint, true, max, true).keySet()) {
+            Long nextCheckpoint = fCheckpoints.higherKey(checkpoint);
+            long end = nextCheckpoint != null ? nextCheckpoint : Math.max(max, checkpoint);
+            TimeRangeCondition segmentTimes = times.subCondition(checkpoint, end);
+            if (segmentTimes != null) {
+                segments.add(new Segment(checkpoint, nextCheckpoint, segmentTimes));
+            }
         }
 
-        /* Querying the partial history at the lowerCheckpoint */
-        List<@Nullable ITmfStateInterval> currentStateInfo = prepareIntervalList(((ITmfStateSystem)fPartialSS).getNbAttributes());
+        NavigableSet<@NonNull ITmfStateInterval> intervals = new TreeSet<>(Comparator
+                .comparing(ITmfStateInterval::getEndTime)
+                .thenComparing(ITmfStateInterval::getAttribute));
         try {
-            fInnerHistory.doQuery(currentStateInfo, lowerCheckpoint);
+            /*
+             * Even a single segment is replayed by a worker, so that there are
+             * no more copies of the provider than workers
+             */
+            ExecutorService executor = getReplayExecutor();
+            List<Future<List<@NonNull ITmfStateInterval>>> results = new ArrayList<>();
+            for (Segment segment : segments) {
+                results.add(executor.submit(() -> querySegment(segment, quarks)));
+            }
+            for (Future<List<@NonNull ITmfStateInterval>> result : results) {
+                intervals.addAll(result.get());
+            }
         } catch (StateSystemDisposedException e) {
-            e.printStackTrace();
+            Activator.logError("The state system was disposed during a 2D query of " + fSSID, e); //$NON-NLS-1$
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof TimeRangeException) {
+                throw (TimeRangeException) cause;
+            }
+            Activator.logError("Error in a 2D query of " + fSSID, cause); //$NON-NLS-1$
         }
+        return intervals;
+    }
 
-        List<@NonNull ITmfStateInterval> filledStateInfo =
-                checkNotNullContents(currentStateInfo.stream()).collect(Collectors.toList());
+    /**
+     * Get the intervals of a segment between two checkpoints that satisfy the
+     * conditions of a 2D query
+     */
+    private List<@NonNull ITmfStateInterval> querySegment(Segment segment, IntegerRangeCondition quarks)
+            throws StateSystemDisposedException {
+        List<@NonNull ITmfStateInterval> intervals = new ArrayList<>();
+        TimeRangeCondition times = segment.fTimes;
+        int nbAttributes = ((ITmfStateSystem) fPartialSS).getNbAttributes();
+
+        /* The intervals crossing the checkpoint are in the real history */
+        List<@Nullable ITmfStateInterval> stateInfo = prepareIntervalList(nbAttributes);
+        fInnerHistory.doQuery(stateInfo, segment.fCheckpoint);
+        List<@NonNull ITmfStateInterval> checkpointState = checkNotNullContents(stateInfo.stream()).collect(Collectors.toList());
+        addMatching(checkpointState, quarks, times, intervals);
+        if (times.max() == segment.fCheckpoint) {
+            /* Only the checkpoint is queried */
+            return intervals;
+        }
 
-        /*
-         * Adding the intervals that satisfy the query condition to its output
-         */
-        for (ITmfStateInterval interval : filledStateInfo) {
-            if (quarks.test(interval.getAttribute()) && times.intersects(interval.getStartTime(), interval.getEndTime())) {
-                fCurrentIntervals.add(interval);
-            }
+        ReplayContext context = fIdleContexts.poll();
+        if (context == null) {
+            context = createReplayContext();
         }
         try {
-
-            fPartialSS.takeQueryLock();
-            fPartialSS.replaceOngoingState(filledStateInfo);
+            PartialInMemoryBackend backend = context.fBackend;
+            PartialStateSystem pss = context.fStateSystem;
+            backend.clear();
+            backend.updateRangeCondition(quarks);
+            backend.updateTimeCondition(times);
+            backend.updateQueryType(true);
+            pss.replaceOngoingState(checkpointState);
 
             /*
-             * Reading the trace updating the state until the upperCheckpoint to
-             * get the missing intervals
+             * The state at the checkpoint already includes any state change
+             * caused by the event(s) happening exactly at the checkpoint.
              */
-            TmfTimeRange range = new TmfTimeRange(TmfTimestamp.fromNanos(lowerCheckpoint), TmfTimestamp.fromNanos(upperCheckpoint));
-
-            ITmfEventRequest request = new PartialStateSystemRequest(fPartialInput, range);
-            fPartialInput.getTrace().sendRequest(request);
-
-            try {
-                request.waitForCompletion();
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+            Long nextCheckpoint = segment.fNextCheckpoint;
+            long end = nextCheckpoint != null ? nextCheckpoint : getEndTime();
+            TmfTimeRange range = new TmfTimeRange(TmfTimestamp.fromNanos(segment.fCheckpoint + 1), TmfTimestamp.fromNanos(end));
+            if (!replay(context.fProvider, range)) {
+                return intervals;
             }
 
-            /* Converting the quarks condition into a collection of quarks */
-            List<Integer> quarksColletion = new ArrayList<>();
-            for (int value = quarks.min(); value <= quarks.max(); value++) {
-                if (quarks.test(value)) {
-                    quarksColletion.add(value);
-                }
+            /* The intervals that start and end in the segment */
+            for (ITmfStateInterval interval : backend.query2D(quarks, times)) {
+                intervals.add(interval);
             }
 
-            /*
-             * Querying the intervals read from the trace and adding them to the
-             * output
-             */
-            Logger logger = Logger.getAnonymousLogger();
-            try {
-                synchronized (fPartialSS) {
-                    for (ITmfStateInterval interval : ((ITmfStateSystem) fPartialSS).query2D(quarksColletion, min, max)) {
-                        fCurrentIntervals.add(interval);
+            if (nextCheckpoint != null) {
+                /* The intervals crossing the next checkpoint */
+                stateInfo = prepareIntervalList(nbAttributes);
+                fInnerHistory.doQuery(stateInfo, nextCheckpoint);
+                addMatching(checkNotNullContents(stateInfo.stream()).collect(Collectors.toList()), quarks, times, intervals);
+            } else {
+                /*
+                 * The intervals still ongoing at the end of the trace, they
+                 * were closed at the end of the history
+                 */
+                for (int quark = Math.max(0, quarks.min()); quark <= quarks.max() && quark < nbAttributes; quark++) {
+                    long start = pss.getOngoingStartTime(quark);
+                    if (quarks.test(quark) && times.intersects(start, end)) {
+                        intervals.add(new TmfStateInterval(start, end, quark, pss.queryOngoing(quark)));
                     }
                 }
-            } catch (IndexOutOfBoundsException e) {
-                logger.log(Level.SEVERE,"An IndexOutOfBoundsException exception occurred", e);
-            } catch (StateSystemDisposedException e) {
-                logger.log(Level.SEVERE,"A StateSystemDisposedException exception occurred", e);
             }
         } finally {
-            fPartialSS.releaseQueryLock();
+            context.fBackend.clear();
+            fIdleContexts.offer(context);
         }
+        return intervals;
+    }
 
-        /*
-         * Querying the partial history at the UpperCheckpoint in order to add
-         * the intervals that end a this moment. we need to check first that the
-         * upper checkpoint exists
-         */
-        if (fCheckpoints.ceilingKey(max) != null) {
-            currentStateInfo.clear();
-            filledStateInfo.clear();
-            try {
-                fInnerHistory.doQuery(currentStateInfo, upperCheckpoint);
-            } catch (StateSystemDisposedException e) {
-                e.printStackTrace();
+    private static void addMatching(List<@NonNull ITmfStateInterval> state, IntegerRangeCondition quarks, TimeRangeCondition times,
+            List<@NonNull ITmfStateInterval> intervals) {
+        for (ITmfStateInterval interval : state) {
+            if (quarks.test(interval.getAttribute()) && times.intersects(interval.getStartTime(), interval.getEndTime())) {
+                intervals.add(interval);
             }
+        }
+    }
 
-            filledStateInfo = checkNotNullContents(currentStateInfo.stream()).collect(Collectors.toList());
-
-            /*
-             * Adding the intervals that satisfy the query condition to its
-             * output
-             */
-            for (ITmfStateInterval interval : filledStateInfo) {
-                if (quarks.test(interval.getAttribute()) && times.intersects(interval.getStartTime(), interval.getEndTime())) {
-                    fCurrentIntervals.add(interval);
+    /**
+     * Replay the events of a time range in a state provider. The trace is read
+     * with a context of the calling thread rather than with an event request,
+     * since the event requests of a trace are serviced one at a time.
+     *
+     * @return false if the replay was interrupted
+     */
+    private static boolean replay(ITmfStateProvider provider, TmfTimeRange range) {
+        ITmfTrace trace = provider.getTrace();
+        ITmfContext context = trace.seekEvent(range.getStartTime());
+        try {
+            ITmfEvent event = trace.getNext(context);
+            while (event != null && event.getTimestamp().compareTo(range.getEndTime()) <= 0) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return false;
                 }
+                if (event.getTrace() == trace) {
+                    provider.processEvent(event);
+                }
+                event = trace.getNext(context);
             }
-        }
-        try {
-            return fCurrentIntervals;
-
         } finally {
+            context.dispose();
+        }
+        /*
+         * If we're using a threaded state provider, we need to make sure all
+         * events have been handled by the state system before doing queries on
+         * it.
+         */
+        if (provider instanceof AbstractTmfStateProvider) {
+            ((AbstractTmfStateProvider) provider).waitForEmptyQueue();
+        }
+        return true;
+    }
 
-            synchronized (fBackend) {
-                fBackend.updateQueryType(false);
+    private ExecutorService getReplayExecutor() {
+        synchronized (fContexts) {
+            ExecutorService executor = fReplayExecutor;
+            if (executor == null) {
+                AtomicInteger threadCount = new AtomicInteger();
+                int nbThreads = Math.max(1, Math.min(MAX_REPLAY_THREADS, Runtime.getRuntime().availableProcessors() - 1));
+                executor = Executors.newFixedThreadPool(nbThreads, runnable -> {
+                    Thread thread = new Thread(runnable, fSSID + " Replay Worker " + threadCount.incrementAndGet()); //$NON-NLS-1$
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                fReplayExecutor = executor;
             }
+            return executor;
+        }
+    }
+
+    /**
+     * Create a copy of the partial state provider, with its own state system,
+     * to replay a segment
+     */
+    private ReplayContext createReplayContext() {
+        ITmfStateProvider provider = fPartialInput.getNewInstance();
+        PartialInMemoryBackend backend = new PartialInMemoryBackend(fSSID + ".replay", 0L); //$NON-NLS-1$
+        PartialStateSystem pss = new PartialStateSystem(backend);
+        provider.assignTargetStateSystem(pss);
+        pss.assignUpstream((ITmfStateSystemBuilder) fPartialSS.getUpstreamSS());
+        ReplayContext context = new ReplayContext(provider, backend, pss);
+        synchronized (fContexts) {
+            fContexts.add(context);
         }
+        return context;
     }
 
     private boolean checkValidTime(long t) {
@@ -530,6 +746,46 @@ public class PartialHistoryBackend implements IStateHistoryBackend {
         }
     }
 
+    // ------------------------------------------------------------------------
+    // Batched query types
+    // ------------------------------------------------------------------------
+
+    /**
+     * A segment between two checkpoints, and the queried times in it
+     */
+    private static final class Segment {
+        private final long fCheckpoint;
+        private final @Nullable Long fNextCheckpoint;
+        private final TimeRangeCondition fTimes;
+
+        public Segment(long checkpoint, @Nullable Long nextCheckpoint, TimeRangeCondition times) {
+            fCheckpoint = checkpoint;
+            fNextCheckpoint = nextCheckpoint;
+            fTimes = times;
+        }
+    }
+
+    /**
+     * A copy of the partial state provider and its state system, that replays
+     * one segment at a time
+     */
+    private static final class ReplayContext {
+        private final ITmfStateProvider fProvider;
+        private final PartialInMemoryBackend fBackend;
+        private final PartialStateSystem fStateSystem;
+
+        public ReplayContext(ITmfStateProvider provider, PartialInMemoryBackend backend, PartialStateSystem stateSystem) {
+            fProvider = provider;
+            fBackend = backend;
+            fStateSystem = stateSystem;
+        }
+
+        public void dispose() {
+            fProvider.dispose();
+            fStateSystem.dispose();
+        }
+    }
+
     // ------------------------------------------------------------------------
     // Event requests types
     // ------------------------------------------------------------------------
@@ -576,41 +832,4 @@ public class PartialHistoryBackend implements IStateHistoryBackend {
             fCheckpointsReady.countDown();
         }
     }
-
-    private class PartialStateSystemRequest extends TmfEventRequest {
-        private final ITmfStateProvider sci;
-        private final ITmfTrace trace;
-
-        PartialStateSystemRequest(ITmfStateProvider sci, TmfTimeRange range) {
-            super(ITmfEvent.class,
-                    range,
-                    0,
-                    ITmfEventRequest.ALL_DATA,
-                    ITmfEventRequest.ExecutionType.BACKGROUND);
-            this.sci = sci;
-            this.trace = sci.getTrace();
-        }
-
-        @Override
-        public void handleData(final ITmfEvent event) {
-            super.handleData(event);
-            if (event.getTrace() == trace) {
-                sci.processEvent(event);
-            }
-        }
-
-        @Override
-        public void handleCompleted() {
-            /*
-             * If we're using a threaded state provider, we need to make sure
-             * all events have been handled by the state system before doing
-             * queries on it.
-             */
-            if (fPartialInput instanceof AbstractTmfStateProvider) {
-                ((AbstractTmfStateProvider) fPartialInput).waitForEmptyQueue();
-            }
-            super.handleCompleted();
-        }
-
-    }
 }
@@ -22,6 +22,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tracecompass.common.core.log.TraceCompassLog;
 import org.eclipse.tracecompass.common.core.log.TraceCompassLogUtils;
 import org.eclipse.tracecompass.internal.provisional.datastore.core.condition.IntegerRangeCondition;
@@ -50,9 +51,9 @@ public class PartialInMemoryBackend implements IPartialStateHistoryBackend {
     private final @NonNull String fSSID;
     private final NavigableSet<@NonNull ITmfStateInterval> fCurrentIntervals;
     private final long fStartTime;
-    public static IntegerRangeCondition fRangeCondition;
-    public static TimeRangeCondition fTimeCondition;
-    public static boolean fIs2DQuery;
+    private volatile @Nullable IntegerRangeCondition fRangeCondition;
+    private volatile @Nullable TimeRangeCondition fTimeCondition;
+    private volatile boolean fIs2DQuery;
     private volatile long fLatestTime;
 
 
@@ -112,9 +113,11 @@ public class PartialInMemoryBackend implements IPartialStateHistoryBackend {
          * conditions in case of a query 2D, or add all the intervals if the
          * query is from a different type like queryFullState()
          */
+        IntegerRangeCondition rangeCondition = fRangeCondition;
+        TimeRangeCondition timeCondition = fTimeCondition;
         synchronized (fCurrentIntervals) {
-            if ((fRangeCondition != null && fTimeCondition != null && fRangeCondition.test(interval.getAttribute())
-                    && fTimeCondition.intersects(interval.getStartTime(), interval.getEndTime())) || !fIs2DQuery) {
+            if ((rangeCondition != null && timeCondition != null && rangeCondition.test(interval.getAttribute())
+                    && timeCondition.intersects(interval.getStartTime(), interval.getEndTime())) || !fIs2DQuery) {
                 fCurrentIntervals.add(interval);
             }
         }
@@ -234,6 +237,16 @@ public class PartialInMemoryBackend implements IPartialStateHistoryBackend {
         }
     }
 
+    /**
+     * Remove all the intervals, so that this backend can be reused for the
+     * next query
+     */
+    public void clear() {
+        synchronized (fCurrentIntervals) {
+            fCurrentIntervals.clear();
+        }
+    }
+
     @Override
     public void updateRangeCondition(IntegerRangeCondition range) {
         fRangeCondition = range;
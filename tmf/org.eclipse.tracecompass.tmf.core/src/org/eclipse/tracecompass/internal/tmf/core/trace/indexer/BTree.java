@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2017 Ericsson
+ * Copyright (c) 2013, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -126,7 +126,7 @@ public class BTree extends AbstractFileCheckpointCollection {
 
         fNodeByteBuffer = ByteBuffer.allocate(getNodeSize());
         fNodeByteBuffer.clear();
-        fNodeCache = new BTreeNodeCache(this);
+        fNodeCache = new BTreeNodeCache(this, getNodeSize());
         BTreeNode rootNode = isCreatedFromScratch() ? allocateNode() : fNodeCache.getNode(fBTreeHeader.fRoot);
         setRootNode(rootNode);
     }
@@ -264,7 +264,7 @@ public class BTree extends AbstractFileCheckpointCollection {
 
     private BTreeNode allocateNode() {
         try {
-            long offset = getRandomAccessFile().length();
+            long offset = getNodeOffset(getRandomAccessFile().length());
             getRandomAccessFile().setLength(offset + getNodeSize());
             BTreeNode node = new BTreeNode(this, offset);
             return node;
@@ -274,6 +274,73 @@ public class BTree extends AbstractFileCheckpointCollection {
         return null;
     }
 
+    /**
+     * Get the offset of a new node. Nodes are appended at the end of the file
+     * by default, extending classes can align them.
+     *
+     * @param fileLength
+     *            the current length of the file
+     * @return the offset of the new node, at least the file length
+     */
+    protected long getNodeOffset(long fileLength) {
+        return fileLength;
+    }
+
+    /**
+     * Read the data of a node from the file
+     *
+     * @param offset
+     *            the offset of the node
+     * @param buffer
+     *            the buffer to fill, of the size of a node
+     * @throws IOException
+     *             if an I/O error occurs reading from the file
+     */
+    protected void readNode(long offset, ByteBuffer buffer) throws IOException {
+        RandomAccessFile randomAccessFile = getRandomAccessFile();
+        randomAccessFile.seek(offset);
+        randomAccessFile.read(buffer.array());
+    }
+
+    /**
+     * Write the data of a node to the file
+     *
+     * @param offset
+     *            the offset of the node
+     * @param buffer
+     *            the buffer to write, of the size of a node
+     * @throws IOException
+     *             if an I/O error occurs writing to the file
+     */
+    protected void writeNode(long offset, ByteBuffer buffer) throws IOException {
+        RandomAccessFile randomAccessFile = getRandomAccessFile();
+        randomAccessFile.seek(offset);
+        randomAccessFile.write(buffer.array());
+    }
+
+    /**
+     * Called when a search goes down to a child of a node. Extending classes
+     * of this package can use it to prefetch the nodes the next searches will
+     * likely need.
+     *
+     * @param node
+     *            the parent node
+     * @param childIndex
+     *            the index of the visited child
+     */
+    void childVisited(BTreeNode node, int childIndex) {
+        // Do nothing by default
+    }
+
+    /**
+     * Get the node cache of this tree
+     *
+     * @return the node cache
+     */
+    BTreeNodeCache getNodeCache() {
+        return fNodeCache;
+    }
+
     @Override
     public long binarySearch(ITmfCheckpoint checkpoint) {
         BTreeCheckpointVisitor v = new BTreeCheckpointVisitor(checkpoint);
@@ -334,12 +401,14 @@ public class BTree extends AbstractFileCheckpointCollection {
             int compare = visitor.compare(record);
             if (compare > 0) {
                 // Start point is to the left.
+                childVisited(node, i);
                 accept(node.getChild(i), visitor);
                 return;
             } else if (compare == 0) {
                 return;
             }
         }
+        childVisited(node, i);
         accept(node.getChild(i), visitor);
         return;
     }
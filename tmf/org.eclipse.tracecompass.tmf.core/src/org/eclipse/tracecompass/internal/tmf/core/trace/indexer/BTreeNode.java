@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2014 Ericsson
+ * Copyright (c) 2013, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -96,12 +96,10 @@ class BTreeNode {
      */
     void serializeIn() {
         try {
-            fTree.getRandomAccessFile().seek(fFileOffset);
-
             ByteBuffer bb;
             bb = fTree.getNodeByteBuffer();
             bb.clear();
-            fTree.getRandomAccessFile().read(bb.array());
+            fTree.readNode(fFileOffset, bb);
 
             for (int i = 0; i < fTree.getMaxNumChildren(); ++i) {
                 long offset = bb.getLong();
@@ -131,8 +129,6 @@ class BTreeNode {
      */
     void serializeOut() {
         try {
-            fTree.getRandomAccessFile().seek(fFileOffset);
-
             ByteBuffer bb = fTree.getNodeByteBuffer();
             bb.clear();
 
@@ -146,7 +142,7 @@ class BTreeNode {
                 key.serialize(bb);
             }
 
-            fTree.getRandomAccessFile().write(bb.array());
+            fTree.writeNode(fFileOffset, bb);
 
             fIsDirty = false;
         } catch (IOException e) {
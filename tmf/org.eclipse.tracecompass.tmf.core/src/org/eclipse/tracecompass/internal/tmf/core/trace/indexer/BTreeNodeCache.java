@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2014 Ericsson
+ * Copyright (c) 2013, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -14,37 +14,48 @@
 
 package org.eclipse.tracecompass.internal.tmf.core.trace.indexer;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * A simple LRU node cache. The BTree request a node from the cache and the
  * cache load it from disk if it's not already in memory.
  *
- * This cache could be improved considerably by allowing bigger caches.
+ * The number of nodes kept in memory is computed from a size in bytes, which
+ * can be set with the {@link #CACHE_SIZE_PROPERTY} system property.
  *
  * @author Marc-Andre Laperle
  */
 public class BTreeNodeCache {
 
     /**
-     * Cache size obtained by experimentation. An improved cache could set this
-     * dynamically or using a user preference.
+     * System property to set the size of the cache of each BTree, in bytes
      */
-    private static final int CACHE_SIZE = 15;
+    public static final String CACHE_SIZE_PROPERTY = "org.eclipse.tracecompass.tmf.core.btreeCacheSize"; //$NON-NLS-1$
+
+    /**
+     * Minimum number of cached nodes, obtained by experimentation
+     */
+    private static final int MIN_CACHE_SIZE = 15;
+
+    /**
+     * Default size of the cache, in bytes
+     */
+    private static final long DEFAULT_CACHE_BYTES = 1024 * 1024;
 
     private final BTree fTree;
+    private final int fCacheSize;
     /**
      * The root node is always kept in memory when {@link
      * BTree#ALWAYS_CACHE_ROOT} is set to true
      */
     private BTreeNode fRootNode = null;
     /**
-     * The collection keeping the nodes in memory. The most recently used is
-     * kept at the front of the double-ended queue and the least recently used
-     * node is kept at the back.
+     * The nodes kept in memory, by file offset. The map is in access order, so
+     * the least recently used node is the first one.
      */
-    private final Deque<BTreeNode> fCachedNodes = new ArrayDeque<>(CACHE_SIZE);
+    private final Map<Long, BTreeNode> fCachedNodes = new LinkedHashMap<>(16, 0.75f, true);
 
     private int fCcheMisses = 0;
 
@@ -53,9 +64,13 @@ public class BTreeNodeCache {
      *
      * @param tree
      *            the BTree that will use the cache
+     * @param nodeSize
+     *            the size of a node, in bytes
      */
-    BTreeNodeCache(BTree tree) {
+    BTreeNodeCache(BTree tree, int nodeSize) {
         fTree = tree;
+        long cacheBytes = Long.getLong(CACHE_SIZE_PROPERTY, DEFAULT_CACHE_BYTES);
+        fCacheSize = (int) Math.max(MIN_CACHE_SIZE, Math.min(Integer.MAX_VALUE, cacheBytes / Math.max(1, nodeSize)));
     }
 
     /**
@@ -70,14 +85,10 @@ public class BTreeNodeCache {
             return fRootNode;
         }
 
-        for (BTreeNode nodeSearch : fCachedNodes) {
-            if (nodeSearch.getOffset() == offset) {
-                // This node is now the most recently used
-                fCachedNodes.remove(nodeSearch);
-                fCachedNodes.push(nodeSearch);
-
-                return nodeSearch;
-            }
+        // This node is now the most recently used
+        BTreeNode cachedNode = fCachedNodes.get(offset);
+        if (cachedNode != null) {
+            return cachedNode;
         }
 
         ++fCcheMisses;
@@ -89,6 +100,22 @@ public class BTreeNodeCache {
         return node;
     }
 
+    /**
+     * Load a node in the cache if it is not already in memory, without
+     * counting a cache miss.
+     *
+     * @param offset
+     *            the offset of the node
+     */
+    void prefetch(long offset) {
+        if ((fRootNode != null && fRootNode.getOffset() == offset) || fCachedNodes.containsKey(offset)) {
+            return;
+        }
+        BTreeNode node = new BTreeNode(fTree, offset);
+        node.serializeIn();
+        addNode(node);
+    }
+
     /**
      * Write all in-memory nodes to disk if they are dirty
      */
@@ -96,7 +123,7 @@ public class BTreeNodeCache {
         if (fRootNode != null && fRootNode.isDirty()) {
             fRootNode.serializeOut();
         }
-        for (BTreeNode nodeSearch : fCachedNodes) {
+        for (BTreeNode nodeSearch : fCachedNodes.values()) {
             if (nodeSearch.isDirty()) {
                 nodeSearch.serializeOut();
             }
@@ -104,22 +131,23 @@ public class BTreeNodeCache {
     }
 
     /**
-     * Add a node to the cache. If the cache has reached the size specified with
-     * {@link #CACHE_SIZE}, the least recently used node is removed from memory.
+     * Add a node to the cache. If the cache has reached its maximum number of
+     * nodes, the least recently used node is removed from memory.
      *
      * @param node
      *            the node to add to the cache
      */
     void addNode(BTreeNode node) {
-        if (fCachedNodes.size() >= CACHE_SIZE) {
-            BTreeNode removed = fCachedNodes.removeLast();
+        if (fCachedNodes.size() >= fCacheSize) {
+            Iterator<BTreeNode> iterator = fCachedNodes.values().iterator();
+            BTreeNode removed = iterator.next();
+            iterator.remove();
             if (removed.isDirty()) {
                 removed.serializeOut();
             }
         }
-        fCachedNodes.push(node);
+        fCachedNodes.put(node.getOffset(), node);
     }
-
     /**
      * Set the root node. See {@link #fRootNode}
      *
@@ -145,4 +173,13 @@ public class BTreeNodeCache {
     int getCacheMisses() {
         return fCcheMisses;
     }
+
+    /**
+     * Get the maximum number of nodes kept in memory, besides the root node
+     *
+     * @return the number of nodes
+     */
+    int getCacheSize() {
+        return fCacheSize;
+    }
 }
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.internal.tmf.core.trace.indexer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import org.eclipse.tracecompass.internal.util.ByteBufferTracker;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.ITmfPersistentlyIndexable;
+
+/**
+ * A {@link BTree} whose nodes are read through memory-mapped regions of the
+ * index file instead of seeking and reading the file for every node that is
+ * not in the cache. The nodes are aligned so that none of them straddles a
+ * page, and the siblings of the nodes visited by a search are prefetched in
+ * the cache.
+ *
+ * The file format is the same as the one of the {@link BTree}, only the
+ * padding between the nodes differs.
+ */
+public class MappedBTree extends BTree {
+
+    /** Size of a page of the file, nodes do not straddle pages */
+    private static final int PAGE_SIZE = 4096;
+
+    /** Size of each mapped region of the file, a multiple of the page size */
+    private static final long REGION_SIZE = 16L * 1024 * 1024;
+
+    /**
+     * The mapped regions of the file, created when a node is first read from
+     * them. This field has no initializer since the nodes can be read from the
+     * constructor of the super class.
+     */
+    private MappedByteBuffer[] fRegions;
+
+    /**
+     * Constructs a mapped BTree for a given trace from scratch or from an
+     * existing file.
+     *
+     * @param degree
+     *            the degree to use in the tree
+     * @param file
+     *            the file to use as the persistent storage
+     * @param trace
+     *            the trace
+     */
+    public MappedBTree(int degree, File file, ITmfPersistentlyIndexable trace) {
+        super(degree, file, trace);
+    }
+
+    @Override
+    protected long getNodeOffset(long fileLength) {
+        int nodeSize = getNodeSize();
+        long pageOffset = fileLength % PAGE_SIZE;
+        if (pageOffset == 0 || (nodeSize <= PAGE_SIZE && pageOffset + nodeSize <= PAGE_SIZE)) {
+            return fileLength;
+        }
+        /* Start the node on the next page */
+        return fileLength - pageOffset + PAGE_SIZE;
+    }
+
+    @Override
+    protected void readNode(long offset, ByteBuffer buffer) throws IOException {
+        int length = buffer.capacity();
+        int regionIndex = (int) (offset / REGION_SIZE);
+        long regionStart = regionIndex * REGION_SIZE;
+        int regionOffset = (int) (offset - regionStart);
+        if (regionOffset + length > REGION_SIZE) {
+            /* The node straddles two regions */
+            super.readNode(offset, buffer);
+            return;
+        }
+        MappedByteBuffer region = getRegion(regionIndex, regionOffset + length);
+        if (region == null) {
+            super.readNode(offset, buffer);
+            return;
+        }
+        ByteBuffer view = region.duplicate();
+        view.position(regionOffset);
+        view.get(buffer.array(), 0, length);
+    }
+
+    /**
+     * Get a mapped region of the file, mapping it again if the file grew past
+     * its end since it was mapped.
+     *
+     * @param regionIndex
+     *            the index of the region
+     * @param minLength
+     *            the minimum length of the region
+     * @return the mapped region or null if the file is too short
+     * @throws IOException
+     *             if an I/O error occurs mapping the file
+     */
+    private MappedByteBuffer getRegion(int regionIndex, int minLength) throws IOException {
+        MappedByteBuffer[] regions = fRegions;
+        if (regions == null) {
+            regions = new MappedByteBuffer[regionIndex + 1];
+        } else if (regions.length <= regionIndex) {
+            regions = Arrays.copyOf(regions, regionIndex + 1);
+        }
+        fRegions = regions;
+
+        MappedByteBuffer region = regions[regionIndex];
+        if (region == null || region.capacity() < minLength) {
+            FileChannel channel = getRandomAccessFile().getChannel();
+            long regionStart = regionIndex * REGION_SIZE;
+            long size = Math.min(REGION_SIZE, channel.size() - regionStart);
+            if (size < minLength) {
+                return null;
+            }
+            region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, size);
+            regions[regionIndex] = region;
+            ByteBufferTracker.setMarked();
+        }
+        return region;
+    }
+
+    @Override
+    protected void writeNode(long offset, ByteBuffer buffer) throws IOException {
+        /*
+         * Positional writes do not move the file pointer and are visible in the
+         * mapped regions since they go through the same page cache
+         */
+        FileChannel channel = getRandomAccessFile().getChannel();
+        ByteBuffer data = ByteBuffer.wrap(buffer.array());
+        long position = offset;
+        while (data.hasRemaining()) {
+            position += channel.write(data, position);
+        }
+    }
+
+    @Override
+    void childVisited(BTreeNode node, int childIndex) {
+        /*
+         * The next searches are likely to be close to this one, for example
+         * when seeking backward or forward in the trace.
+         */
+        if (childIndex > 0) {
+            prefetch(node.getChild(childIndex - 1));
+        }
+        if (childIndex + 1 < getMaxNumChildren()) {
+            prefetch(node.getChild(childIndex + 1));
+        }
+    }
+
+    private void prefetch(long offset) {
+        if (offset != BTreeNode.NULL_CHILD) {
+            getNodeCache().prefetch(offset);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        /* The mappings are released once they are garbage collected */
+        fRegions = null;
+    }
+
+    @Override
+    public void delete() {
+        fRegions = null;
+        super.delete();
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2017 Ericsson
+ * Copyright (c) 2009, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -29,6 +29,7 @@ import java.util.TimerTask;
 
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.tracecompass.common.core.NonNullUtils;
+import org.eclipse.tracecompass.common.core.log.TraceCompassMonitorManager;
 import org.eclipse.tracecompass.internal.tmf.core.TmfCoreTracer;
 import org.eclipse.tracecompass.internal.tmf.core.component.TmfEventThread;
 import org.eclipse.tracecompass.internal.tmf.core.component.TmfProviderManager;
@@ -65,6 +66,12 @@ public abstract class TmfEventProvider extends TmfComponent implements ITmfEvent
     /** Delay for coalescing background requests (in milli-seconds) */
     private static final long DELAY = 1000;
 
+    /**
+     * Label of the coalescing hits, 1 when a request is coalesced with a
+     * pending one and 0 otherwise, so that their mean is the hit rate
+     */
+    private static final String COALESCING_HIT_LABEL = "TmfEventProvider:CoalescingHit"; //$NON-NLS-1$
+
     // ------------------------------------------------------------------------
     // Attributes
     // ------------------------------------------------------------------------
@@ -328,6 +335,7 @@ public abstract class TmfEventProvider extends TmfComponent implements ITmfEvent
             for (TmfCoalescedEventRequest coalescedRequest : getPendingRequests()) {
                 if (coalescedRequest.isCompatible(request)) {
                     coalescedRequest.addRequest(request);
+                    TraceCompassMonitorManager.getInstance().update(COALESCING_HIT_LABEL, 1);
                     if (TmfCoreTracer.isRequestTraced()) {
                         TmfCoreTracer.traceRequest(request.getRequestId(), "COALESCED with " + coalescedRequest.getRequestId()); //$NON-NLS-1$
                         TmfCoreTracer.traceRequest(coalescedRequest.getRequestId(), "now contains " + coalescedRequest.getSubRequestIds()); //$NON-NLS-1$
@@ -336,6 +344,7 @@ public abstract class TmfEventProvider extends TmfComponent implements ITmfEvent
                     return;
                 }
             }
+            TraceCompassMonitorManager.getInstance().update(COALESCING_HIT_LABEL, 0);
             newCoalescedEventRequest(request);
         }
     }
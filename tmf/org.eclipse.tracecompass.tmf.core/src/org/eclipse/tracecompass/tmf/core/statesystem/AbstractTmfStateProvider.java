@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2015 Ericsson
+ * Copyright (c) 2012, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -14,9 +14,16 @@
 
 package org.eclipse.tracecompass.tmf.core.statesystem;
 
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
 import java.util.PriorityQueue;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -49,6 +56,11 @@ import com.google.common.annotations.VisibleForTesting;
  * {@link #eventHandle(ITmfEvent)}, so that all the multi-thread logic is
  * abstracted away.
  *
+ * Providers whose events can be split in partitions that modify disjoint
+ * attributes, for example one partition per CPU, can also have their events
+ * handled by several threads. See {@link #isPartitioned()} and
+ * {@link #getPartitionKey(ITmfEvent)}.
+ *
  * @author Alexandre Montplaisir
  */
 public abstract class AbstractTmfStateProvider implements ITmfStateProvider {
@@ -76,6 +88,38 @@ public abstract class AbstractTmfStateProvider implements ITmfStateProvider {
     private static final int DEFAULT_EVENTS_QUEUE_SIZE = 127;
     private static final int DEFAULT_EVENTS_CHUNK_SIZE = 127;
 
+    /**
+     * System property to set the number of threads handling the events of
+     * partitioned state providers. It defaults to the number of processors.
+     * The events are handled by the event handler thread if it is 1 or less.
+     * The threads are shared by all the partitioned state providers, their
+     * number is read when the first one starts.
+     *
+     * @since 8.1
+     */
+    public static final String PARTITION_THREADS_PROPERTY = "org.eclipse.tracecompass.tmf.core.statesystem.partitionThreads"; //$NON-NLS-1$
+
+    /* Maximum number of events handled by the partition threads between barriers */
+    private static final int PARTITION_BATCH_SIZE = 4096;
+
+    /**
+     * The threads handling the events of all the partitioned providers, created
+     * when the first one starts
+     */
+    private static final class PartitionExecutor {
+        private static final ExecutorService EXECUTOR;
+
+        static {
+            int nbThreads = Math.max(1, Integer.getInteger(PARTITION_THREADS_PROPERTY, Runtime.getRuntime().availableProcessors()));
+            AtomicInteger threadCount = new AtomicInteger();
+            EXECUTOR = Executors.newFixedThreadPool(nbThreads, runnable -> {
+                Thread thread = new Thread(runnable, "State Provider Partition Worker " + threadCount.incrementAndGet()); //$NON-NLS-1$
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
     private final ITmfTrace fTrace;
     private final BufferedBlockingQueue<ITmfEvent> fEventsQueue;
     private final Thread fEventHandlerThread;
@@ -100,6 +144,9 @@ public abstract class AbstractTmfStateProvider implements ITmfStateProvider {
 
     private final Queue<FutureEvent> fFutureEvents = new PriorityQueue<>(Comparator.comparingLong(FutureEvent::getTime));
 
+    /* The threads handling the events of partitioned providers, if any */
+    private volatile @Nullable PartitionWorkers fPartitionWorkers = null;
+
     /**
      * Instantiate a new state provider.
      *
@@ -248,7 +295,7 @@ public abstract class AbstractTmfStateProvider implements ITmfStateProvider {
         try {
             fEventsQueue.put(EMPTY_QUEUE_EVENT);
             fEventsQueue.flushInputBuffer();
-            while (!fEventsQueue.isEmpty()) {
+            while (!fEventsQueue.isEmpty() || hasPendingPartitionEvents()) {
                 Thread.sleep(100);
             }
         } catch (InterruptedException e) {
@@ -256,6 +303,132 @@ public abstract class AbstractTmfStateProvider implements ITmfStateProvider {
         }
     }
 
+    private boolean hasPendingPartitionEvents() {
+        PartitionWorkers workers = fPartitionWorkers;
+        return workers != null && workers.hasPending();
+    }
+
+    // ------------------------------------------------------------------------
+    // Partitioned event handling
+    // ------------------------------------------------------------------------
+
+    /**
+     * Whether the events of this provider can be handled by several threads,
+     * according to their {@link #getPartitionKey(ITmfEvent) partition key}. It
+     * is called once, when the events start being handled.
+     *
+     * @return true if the events are partitioned, false to handle all the
+     *         events in the event handler thread
+     * @since 8.1
+     */
+    protected boolean isPartitioned() {
+        return false;
+    }
+
+    /**
+     * Get the partition of an event, for partitioned providers. This method is
+     * called by the event handler thread for every event, so it should be
+     * cheap.
+     *
+     * The events with the same key are handled in order by the same thread.
+     * The events of different partitions are handled concurrently, so they
+     * must modify disjoint attributes of the state system, and the provider
+     * must protect the fields that they share. The partitions can be out of
+     * step by a bounded number of events.
+     *
+     * An event with a null key can modify any attribute: it is handled alone,
+     * after all the previous events were handled, and before the next ones.
+     * Future events are also applied at such a barrier.
+     *
+     * Since the partitions are handled concurrently, the intervals that end
+     * between two barriers are inserted in the history in any order, but
+     * before the intervals that end after the second barrier. The history
+     * backends accept such intervals, since the intervals are placed by start
+     * time and the nodes end at the latest end time. The safe time of the
+     * provider only moves at the barriers.
+     *
+     * @param event
+     *            The event
+     * @return The key of the partition of this event, or null if the event
+     *         must be handled alone
+     * @since 8.1
+     */
+    protected @Nullable Object getPartitionKey(ITmfEvent event) {
+        return null;
+    }
+
+    private @Nullable PartitionWorkers createPartitionWorkers() {
+        if (!isPartitioned()) {
+            return null;
+        }
+        int nbThreads = Integer.getInteger(PARTITION_THREADS_PROPERTY, Runtime.getRuntime().availableProcessors());
+        return (nbThreads > 1) ? new PartitionWorkers(nbThreads) : null;
+    }
+
+    /**
+     * The batches of events of a partitioned provider. Events are accumulated
+     * in one batch per thread by the event handler thread, then the batches
+     * are handled concurrently by the shared partition threads while the event
+     * handler thread waits for them all, at a barrier.
+     */
+    private final class PartitionWorkers {
+
+        private final List<List<ITmfEvent>> fBatches = new ArrayList<>();
+        private int fBatchSize = 0;
+        private volatile boolean fPending = false;
+
+        public PartitionWorkers(int nbBatches) {
+            for (int i = 0; i < nbBatches; i++) {
+                fBatches.add(new ArrayList<>());
+            }
+        }
+
+        public boolean isEmpty() {
+            return fBatchSize == 0;
+        }
+
+        public boolean hasPending() {
+            return fPending;
+        }
+
+        public void add(Object key, ITmfEvent event) {
+            fBatches.get(Math.floorMod(key.hashCode(), fBatches.size())).add(event);
+            fPending = true;
+            if (++fBatchSize >= PARTITION_BATCH_SIZE) {
+                barrier();
+            }
+        }
+
+        /**
+         * Handle all the batched events and wait for them to be handled
+         */
+        public void barrier() {
+            if (fBatchSize == 0) {
+                return;
+            }
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (List<ITmfEvent> batch : fBatches) {
+                if (!batch.isEmpty()) {
+                    futures.add(CompletableFuture.runAsync(() -> batch.forEach(AbstractTmfStateProvider.this::eventHandle), PartitionExecutor.EXECUTOR));
+                }
+            }
+            try {
+                /* Wait for all the batches, even if one of them failed */
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw e;
+            } finally {
+                fBatches.forEach(List::clear);
+                fBatchSize = 0;
+                fPending = false;
+            }
+        }
+    }
+
     // ------------------------------------------------------------------------
     // Special event types
     // ------------------------------------------------------------------------
@@ -304,63 +477,92 @@ public abstract class AbstractTmfStateProvider implements ITmfStateProvider {
                     Activator.logError("Cannot run event manager without assigning a target state system first!"); //$NON-NLS-1$
                     return;
                 }
+                PartitionWorkers workers = createPartitionWorkers();
+                fPartitionWorkers = workers;
+                handleEvents(workers);
+            }
+        }
 
-                /*
-                 * We never insert null in the queue. Cannot be checked at
-                 * compile-time until Java 8 annotations...
-                 */
-                ITmfEvent event = fEventsQueue.take();
-
-                /* This is a singleton, we want to do != instead of !x.equals */
-                while (event != END_EVENT) {
-                    if (event == EMPTY_QUEUE_EVENT) {
-                        /* Synchronization event, should be ignored */
-                        event = fEventsQueue.take();
-                        continue;
-                    }
-                    currentEvent = event;
-                    long currentTime = event.getTimestamp().toNanos();
-                    fSafeTime = currentTime - 1;
-                    ITmfStateSystemBuilder stateSystemBuilder = getStateSystemBuilder();
-                    if (stateSystemBuilder == null) {
-                        return;
-                    }
-                    FutureEvent futureEvent = fFutureEvents.peek();
-                    while (futureEvent != null && (currentTime >= futureEvent.fTime)) {
-                        futureEvent = fFutureEvents.poll();
-                        if (futureEvent != null) {
-                            applyFutureEvent(futureEvent, stateSystemBuilder);
-                        }
-                        futureEvent = fFutureEvents.peek();
-                    }
-                    eventHandle(event);
+        private void handleEvents(@Nullable PartitionWorkers workers) {
+            /*
+             * We never insert null in the queue. Cannot be checked at
+             * compile-time until Java 8 annotations...
+             */
+            ITmfEvent event = fEventsQueue.take();
 
+            /* This is a singleton, we want to do != instead of !x.equals */
+            while (event != END_EVENT) {
+                if (event == EMPTY_QUEUE_EVENT) {
+                    /*
+                     * Synchronization event, should be ignored once the
+                     * previous events are handled
+                     */
+                    if (workers != null) {
+                        workers.barrier();
+                    }
                     event = fEventsQueue.take();
+                    continue;
+                }
+                currentEvent = event;
+                long currentTime = event.getTimestamp().toNanos();
+                Object partitionKey = (workers == null) ? null : getPartitionKey(event);
+                if (workers == null || workers.isEmpty()) {
+                    /* The safe time moves only once batched events are handled */
+                    fSafeTime = currentTime - 1;
                 }
-                fDone = true;
-                /*
-                 * flush remaining states
-                 */
                 ITmfStateSystemBuilder stateSystemBuilder = getStateSystemBuilder();
                 if (stateSystemBuilder == null) {
                     return;
                 }
-
-                while (!fFutureEvents.isEmpty()) {
-                    FutureEvent futureEvent = fFutureEvents.peek();
-                    while (futureEvent != null) {
-                        futureEvent = fFutureEvents.poll();
-                        if (futureEvent != null) {
-                            applyFutureEvent(futureEvent, stateSystemBuilder);
-                        }
-                        futureEvent = fFutureEvents.peek();
+                FutureEvent futureEvent = fFutureEvents.peek();
+                if (workers != null && futureEvent != null && currentTime >= futureEvent.fTime) {
+                    workers.barrier();
+                    fSafeTime = currentTime - 1;
+                }
+                while (futureEvent != null && (currentTime >= futureEvent.fTime)) {
+                    futureEvent = fFutureEvents.poll();
+                    if (futureEvent != null) {
+                        applyFutureEvent(futureEvent, stateSystemBuilder);
                     }
+                    futureEvent = fFutureEvents.peek();
+                }
+                if (workers == null) {
+                    eventHandle(event);
+                } else if (partitionKey == null) {
+                    workers.barrier();
+                    fSafeTime = currentTime - 1;
+                    eventHandle(event);
+                } else {
+                    workers.add(partitionKey, event);
                 }
-                /* We've received the last event, clean up */
-                done();
-                closeStateSystem();
+
+                event = fEventsQueue.take();
+            }
+            if (workers != null) {
+                workers.barrier();
+            }
+            fDone = true;
+            /*
+             * flush remaining states
+             */
+            ITmfStateSystemBuilder stateSystemBuilder = getStateSystemBuilder();
+            if (stateSystemBuilder == null) {
+                return;
             }
 
+            while (!fFutureEvents.isEmpty()) {
+                FutureEvent futureEvent = fFutureEvents.peek();
+                while (futureEvent != null) {
+                    futureEvent = fFutureEvents.poll();
+                    if (futureEvent != null) {
+                        applyFutureEvent(futureEvent, stateSystemBuilder);
+                    }
+                    futureEvent = fFutureEvents.peek();
+                }
+            }
+            /* We've received the last event, clean up */
+            done();
+            closeStateSystem();
         }
 
         private void applyFutureEvent(FutureEvent futureEvent, ITmfStateSystemBuilder stateSystemBuilder) {
@@ -428,7 +630,10 @@ public abstract class AbstractTmfStateProvider implements ITmfStateProvider {
 
     @Override
     public void addFutureEvent(long time, @Nullable Object futureValue, int attribute, FutureEventType type) {
-        fFutureEvents.add(new FutureEvent(time, futureValue, attribute, type));
+        /* The threads of a partitioned provider can add future events concurrently */
+        synchronized (fFutureEvents) {
+            fFutureEvents.add(new FutureEvent(time, futureValue, attribute, type));
+        }
     }
 
     // ------------------------------------------------------------------------
@@ -15,8 +15,15 @@
 
 package org.eclipse.tracecompass.tmf.core.statesystem;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -85,6 +92,11 @@ public abstract class TmfStateSystemAnalysisModule extends TmfAbstractAnalysisMo
     private static final Logger LOGGER = TraceCompassLog.getLogger(TmfStateSystemAnalysisModule.class);
 
     private static final String EXTENSION = ".ht"; //$NON-NLS-1$
+    private static final String RESUME_FILE_SUFFIX = ".resume"; //$NON-NLS-1$
+    private static final int RESUME_FILE_MAGIC = 0x05FFA902;
+
+    /* Size of the blocking queue to use when building a state history */
+    private static final int QUEUE_SIZE = 10000;
 
     private final CountDownLatch fInitialized = new CountDownLatch(1);
     private final Object fRequestSyncObj = new Object();
@@ -98,6 +110,9 @@ public abstract class TmfStateSystemAnalysisModule extends TmfAbstractAnalysisMo
 
     private volatile @Nullable ITmfStateProvider fStateProvider;
     private @Nullable Integer fProviderVersion = null;
+    private volatile boolean fSuspending = false;
+    /* The history was suspended, it cannot be suspended again */
+    private volatile boolean fSuspended = false;
 
     /**
      * State system backend types
@@ -167,6 +182,29 @@ public abstract class TmfStateSystemAnalysisModule extends TmfAbstractAnalysisMo
         return StateSystemBackendType.FULL;
     }
 
+    /**
+     * Whether the construction of a full history can be suspended when the
+     * module is disposed before the end of a trace that is still being
+     * written, and resumed from where it stopped the next time the trace is
+     * opened, instead of being rebuilt from the start. This applies only to
+     * traces that implement {@link ITmfTraceCompleteness} and are not complete,
+     * the history of a complete trace is closed normally once all its events
+     * are read.
+     *
+     * This is only correct if the state provider keeps all its state in the
+     * state system, as a resumed provider starts from the state system's
+     * ongoing state. The future events that were not applied yet when the
+     * construction is suspended are lost. It applies only to the
+     * {@link StateSystemBackendType#FULL} backend.
+     *
+     * @return True if the construction of the history can be resumed, false
+     *         by default
+     * @since 8.1
+     */
+    protected boolean isResumable() {
+        return false;
+    }
+
     /**
      * Get the supplementary file name where to save this state system. The default
      * is the ID of the analysis followed by the extension.
@@ -339,6 +377,7 @@ public abstract class TmfStateSystemAnalysisModule extends TmfAbstractAnalysisMo
 
     @Override
     public void dispose() {
+        suspendBuild();
         super.dispose();
         if (fStateSystem != null) {
             fStateSystem.dispose();
@@ -359,6 +398,28 @@ public abstract class TmfStateSystemAnalysisModule extends TmfAbstractAnalysisMo
         // TODO for now we assume it's complete. Might be a good idea to check
         // at least if its range matches the trace's range.
 
+        File resumeFile = new File(htFile.getPath() + RESUME_FILE_SUFFIX);
+        if (resumeFile.exists()) {
+            /*
+             * The construction of the history was suspended, resume it if
+             * possible. The history file is not complete, so it must be
+             * rebuilt otherwise.
+             */
+            ITmfStateSystemBuilder ss = (htFile.exists() && isResumable()) ? resumeFullHistory(id, provider, htFile, resumeFile) : null;
+            if (ss != null) {
+                fStateSystem = ss;
+                provider.assignTargetStateSystem(ss);
+                build(provider, true);
+                return;
+            }
+            try {
+                Files.deleteIfExists(resumeFile.toPath());
+                Files.deleteIfExists(htFile.toPath());
+            } catch (IOException e) {
+                throw new TmfTraceException(e.toString(), e);
+            }
+        }
+
         if (htFile.exists()) {
             /* Load an existing history */
             final int version = provider.getVersion();
@@ -377,15 +438,12 @@ public abstract class TmfStateSystemAnalysisModule extends TmfAbstractAnalysisMo
             }
         }
 
-        /* Size of the blocking queue to use when building a state history */
-        final int QUEUE_SIZE = 10000;
-
         try {
             IStateHistoryBackend backend = StateHistoryBackendFactory.createHistoryTreeBackendNewFile(
                     id, htFile, provider.getVersion(), provider.getStartTime(), QUEUE_SIZE);
             fStateSystem = StateSystemFactory.newStateSystem(backend);
             provider.assignTargetStateSystem(fStateSystem);
-            build(provider);
+            build(provider, false);
         } catch (IOException e) {
             /*
              * If it fails here however, it means there was a problem writing to the disk,
@@ -395,6 +453,111 @@ public abstract class TmfStateSystemAnalysisModule extends TmfAbstractAnalysisMo
         }
     }
 
+    /*
+     * Reopen a history file whose construction was suspended, with the ongoing
+     * state and the rank of the next event to read saved in the resume file.
+     * Returns null if the history cannot be resumed. The resume file is
+     * deleted once the history is reopened, so that it is rebuilt if it is
+     * not completed or suspended again.
+     */
+    private @Nullable ITmfStateSystemBuilder resumeFullHistory(String id, ITmfStateProvider provider, File htFile, File resumeFile) {
+        IStateHistoryBackend backend = null;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(resumeFile)))) {
+            if (input.readInt() != RESUME_FILE_MAGIC) {
+                return null;
+            }
+            int nbRead = input.readInt();
+            backend = StateHistoryBackendFactory.resumeHistoryTreeBackend(id, htFile, provider.getVersion(), QUEUE_SIZE);
+            ITmfStateSystemBuilder ss = StateSystemFactory.resumeStateSystem(backend, input);
+            Files.delete(resumeFile.toPath());
+            fNbRead = nbRead;
+            return ss;
+        } catch (IOException e) {
+            Activator.logWarning("Could not resume the construction of the history " + htFile, e); //$NON-NLS-1$
+            if (backend != null) {
+                backend.dispose();
+            }
+            return null;
+        }
+    }
+
+    /*
+     * Suspend the construction of a full history that was not completed
+     * because the trace is still being written. The history is closed at the
+     * latest state change and the ongoing state is saved with the rank of the
+     * next event to read, so that the construction can be resumed by
+     * resumeFullHistory() the next time the trace is opened.
+     */
+    private void suspendBuild() {
+        ITmfStateProvider provider = fStateProvider;
+        ITmfStateSystemBuilder ss = fStateSystem;
+        File htFile = getSsFile();
+        if (fSuspended || !isSuspendable() || !(provider instanceof AbstractTmfStateProvider) ||
+                ss == null || htFile == null || isCompleteTrace(provider.getTrace())) {
+            return;
+        }
+        ITmfEventRequest request;
+        synchronized (fRequestSyncObj) {
+            /* Do not start any new request for this provider */
+            fSuspending = true;
+            fStateProvider = null;
+            request = fRequest;
+        }
+        int nbRead = fNbRead;
+        try {
+            if (request != null) {
+                if (!request.isCompleted()) {
+                    request.cancel();
+                }
+                request.waitForCompletion();
+                if (request.isFailed()) {
+                    throw new IOException("The event request failed"); //$NON-NLS-1$
+                }
+                /* A successful request already added its events to fNbRead */
+                nbRead = request.isCancelled() ? fNbRead + request.getNbRead() : fNbRead;
+            }
+        } catch (IOException | InterruptedException e) {
+            Activator.logWarning("Could not suspend the construction of the history " + htFile, e); //$NON-NLS-1$
+            provider.dispose();
+            ss.removeFiles();
+            completingBuild(true);
+            return;
+        }
+        suspendHistory((AbstractTmfStateProvider) provider, ss, htFile, nbRead);
+    }
+
+    private boolean isSuspendable() {
+        return isResumable() && getBackendType() == StateSystemBackendType.FULL;
+    }
+
+    /*
+     * Write the ongoing state of the history and the rank of the next event to
+     * read to the resume file, and suspend the construction of the history.
+     * The suspended history can still be queried. The provider is disposed,
+     * and the files are deleted if the history cannot be suspended.
+     */
+    private void suspendHistory(AbstractTmfStateProvider provider, ITmfStateSystemBuilder ss, File htFile, int nbRead) {
+        File resumeFile = new File(htFile.getPath() + RESUME_FILE_SUFFIX);
+        provider.waitForEmptyQueue();
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(resumeFile)))) {
+            output.writeInt(RESUME_FILE_MAGIC);
+            output.writeInt(nbRead);
+            ss.suspendHistory(output);
+        } catch (IOException e) {
+            Activator.logWarning("Could not suspend the construction of the history " + htFile, e); //$NON-NLS-1$
+            resumeFile.delete();
+            provider.dispose();
+            ss.removeFiles();
+            completingBuild(true);
+            return;
+        }
+        fNbRead = nbRead;
+        fSuspended = true;
+        /* The history is suspended, closing it does nothing */
+        provider.dispose();
+        completingBuild(false);
+    }
+
     /*
      * Create a new state system backed with a partial history. A partial history is
      * similar to a "full" one (which you get with {@link #newFullHistory}), except
@@ -403,6 +566,9 @@ public abstract class TmfStateSystemAnalysisModule extends TmfAbstractAnalysisMo
      * Also note that single-queries are implemented using a full-query underneath,
      * (which are much slower), so this might not be a good fit for a use case where
      * you have to do lots of single queries.
+     *
+     * If the history file and its checkpoints already exist, they are opened
+     * directly.
      */
     private void createPartialHistory(String id, ITmfStateProvider provider, File htPartialFile)
             throws TmfTraceException {
@@ -426,18 +592,29 @@ public abstract class TmfStateSystemAnalysisModule extends TmfAbstractAnalysisMo
          * thing.</li></li>
          */
 
-        /* Size of the blocking queue to use when building a state history */
-        final int QUEUE_SIZE = 10000;
-
         final long granularity = 50000;
 
         /* 2 */
+        File checkpointsFile = new File(htPartialFile.getPath() + PartialHistoryBackend.CHECKPOINTS_FILE_SUFFIX);
         IStateHistoryBackend realBackend = null;
-        try {
-            realBackend = StateHistoryBackendFactory.createHistoryTreeBackendNewFile(
-                    id, htPartialFile, provider.getVersion(), provider.getStartTime(), QUEUE_SIZE);
-        } catch (IOException e) {
-            throw new TmfTraceException(e.toString(), e);
+        if (htPartialFile.exists() && checkpointsFile.exists()) {
+            /* The checkpoints are only saved once the history is complete */
+            try {
+                realBackend = StateHistoryBackendFactory.createHistoryTreeBackendExistingFile(
+                        id, htPartialFile, provider.getVersion());
+            } catch (IOException e) {
+                /* Rebuild the history from scratch */
+            }
+        }
+        boolean existing = (realBackend != null);
+        if (realBackend == null) {
+            try {
+                Files.deleteIfExists(checkpointsFile.toPath());
+                realBackend = StateHistoryBackendFactory.createHistoryTreeBackendNewFile(
+                        id, htPartialFile, provider.getVersion(), provider.getStartTime(), QUEUE_SIZE);
+            } catch (IOException e) {
+                throw new TmfTraceException(e.toString(), e);
+            }
         }
 
         /* 3a */
@@ -454,21 +631,38 @@ public abstract class TmfStateSystemAnalysisModule extends TmfAbstractAnalysisMo
         partialProvider.assignTargetStateSystem(pss);
 
         /* 3 */
-        IStateHistoryBackend partialBackend = new PartialHistoryBackend(id + ".partial", partialProvider, pss, realBackend, granularity, backend); //$NON-NLS-1$
+        IStateHistoryBackend partialBackend = new PartialHistoryBackend(id + ".partial", partialProvider, pss, realBackend, granularity, backend, checkpointsFile); //$NON-NLS-1$
 
         /* 4 */
-        ITmfStateSystemBuilder realSS = StateSystemFactory.newStateSystem(partialBackend);
+        ITmfStateSystemBuilder realSS;
+        if (existing) {
+            try {
+                realSS = StateSystemFactory.newStateSystem(partialBackend, false);
+            } catch (IOException e) {
+                partialBackend.dispose();
+                throw new TmfTraceException(e.toString(), e);
+            }
+        } else {
+            realSS = StateSystemFactory.newStateSystem(partialBackend);
+        }
 
         /* 5 */
         pss.assignUpstream(realSS);
 
+        if (existing) {
+            /* The history is complete, there is nothing to build */
+            fStateSystem = realSS;
+            analysisReady(true);
+            return;
+        }
+
         /* 6 */
         provider.assignTargetStateSystem(realSS);
 
         /* 7 */
         fStateSystem = realSS;
 
-        build(provider);
+        build(provider, false);
     }
 
     /*
@@ -480,7 +674,7 @@ public abstract class TmfStateSystemAnalysisModule extends TmfAbstractAnalysisMo
         IStateHistoryBackend backend = StateHistoryBackendFactory.createNullBackend(id);
         fStateSystem = StateSystemFactory.newStateSystem(backend);
         provider.assignTargetStateSystem(fStateSystem);
-        build(provider);
+        build(provider, false);
     }
 
     /*
@@ -492,7 +686,7 @@ public abstract class TmfStateSystemAnalysisModule extends TmfAbstractAnalysisMo
         IStateHistoryBackend backend = StateHistoryBackendFactory.createInMemoryBackend(id, provider.getStartTime());
         fStateSystem = StateSystemFactory.newStateSystem(backend);
         provider.assignTargetStateSystem(fStateSystem);
-        build(provider);
+        build(provider, false);
     }
 
     private void createCustomHistory(String id, ITmfStateProvider provider) throws TmfTraceException {
@@ -509,7 +703,7 @@ public abstract class TmfStateSystemAnalysisModule extends TmfAbstractAnalysisMo
         @NonNull ITmfStateSystemBuilder stateSystemBuilder = StateSystemFactory.newStateSystem(backend);
         fStateSystem = stateSystemBuilder;
         provider.assignTargetStateSystem(stateSystemBuilder);
-        build(provider);
+        build(provider, false);
     }
 
     /**
@@ -531,6 +725,10 @@ public abstract class TmfStateSystemAnalysisModule extends TmfAbstractAnalysisMo
     }
 
     private void disposeProvider(boolean deleteFiles) {
+        if (fSuspending) {
+            /* The provider is disposed when the history is suspended */
+            return;
+        }
         ITmfStateProvider provider = fStateProvider;
         boolean shouldDeleteFiles = deleteFiles;
         if (provider != null) {
@@ -566,7 +764,7 @@ public abstract class TmfStateSystemAnalysisModule extends TmfAbstractAnalysisMo
         // Nothing to do, classes may override this
     }
 
-    private void build(ITmfStateProvider provider) {
+    private void build(ITmfStateProvider provider, boolean resumed) {
         if (fStateSystem == null) {
             throw new IllegalArgumentException();
         }
@@ -574,9 +772,11 @@ public abstract class TmfStateSystemAnalysisModule extends TmfAbstractAnalysisMo
         /*
          * Note we have to do this before fStateProvider is assigned. After that, the
          * signal listener below will start sending real trace events through the state
-         * provider.
+         * provider. A resumed history already contains the initial state.
          */
-        loadInitialState(provider);
+        if (!resumed) {
+            loadInitialState(provider);
+        }
 
         /* Continue on initializing the event request to read trace events. */
         ITmfEventRequest request = fRequest;
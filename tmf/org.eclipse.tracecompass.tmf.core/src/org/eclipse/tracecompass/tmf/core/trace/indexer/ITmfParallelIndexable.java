@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License 2.0 which
+ * accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.tracecompass.tmf.core.trace.indexer;
+
+import java.util.List;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.checkpoint.ITmfCheckpoint;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.checkpoint.TmfCheckpointIndexer;
+
+/**
+ * A trace implementing this interface can compute the checkpoints of its index
+ * without reading all its events in order, for example by reading parts of the
+ * trace concurrently. The {@link TmfCheckpointIndexer} then inserts these
+ * checkpoints instead of indexing the trace with an event request.
+ *
+ * @since 8.1
+ */
+public interface ITmfParallelIndexable {
+
+    /**
+     * Compute the checkpoints of the whole trace. The checkpoint at position
+     * <code>i</code> must be the one that would be taken at the event of rank
+     * <code>i * interval</code> when reading the trace from its start. The
+     * trace also updates its number of events and its time range.
+     *
+     * @param interval
+     *            the number of events between two checkpoints
+     * @param monitor
+     *            the progress monitor, which can cancel the computation
+     * @return the checkpoints in rank order, or null if they cannot be
+     *         computed this way or if the computation was cancelled
+     */
+    @Nullable List<ITmfCheckpoint> computeCheckpoints(int interval, IProgressMonitor monitor);
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2014 Ericsson
+ * Copyright (c) 2013, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -18,6 +18,7 @@ import java.io.File;
 
 import org.eclipse.tracecompass.internal.tmf.core.trace.indexer.BTree;
 import org.eclipse.tracecompass.internal.tmf.core.trace.indexer.FlatArray;
+import org.eclipse.tracecompass.internal.tmf.core.trace.indexer.MappedBTree;
 import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimeRange;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
 import org.eclipse.tracecompass.tmf.core.trace.TmfTraceManager;
@@ -34,6 +35,14 @@ import org.eclipse.tracecompass.tmf.core.trace.indexer.checkpoint.ITmfCheckpoint
  */
 public class TmfBTreeTraceIndex implements ITmfCheckpointIndex {
 
+    /**
+     * System property to read the nodes of the BTree through memory-mapped
+     * regions of its file
+     *
+     * @since 8.1
+     */
+    public static final String MAPPED_INDEX_PROPERTY = "org.eclipse.tracecompass.tmf.core.mappedIndex"; //$NON-NLS-1$
+
     private final BTree fCheckpoints;
     private final FlatArray fCheckpointRanks;
 
@@ -65,6 +74,9 @@ public class TmfBTreeTraceIndex implements ITmfCheckpointIndex {
     }
 
     private static BTree createBTree(ITmfTrace trace) {
+        if (Boolean.getBoolean(MAPPED_INDEX_PROPERTY)) {
+            return new MappedBTree(BTREE_DEGREE, getIndexFile(trace, BTree.INDEX_FILE_NAME), (ITmfPersistentlyIndexable) trace);
+        }
         return new BTree(BTREE_DEGREE, getIndexFile(trace, BTree.INDEX_FILE_NAME), (ITmfPersistentlyIndexable)trace);
     }
 
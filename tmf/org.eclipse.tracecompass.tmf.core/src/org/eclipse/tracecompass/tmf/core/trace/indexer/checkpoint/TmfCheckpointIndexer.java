@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2016 Ericsson
+ * Copyright (c) 2012, 2026 Ericsson
  *
  * All rights reserved. This program and the accompanying materials are
  * made available under the terms of the Eclipse Public License 2.0 which
@@ -15,6 +15,7 @@
 
 package org.eclipse.tracecompass.tmf.core.trace.indexer.checkpoint;
 
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -41,6 +42,7 @@ import org.eclipse.tracecompass.tmf.core.timestamp.TmfTimestamp;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfContext;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTrace;
 import org.eclipse.tracecompass.tmf.core.trace.ITmfTraceKnownSize;
+import org.eclipse.tracecompass.tmf.core.trace.indexer.ITmfParallelIndexable;
 import org.eclipse.tracecompass.tmf.core.trace.indexer.ITmfTraceIndexer;
 import org.eclipse.tracecompass.tmf.core.trace.location.ITmfLocation;
 
@@ -88,7 +90,13 @@ public class TmfCheckpointIndexer implements ITmfTraceIndexer {
     /**
      * The indexing request
      */
-    private ITmfEventRequest fIndexingRequest = null;
+    private volatile ITmfEventRequest fIndexingRequest = null;
+
+    /**
+     * The job computing the checkpoints of a trace that can be indexed in
+     * parallel
+     */
+    private volatile Job fParallelIndexingJob = null;
 
     /** Whether or not the index was built once */
     private boolean fBuiltOnce;
@@ -140,6 +148,10 @@ public class TmfCheckpointIndexer implements ITmfTraceIndexer {
         if ((fIndexingRequest != null) && !fIndexingRequest.isCompleted()) {
             fIndexingRequest.cancel();
         }
+        Job parallelIndexingJob = fParallelIndexingJob;
+        if (parallelIndexingJob != null) {
+            parallelIndexingJob.cancel();
+        }
 
         fTraceIndex.dispose();
     }
@@ -183,6 +195,36 @@ public class TmfCheckpointIndexer implements ITmfTraceIndexer {
 
         TmfCoreTracer.traceIndexer("buildIndex. offset: " + indexingOffset + " (requested " + offset + ")" + " time range: " + range); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
 
+        // Compute the checkpoints without a request if the trace can
+        if (indexingOffset == 0 && TmfTimeRange.ETERNITY.equals(indexingTimeRange) && fTraceIndex.isEmpty()
+                && fTrace instanceof ITmfParallelIndexable) {
+            Job job = new TmfParallelIndexingJob((ITmfParallelIndexable) fTrace);
+            job.setSystem(fBuiltOnce);
+            fParallelIndexingJob = job;
+            job.schedule();
+            if (waitForCompletion) {
+                try {
+                    job.join();
+                } catch (final InterruptedException e) {
+                }
+            }
+            return;
+        }
+        indexWithRequest(indexingOffset, indexingTimeRange, waitForCompletion);
+    }
+
+    /**
+     * Index the trace with a background request reading its events
+     *
+     * @param indexingOffset
+     *            the rank of the first event to index
+     * @param indexingTimeRange
+     *            the time range to index
+     * @param waitForCompletion
+     *            whether to wait for the indexing to complete
+     */
+    private void indexWithRequest(final long indexingOffset, final TmfTimeRange indexingTimeRange, final boolean waitForCompletion) {
+
         // The monitoring job
         TmfIndexingJob job = new TmfIndexingJob("Indexing " + fTrace.getName() + "..."); //$NON-NLS-1$ //$NON-NLS-2$
         job.setSystem(fBuiltOnce);
@@ -191,7 +233,7 @@ public class TmfCheckpointIndexer implements ITmfTraceIndexer {
 
         // Build a background request for all the trace data. The index is
         // updated as we go by readNextEvent().
-        fIndexingRequest = new TmfEventRequest(ITmfEvent.class,
+        ITmfEventRequest request = new TmfEventRequest(ITmfEvent.class,
                 indexingTimeRange, indexingOffset, ITmfEventRequest.ALL_DATA,
                 ITmfEventRequest.ExecutionType.BACKGROUND) {
             @Override
@@ -232,10 +274,11 @@ public class TmfCheckpointIndexer implements ITmfTraceIndexer {
         };
 
         // Submit the request and wait for completion if required
-        fTrace.sendRequest(fIndexingRequest);
+        fIndexingRequest = request;
+        fTrace.sendRequest(request);
         if (waitForCompletion) {
             try {
-                fIndexingRequest.waitForCompletion();
+                request.waitForCompletion();
             } catch (final InterruptedException e) {
             }
         }
@@ -356,6 +399,61 @@ public class TmfCheckpointIndexer implements ITmfTraceIndexer {
         return fTraceIndex;
     }
 
+    /**
+     * Insert checkpoints computed by the trace. The checkpoints that were
+     * already added while the trace was read are kept.
+     *
+     * @param checkpoints
+     *            the checkpoints of the whole trace, in rank order
+     */
+    private synchronized void insertCheckpoints(List<ITmfCheckpoint> checkpoints) {
+        for (long position = fTraceIndex.size(); position < checkpoints.size(); position++) {
+            ITmfCheckpoint checkpoint = checkpoints.get((int) position);
+            TmfCoreTracer.traceIndexer("Inserting checkpoint: " + checkpoint); //$NON-NLS-1$
+            fTraceIndex.insert(checkpoint);
+        }
+    }
+
+    private final class TmfParallelIndexingJob extends Job {
+        private final ITmfParallelIndexable fIndexable;
+
+        private TmfParallelIndexingJob(ITmfParallelIndexable indexable) {
+            super(Messages.TmfCheckpointIndexer_Indexing + ' ' + fTrace.getName());
+            fIndexable = indexable;
+        }
+
+        @Override
+        protected IStatus run(final IProgressMonitor monitor) {
+            try {
+                List<ITmfCheckpoint> checkpoints = fIndexable.computeCheckpoints(fCheckpointInterval, monitor);
+                if (monitor.isCanceled()) {
+                    fIsIndexing = false;
+                    return Status.CANCEL_STATUS;
+                }
+                if (checkpoints == null) {
+                    // Read the events instead, this job waits for the request
+                    indexWithRequest(0, TmfTimeRange.ETERNITY, true);
+                    return Status.OK_STATUS;
+                }
+                insertCheckpoints(checkpoints);
+                fBuiltOnce = true;
+                fTraceIndex.setTimeRange(fTrace.getTimeRange());
+                fTraceIndex.setNbEvents(fTrace.getNbEvents());
+                if (fTrace.getNbEvents() > 0) {
+                    signalNewTimeRange(fTrace.getStartTime(), fTrace.getEndTime());
+                }
+                fIsIndexing = false;
+                TmfCoreTracer.traceIndexer("Parallel indexing completed. nbEvents: " + fTraceIndex.getNbEvents() + " time range: " + fTraceIndex.getTimeRange()); //$NON-NLS-1$ //$NON-NLS-2$
+                return Status.OK_STATUS;
+            } catch (RuntimeException e) {
+                fIsIndexing = false;
+                return new Status(IStatus.ERROR, Activator.PLUGIN_ID, e.getMessage(), e);
+            } finally {
+                monitor.done();
+            }
+        }
+    }
+
     private final class TmfIndexingJob extends Job {
         private Exception fException = null;
         private final ITmfTraceKnownSize fTraceWithSize;